@@ -28,20 +28,14 @@ import static com.android.tv.settings.overlay.FlavorUtils.FLAVOR_X;
 import static com.android.tv.settings.util.InstrumentationUtils.logEntrySelected;
 import static com.android.tv.settings.util.InstrumentationUtils.logPageFocused;
 
-import android.accounts.Account;
-import android.accounts.AccountManager;
 import android.app.tvsettings.TvSettingsEnums;
 import android.bluetooth.BluetoothAdapter;
-import android.bluetooth.BluetoothDevice;
-import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.IntentFilter;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.content.pm.ProviderInfo;
 import android.content.pm.ResolveInfo;
-import android.content.res.Resources;
 import android.graphics.drawable.Drawable;
 import android.icu.text.MessageFormat;
 import android.net.Uri;
@@ -49,7 +43,6 @@ import android.os.Bundle;
 import android.service.settings.suggestions.Suggestion;
 import android.telephony.CellSignalStrength;
 import android.text.TextUtils;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -73,7 +66,6 @@ import com.android.tv.settings.customization.PartnerPreferencesMerger;
 import com.android.tv.settings.overlay.FlavorUtils;
 import com.android.tv.settings.suggestions.SuggestionPreference;
 import com.android.tv.settings.system.SecurityFragment;
-import com.android.tv.settings.util.SliceUtils;
 import com.android.tv.twopanelsettings.TwoPanelSettingsFragment;
 import com.android.tv.twopanelsettings.slices.SlicePreference;
 
@@ -82,7 +74,6 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 /**
  * The fragment where all good things begin. Evil is handled elsewhere.
@@ -130,16 +121,15 @@ public class MainFragment extends PreferenceControllerFragment implements
     boolean mHasBtAccessories;
     @VisibleForTesting
     boolean mHasAccounts;
+    @VisibleForTesting
+    MainMenuModel mMainMenuModel;
+    @VisibleForTesting
+    MainRowsLoader mRowsLoader;
+    // The snapshot the account and accessory rows currently reflect.
+    private MainRowsSnapshot mAppliedRows;
 
     private SuggestionQuickSettingPrefsContainer mSuggestionQuickSettingPrefsContainer;
 
-    private final BroadcastReceiver mBCMReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            updateAccessoryPref();
-        }
-    };
-
     private ConnectivityListenerLite mConnectivityListenerLite;
 
     public static MainFragment newInstance() {
@@ -165,6 +155,19 @@ public class MainFragment extends PreferenceControllerFragment implements
     public void onAttach(Context context) {
         mSuggestionQuickSettingPrefsContainer = new SuggestionQuickSettingPrefsContainer(this);
         super.onAttach(context);
+        getMainMenuModel().preload(
+                new String[] {ACTION_SOUND, ACTION_CONNECTED_DEVICES, ACTION_ACCOUNTS},
+                new String[] {
+                        context.getString(R.string.connected_devices_slice_uri),
+                        context.getString(R.string.channels_and_inputs_slice_uri),
+                        context.getString(R.string.account_slice_uri)});
+    }
+
+    private MainMenuModel getMainMenuModel() {
+        if (mMainMenuModel == null) {
+            mMainMenuModel = MainMenuModel.getInstance(getContext());
+        }
+        return mMainMenuModel;
     }
 
     @Override
@@ -179,6 +182,8 @@ public class MainFragment extends PreferenceControllerFragment implements
                     getContext(), this::updateConnectivity, getSettingsLifecycle()));
         }
         mBtAdapter = BluetoothAdapter.getDefaultAdapter();
+        mRowsLoader = createRowsLoader(this::applyRows);
+        mRowsLoader.register();
         super.onCreate(savedInstanceState);
         // This is to record the initial start of Settings root in two panel settings case, as the
         // MainFragment is the left-most pane and will not be slided in from preview pane. For
@@ -189,6 +194,11 @@ public class MainFragment extends PreferenceControllerFragment implements
         }
     }
 
+    @VisibleForTesting
+    MainRowsLoader createRowsLoader(MainRowsLoader.Callback callback) {
+        return new MainRowsLoader(getContext(), getMainMenuModel(), mBtAdapter, callback);
+    }
+
     private boolean isWifiScanOptimisationEnabled() {
         return getContext().getResources().getBoolean(R.bool.wifi_scan_optimisation_enabled);
     }
@@ -197,8 +207,14 @@ public class MainFragment extends PreferenceControllerFragment implements
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
             Bundle savedInstanceState) {
         mSuggestionQuickSettingPrefsContainer.showOrHideQuickSettings();
-        updateAccountPref();
-        updateAccessoryPref();
+        mAppliedRows = null;
+        // The current rows are loaded in the background from onStart().
+        final MainRowsSnapshot cachedRows = mRowsLoader.getCachedSnapshot();
+        if (cachedRows != null) {
+            applyRows(cachedRows);
+        } else {
+            showPlaceholderAccountRows();
+        }
         if (isWifiScanOptimisationEnabled()) {
             mConnectivityListenerLite.handleConnectivityChange();
         } else {
@@ -343,20 +359,20 @@ public class MainFragment extends PreferenceControllerFragment implements
     void updateSoundSettings() {
         final Preference soundPref = findPreference(KEY_SOUND);
         if (soundPref != null) {
-            Intent soundIntent = new Intent(ACTION_SOUND);
-            final ResolveInfo info = systemIntentIsHandled(getContext(), soundIntent);
+            final ResolveInfo info = getMainMenuModel().getSystemActivity(ACTION_SOUND);
             soundPref.setVisible(info != null);
             if (info != null && info.activityInfo != null) {
-                String pkgName = info.activityInfo.packageName;
-                Drawable icon = getDrawableResource(pkgName, "sound_icon");
+                MainMenuModel.PartnerResources res =
+                        getMainMenuModel().getPartnerResources(info.activityInfo.packageName);
+                Drawable icon = res.getDrawable("sound_icon");
                 if (icon != null) {
                     soundPref.setIcon(icon);
                 }
-                String title = getStringResource(pkgName, "sound_pref_title");
+                String title = res.getString("sound_pref_title");
                 if (!TextUtils.isEmpty(title)) {
                     soundPref.setTitle(title);
                 }
-                String summary = getStringResource(pkgName, "sound_pref_summary");
+                String summary = res.getString("sound_pref_summary");
                 if (!TextUtils.isEmpty(summary)) {
                     soundPref.setSummary(summary);
                 }
@@ -364,48 +380,6 @@ public class MainFragment extends PreferenceControllerFragment implements
         }
     }
 
-    /**
-     * Extracts a string resource from a given package.
-     *
-     * @param pkgName  the package name
-     * @param resource name, e.g. "my_string_name"
-     */
-    private String getStringResource(String pkgName, String resourceName) {
-        try {
-            Context targetContext = getContext().createPackageContext(pkgName, 0);
-            int resId = targetContext.getResources().getIdentifier(
-                    pkgName + ":string/" + resourceName, null, null);
-            if (resId != 0) {
-                return targetContext.getResources().getString(resId);
-            }
-        } catch (Resources.NotFoundException | PackageManager.NameNotFoundException
-                | SecurityException e) {
-            Log.w(TAG, "Unable to get string resource " + resourceName, e);
-        }
-        return null;
-    }
-
-    /**
-     * Extracts an drawable resource from a given package.
-     *
-     * @param pkgName  the package name
-     * @param resource name, e.g. "my_icon_name"
-     */
-    private Drawable getDrawableResource(String pkgName, String resourceName) {
-        try {
-            Context targetContext = getContext().createPackageContext(pkgName, 0);
-            int resId = targetContext.getResources().getIdentifier(
-                    pkgName + ":drawable/" + resourceName, null, null);
-            if (resId != 0) {
-                return targetContext.getResources().getDrawable(resId);
-            }
-        } catch (Resources.NotFoundException | PackageManager.NameNotFoundException
-                | SecurityException e) {
-            Log.w(TAG, "Unable to get drawable resource " + resourceName, e);
-        }
-        return null;
-    }
-
     /**
      * Returns the ResolveInfo for the system activity that matches given intent filter or null if
      * no such activity exists.
@@ -430,28 +404,28 @@ public class MainFragment extends PreferenceControllerFragment implements
         return null;
     }
 
-    private static ProviderInfo getProviderInfo(Context context, String authority) {
-        return context.getPackageManager().resolveContentProvider(authority, 0);
-    }
-
     private boolean isRestricted() {
         return SecurityFragment.isRestrictedProfileInEffect(getContext());
     }
 
     @VisibleForTesting
     void updateAccessoryPref() {
+        updateAccessoryPref(MainRowsSnapshot.hasBtAccessories(mBtAdapter));
+    }
+
+    private void updateAccessoryPref(boolean hasBtAccessories) {
         SlicePreference connectedDevicesSlicePreference =
                 (SlicePreference) findPreference(KEY_CONNECTED_DEVICES_SLICE);
         Preference accessoryPreference = findPreference(KEY_ACCESSORIES);
         Preference connectedDevicesPreference = findPreference(KEY_CONNECTED_DEVICES);
         if (connectedDevicesSlicePreference != null
                 && FlavorUtils.isTwoPanel(getContext())
-                && SliceUtils.isSliceProviderValid(
-                getContext(), connectedDevicesSlicePreference.getUri())) {
+                && getMainMenuModel().isSliceProviderValid(
+                connectedDevicesSlicePreference.getUri())) {
             connectedDevicesSlicePreference.setVisible(true);
             connectedDevicesPreference.setVisible(false);
             accessoryPreference.setVisible(false);
-            ProviderInfo pkgInfo = getProviderInfo(getContext(),
+            ProviderInfo pkgInfo = getMainMenuModel().getProviderInfo(
                     Uri.parse(connectedDevicesSlicePreference.getUri()).getAuthority());
             if (pkgInfo != null) {
                 updateConnectedDevicePref(pkgInfo.packageName, connectedDevicesSlicePreference);
@@ -464,8 +438,7 @@ public class MainFragment extends PreferenceControllerFragment implements
         }
 
         if (connectedDevicesPreference != null) {
-            Intent intent = new Intent(ACTION_CONNECTED_DEVICES);
-            ResolveInfo info = systemIntentIsHandled(getContext(), intent);
+            ResolveInfo info = getMainMenuModel().getSystemActivity(ACTION_CONNECTED_DEVICES);
             connectedDevicesPreference.setVisible(info != null);
             accessoryPreference.setVisible(info == null);
             if (info != null) {
@@ -478,19 +451,28 @@ public class MainFragment extends PreferenceControllerFragment implements
             return;
         }
 
-        final Set<BluetoothDevice> bondedDevices = mBtAdapter.getBondedDevices();
-        mHasBtAccessories = bondedDevices.size() != 0;
+        mHasBtAccessories = hasBtAccessories;
     }
 
     @VisibleForTesting
     void updateAccountPref() {
+        updateAccountPref(AccountsUtil.getAccountsFragmentToLaunch(getContext(),
+                getMainMenuModel()), null);
+    }
+
+    /**
+     * Updates the account rows for the given fragment type. The accounts row info comes from the
+     * given snapshot, or is loaded synchronously if it's null.
+     */
+    private void updateAccountPref(@AccountsUtil.AccountsFragmentType int fragmentType,
+            MainRowsSnapshot snapshot) {
         Preference accountsPref = findPreference(KEY_ACCOUNTS_AND_SIGN_IN);
         SlicePreference accountsSlicePref =
                 (SlicePreference) findPreference(KEY_ACCOUNTS_AND_SIGN_IN_SLICE);
         Preference accountsBasicMode = findPreference(KEY_ACCOUNTS_AND_SIGN_IN_BASIC_MODE);
         Intent intent = new Intent(ACTION_ACCOUNTS);
 
-        switch(AccountsUtil.getAccountsFragmentToLaunch(getContext())) {
+        switch(fragmentType) {
             case ACCOUNTS_FRAGMENT_RESTRICTED: {
                 // Use the bundled AccountsFragment if restriction active
                 if (accountsBasicMode != null) {
@@ -548,7 +530,12 @@ public class MainFragment extends PreferenceControllerFragment implements
             default: {
                 if (accountsPref != null) {
                     accountsPref.setVisible(true);
-                    updateAccountPrefInfo();
+                    if (snapshot != null) {
+                        updateAccountPrefInfo(snapshot.accountNames,
+                                snapshot.allowableAccountTypes);
+                    } else {
+                        updateAccountPrefInfo();
+                    }
                 }
                 if (accountsSlicePref != null) {
                     accountsSlicePref.setVisible(false);
@@ -562,33 +549,61 @@ public class MainFragment extends PreferenceControllerFragment implements
 
     @VisibleForTesting
     void updateAccountPrefInfo() {
+        final List<String> accountNames = MainRowsSnapshot.loadAccountNames(getContext());
+        updateAccountPrefInfo(accountNames,
+                MainRowsSnapshot.loadAllowableAccountTypes(getContext(), accountNames));
+    }
+
+    private void updateAccountPrefInfo(List<String> accountNames,
+            String[] allowableAccountTypes) {
         Preference accountsPref = findPreference(KEY_ACCOUNTS_AND_SIGN_IN);
         if (accountsPref != null && accountsPref.isVisible()) {
-            final AccountManager am = AccountManager.get(getContext());
-            Account[] accounts = am.getAccounts();
-            if (accounts.length == 0) {
+            if (accountNames.isEmpty()) {
                 mHasAccounts = false;
                 accountsPref.setIcon(R.drawable.ic_add_an_account);
                 accountsPref.setSummary(R.string.accounts_category_summary_no_account);
-                AccountsFragment.setUpAddAccountPrefIntent(accountsPref, getContext());
+                AccountsFragment.setUpAddAccountPrefIntent(accountsPref, allowableAccountTypes);
             } else {
                 mHasAccounts = true;
                 accountsPref.setIcon(R.drawable.ic_accounts_and_sign_in);
-                if (accounts.length == 1) {
-                    accountsPref.setSummary(accounts[0].name);
+                if (accountNames.size() == 1) {
+                    accountsPref.setSummary(accountNames.get(0));
                 } else {
                     MessageFormat msgFormat = new MessageFormat(
                             getContext().getResources().getString(
                                     R.string.accounts_category_summary),
                             Locale.getDefault());
                     Map<String, Object> arguments = new HashMap<>();
-                    arguments.put("count", accounts.length);
+                    arguments.put("count", accountNames.size());
                     accountsPref.setSummary(msgFormat.format(arguments));
                 }
             }
         }
     }
 
+    /** Shows a single accounts row until the accounts are loaded. */
+    private void showPlaceholderAccountRows() {
+        final Preference accountsSlicePref = findPreference(KEY_ACCOUNTS_AND_SIGN_IN_SLICE);
+        if (accountsSlicePref != null) {
+            accountsSlicePref.setVisible(false);
+        }
+        final Preference accountsBasicMode = findPreference(KEY_ACCOUNTS_AND_SIGN_IN_BASIC_MODE);
+        if (accountsBasicMode != null) {
+            accountsBasicMode.setVisible(false);
+        }
+    }
+
+    /** Applies the parts of the snapshot that differ from the currently applied one. */
+    private void applyRows(MainRowsSnapshot snapshot) {
+        if (!snapshot.sameAccountRows(mAppliedRows)) {
+            updateAccountPref(snapshot.accountsFragmentType, snapshot);
+        }
+        if (!snapshot.sameAccessoryRows(mAppliedRows)) {
+            updateAccessoryPref(snapshot.hasBtAccessories);
+        }
+        mAppliedRows = snapshot;
+    }
+
     @VisibleForTesting
     void updateBasicModeSuggestion() {
         PreferenceCategory basicModeSuggestion = findPreference(KEY_BASIC_MODE_SUGGESTION);
@@ -609,8 +624,8 @@ public class MainFragment extends PreferenceControllerFragment implements
                 (SlicePreference) findPreference(KEY_CHANNELS_AND_INPUTS_SLICE);
         if (channelsAndInputsSlicePreference != null
                 && FlavorUtils.isTwoPanel(getContext())
-                && SliceUtils.isSliceProviderValid(
-                getContext(), channelsAndInputsSlicePreference.getUri())) {
+                && getMainMenuModel().isSliceProviderValid(
+                channelsAndInputsSlicePreference.getUri())) {
             channelsAndInputsSlicePreference.setVisible(true);
             if (channelsAndInputsPreference != null) {
                 channelsAndInputsPreference.setVisible(false);
@@ -621,19 +636,13 @@ public class MainFragment extends PreferenceControllerFragment implements
     @Override
     public void onStart() {
         super.onStart();
-        updateAccountPref();
-        updateAccessoryPref();
-        IntentFilter btChangeFilter = new IntentFilter();
-        btChangeFilter.addAction(BluetoothDevice.ACTION_ACL_CONNECTED);
-        btChangeFilter.addAction(BluetoothDevice.ACTION_ACL_DISCONNECTED);
-        btChangeFilter.addAction(BluetoothAdapter.ACTION_STATE_CHANGED);
-        getContext().registerReceiver(mBCMReceiver, btChangeFilter);
+        mRowsLoader.start();
     }
 
     @Override
     public void onStop() {
         super.onStop();
-        getContext().unregisterReceiver(mBCMReceiver);
+        mRowsLoader.stop();
     }
 
     @Override
@@ -663,6 +672,7 @@ public class MainFragment extends PreferenceControllerFragment implements
     @Override
     public void onDestroy() {
         mSuggestionQuickSettingPrefsContainer.onDestroy();
+        mRowsLoader.unregister();
         super.onDestroy();
     }
 
@@ -701,18 +711,19 @@ public class MainFragment extends PreferenceControllerFragment implements
     }
 
     private void updateConnectedDevicePref(String pkgName, Preference pref) {
-        Drawable icon = getDrawableResource(pkgName, "connected_devices_pref_icon");
+        MainMenuModel.PartnerResources res = getMainMenuModel().getPartnerResources(pkgName);
+        Drawable icon = res.getDrawable("connected_devices_pref_icon");
         if (icon != null) {
             pref.setIcon(icon);
         }
         String title =
                 (pref instanceof SlicePreference)
-                        ? getStringResource(pkgName, "connected_devices_slice_pref_title")
-                        : getStringResource(pkgName, "connected_devices_pref_title");
+                        ? res.getString("connected_devices_slice_pref_title")
+                        : res.getString("connected_devices_pref_title");
         if (!TextUtils.isEmpty(title)) {
             pref.setTitle(title);
         }
-        String summary = getStringResource(pkgName, "connected_devices_pref_summary");
+        String summary = res.getString("connected_devices_pref_summary");
         if (!TextUtils.isEmpty(summary)) {
             pref.setSummary(summary);
         }
@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ProviderInfo;
+import android.content.pm.ResolveInfo;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.LocaleList;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.tv.settings.library.util.ThreadUtils;
+import com.android.tv.settings.util.SliceUtils;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The package manager lookups and partner resources used to build the top-level settings menu.
+ *
+ * <p>Every lookup is resolved once, either by {@link #preload} on a background thread or on
+ * first use, and then served from memory. Partner resources are cached per package together
+ * with the package's version code and the locales they were resolved for, and are resolved again
+ * when the locales change. Cached entries are dropped on {@link Intent#ACTION_PACKAGE_CHANGED}
+ * and {@link Intent#ACTION_PACKAGE_REPLACED}; a package's resources are only dropped if its
+ * version code changed.
+ */
+public class MainMenuModel {
+    private static final String TAG = "MainMenuModel";
+
+    private static MainMenuModel sInstance;
+
+    private final Context mContext;
+    private final PackageManager mPackageManager;
+
+    // Keyed by intent action. Values are empty when no system activity handles the action.
+    private final Map<String, Optional<ResolveInfo>> mSystemActivities = new ArrayMap<>();
+    // Keyed by authority.
+    private final Map<String, Optional<ProviderInfo>> mProviders = new ArrayMap<>();
+    // Keyed by slice uri.
+    private final Map<String, Boolean> mValidSliceProviders = new ArrayMap<>();
+    // Keyed by package name.
+    private final Map<String, PartnerResources> mPartnerResources = new ArrayMap<>();
+    // Incremented whenever cached entries are dropped.
+    private volatile int mGeneration;
+
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final Uri data = intent.getData();
+            onPackageChanged(data != null ? data.getSchemeSpecificPart() : null);
+        }
+    };
+
+    /** Returns the process-wide model. */
+    public static synchronized MainMenuModel getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new MainMenuModel(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    MainMenuModel(Context context) {
+        mContext = context;
+        mPackageManager = context.getPackageManager();
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package");
+        mContext.registerReceiver(mPackageReceiver, filter);
+    }
+
+    /**
+     * Resolves the given actions and slice uris, and the partner resources of the packages
+     * handling them, on a background thread so that later lookups from the UI thread are served
+     * from memory.
+     */
+    public void preload(String[] actions, String[] sliceUris) {
+        ThreadUtils.postOnBackgroundThread(() -> {
+            for (String action : actions) {
+                final ResolveInfo info = getSystemActivity(action);
+                if (info != null && info.activityInfo != null) {
+                    getPartnerResources(info.activityInfo.packageName).getResources();
+                }
+            }
+            for (String sliceUri : sliceUris) {
+                if (!isSliceProviderValid(sliceUri)) {
+                    continue;
+                }
+                final ProviderInfo info = getProviderInfo(Uri.parse(sliceUri).getAuthority());
+                if (info != null) {
+                    getPartnerResources(info.packageName).getResources();
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the ResolveInfo for the system activity that handles the given action, or null if
+     * no such activity exists.
+     */
+    @Nullable
+    public ResolveInfo getSystemActivity(String action) {
+        synchronized (mSystemActivities) {
+            Optional<ResolveInfo> info = mSystemActivities.get(action);
+            if (info == null) {
+                info = Optional.ofNullable(resolveSystemActivity(action));
+                mSystemActivities.put(action, info);
+            }
+            return info.orElse(null);
+        }
+    }
+
+    /** Returns the ProviderInfo for the given authority, or null if it doesn't exist. */
+    @Nullable
+    public ProviderInfo getProviderInfo(String authority) {
+        synchronized (mProviders) {
+            Optional<ProviderInfo> info = mProviders.get(authority);
+            if (info == null) {
+                info = Optional.ofNullable(mPackageManager.resolveContentProvider(authority, 0));
+                mProviders.put(authority, info);
+            }
+            return info.orElse(null);
+        }
+    }
+
+    /** Returns whether a slice provider for the given uri exists. */
+    public boolean isSliceProviderValid(String uri) {
+        if (TextUtils.isEmpty(uri)) {
+            return false;
+        }
+        synchronized (mValidSliceProviders) {
+            Boolean valid = mValidSliceProviders.get(uri);
+            if (valid == null) {
+                valid = SliceUtils.isSliceProviderValid(mContext, uri);
+                mValidSliceProviders.put(uri, valid);
+            }
+            return valid;
+        }
+    }
+
+    /** Returns the resources the given package exposes to customize the menu. */
+    public PartnerResources getPartnerResources(String pkgName) {
+        final LocaleList locales = mContext.getResources().getConfiguration().getLocales();
+        synchronized (mPartnerResources) {
+            PartnerResources resources = mPartnerResources.get(pkgName);
+            if (resources == null || !resources.mLocales.equals(locales)) {
+                resources = new PartnerResources(pkgName, locales);
+                mPartnerResources.put(pkgName, resources);
+            }
+            return resources;
+        }
+    }
+
+    /** Returns a counter that changes whenever a package change invalidated the model. */
+    public int getGeneration() {
+        return mGeneration;
+    }
+
+    @VisibleForTesting
+    void onPackageChanged(@Nullable String pkgName) {
+        mGeneration++;
+        // Components may have been enabled or disabled, so every resolution may be outdated.
+        synchronized (mSystemActivities) {
+            mSystemActivities.clear();
+        }
+        synchronized (mProviders) {
+            mProviders.clear();
+        }
+        synchronized (mValidSliceProviders) {
+            mValidSliceProviders.clear();
+        }
+        if (pkgName == null) {
+            return;
+        }
+        // The resources are re-read lazily; comparing versions here would cost an IPC on the
+        // main thread.
+        synchronized (mPartnerResources) {
+            mPartnerResources.remove(pkgName);
+        }
+    }
+
+    private ResolveInfo resolveSystemActivity(String action) {
+        for (ResolveInfo info : mPackageManager.queryIntentActivities(new Intent(action), 0)) {
+            if (info.activityInfo != null
+                    && (info.activityInfo.applicationInfo.flags & ApplicationInfo.FLAG_SYSTEM)
+                    == ApplicationInfo.FLAG_SYSTEM) {
+                return info;
+            }
+        }
+        return null;
+    }
+
+    /** String and drawable resources of a single package, looked up by name and cached. */
+    public final class PartnerResources {
+        private final String mPkgName;
+        // The strings and drawables are localized, so they are only valid for these locales.
+        private final LocaleList mLocales;
+        private final Map<String, Optional<String>> mStrings = new ArrayMap<>();
+        private final Map<String, Optional<Drawable.ConstantState>> mDrawables =
+                new ArrayMap<>();
+        private Resources mResources;
+        private boolean mResourcesLoaded;
+
+        private PartnerResources(String pkgName, LocaleList locales) {
+            mPkgName = pkgName;
+            mLocales = locales;
+        }
+
+        /**
+         * Extracts a string resource, e.g. "my_string_name", or returns null if the package
+         * doesn't define it.
+         */
+        @Nullable
+        public synchronized String getString(String resourceName) {
+            Optional<String> value = mStrings.get(resourceName);
+            if (value == null) {
+                String string = null;
+                final Resources res = getResources();
+                final int resId = getIdentifier(res, "string", resourceName);
+                if (resId != 0) {
+                    try {
+                        string = res.getString(resId);
+                    } catch (Resources.NotFoundException e) {
+                        Log.w(TAG, "Unable to get string resource " + resourceName, e);
+                    }
+                }
+                value = Optional.ofNullable(string);
+                mStrings.put(resourceName, value);
+            }
+            return value.orElse(null);
+        }
+
+        /**
+         * Extracts a drawable resource, e.g. "my_icon_name", or returns null if the package
+         * doesn't define it. Each call returns a new Drawable instance.
+         */
+        @Nullable
+        public synchronized Drawable getDrawable(String resourceName) {
+            Optional<Drawable.ConstantState> value = mDrawables.get(resourceName);
+            if (value == null) {
+                Drawable drawable = null;
+                final Resources res = getResources();
+                final int resId = getIdentifier(res, "drawable", resourceName);
+                if (resId != 0) {
+                    try {
+                        drawable = res.getDrawable(resId, null);
+                    } catch (Resources.NotFoundException e) {
+                        Log.w(TAG, "Unable to get drawable resource " + resourceName, e);
+                    }
+                }
+                if (drawable != null && drawable.getConstantState() == null) {
+                    // Can't be shared, so don't cache it.
+                    return drawable;
+                }
+                value = Optional.ofNullable(drawable != null ? drawable.getConstantState() : null);
+                mDrawables.put(resourceName, value);
+            }
+            return value.map(Drawable.ConstantState::newDrawable).orElse(null);
+        }
+
+        private synchronized Resources getResources() {
+            if (!mResourcesLoaded) {
+                mResourcesLoaded = true;
+                try {
+                    mResources = mContext.createPackageContext(mPkgName, 0).getResources();
+                } catch (PackageManager.NameNotFoundException | SecurityException e) {
+                    Log.w(TAG, "Unable to get resources of " + mPkgName, e);
+                }
+            }
+            return mResources;
+        }
+
+        private int getIdentifier(Resources res, String type, String resourceName) {
+            return res == null ? 0
+                    : res.getIdentifier(mPkgName + ":" + type + "/" + resourceName, null, null);
+        }
+    }
+}
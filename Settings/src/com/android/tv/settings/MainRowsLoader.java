@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings;
+
+import android.accounts.AccountManager;
+import android.accounts.OnAccountsUpdateListener;
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.UserManager;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.tv.settings.library.util.ThreadUtils;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Loads {@link MainRowsSnapshot}s for {@link MainFragment} on a background thread and delivers
+ * them on the main thread.
+ *
+ * <p>Account, Bluetooth and package changes are counted for as long as the loader is
+ * registered, including while the fragment is stopped. A load requested while none of them
+ * changed since the last snapshot is skipped.
+ *
+ * <p>The last delivered snapshot is kept for the process, so that a new fragment can show the
+ * rows as they were last seen until its own load completes.
+ */
+class MainRowsLoader {
+
+    /** Receives loaded snapshots on the main thread. */
+    interface Callback {
+        void onRowsLoaded(MainRowsSnapshot snapshot);
+    }
+
+    // Accessed only on the main thread.
+    @Nullable
+    private static MainRowsSnapshot sLastDeliveredSnapshot;
+
+    private final Context mContext;
+    private final MainMenuModel mMainMenuModel;
+    @Nullable
+    private final BluetoothAdapter mBtAdapter;
+    private final Callback mCallback;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    @VisibleForTesting
+    Executor mExecutor = ThreadUtils::postOnBackgroundThread;
+
+    private int mAccountsGeneration;
+    private int mBluetoothGeneration;
+    // Incremented on every load; results of older loads are dropped.
+    private int mLoadId;
+    private MainRowsSnapshot mLastSnapshot;
+    private boolean mStarted;
+
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (UserManager.ACTION_USER_RESTRICTIONS_CHANGED.equals(intent.getAction())) {
+                mAccountsGeneration++;
+            } else {
+                mBluetoothGeneration++;
+            }
+            onSourceChanged();
+        }
+    };
+
+    private final OnAccountsUpdateListener mAccountsListener = accounts -> {
+        mAccountsGeneration++;
+        onSourceChanged();
+    };
+
+    MainRowsLoader(Context context, MainMenuModel mainMenuModel,
+            @Nullable BluetoothAdapter btAdapter, Callback callback) {
+        mContext = context;
+        mMainMenuModel = mainMenuModel;
+        mBtAdapter = btAdapter;
+        mCallback = callback;
+    }
+
+    /** Starts counting changes. */
+    void register() {
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(BluetoothDevice.ACTION_ACL_CONNECTED);
+        filter.addAction(BluetoothDevice.ACTION_ACL_DISCONNECTED);
+        filter.addAction(BluetoothDevice.ACTION_BOND_STATE_CHANGED);
+        filter.addAction(BluetoothAdapter.ACTION_STATE_CHANGED);
+        filter.addAction(UserManager.ACTION_USER_RESTRICTIONS_CHANGED);
+        mContext.registerReceiver(mReceiver, filter);
+        AccountManager.get(mContext).addOnAccountsUpdatedListener(
+                mAccountsListener, mHandler, false);
+    }
+
+    void unregister() {
+        mContext.unregisterReceiver(mReceiver);
+        AccountManager.get(mContext).removeOnAccountsUpdatedListener(mAccountsListener);
+        mLoadId++;
+    }
+
+    /** Loads a new snapshot in the background unless the last one is still current. */
+    void start() {
+        mStarted = true;
+        requestLoad();
+    }
+
+    /** Stops reloading on changes; they are still counted and picked up by the next start. */
+    void stop() {
+        mStarted = false;
+    }
+
+    /**
+     * Returns the last snapshot delivered by this loader or, before its first load completes,
+     * by any loader of the process. May be outdated; null if nothing was loaded yet.
+     */
+    @Nullable
+    MainRowsSnapshot getCachedSnapshot() {
+        return mLastSnapshot != null ? mLastSnapshot : sLastDeliveredSnapshot;
+    }
+
+    private void onSourceChanged() {
+        if (mStarted) {
+            requestLoad();
+        }
+    }
+
+    private void requestLoad() {
+        final int accountsGeneration = mAccountsGeneration;
+        final int bluetoothGeneration = mBluetoothGeneration;
+        if (mLastSnapshot != null && mLastSnapshot.isCurrent(accountsGeneration,
+                bluetoothGeneration, mMainMenuModel.getGeneration())) {
+            return;
+        }
+        final int loadId = ++mLoadId;
+        mExecutor.execute(() -> {
+            final MainRowsSnapshot snapshot = MainRowsSnapshot.load(mContext, mMainMenuModel,
+                    mBtAdapter, accountsGeneration, bluetoothGeneration);
+            mHandler.post(() -> {
+                if (loadId == mLoadId) {
+                    mLastSnapshot = snapshot;
+                    sLastDeliveredSnapshot = snapshot;
+                    mCallback.onRowsLoaded(snapshot);
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings;
+
+import static com.android.tv.settings.accounts.AccountsUtil.ACCOUNTS_FRAGMENT_DEFAULT;
+
+import android.accounts.Account;
+import android.accounts.AccountManager;
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+
+import com.android.tv.settings.accounts.AccountsFragment;
+import com.android.tv.settings.accounts.AccountsUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable state of the account and accessory rows of {@link MainFragment}, together with the
+ * generations of the sources it was loaded from.
+ */
+final class MainRowsSnapshot {
+    final int accountsGeneration;
+    final int bluetoothGeneration;
+    final int packageGeneration;
+
+    @AccountsUtil.AccountsFragmentType
+    final int accountsFragmentType;
+    final List<String> accountNames;
+    /** Only loaded when the "add account" row is shown, null otherwise. */
+    @Nullable
+    final String[] allowableAccountTypes;
+    final boolean hasBtAccessories;
+
+    private MainRowsSnapshot(int accountsGeneration, int bluetoothGeneration,
+            int packageGeneration, int accountsFragmentType, List<String> accountNames,
+            @Nullable String[] allowableAccountTypes, boolean hasBtAccessories) {
+        this.accountsGeneration = accountsGeneration;
+        this.bluetoothGeneration = bluetoothGeneration;
+        this.packageGeneration = packageGeneration;
+        this.accountsFragmentType = accountsFragmentType;
+        this.accountNames = Collections.unmodifiableList(accountNames);
+        this.allowableAccountTypes = allowableAccountTypes;
+        this.hasBtAccessories = hasBtAccessories;
+    }
+
+    /** Loads a snapshot. Performs binder calls, so should be called off the main thread. */
+    static MainRowsSnapshot load(Context context, MainMenuModel mainMenuModel,
+            @Nullable BluetoothAdapter btAdapter, int accountsGeneration,
+            int bluetoothGeneration) {
+        // Read the generation first, so that a concurrent package change makes this stale.
+        final int packageGeneration = mainMenuModel.getGeneration();
+        final int accountsFragmentType =
+                AccountsUtil.getAccountsFragmentToLaunch(context, mainMenuModel);
+        final List<String> accountNames = accountsFragmentType == ACCOUNTS_FRAGMENT_DEFAULT
+                ? loadAccountNames(context) : Collections.emptyList();
+        final String[] allowableAccountTypes = accountsFragmentType == ACCOUNTS_FRAGMENT_DEFAULT
+                ? loadAllowableAccountTypes(context, accountNames) : null;
+        return new MainRowsSnapshot(accountsGeneration, bluetoothGeneration, packageGeneration,
+                accountsFragmentType, accountNames, allowableAccountTypes,
+                hasBtAccessories(btAdapter));
+    }
+
+    static List<String> loadAccountNames(Context context) {
+        final Account[] accounts = AccountManager.get(context).getAccounts();
+        final List<String> names = new ArrayList<>(accounts.length);
+        for (Account account : accounts) {
+            names.add(account.name);
+        }
+        return names;
+    }
+
+    @Nullable
+    static String[] loadAllowableAccountTypes(Context context, List<String> accountNames) {
+        return accountNames.isEmpty() ? AccountsFragment.getAllowableAccountTypes(context) : null;
+    }
+
+    static boolean hasBtAccessories(@Nullable BluetoothAdapter btAdapter) {
+        if (btAdapter == null) {
+            return false;
+        }
+        final Set<BluetoothDevice> bondedDevices = btAdapter.getBondedDevices();
+        return bondedDevices != null && !bondedDevices.isEmpty();
+    }
+
+    /** Whether none of the sources changed since this snapshot was loaded. */
+    boolean isCurrent(int accountsGeneration, int bluetoothGeneration, int packageGeneration) {
+        return this.accountsGeneration == accountsGeneration
+                && this.bluetoothGeneration == bluetoothGeneration
+                && this.packageGeneration == packageGeneration;
+    }
+
+    boolean sameAccountRows(@Nullable MainRowsSnapshot other) {
+        return other != null
+                && accountsFragmentType == other.accountsFragmentType
+                && accountNames.equals(other.accountNames)
+                && Arrays.equals(allowableAccountTypes, other.allowableAccountTypes);
+    }
+
+    boolean sameAccessoryRows(@Nullable MainRowsSnapshot other) {
+        // The connected devices rows are resolved through MainMenuModel.
+        return other != null
+                && hasBtAccessories == other.hasBtAccessories
+                && packageGeneration == other.packageGeneration;
+    }
+}
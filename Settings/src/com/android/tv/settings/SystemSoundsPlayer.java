@@ -19,16 +19,20 @@ package com.android.tv.settings;
 import android.annotation.IntDef;
 import android.annotation.MainThread;
 import android.content.Context;
+import android.database.ContentObserver;
 import android.media.AudioAttributes;
 import android.media.SoundPool;
+import android.net.Uri;
 import android.os.Handler;
 import android.os.HandlerThread;
 import android.os.Looper;
 import android.os.Message;
+import android.os.SystemClock;
 import android.provider.Settings;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import androidx.lifecycle.Lifecycle;
 import androidx.lifecycle.LifecycleObserver;
 import androidx.lifecycle.OnLifecycleEvent;
@@ -36,6 +40,7 @@ import androidx.lifecycle.ProcessLifecycleOwner;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -49,6 +54,9 @@ import java.util.concurrent.ConcurrentHashMap;
  * To achieve a consistent volume among all system sounds the {@link SoundPool} used here is
  * initialized in the same way as the SoundPool for framework system sounds in SoundEffectsHelper
  * and the volume attenuation is calculated in the same way as it's done by SoundEffectsHelper.
+ * Whether sound effects are enabled is cached and only read again after the setting changes.
+ * An effect is played at most once per {@link #DEBOUNCE_MS}, other requests are dropped, so that
+ * key repeats do not queue up overlapping plays but a held key still plays periodically.
  */
 public class SystemSoundsPlayer implements LifecycleObserver {
     public static final int FX_SELECT = 0;
@@ -62,6 +70,9 @@ public class SystemSoundsPlayer implements LifecycleObserver {
     private static final int MSG_PRELOAD_SOUNDS = 0;
     private static final int MSG_UNLOAD_SOUNDS = 1;
     private static final int MSG_PLAY_SOUND = 2;
+    @VisibleForTesting
+    static final long DEBOUNCE_MS = 80;
+    private static final long NEVER_PLAYED = Long.MIN_VALUE;
     private static final int[] FX_RESOURCES = new int[]{
             R.raw.Select,
             R.raw.Deselect
@@ -71,9 +82,30 @@ public class SystemSoundsPlayer implements LifecycleObserver {
     private final Map<Integer, Integer> mEffectIdToSoundPoolId = new ConcurrentHashMap<>();
     private final Set<Integer> mLoadedSoundPoolIds = new HashSet<>();
     private final float mVolumeAttenuation;
+    private final long[] mLastPlayMs = new long[FX_RESOURCES.length];
+    private final Object mStatsLock = new Object();
+    // Guarded by mStatsLock, updated from the main thread and the sound pool handler thread.
+    private final PlaybackStats mStats = new PlaybackStats();
     private SoundPool mSoundPool;
+    // One per effect of mSoundPool, so that pending plays of an effect can be told apart.
+    private PlayToken[] mPlayTokens;
+    // Cached Settings.System.SOUND_EFFECTS_ENABLED, read again once the observer marks it stale.
+    private volatile boolean mSoundEffectsEnabledStale = true;
+    private boolean mSoundEffectsEnabled;
+
+    private final ContentObserver mSoundEffectsEnabledObserver = new ContentObserver(null) {
+        @Override
+        public void onChange(boolean selfChange, Uri uri) {
+            mSoundEffectsEnabledStale = true;
+        }
+    };
 
     public SystemSoundsPlayer(Context context) {
+        this(context, createHandlerLooper(), ProcessLifecycleOwner.get().getLifecycle());
+    }
+
+    @VisibleForTesting
+    SystemSoundsPlayer(Context context, Looper soundPoolLooper, Lifecycle lifecycle) {
         mContext = context.getApplicationContext();
         float attenuationDb = mContext.getResources().getInteger(
                 mContext.getResources().getIdentifier("config_soundEffectVolumeDb",
@@ -81,10 +113,18 @@ public class SystemSoundsPlayer implements LifecycleObserver {
         // This is the same value that is used for framework system sounds as set by
         // com.android.server.audio.SoundEffectsHelper#onPlaySoundEffect()
         mVolumeAttenuation = (float) Math.pow(10, attenuationDb / 20);
+        mHandler = new SoundPoolHandler(soundPoolLooper);
+        Arrays.fill(mLastPlayMs, NEVER_PLAYED);
+        mContext.getContentResolver().registerContentObserver(
+                Settings.System.getUriFor(Settings.System.SOUND_EFFECTS_ENABLED), false,
+                mSoundEffectsEnabledObserver);
+        lifecycle.addObserver(this);
+    }
+
+    private static Looper createHandlerLooper() {
         HandlerThread handlerThread = new HandlerThread(TAG + ".handler");
         handlerThread.start();
-        mHandler = new SoundPoolHandler(handlerThread.getLooper());
-        ProcessLifecycleOwner.get().getLifecycle().addObserver(this);
+        return handlerThread.getLooper();
     }
 
     /**
@@ -93,18 +133,26 @@ public class SystemSoundsPlayer implements LifecycleObserver {
      * @param effect The effect id.
      */
     public void playSoundEffect(@SystemSoundEffect int effect) {
-        if (mSoundPool == null || !querySoundEffectsEnabled()) {
+        if (mSoundPool == null || !isSoundEffectsEnabled()) {
             return;
         }
         switch (effect) {
             case FX_SELECT:
             case FX_DESELECT:
                 // any other "case X:" in the future
+                if (!shouldPlay(effect, SystemClock.uptimeMillis())) {
+                    return;
+                }
                 int soundPoolSoundId = getSoundPoolIdForEffect(effect);
                 if (soundPoolSoundId >= 0) {
+                    // A play of this effect still waiting for the handler is out of date.
+                    mHandler.removeMessages(MSG_PLAY_SOUND, mPlayTokens[effect]);
                     mHandler.sendMessage(mHandler.obtainMessage(MSG_PLAY_SOUND, soundPoolSoundId, 0,
-                            mSoundPool));
+                            mPlayTokens[effect]));
                 } else {
+                    synchronized (mStatsLock) {
+                        mStats.notReady++;
+                    }
                     Log.w(TAG, "playSoundEffect() called but SoundPool is not ready");
                 }
                 break;
@@ -124,6 +172,10 @@ public class SystemSoundsPlayer implements LifecycleObserver {
                             .build())
                     .build();
             mSoundPool.setOnLoadCompleteListener(new SoundPoolLoadCompleteListener());
+            mPlayTokens = new PlayToken[FX_RESOURCES.length];
+            for (int effectId = 0; effectId < FX_RESOURCES.length; effectId++) {
+                mPlayTokens[effectId] = new PlayToken(mSoundPool);
+            }
             mHandler.sendMessage(mHandler.obtainMessage(MSG_PRELOAD_SOUNDS, mSoundPool));
         } else {
             throw new IllegalStateException("prepareSoundPool() was called but SoundPool not null");
@@ -138,15 +190,49 @@ public class SystemSoundsPlayer implements LifecycleObserver {
         mHandler.sendMessage(mHandler.obtainMessage(MSG_UNLOAD_SOUNDS, mSoundPool));
         mSoundPool.setOnLoadCompleteListener(null);
         mSoundPool = null;
+        mPlayTokens = null;
         mLoadedSoundPoolIds.clear();
     }
 
+    /** Returns a copy of the playback counters. */
+    public PlaybackStats getPlaybackStats() {
+        synchronized (mStatsLock) {
+            return new PlaybackStats(mStats);
+        }
+    }
+
+    @VisibleForTesting
+    @MainThread
+    boolean isSoundEffectsEnabled() {
+        if (mSoundEffectsEnabledStale) {
+            // Cleared before reading, so that a change during the read marks it stale again.
+            mSoundEffectsEnabledStale = false;
+            mSoundEffectsEnabled = Settings.System.getIntForUser(mContext.getContentResolver(),
+                    Settings.System.SOUND_EFFECTS_ENABLED, 0, mContext.getUserId()) != 0;
+        }
+        return mSoundEffectsEnabled;
+    }
+
     /**
-     * Settings has an in memory cache, so this is fast.
+     * Returns whether a request to play the effect at the given time should be played, or
+     * dropped because the same effect was played less than {@link #DEBOUNCE_MS} before.
      */
-    private boolean querySoundEffectsEnabled() {
-        return Settings.System.getIntForUser(mContext.getContentResolver(),
-                Settings.System.SOUND_EFFECTS_ENABLED, 0, mContext.getUserId()) != 0;
+    @VisibleForTesting
+    @MainThread
+    boolean shouldPlay(@SystemSoundEffect int effect, long nowMs) {
+        final long lastPlayMs = mLastPlayMs[effect];
+        final boolean play = lastPlayMs == NEVER_PLAYED || nowMs - lastPlayMs >= DEBOUNCE_MS;
+        if (play) {
+            // Dropped requests do not restart the window, so a held key keeps playing.
+            mLastPlayMs[effect] = nowMs;
+        }
+        synchronized (mStatsLock) {
+            mStats.requested++;
+            if (!play) {
+                mStats.debounced++;
+            }
+        }
+        return play;
     }
 
     /**
@@ -169,28 +255,46 @@ public class SystemSoundsPlayer implements LifecycleObserver {
 
         @Override
         public void handleMessage(@NonNull Message msg) {
-            SoundPool soundPool = (SoundPool) msg.obj;
             switch (msg.what) {
-                case MSG_PRELOAD_SOUNDS:
+                case MSG_PRELOAD_SOUNDS: {
+                    SoundPool soundPool = (SoundPool) msg.obj;
                     for (int effectId = 0; effectId < FX_RESOURCES.length; effectId++) {
                         int soundPoolSoundId = soundPool.load(mContext,
                                 FX_RESOURCES[effectId], /* priority= */ 1);
                         mEffectIdToSoundPoolId.put(effectId, soundPoolSoundId);
                     }
                     break;
+                }
                 case MSG_UNLOAD_SOUNDS:
                     mEffectIdToSoundPoolId.clear();
-                    soundPool.release();
+                    ((SoundPool) msg.obj).release();
                     break;
                 case MSG_PLAY_SOUND:
                     int soundId = msg.arg1;
+                    SoundPool soundPool = ((PlayToken) msg.obj).mSoundPool;
                     soundPool.play(soundId, mVolumeAttenuation, mVolumeAttenuation, /* priority= */
                             0, /* loop= */0, /* rate= */ 1.0f);
+                    // The message was due when it was sent, so this is the time it waited.
+                    long latencyMs = SystemClock.uptimeMillis() - msg.getWhen();
+                    synchronized (mStatsLock) {
+                        mStats.played++;
+                        mStats.totalLatencyMs += latencyMs;
+                        mStats.maxLatencyMs = Math.max(mStats.maxLatencyMs, latencyMs);
+                    }
                     break;
             }
         }
     }
 
+    /** Identifies the pending plays of one effect of a sound pool. */
+    private static final class PlayToken {
+        final SoundPool mSoundPool;
+
+        PlayToken(SoundPool soundPool) {
+            mSoundPool = soundPool;
+        }
+    }
+
     private class SoundPoolLoadCompleteListener implements
             SoundPool.OnLoadCompleteListener {
         @MainThread
@@ -220,4 +324,31 @@ public class SystemSoundsPlayer implements LifecycleObserver {
             }
         }
     }
+
+    /** Counters of sound effect playback, to measure how long plays wait before starting. */
+    public static final class PlaybackStats {
+        /** Play requests while sounds are enabled and loaded, including debounced ones. */
+        public long requested;
+        /** Requests dropped because the same effect was requested just before. */
+        public long debounced;
+        /** Requests dropped because the sound was not loaded yet. */
+        public long notReady;
+        /** Sounds handed to the SoundPool. */
+        public long played;
+        /** Sum and maximum of the time between a play request and the SoundPool play call. */
+        public long totalLatencyMs;
+        public long maxLatencyMs;
+
+        PlaybackStats() {
+        }
+
+        PlaybackStats(PlaybackStats other) {
+            requested = other.requested;
+            debounced = other.debounced;
+            notReady = other.notReady;
+            played = other.played;
+            totalLatencyMs = other.totalLatencyMs;
+            maxLatencyMs = other.maxLatencyMs;
+        }
+    }
 }
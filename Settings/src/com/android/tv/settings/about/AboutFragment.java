@@ -32,13 +32,10 @@ import android.icu.text.MessageFormat;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.PersistableBundle;
-import android.os.SELinux;
 import android.os.SystemClock;
-import android.os.SystemProperties;
 import android.os.UserHandle;
 import android.os.UserManager;
 import android.provider.Settings;
-import android.sysprop.TelephonyProperties;
 import android.telephony.CarrierConfigManager;
 import android.text.TextUtils;
 import android.util.Log;
@@ -53,7 +50,6 @@ import androidx.preference.PreferenceScreen;
 import com.android.settingslib.DeviceInfoUtils;
 import com.android.settingslib.RestrictedLockUtils;
 import com.android.settingslib.RestrictedLockUtilsInternal;
-import com.android.settingslib.Utils;
 import com.android.settingslib.development.DevelopmentSettingsEnabler;
 import com.android.tv.settings.MainFragment;
 import com.android.tv.settings.PreferenceUtils;
@@ -62,6 +58,7 @@ import com.android.tv.settings.SettingsPreferenceFragment;
 import com.android.tv.settings.customization.CustomizationConstants;
 import com.android.tv.settings.customization.Partner;
 import com.android.tv.settings.customization.PartnerPreferencesMerger;
+import com.android.tv.settings.library.util.ThreadUtils;
 import com.android.tv.settings.name.DeviceManager;
 import com.android.tv.settings.overlay.FlavorUtils;
 import com.android.tv.twopanelsettings.slices.CustomContentDescriptionPreference;
@@ -69,7 +66,6 @@ import com.android.tv.twopanelsettings.slices.CustomContentDescriptionPreference
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * The "About" screen in TV settings.
@@ -81,8 +77,6 @@ public class AboutFragment extends SettingsPreferenceFragment {
     private static final String KEY_MANUAL = "manual";
     private static final String KEY_REGULATORY_INFO = "regulatory_info";
     private static final String KEY_SYSTEM_UPDATE_SETTINGS = "system_update_settings";
-    private static final String PROPERTY_URL_SAFETYLEGAL = "ro.url.safetylegal";
-    private static final String PROPERTY_SELINUX_STATUS = "ro.build.selinux";
     private static final String KEY_KERNEL_VERSION = "kernel_version";
     private static final String KEY_BUILD_NUMBER = "build_number";
     private static final String KEY_DEVICE_MODEL = "device_model";
@@ -92,7 +86,6 @@ public class AboutFragment extends SettingsPreferenceFragment {
     private static final String KEY_SECURITY_PATCH = "security_patch";
     private static final String KEY_UPDATE_SETTING = "additional_system_update_settings";
     private static final String KEY_EQUIPMENT_ID = "fcc_equipment_id";
-    private static final String PROPERTY_EQUIPMENT_ID = "ro.ril.fccid";
     private static final String KEY_DEVICE_FEEDBACK = "device_feedback";
     private static final String KEY_SAFETY_LEGAL = "safetylegal";
     private static final String KEY_DEVICE_NAME = "device_name";
@@ -100,9 +93,11 @@ public class AboutFragment extends SettingsPreferenceFragment {
     private static final String KEY_RESET = "reset";
     private static final String KEY_RESET_OPTIONS = "reset_options";
     private static final String KEY_LINEAGE_VERSION = "lineage_version";
-    private static final String PROPERTY_LINEAGE_VERSION = "ro.lineage.display.version";
     private static final String KEY_BUILD_DATE = "build_date";
-    private static final String PROPERTY_BUILD_DATE = "ro.build.date";
+
+    /** Rows which may be removed once the device information is loaded. */
+    private static final String[] CONDITIONAL_KEYS = {KEY_SECURITY_PATCH, KEY_SELINUX_STATUS,
+            KEY_SAFETY_LEGAL, KEY_EQUIPMENT_ID, KEY_BASEBAND_VERSION, KEY_DEVICE_FEEDBACK};
 
     static final int TAPS_TO_BE_A_DEVELOPER = 7;
 
@@ -111,6 +106,7 @@ public class AboutFragment extends SettingsPreferenceFragment {
     Toast mDevHitToast;
 
     private UserManager mUm;
+    private String mFeedbackReporterPackage;
 
     private final BroadcastReceiver mDeviceNameReceiver = new BroadcastReceiver() {
         @Override
@@ -164,68 +160,26 @@ public class AboutFragment extends SettingsPreferenceFragment {
         firmwareVersionPref.setSummary(Build.VERSION.RELEASE_OR_CODENAME);
         firmwareVersionPref.setEnabled(true);
 
-        final Preference securityPatchPref = findPreference(KEY_SECURITY_PATCH);
-        final String patch = DeviceInfoUtils.getSecurityPatch();
-        if (!TextUtils.isEmpty(patch)) {
-            securityPatchPref.setSummary(patch);
-        } else {
-            removePreference(securityPatchPref);
-        }
-
-        String basebandVersion = TelephonyProperties.baseband_version().stream()
-                .map(x -> x == null ? "" : x)
-                .collect(Collectors.joining(","));
-
-        if (basebandVersion.isEmpty()) {
-            basebandVersion = getResources().getString(R.string.device_info_default);
-        }
-
-        findPreference(KEY_BASEBAND_VERSION).setSummary(basebandVersion);
-        findPreference(KEY_DEVICE_MODEL).setSummary(Build.MODEL + DeviceInfoUtils.getMsvSuffix());
-        findPreference(KEY_EQUIPMENT_ID)
-                .setSummary(getSystemPropertySummary(PROPERTY_EQUIPMENT_ID));
-        findPreference(KEY_LINEAGE_VERSION)
-                .setSummary(getSystemPropertySummary(PROPERTY_LINEAGE_VERSION));
-        findPreference(KEY_BUILD_DATE)
-                .setSummary(getSystemPropertySummary(PROPERTY_BUILD_DATE));
-
         final Preference buildNumberPref = findPreference(KEY_BUILD_NUMBER);
         buildNumberPref.setSummary(Build.DISPLAY);
         buildNumberPref.setEnabled(true);
-        findPreference(KEY_KERNEL_VERSION)
-                .setSummary(DeviceInfoUtils.getFormattedKernelVersion(getContext()));
-
-        final Preference selinuxPref = findPreference(KEY_SELINUX_STATUS);
-        if (!SELinux.isSELinuxEnabled()) {
-            selinuxPref.setSummary(R.string.selinux_status_disabled);
-        } else if (!SELinux.isSELinuxEnforced()) {
-            selinuxPref.setSummary(R.string.selinux_status_permissive);
-        }
-
-        // Remove selinux information if property is not present
-        if (TextUtils.isEmpty(SystemProperties.get(PROPERTY_SELINUX_STATUS))) {
-            removePreference(selinuxPref);
-        }
-
-        // Remove Safety information preference if PROPERTY_URL_SAFETYLEGAL is not set
-        if (TextUtils.isEmpty(SystemProperties.get(PROPERTY_URL_SAFETYLEGAL))) {
-            removePreference(findPreference(KEY_SAFETY_LEGAL));
-        }
-
-        // Remove Equipment id preference if FCC ID is not set by RIL
-        if (TextUtils.isEmpty(SystemProperties.get(PROPERTY_EQUIPMENT_ID))) {
-            removePreference(findPreference(KEY_EQUIPMENT_ID));
-        }
-
-        // Remove Baseband version if wifi-only device
-        if (Utils.isWifiOnly(getActivity())) {
-            removePreference(findPreference(KEY_BASEBAND_VERSION));
-        }
 
-        // Dont show feedback option if there is no reporter.
-        if (TextUtils.isEmpty(DeviceInfoUtils.getFeedbackReporterPackage(getActivity()))) {
-            removePreference(findPreference(KEY_DEVICE_FEEDBACK));
+        // The rest of the device information is read from files and system properties, so it is
+        // loaded once in the background and then cached. Rows that may turn out not to apply are
+        // hidden until then, so that the list does not shrink under the focus.
+        for (String key : CONDITIONAL_KEYS) {
+            final Preference preference = findPreference(key);
+            if (preference != null) {
+                preference.setVisible(false);
+            }
         }
+        DeviceInfoSnapshot.Cache.getInstance(getContext()).get(this::bindDeviceInfo);
+        // The reporter depends on the installed packages, so it is resolved for each screen.
+        final Context appContext = getContext().getApplicationContext();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final String reporterPackage = DeviceInfoUtils.getFeedbackReporterPackage(appContext);
+            ThreadUtils.postOnMainThread(() -> bindFeedbackReporter(reporterPackage));
+        });
 
         final Preference resetPreference = findPreference(KEY_RESET);
         if (resetPreference instanceof CustomContentDescriptionPreference) {
@@ -278,6 +232,79 @@ public class AboutFragment extends SettingsPreferenceFragment {
         updateTutorials();
     }
 
+    private void bindDeviceInfo(DeviceInfoSnapshot deviceInfo) {
+        if (!isAdded()) {
+            return;
+        }
+        final Preference securityPatchPref = findPreference(KEY_SECURITY_PATCH);
+        if (!TextUtils.isEmpty(deviceInfo.securityPatch)) {
+            securityPatchPref.setSummary(deviceInfo.securityPatch);
+            securityPatchPref.setVisible(true);
+        } else {
+            removePreference(securityPatchPref);
+        }
+
+        String basebandVersion = deviceInfo.basebandVersion;
+        if (basebandVersion.isEmpty()) {
+            basebandVersion = getResources().getString(R.string.device_info_default);
+        }
+
+        setSummary(KEY_BASEBAND_VERSION, basebandVersion);
+        setSummary(KEY_DEVICE_MODEL, deviceInfo.deviceModel);
+        setSummary(KEY_EQUIPMENT_ID, getSystemPropertySummary(deviceInfo.equipmentId));
+        setSummary(KEY_LINEAGE_VERSION, getSystemPropertySummary(deviceInfo.lineageVersion));
+        setSummary(KEY_BUILD_DATE, getSystemPropertySummary(deviceInfo.buildDate));
+        setSummary(KEY_KERNEL_VERSION, deviceInfo.kernelVersion != null
+                ? deviceInfo.kernelVersion : getString(R.string.status_unavailable));
+
+        final Preference selinuxPref = findPreference(KEY_SELINUX_STATUS);
+        if (!deviceInfo.selinuxEnabled) {
+            selinuxPref.setSummary(R.string.selinux_status_disabled);
+        } else if (!deviceInfo.selinuxEnforced) {
+            selinuxPref.setSummary(R.string.selinux_status_permissive);
+        }
+
+        // Remove selinux information if property is not present
+        showOrRemovePreference(selinuxPref, deviceInfo.selinuxStatusShown);
+
+        // Remove Safety information preference if the safety legal URL is not set
+        showOrRemovePreference(findPreference(KEY_SAFETY_LEGAL), deviceInfo.safetyLegalShown);
+
+        // Remove Equipment id preference if FCC ID is not set by RIL
+        showOrRemovePreference(findPreference(KEY_EQUIPMENT_ID),
+                !TextUtils.isEmpty(deviceInfo.equipmentId));
+
+        // Remove Baseband version if wifi-only device
+        showOrRemovePreference(findPreference(KEY_BASEBAND_VERSION), !deviceInfo.wifiOnly);
+    }
+
+    private void bindFeedbackReporter(@Nullable String reporterPackage) {
+        if (!isAdded()) {
+            return;
+        }
+        mFeedbackReporterPackage = TextUtils.isEmpty(reporterPackage) ? null : reporterPackage;
+        // Dont show feedback option if there is no reporter.
+        showOrRemovePreference(findPreference(KEY_DEVICE_FEEDBACK),
+                mFeedbackReporterPackage != null);
+    }
+
+    private void showOrRemovePreference(@Nullable Preference preference, boolean show) {
+        if (show) {
+            if (preference != null) {
+                preference.setVisible(true);
+            }
+        } else {
+            removePreference(preference);
+        }
+    }
+
+    private void setSummary(String key, CharSequence summary) {
+        final Preference preference = findPreference(key);
+        if (preference != null) {
+            preference.setSummary(summary);
+        }
+    }
+
     private void removePreference(@Nullable Preference preference) {
         if (preference != null) {
             getPreferenceScreen().removePreference(preference);
@@ -453,15 +480,20 @@ public class AboutFragment extends SettingsPreferenceFragment {
         }
     }
 
-    private String getSystemPropertySummary(String property) {
-        return SystemProperties.get(property,
-                getResources().getString(R.string.device_info_default));
+    private String getSystemPropertySummary(String value) {
+        return TextUtils.isEmpty(value)
+                ? getResources().getString(R.string.device_info_default) : value;
     }
 
     private void sendFeedback() {
-        String reporterPackage = DeviceInfoUtils.getFeedbackReporterPackage(getActivity());
-        if (TextUtils.isEmpty(reporterPackage)) {
-            return;
+        String reporterPackage = mFeedbackReporterPackage;
+        if (reporterPackage == null) {
+            // The row is only shown once the reporter is known, but resolve it again rather
+            // than ignoring the click.
+            reporterPackage = DeviceInfoUtils.getFeedbackReporterPackage(getActivity());
+            if (TextUtils.isEmpty(reporterPackage)) {
+                return;
+            }
         }
         Intent intent = new Intent(Intent.ACTION_BUG_REPORT);
         intent.setPackage(reporterPackage);
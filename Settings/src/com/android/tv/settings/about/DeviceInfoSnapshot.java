@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.about;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.SELinux;
+import android.os.SystemProperties;
+import android.sysprop.TelephonyProperties;
+import android.system.Os;
+import android.text.TextUtils;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.DeviceInfoUtils;
+import com.android.settingslib.Utils;
+import com.android.tv.settings.library.util.ThreadUtils;
+
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * The device information shown in {@link AboutFragment} which does not change until the next
+ * boot, such as build properties and the kernel version. It is cached for the lifetime of the
+ * process, so it must not hold anything that depends on installed packages or on the locale.
+ */
+final class DeviceInfoSnapshot {
+    private static final String PROPERTY_URL_SAFETYLEGAL = "ro.url.safetylegal";
+    private static final String PROPERTY_SELINUX_STATUS = "ro.build.selinux";
+    private static final String PROPERTY_EQUIPMENT_ID = "ro.ril.fccid";
+    private static final String PROPERTY_LINEAGE_VERSION = "ro.lineage.display.version";
+    private static final String PROPERTY_BUILD_DATE = "ro.build.date";
+
+    /** Security patch level, or null if unknown. */
+    @Nullable
+    final String securityPatch;
+    /** Comma separated baseband versions, or empty if unknown. */
+    final String basebandVersion;
+    final String deviceModel;
+    /** FCC equipment id, or empty if unset. */
+    final String equipmentId;
+    /** Lineage version, or empty if unset. */
+    final String lineageVersion;
+    /** Build date, or empty if unset. */
+    final String buildDate;
+    /** Formatted kernel version, or null if it cannot be read. */
+    @Nullable
+    final String kernelVersion;
+    final boolean selinuxStatusShown;
+    final boolean selinuxEnabled;
+    final boolean selinuxEnforced;
+    final boolean safetyLegalShown;
+    final boolean wifiOnly;
+
+    @VisibleForTesting
+    DeviceInfoSnapshot(@Nullable String securityPatch, String basebandVersion,
+            String deviceModel, String equipmentId, String lineageVersion, String buildDate,
+            @Nullable String kernelVersion, boolean selinuxStatusShown, boolean selinuxEnabled,
+            boolean selinuxEnforced, boolean safetyLegalShown, boolean wifiOnly) {
+        this.securityPatch = securityPatch;
+        this.basebandVersion = basebandVersion;
+        this.deviceModel = deviceModel;
+        this.equipmentId = equipmentId;
+        this.lineageVersion = lineageVersion;
+        this.buildDate = buildDate;
+        this.kernelVersion = kernelVersion;
+        this.selinuxStatusShown = selinuxStatusShown;
+        this.selinuxEnabled = selinuxEnabled;
+        this.selinuxEnforced = selinuxEnforced;
+        this.safetyLegalShown = safetyLegalShown;
+        this.wifiOnly = wifiOnly;
+    }
+
+    /** Reads the device information. This parses files, so it should run in the background. */
+    static DeviceInfoSnapshot load(Context context) {
+        final String basebandVersion = TelephonyProperties.baseband_version().stream()
+                .map(x -> x == null ? "" : x)
+                .collect(Collectors.joining(","));
+        // The formatted version falls back to a localized string, which must not be cached.
+        final String kernelVersion = Os.uname() != null
+                ? DeviceInfoUtils.getFormattedKernelVersion(context) : null;
+        return new DeviceInfoSnapshot(
+                DeviceInfoUtils.getSecurityPatch(),
+                basebandVersion,
+                Build.MODEL + DeviceInfoUtils.getMsvSuffix(),
+                SystemProperties.get(PROPERTY_EQUIPMENT_ID),
+                SystemProperties.get(PROPERTY_LINEAGE_VERSION),
+                SystemProperties.get(PROPERTY_BUILD_DATE),
+                kernelVersion,
+                !TextUtils.isEmpty(SystemProperties.get(PROPERTY_SELINUX_STATUS)),
+                SELinux.isSELinuxEnabled(),
+                SELinux.isSELinuxEnforced(),
+                !TextUtils.isEmpty(SystemProperties.get(PROPERTY_URL_SAFETYLEGAL)),
+                Utils.isWifiOnly(context));
+    }
+
+    /** Loads a snapshot, so that it can be faked in tests. */
+    interface Loader {
+        DeviceInfoSnapshot load();
+    }
+
+    /** Holds the snapshot for the lifetime of the process, loading it at most once. */
+    static final class Cache {
+        private static Cache sInstance;
+
+        private final Loader mLoader;
+        private final Object mLock = new Object();
+        // Guarded by mLock.
+        private DeviceInfoSnapshot mSnapshot;
+        @VisibleForTesting
+        Executor mBackgroundExecutor = ThreadUtils::postOnBackgroundThread;
+
+        /** Returns the process-wide cache. */
+        static synchronized Cache getInstance(Context context) {
+            if (sInstance == null) {
+                final Context appContext = context.getApplicationContext();
+                sInstance = new Cache(() -> DeviceInfoSnapshot.load(appContext));
+            }
+            return sInstance;
+        }
+
+        @VisibleForTesting
+        Cache(Loader loader) {
+            mLoader = loader;
+        }
+
+        /** Returns the snapshot, or null if it is not loaded yet. */
+        @Nullable
+        DeviceInfoSnapshot getCached() {
+            synchronized (mLock) {
+                return mSnapshot;
+            }
+        }
+
+        /**
+         * Passes the snapshot to the callback on the main thread, loading it on a background
+         * thread if needed. The callback is called synchronously if the snapshot is loaded.
+         */
+        void get(Consumer<DeviceInfoSnapshot> callback) {
+            final DeviceInfoSnapshot snapshot = getCached();
+            if (snapshot != null) {
+                callback.accept(snapshot);
+                return;
+            }
+            mBackgroundExecutor.execute(() -> {
+                final DeviceInfoSnapshot loaded = getOrLoad();
+                ThreadUtils.postOnMainThread(() -> callback.accept(loaded));
+            });
+        }
+
+        /** Returns the snapshot, loading it on the calling thread if needed. */
+        @VisibleForTesting
+        DeviceInfoSnapshot getOrLoad() {
+            synchronized (mLock) {
+                // Loading under the lock, so that concurrent callers share a single load.
+                if (mSnapshot == null) {
+                    mSnapshot = mLoader.load();
+                }
+                return mSnapshot;
+            }
+        }
+    }
+}
@@ -22,7 +22,6 @@ import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothProfile;
 import android.content.Context;
 import android.text.Html;
-import android.util.Log;
 
 import androidx.annotation.Nullable;
 
@@ -33,8 +32,6 @@ import com.android.tv.settings.R;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.FutureTask;
 
 /** Provide utilities for Remote & Accessories. */
 final class AccessoryUtils {
@@ -52,43 +49,16 @@ final class AccessoryUtils {
     }
 
     public static LocalBluetoothManager getLocalBluetoothManager(Context context) {
-        final FutureTask<LocalBluetoothManager> localBluetoothManagerFutureTask =
-                new FutureTask<>(
-                        // Avoid StrictMode ThreadPolicy violation
-                        () -> LocalBluetoothManager.getInstance(
-                                context, (c, bluetoothManager) -> {
-                                })
-                );
-        try {
-            localBluetoothManagerFutureTask.run();
-            return localBluetoothManagerFutureTask.get();
-        } catch (InterruptedException | ExecutionException e) {
-            Log.w(TAG, "Error getting LocalBluetoothManager.", e);
-            return null;
-        }
+        return BluetoothContextCache.getLocalBluetoothManager(context);
     }
 
     public static CachedBluetoothDevice getCachedBluetoothDevice(
             Context context, BluetoothDevice device) {
-        LocalBluetoothManager localBluetoothManager = getLocalBluetoothManager(context);
-        if (localBluetoothManager != null) {
-            return localBluetoothManager.getCachedDeviceManager().findDevice(device);
-        }
-        return null;
+        return BluetoothContextCache.findCachedDevice(context, device);
     }
 
     public static BluetoothAdapter getDefaultBluetoothAdapter() {
-        final FutureTask<BluetoothAdapter> defaultBluetoothAdapterFutureTask =
-                new FutureTask<>(
-                        // Avoid StrictMode ThreadPolicy violation
-                        BluetoothAdapter::getDefaultAdapter);
-        try {
-            defaultBluetoothAdapterFutureTask.run();
-            return defaultBluetoothAdapterFutureTask.get();
-        } catch (InterruptedException | ExecutionException e) {
-            Log.w(TAG, "Error getting default BluetoothAdapter.", e);
-            return null;
-        }
+        return BluetoothContextCache.getBluetoothAdapter();
     }
 
     public static String getLocalName(BluetoothDevice device) {
@@ -99,7 +69,8 @@ final class AccessoryUtils {
     }
 
     public static boolean isBluetoothEnabled() {
-        return getDefaultBluetoothAdapter() != null && getDefaultBluetoothAdapter().isEnabled();
+        final BluetoothAdapter btAdapter = getDefaultBluetoothAdapter();
+        return btAdapter != null && btAdapter.isEnabled();
     }
 
     public static boolean isConnected(BluetoothDevice device) {
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.accessories;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.content.Context;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.android.settingslib.bluetooth.CachedBluetoothDevice;
+import com.android.settingslib.bluetooth.CachedBluetoothDeviceManager;
+import com.android.settingslib.bluetooth.LocalBluetoothManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Process-wide cache of the Bluetooth objects used by Remote & Accessories.
+ *
+ * <p>{@link LocalBluetoothManager} and the default {@link BluetoothAdapter} are process
+ * singletons, so they are resolved once and reused instead of being looked up on every call.
+ */
+final class BluetoothContextCache {
+
+    private static final String TAG = "BluetoothContextCache";
+
+    private static final Object sLock = new Object();
+    private static volatile LocalBluetoothManager sLocalBluetoothManager;
+    private static volatile BluetoothAdapter sBluetoothAdapter;
+
+    private BluetoothContextCache() {
+        // do not allow instantiation
+    }
+
+    @Nullable
+    static LocalBluetoothManager getLocalBluetoothManager(Context context) {
+        LocalBluetoothManager manager = sLocalBluetoothManager;
+        if (manager != null) {
+            return manager;
+        }
+        synchronized (sLock) {
+            if (sLocalBluetoothManager == null) {
+                final FutureTask<LocalBluetoothManager> localBluetoothManagerFutureTask =
+                        new FutureTask<>(
+                                // Avoid StrictMode ThreadPolicy violation
+                                () -> LocalBluetoothManager.getInstance(
+                                        context.getApplicationContext(),
+                                        (c, bluetoothManager) -> {
+                                        })
+                        );
+                try {
+                    localBluetoothManagerFutureTask.run();
+                    // May stay null when Bluetooth is unsupported; we retry on the next call.
+                    sLocalBluetoothManager = localBluetoothManagerFutureTask.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Log.w(TAG, "Error getting LocalBluetoothManager.", e);
+                }
+            }
+            return sLocalBluetoothManager;
+        }
+    }
+
+    @Nullable
+    static BluetoothAdapter getBluetoothAdapter() {
+        BluetoothAdapter adapter = sBluetoothAdapter;
+        if (adapter != null) {
+            return adapter;
+        }
+        synchronized (sLock) {
+            if (sBluetoothAdapter == null) {
+                final FutureTask<BluetoothAdapter> defaultBluetoothAdapterFutureTask =
+                        new FutureTask<>(
+                                // Avoid StrictMode ThreadPolicy violation
+                                BluetoothAdapter::getDefaultAdapter);
+                try {
+                    defaultBluetoothAdapterFutureTask.run();
+                    sBluetoothAdapter = defaultBluetoothAdapterFutureTask.get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Log.w(TAG, "Error getting default BluetoothAdapter.", e);
+                }
+            }
+            return sBluetoothAdapter;
+        }
+    }
+
+    @Nullable
+    static CachedBluetoothDeviceManager getCachedDeviceManager(Context context) {
+        LocalBluetoothManager localBluetoothManager = getLocalBluetoothManager(context);
+        return localBluetoothManager != null
+                ? localBluetoothManager.getCachedDeviceManager() : null;
+    }
+
+    @Nullable
+    static CachedBluetoothDevice findCachedDevice(Context context, BluetoothDevice device) {
+        CachedBluetoothDeviceManager deviceManager = getCachedDeviceManager(context);
+        return deviceManager != null && device != null ? deviceManager.findDevice(device) : null;
+    }
+
+    /** Immutable state of a single device, read once from the Bluetooth stack. */
+    static final class DeviceState {
+        final BluetoothDevice device;
+        @Nullable
+        final CachedBluetoothDevice cachedDevice;
+        /** Bonded and ACL connected, from {@link BluetoothDevice}'s perspective. */
+        final boolean connected;
+        /** Bonded but not ACL connected. */
+        final boolean bonded;
+        /** Connected from {@link CachedBluetoothDevice}'s perspective. */
+        final boolean profileConnected;
+        final boolean busy;
+
+        DeviceState(BluetoothDevice device, @Nullable CachedBluetoothDevice cachedDevice) {
+            this.device = device;
+            this.cachedDevice = cachedDevice;
+            final boolean isBondBonded = device.getBondState() == BluetoothDevice.BOND_BONDED;
+            final boolean isAclConnected = device.isConnected();
+            connected = isBondBonded && isAclConnected;
+            bonded = isBondBonded && !isAclConnected;
+            profileConnected = cachedDevice != null && cachedDevice.isConnected();
+            busy = cachedDevice == null || cachedDevice.isBusy();
+        }
+
+        /** Whether the device is connected from both the adapter and the cached device. */
+        boolean isFullyConnected() {
+            return connected && profileConnected;
+        }
+    }
+
+    /**
+     * A point-in-time view of the adapter and the given devices, meant to be captured once per
+     * slice build so that every row reads from the same state without further lookups.
+     */
+    static final class Snapshot {
+        final boolean bluetoothEnabled;
+        private final Map<String, DeviceState> mStates;
+
+        private Snapshot(boolean bluetoothEnabled, Map<String, DeviceState> states) {
+            this.bluetoothEnabled = bluetoothEnabled;
+            mStates = Collections.unmodifiableMap(states);
+        }
+
+        static Snapshot capture(Context context, List<BluetoothDevice> devices) {
+            final BluetoothAdapter adapter = getBluetoothAdapter();
+            final CachedBluetoothDeviceManager deviceManager = getCachedDeviceManager(context);
+            final Map<String, DeviceState> states = new ArrayMap<>(devices.size());
+            for (BluetoothDevice device : devices) {
+                if (device == null) {
+                    continue;
+                }
+                final CachedBluetoothDevice cachedDevice =
+                        deviceManager != null ? deviceManager.findDevice(device) : null;
+                states.put(device.getAddress(), new DeviceState(device, cachedDevice));
+            }
+            return new Snapshot(adapter != null && adapter.isEnabled(), states);
+        }
+
+        Map<String, DeviceState> getStates() {
+            return mStates;
+        }
+    }
+}
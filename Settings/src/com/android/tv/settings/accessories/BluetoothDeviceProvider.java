@@ -24,6 +24,14 @@ public interface BluetoothDeviceProvider {
     /** A Listener that wishes to be notified when devices are updated. */
     interface Listener {
         void onDeviceUpdated(BluetoothDevice device);
+
+        /**
+         * Called when some of the tracked fields of a device changed. {@code changedFields} is a
+         * mask of the {@code BluetoothDeviceStateStore.FIELD_*} constants.
+         */
+        default void onDeviceChanged(BluetoothDevice device, int changedFields) {
+            onDeviceUpdated(device);
+        }
     }
 
     /** Registers a Listener that will be notified when device status is updated. */
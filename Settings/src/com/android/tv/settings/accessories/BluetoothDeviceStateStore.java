@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.accessories;
+
+import android.bluetooth.BluetoothClass;
+import android.bluetooth.BluetoothDevice;
+import android.util.ArrayMap;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the last known state of each Bluetooth device seen by {@link BluetoothDevicesService}
+ * and reports which fields changed since the previous update.
+ *
+ * <p>Not thread safe; accessed only from the service's main thread handler.
+ */
+class BluetoothDeviceStateStore {
+
+    static final int FIELD_BOND = 1;
+    static final int FIELD_CONNECTION = 1 << 1;
+    static final int FIELD_NAME = 1 << 2;
+    static final int FIELD_BATTERY = 1 << 3;
+    static final int FIELD_CLASS = 1 << 4;
+    /**
+     * Connection state of a profile, such as HID or A2DP. Not recorded, as the profile state is
+     * only known from the broadcast that reports it; passed as a forced field instead.
+     */
+    static final int FIELD_PROFILE = 1 << 5;
+    static final int FIELD_ALL = FIELD_BOND | FIELD_CONNECTION | FIELD_NAME | FIELD_BATTERY
+            | FIELD_CLASS | FIELD_PROFILE;
+
+    /** Fields that are rendered in the connected devices list, as opposed to device details. */
+    static final int FIELDS_DEVICE_LIST =
+            FIELD_BOND | FIELD_CONNECTION | FIELD_NAME | FIELD_CLASS | FIELD_PROFILE;
+
+    private final Map<String, DeviceRecord> mRecords = new ArrayMap<>();
+
+    /**
+     * Records the current state of the device and returns the mask of fields that differ from
+     * the previously recorded state, {@link #FIELD_ALL} for a device not seen before, or 0 when
+     * nothing changed.
+     */
+    int update(BluetoothDevice device) {
+        return update(device, 0);
+    }
+
+    /**
+     * Same as {@link #update(BluetoothDevice)}, but always reports {@code forcedFields}, for
+     * events whose change is not visible in the recorded fields.
+     */
+    int update(BluetoothDevice device, int forcedFields) {
+        if (device == null) {
+            return 0;
+        }
+        final DeviceRecord record = DeviceRecord.of(device);
+        final DeviceRecord previous = mRecords.put(device.getAddress(), record);
+        return previous == null ? FIELD_ALL : previous.diff(record) | forcedFields;
+    }
+
+    /** Forgets every recorded state, so the next update of each device reports all fields. */
+    void clear() {
+        mRecords.clear();
+    }
+
+    /** Immutable copy of the fields tracked for a single device. */
+    static final class DeviceRecord {
+        final int bondState;
+        final boolean connected;
+        final String alias;
+        final int batteryLevel;
+        final int deviceClass;
+
+        DeviceRecord(int bondState, boolean connected, String alias, int batteryLevel,
+                int deviceClass) {
+            this.bondState = bondState;
+            this.connected = connected;
+            this.alias = alias;
+            this.batteryLevel = batteryLevel;
+            this.deviceClass = deviceClass;
+        }
+
+        static DeviceRecord of(BluetoothDevice device) {
+            final BluetoothClass btClass = device.getBluetoothClass();
+            return new DeviceRecord(
+                    device.getBondState(),
+                    device.isConnected(),
+                    device.getAlias(),
+                    device.getBatteryLevel(),
+                    btClass != null ? btClass.getDeviceClass() : 0);
+        }
+
+        int diff(DeviceRecord other) {
+            int changed = 0;
+            if (bondState != other.bondState) {
+                changed |= FIELD_BOND;
+            }
+            if (connected != other.connected) {
+                changed |= FIELD_CONNECTION;
+            }
+            if (!Objects.equals(alias, other.alias)) {
+                changed |= FIELD_NAME;
+            }
+            if (batteryLevel != other.batteryLevel) {
+                changed |= FIELD_BATTERY;
+            }
+            if (deviceClass != other.deviceClass) {
+                changed |= FIELD_CLASS;
+            }
+            return changed;
+        }
+    }
+}
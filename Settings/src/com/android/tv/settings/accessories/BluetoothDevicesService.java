@@ -51,6 +51,7 @@ public class BluetoothDevicesService extends Service {
 
     private final List<BluetoothDeviceProvider.Listener> mListeners = new ArrayList<>();
     private final Binder mBinder = new LocalBinder();
+    private final BluetoothDeviceStateStore mStateStore = new BluetoothDeviceStateStore();
     protected final Handler mHandler = new Handler(Looper.getMainLooper());
 
     /** Binder in BluetoothDeviceService. */
@@ -128,14 +129,19 @@ public class BluetoothDevicesService extends Service {
                         intent.getIntExtra(BluetoothAdapter.EXTRA_STATE, BluetoothAdapter.ERROR);
                 // Actively refresh the connected devices slice.
                 if (state == BluetoothAdapter.STATE_ON || state == BluetoothAdapter.STATE_OFF) {
-                    getContentResolver().notifyChange(GENERAL_SLICE_URI, null);
+                    mHandler.post(mStateStore::clear);
+                    ConnectedDevicesSliceUtils.notifySliceChanged(
+                            BluetoothDevicesService.this, GENERAL_SLICE_URI);
                 }
             } else {
                 switch(action) {
                     case BluetoothHidHost.ACTION_CONNECTION_STATE_CHANGED:
                         if (device.getBondState() == BluetoothDevice.BOND_BONDED) {
                             Log.i(TAG, "bonded " + device);
-                            mHandler.post(() -> onDeviceUpdated(device));
+                            // Usually arrives after the ACL link is up, so the recorded fields
+                            // are unchanged; always report it.
+                            mHandler.post(() -> onDeviceUpdated(device,
+                                    BluetoothDeviceStateStore.FIELD_PROFILE));
                         }
                         break;
                     case BluetoothA2dp.ACTION_CONNECTION_STATE_CHANGED:
@@ -144,7 +150,7 @@ public class BluetoothDevicesService extends Service {
                             onA2dpConnectionStateChanged(device.getName(), state);
                             if (state == BluetoothProfile.STATE_CONNECTED
                                     || state == BluetoothProfile.STATE_DISCONNECTED) {
-                                onDeviceUpdated(device);
+                                onDeviceUpdated(device, BluetoothDeviceStateStore.FIELD_PROFILE);
                             }
                         });
                         break;
@@ -161,6 +167,11 @@ public class BluetoothDevicesService extends Service {
                     case BluetoothDevice.ACTION_ACL_DISCONNECT_REQUESTED:
                         Log.i(TAG, "acl disconnect requested: " + device);
                         break;
+                    case BluetoothDevice.ACTION_ALIAS_CHANGED:
+                    case BluetoothDevice.ACTION_BATTERY_LEVEL_CHANGED:
+                        // Only reaches listeners if the tracked state actually changed.
+                        mHandler.post(() -> onDeviceUpdated(device));
+                        break;
                 }
             }
         }
@@ -184,6 +195,8 @@ public class BluetoothDevicesService extends Service {
         filter.addAction(BluetoothHidHost.ACTION_CONNECTION_STATE_CHANGED);
         filter.addAction(BluetoothA2dp.ACTION_CONNECTION_STATE_CHANGED); // Headset connection
         filter.addAction(BluetoothAdapter.ACTION_STATE_CHANGED); // Bluetooth toggle
+        filter.addAction(BluetoothDevice.ACTION_ALIAS_CHANGED);
+        filter.addAction(BluetoothDevice.ACTION_BATTERY_LEVEL_CHANGED);
         registerReceiver(mBluetoothReceiver, filter);
     }
 
@@ -273,7 +286,18 @@ public class BluetoothDevicesService extends Service {
     }
 
     private void onDeviceUpdated(BluetoothDevice device) {
-        mListeners.forEach(listener -> listener.onDeviceUpdated(device));
+        onDeviceUpdated(device, 0);
+    }
+
+    private void onDeviceUpdated(BluetoothDevice device, int forcedFields) {
+        final int changedFields = mStateStore.update(device, forcedFields);
+        if (changedFields == 0) {
+            if (DEBUG) {
+                Log.d(TAG, "onDeviceUpdated: no change for " + device);
+            }
+            return;
+        }
+        mListeners.forEach(listener -> listener.onDeviceChanged(device, changedFields));
     }
 
     /** Returns the BluetoothDevice object with the input address. */
@@ -80,8 +80,8 @@ public class ConnectedDevicesSliceBroadcastReceiver extends BroadcastReceiver {
                     }
                     case FIND_MY_REMOTE_PHYSICAL_BUTTON_ENABLED_SETTING -> {
                         setFindMyRemoteButtonEnabled(context, isChecked);
-                        context.getContentResolver().notifyChange(
-                                ConnectedDevicesSliceUtils.FIND_MY_REMOTE_SLICE_URI, null);
+                        ConnectedDevicesSliceUtils.notifySliceChanged(context,
+                                ConnectedDevicesSliceUtils.FIND_MY_REMOTE_SLICE_URI);
                     }
                 }
             }
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.accessories;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+
+import androidx.slice.Slice;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Caches the slices built by {@link ConnectedDevicesSliceProvider} per uri, and merges the
+ * change notifications of each uri.
+ *
+ * <p>A cached slice is served until its uri is invalidated, or until a slice is notified from
+ * outside the provider, which is tracked by the external generation.
+ */
+class ConnectedDevicesSliceCache {
+
+    /** Notifies the clients of a slice that it changed. */
+    interface Notifier {
+        void notifyChange(Uri uri);
+    }
+
+    private final Handler mHandler;
+    private final Notifier mNotifier;
+    private final IntSupplier mExternalGeneration;
+    private final long mCoalesceMs;
+    private final Runnable mNotifyPendingChangesRunnable = this::notifyPendingChanges;
+    // Accessed only on the handler thread.
+    private final Set<Uri> mPendingChangedUris = new ArraySet<>();
+
+    private final Object mLock = new Object();
+    // Guarded by mLock. Generation of each invalidated uri; uris never invalidated are at 0.
+    private final Map<Uri, Integer> mGenerations = new ArrayMap<>();
+    // Guarded by mLock.
+    private final Map<Uri, Entry> mEntries = new ArrayMap<>();
+    // Guarded by mLock. Source of the generations, so that a uri never gets a generation back.
+    private int mLastGeneration;
+
+    ConnectedDevicesSliceCache(Handler handler, Notifier notifier,
+            IntSupplier externalGeneration, long coalesceMs) {
+        mHandler = handler;
+        mNotifier = notifier;
+        mExternalGeneration = externalGeneration;
+        mCoalesceMs = coalesceMs;
+    }
+
+    /**
+     * Returns the cached slice of the uri, or builds it on the calling thread if it was
+     * invalidated since it was cached.
+     */
+    Slice get(Uri uri, Supplier<Slice> builder) {
+        final int generation;
+        final int externalGeneration = mExternalGeneration.getAsInt();
+        synchronized (mLock) {
+            generation = getGeneration(uri);
+            final Entry entry = mEntries.get(uri);
+            if (entry != null && entry.generation == generation
+                    && entry.externalGeneration == externalGeneration) {
+                return entry.slice;
+            }
+        }
+        final Slice slice = builder.get();
+        synchronized (mLock) {
+            // Not cached if the uri was invalidated while building, as the slice may be stale.
+            if (slice != null && generation == getGeneration(uri)
+                    && externalGeneration == mExternalGeneration.getAsInt()) {
+                mEntries.put(uri, new Entry(slice, generation, externalGeneration));
+            }
+        }
+        return slice;
+    }
+
+    /** Drops the cached slice of the uri, without notifying its clients. */
+    void invalidate(Uri uri) {
+        synchronized (mLock) {
+            mGenerations.put(uri, ++mLastGeneration);
+            mEntries.remove(uri);
+        }
+    }
+
+    /**
+     * Invalidates the uri and notifies its clients once the coalescing window elapses. Changes
+     * of the same uri within the window result in a single notification.
+     */
+    void scheduleNotifyChange(Uri uri) {
+        invalidate(uri);
+        mHandler.post(() -> {
+            if (mPendingChangedUris.add(uri) && mPendingChangedUris.size() == 1) {
+                mHandler.postDelayed(mNotifyPendingChangesRunnable, mCoalesceMs);
+            }
+        });
+    }
+
+    private int getGeneration(Uri uri) {
+        final Integer generation = mGenerations.get(uri);
+        return generation != null ? generation : 0;
+    }
+
+    private void notifyPendingChanges() {
+        for (Uri uri : mPendingChangedUris) {
+            mNotifier.notifyChange(uri);
+        }
+        mPendingChangedUris.clear();
+    }
+
+    private static final class Entry {
+        final Slice slice;
+        final int generation;
+        final int externalGeneration;
+
+        Entry(Slice slice, int generation, int externalGeneration) {
+            this.slice = slice;
+            this.generation = generation;
+            this.externalGeneration = externalGeneration;
+        }
+    }
+}
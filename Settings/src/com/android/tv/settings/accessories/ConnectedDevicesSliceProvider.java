@@ -83,8 +83,13 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
     private static final boolean DEBUG = false;
     private static final boolean DISCONNECT_PREFERENCE_ENABLED = false;
     private static final int ACTIVE_AUDIO_OUTPUT_INTENT_REQUEST_CODE = 9;
+    // Window over which slice change notifications for the same uri are merged.
+    private static final long NOTIFY_CHANGE_COALESCE_MS = 100;
     private final Map<Uri, Integer> mPinnedUris = new ArrayMap<>();
     private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final ConnectedDevicesSliceCache mSliceCache = new ConnectedDevicesSliceCache(
+            mHandler, this::notifyChange, ConnectedDevicesSliceUtils::getExternalChangeGeneration,
+            NOTIFY_CHANGE_COALESCE_MS);
 
     private boolean mBtDeviceServiceBound;
     private BluetoothDevicesService.LocalBinder mBtDeviceServiceBinder;
@@ -104,8 +109,9 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
                 public void onServiceConnected(ComponentName className, IBinder service) {
                     mBtDeviceServiceBinder = (BluetoothDevicesService.LocalBinder) service;
                     mBtDeviceServiceBinder.addListener(ConnectedDevicesSliceProvider.this);
-                    getContext().getContentResolver()
-                            .notifyChange(ConnectedDevicesSliceUtils.GENERAL_SLICE_URI, null);
+                    // The device list was empty until now.
+                    mSliceCache.invalidate(ConnectedDevicesSliceUtils.GENERAL_SLICE_URI);
+                    notifyChange(ConnectedDevicesSliceUtils.GENERAL_SLICE_URI);
                 }
 
                 @Override
@@ -178,11 +184,11 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
             StrictMode.setThreadPolicy(
                 new StrictMode.ThreadPolicy.Builder(oldPolicy).permitDiskReads().build());
             if (ConnectedDevicesSliceUtils.isGeneralPath(sliceUri)) {
-                return createGeneralSlice(sliceUri);
+                return mSliceCache.get(sliceUri, () -> createGeneralSlice(sliceUri));
             } else if (ConnectedDevicesSliceUtils.isBluetoothDevicePath(sliceUri)) {
-                return createBluetoothDeviceSlice(sliceUri);
+                return mSliceCache.get(sliceUri, () -> createBluetoothDeviceSlice(sliceUri));
             } else if (ConnectedDevicesSliceUtils.isFindMyRemotePath(sliceUri)) {
-                return createFindMyRemoteSlice(sliceUri);
+                return mSliceCache.get(sliceUri, () -> createFindMyRemoteSlice(sliceUri));
             }
         } finally {
             StrictMode.setThreadPolicy(oldPolicy);
@@ -204,6 +210,9 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
                 mPinnedUris.put(sliceUri, newCount);
                 if (newCount == 0) {
                     mPinnedUris.remove(sliceUri);
+                    // State which is not tracked, such as restrictions, may change before the
+                    // slice is pinned again.
+                    mSliceCache.invalidate(sliceUri);
                 }
             }
             if (mPinnedUris.isEmpty() && mBtDeviceServiceBound) {
@@ -216,8 +225,18 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
     // BluetoothDeviceProvider.Listener implementation
     @Override
     public void onDeviceUpdated(BluetoothDevice device) {
-        getContext().getContentResolver()
-                .notifyChange(ConnectedDevicesSliceUtils.GENERAL_SLICE_URI, null);
+        onDeviceChanged(device, BluetoothDeviceStateStore.FIELD_ALL);
+    }
+
+    @Override
+    public void onDeviceChanged(BluetoothDevice device, int changedFields) {
+        if (device == null) {
+            return;
+        }
+        // Battery-only updates don't affect the device list, only the device's own slice.
+        if ((changedFields & BluetoothDeviceStateStore.FIELDS_DEVICE_LIST) != 0) {
+            mSliceCache.scheduleNotifyChange(ConnectedDevicesSliceUtils.GENERAL_SLICE_URI);
+        }
         notifyDeviceSlice(device);
     }
 
@@ -228,9 +247,15 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
                 new RowBuilder()
                         .setTitle(getString(R.string.connected_devices_slice_pref_title))
                         .setPageId(TvSettingsEnums.CONNECTED_SLICE));
-        updateBluetoothToggle(psb);
-        updatePairingButton(psb);
-        updateConnectedDevices(psb);
+        // Read the adapter and device state once for the whole slice.
+        BluetoothContextCache.Snapshot snapshot =
+                BluetoothContextCache.Snapshot.capture(getContext(), getBluetoothDevices());
+        RestrictedLockUtils.EnforcedAdmin admin =
+                RestrictedLockUtilsInternal.checkIfRestrictionEnforced(getContext(),
+                        UserManager.DISALLOW_CONFIG_BLUETOOTH, UserHandle.myUserId());
+        updateBluetoothToggle(psb, snapshot.bluetoothEnabled);
+        updatePairingButton(psb, snapshot.bluetoothEnabled, admin);
+        updateConnectedDevices(psb, snapshot, admin);
         updateOfficialRemoteSettings(psb);
         updateFmr(psb);
         return psb.build();
@@ -241,8 +266,11 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
         Context context = getContext();
         String deviceAddr = ConnectedDevicesSliceUtils.getDeviceAddr(sliceUri);
         BluetoothDevice device = BluetoothDevicesService.findDevice(deviceAddr);
-        CachedBluetoothDevice cachedDevice =
-                AccessoryUtils.getCachedBluetoothDevice(getContext(), device);
+        BluetoothContextCache.DeviceState state = device != null
+                ? new BluetoothContextCache.DeviceState(device,
+                        AccessoryUtils.getCachedBluetoothDevice(context, device))
+                : null;
+        CachedBluetoothDevice cachedDevice = state != null ? state.cachedDevice : null;
         String deviceName = "";
         if (device != null) {
             deviceName = AccessoryUtils.getLocalName(device);
@@ -259,8 +287,7 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
         // Update "Use for TV audio".
         // Set as active audio output device only connected devices that have audio capabilities
         if (Flags.enableTvMediaOutputDialog()
-                && cachedDevice != null && !cachedDevice.isBusy()
-                && AccessoryUtils.isConnected(device) && cachedDevice.isConnected()
+                && state != null && !state.busy && state.isFullyConnected()
                 && AccessoryUtils.isBluetoothHeadset(device)) {
             boolean isActive = AccessoryUtils.isActiveAudioOutput(device);
 
@@ -288,9 +315,9 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
         }
 
         // Update "connect/disconnect preference"
-        if (cachedDevice != null && !cachedDevice.isBusy()) {
+        if (cachedDevice != null && !state.busy) {
             // Whether the device is actually connected from CachedBluetoothDevice's perspective.
-            boolean isConnected = AccessoryUtils.isConnected(device) && cachedDevice.isConnected();
+            boolean isConnected = state.isFullyConnected();
 
             if (!isConnected || showDisconnectButton(device, context)) {
                 RowBuilder connectionActionPref = new RowBuilder()
@@ -399,10 +426,10 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
         return psb.build();
     }
 
-    private void updateBluetoothToggle(PreferenceSliceBuilder psb) {
+    private void updateBluetoothToggle(PreferenceSliceBuilder psb, boolean bluetoothEnabled) {
         if (showBluetoothToggle()) {
             Intent bluetoothToggleIntent;
-            if (AccessoryUtils.isBluetoothEnabled()) {
+            if (bluetoothEnabled) {
                 bluetoothToggleIntent = new Intent(getContext(), BluetoothActionActivity.class);
                 Bundle extras = new Bundle();
                 BluetoothActionFragment.prepareArgs(
@@ -430,23 +457,21 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
                             .setIconNeedsToBeProcessed(true)
                             .setTitle(getString(R.string.bluetooth_toggle_title))
                             .addSwitch(
-                                    AccessoryUtils.isBluetoothEnabled()
+                                    bluetoothEnabled
                                             ? PendingIntent.getActivity(
                                                     getContext(), 1, bluetoothToggleIntent,
                                                     PendingIntent.FLAG_IMMUTABLE)
                                             : PendingIntent.getBroadcast(
                                                     getContext(), 2, bluetoothToggleIntent,
                                                     PendingIntent.FLAG_IMMUTABLE),
-                                    AccessoryUtils.isBluetoothEnabled())
+                                    bluetoothEnabled)
             );
         }
     }
 
-    private void updatePairingButton(PreferenceSliceBuilder psb) {
-        RestrictedLockUtils.EnforcedAdmin admin =
-                RestrictedLockUtilsInternal.checkIfRestrictionEnforced(getContext(),
-                        UserManager.DISALLOW_CONFIG_BLUETOOTH, UserHandle.myUserId());
-        if (AccessoryUtils.isBluetoothEnabled()) {
+    private void updatePairingButton(PreferenceSliceBuilder psb, boolean bluetoothEnabled,
+            RestrictedLockUtils.EnforcedAdmin admin) {
+        if (bluetoothEnabled) {
             PendingIntent pendingIntent;
             if (admin == null) {
                 Intent i = new Intent(ACTION_CONNECT_INPUT).addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
@@ -472,9 +497,10 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
         }
     }
 
-    private void updateConnectedDevices(PreferenceSliceBuilder psb) {
+    private void updateConnectedDevices(PreferenceSliceBuilder psb,
+            BluetoothContextCache.Snapshot snapshot, RestrictedLockUtils.EnforcedAdmin admin) {
         // Overall BT devices maps
-        HashMap<String, BluetoothDevice> addressToDevice = new HashMap<>();
+        HashMap<String, BluetoothContextCache.DeviceState> addressToDevice = new HashMap<>();
         // Sets for BT devices that are not official remotes:
         // - activeAccessories: they are considered connected from both BluetoothDevice and
         //       CachedBluetoothDevice's perceptive.
@@ -488,19 +514,18 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
         Set<String> bondedAccessories = new HashSet<>();
 
         // Bucketing all BT devices
-        for (BluetoothDevice device : getBluetoothDevices()) {
-            CachedBluetoothDevice cachedDevice =
-                    AccessoryUtils.getCachedBluetoothDevice(getContext(), device);
+        for (BluetoothContextCache.DeviceState state : snapshot.getStates().values()) {
+            BluetoothDevice device = state.device;
             if (!AccessoryUtils.isKnownDevice(getContext(), device)) {
-                if (AccessoryUtils.isConnected(device)) {
-                    addressToDevice.put(device.getAddress(), device);
-                    if (cachedDevice != null && cachedDevice.isConnected()) {
+                if (state.connected) {
+                    addressToDevice.put(device.getAddress(), state);
+                    if (state.profileConnected) {
                         activeAccessories.add(device.getAddress());
                     } else {
                         inactiveAccessories.add(device.getAddress());
                     }
-                } else if (AccessoryUtils.isBonded(device)) {
-                    addressToDevice.put(device.getAddress(), device);
+                } else if (state.bonded) {
+                    addressToDevice.put(device.getAddress(), state);
                     bondedAccessories.add(device.getAddress());
                 }
             }
@@ -513,9 +538,12 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
                     .setTitle(getContext().getString(R.string.bluetooth_known_devices_category))
                     .setKey(KEY_ACCESSORIES));
             // Add accessories following the ranking of: active, inactive, bonded.
-            createAndAddBtDeviceSlicePreferenceFromSet(psb, activeAccessories, addressToDevice);
-            createAndAddBtDeviceSlicePreferenceFromSet(psb, inactiveAccessories, addressToDevice);
-            createAndAddBtDeviceSlicePreferenceFromSet(psb, bondedAccessories, addressToDevice);
+            createAndAddBtDeviceSlicePreferenceFromSet(
+                    psb, activeAccessories, addressToDevice, admin);
+            createAndAddBtDeviceSlicePreferenceFromSet(
+                    psb, inactiveAccessories, addressToDevice, admin);
+            createAndAddBtDeviceSlicePreferenceFromSet(
+                    psb, bondedAccessories, addressToDevice, admin);
         }
     }
 
@@ -562,7 +590,8 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
     private void createAndAddBtDeviceSlicePreferenceFromSet(
             PreferenceSliceBuilder psb,
             Set<String> addresses,
-            HashMap<String, BluetoothDevice> addressesToBtDeviceMap) {
+            HashMap<String, BluetoothContextCache.DeviceState> addressesToBtDeviceMap,
+            RestrictedLockUtils.EnforcedAdmin admin) {
         if (psb == null || addresses == null || addresses.isEmpty()
                 || addressesToBtDeviceMap == null || addressesToBtDeviceMap.isEmpty()) {
             return;
@@ -573,16 +602,17 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
             psb.addPreference(
                     createBtDeviceSlicePreference(
                             getContext(),
-                            addressesToBtDeviceMap.get(deviceAddr)));
+                            addressesToBtDeviceMap.get(deviceAddr),
+                            admin));
         }
     }
 
     private PreferenceSliceBuilder.RowBuilder createBtDeviceSlicePreference(
-            Context context, BluetoothDevice device) {
+            Context context, BluetoothContextCache.DeviceState state,
+            RestrictedLockUtils.EnforcedAdmin admin) {
         PreferenceSliceBuilder.RowBuilder pref = new PreferenceSliceBuilder.RowBuilder();
-        boolean isConnected = AccessoryUtils.isConnected(device)
-                && AccessoryUtils.getCachedBluetoothDevice(getContext(), device) != null
-                && AccessoryUtils.getCachedBluetoothDevice(getContext(), device).isConnected();
+        BluetoothDevice device = state.device;
+        boolean isConnected = state.isFullyConnected();
         pref.setKey(device.getAddress());
         pref.setTitle(AccessoryUtils.getLocalName(device));
         pref.setSubtitle(
@@ -593,9 +623,6 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
                 context, AccessoriesFragment.getImageIdForDevice(device, true)));
         pref.setIconNeedsToBeProcessed(true);
 
-        RestrictedLockUtils.EnforcedAdmin admin =
-                RestrictedLockUtilsInternal.checkIfRestrictionEnforced(getContext(),
-                        UserManager.DISALLOW_CONFIG_BLUETOOTH, UserHandle.myUserId());
         if (admin == null) {
             Uri targetSliceUri = ConnectedDevicesSliceUtils
                     .getDeviceUri(device.getAddress(), device.getAlias());
@@ -623,13 +650,15 @@ public class ConnectedDevicesSliceProvider extends SliceProvider implements
     }
 
     private void notifyDeviceSlice(BluetoothDevice device) {
-        String addr = device.getAddress();
-        mHandler.post(() -> {
-            if (device != null) {
-                getContext().getContentResolver().notifyChange(
-                        ConnectedDevicesSliceUtils.getDeviceUri(addr, device.getAlias()), null);
-            }
-        });
+        mSliceCache.scheduleNotifyChange(
+                ConnectedDevicesSliceUtils.getDeviceUri(device.getAddress(), device.getAlias()));
+    }
+
+    private void notifyChange(Uri uri) {
+        if (DEBUG) {
+            Log.d(TAG, "notifyChange: " + uri);
+        }
+        getContext().getContentResolver().notifyChange(uri, null);
     }
 
     private boolean showBluetoothToggle() {
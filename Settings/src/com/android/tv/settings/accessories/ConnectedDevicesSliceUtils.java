@@ -24,6 +24,8 @@ import android.provider.Settings;
 
 import com.android.tv.twopanelsettings.slices.SlicesConstants;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /** Util class for {@ConnectedDevicesSliceProvider} */
 public final class ConnectedDevicesSliceUtils {
 
@@ -50,6 +52,10 @@ public final class ConnectedDevicesSliceUtils {
     static final String FIND_MY_REMOTE_PHYSICAL_BUTTON_ENABLED_SETTING =
             "find_my_remote_physical_button_enabled";
 
+    // Incremented before a slice is notified from outside ConnectedDevicesSliceProvider, so
+    // that the provider rebuilds the slices it cached.
+    private static final AtomicInteger sExternalChangeGeneration = new AtomicInteger();
+
     static String getDeviceAddr(Uri uri) {
         if (uri.getPathSegments().size() >= 2) {
             return uri.getPathSegments().get(1).split(" ")[0];
@@ -107,11 +113,23 @@ public final class ConnectedDevicesSliceUtils {
 
     static void notifyDeviceChanged(Context context, BluetoothDevice device) {
         if (device != null) {
-            context.getContentResolver().notifyChange(
-                    getDeviceUri(device.getAddress(), device.getAlias()), null);
+            notifySliceChanged(context, getDeviceUri(device.getAddress(), device.getAlias()));
         }
     }
 
+    /**
+     * Notifies the clients of a slice that it changed, for changes which
+     * {@link ConnectedDevicesSliceProvider} does not track itself.
+     */
+    static void notifySliceChanged(Context context, Uri uri) {
+        sExternalChangeGeneration.incrementAndGet();
+        context.getContentResolver().notifyChange(uri, null);
+    }
+
+    static int getExternalChangeGeneration() {
+        return sExternalChangeGeneration.get();
+    }
+
     private ConnectedDevicesSliceUtils() {
         // do not allow instantiation
     }
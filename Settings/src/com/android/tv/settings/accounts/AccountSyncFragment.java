@@ -26,12 +26,7 @@ import android.app.tvsettings.TvSettingsEnums;
 import android.content.ContentResolver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SyncAdapterType;
-import android.content.SyncInfo;
-import android.content.SyncStatusInfo;
 import android.content.SyncStatusObserver;
-import android.content.pm.PackageManager;
-import android.content.pm.ProviderInfo;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.UserHandle;
@@ -46,7 +41,8 @@ import androidx.preference.PreferenceGroup;
 import com.android.settingslib.accounts.AuthenticatorHelper;
 import com.android.tv.settings.R;
 import com.android.tv.settings.SettingsPreferenceFragment;
-import com.google.android.collect.Lists;
+import com.android.tv.settings.accounts.AccountSyncModel.AuthorityState;
+import com.android.tv.settings.library.util.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -68,17 +64,23 @@ public class AccountSyncFragment extends SettingsPreferenceFragment implements
     private Object mStatusChangeListenerHandle;
     private UserHandle mUserHandle;
     private Account mAccount;
-    private ArrayList<SyncAdapterType> mInvisibleAdapters = Lists.newArrayList();
 
     private PreferenceGroup mSyncCategory;
 
+    // The last loaded sync state, and the id of the latest load, so that results of loads
+    // started before the fragment was stopped are dropped.
+    private AccountSyncModel mSyncModel;
+    private int mSyncModelLoadId;
+
     private final Handler mHandler = new Handler();
+    private final SyncStatusUpdateScheduler mUpdateScheduler =
+            new SyncStatusUpdateScheduler(mHandler, this::loadSyncModel);
     private SyncStatusObserver mSyncStatusObserver = new SyncStatusObserver() {
         public void onStatusChanged(int which) {
             mHandler.post(new Runnable() {
                 public void run() {
                     if (isResumed()) {
-                        onSyncStateUpdated();
+                        mUpdateScheduler.onStatusChanged(which);
                     }
                 }
             });
@@ -119,7 +121,7 @@ public class AccountSyncFragment extends SettingsPreferenceFragment implements
                         | ContentResolver.SYNC_OBSERVER_TYPE_STATUS
                         | ContentResolver.SYNC_OBSERVER_TYPE_SETTINGS,
                 mSyncStatusObserver);
-        onSyncStateUpdated();
+        mUpdateScheduler.onStatusChanged(AccountSyncModel.CHANGE_ALL);
         mAuthenticatorHelper.listenToAccountUpdates();
         mAuthenticatorHelper.updateAuthDescriptions(getActivity());
     }
@@ -135,6 +137,8 @@ public class AccountSyncFragment extends SettingsPreferenceFragment implements
         super.onStop();
         ContentResolver.removeStatusChangeListener(mStatusChangeListenerHandle);
         mAuthenticatorHelper.stopListeningToAccountUpdates();
+        mUpdateScheduler.cancel();
+        mSyncModelLoadId++;
     }
 
     @Override
@@ -238,9 +242,9 @@ public class AccountSyncFragment extends SettingsPreferenceFragment implements
             requestOrCancelSync(syncPref.getAccount(), syncPref.getAuthority(), startSync);
         }
         // plus whatever the system needs to sync, e.g., invisible sync adapters
-        if (mAccount != null) {
-            for (SyncAdapterType syncAdapter : mInvisibleAdapters) {
-                requestOrCancelSync(mAccount, syncAdapter.authority, startSync);
+        if (mAccount != null && mSyncModel != null) {
+            for (String authority : mSyncModel.getInvisibleAuthorities()) {
+                requestOrCancelSync(mAccount, authority, startSync);
             }
         }
     }
@@ -256,22 +260,17 @@ public class AccountSyncFragment extends SettingsPreferenceFragment implements
         }
     }
 
-    private boolean isSyncing(List<SyncInfo> currentSyncs, Account account, String authority) {
-        for (SyncInfo syncInfo : currentSyncs) {
-            if (syncInfo.account.equals(account) && syncInfo.authority.equals(authority)) {
-                return true;
-            }
-        }
-        return false;
+    private boolean accountExists(Account account) {
+        return accountExists(getActivity(), account, mUserHandle);
     }
 
-    private boolean accountExists(Account account) {
+    private static boolean accountExists(Context context, Account account, UserHandle user) {
         if (account == null || account.type == null || account.name == null) {
             return false;
         }
 
-        Account[] accounts = AccountManager.get(getActivity()).getAccountsByTypeAsUser(
-                account.type, mUserHandle);
+        Account[] accounts = AccountManager.get(context).getAccountsByTypeAsUser(
+                account.type, user);
         for (final Account other : accounts) {
             if (other.equals(account)) {
                 return true;
@@ -285,118 +284,103 @@ public class AccountSyncFragment extends SettingsPreferenceFragment implements
         if (!isResumed()) {
             return;
         }
-        onSyncStateUpdated();
+        mUpdateScheduler.onStatusChanged(AccountSyncModel.CHANGE_ALL);
     }
 
-    private void onSyncStateUpdated() {
-        if (!accountExists(mAccount)) {
-            // Error screen doesn't need to be updated.
-            return;
-        }
-        // iterate over all the preferences, setting the state properly for each
-        final int userId = mUserHandle.getIdentifier();
-        List<SyncInfo> currentSyncs = ContentResolver.getCurrentSyncsAsUser(userId);
-//        boolean syncIsFailing = false;
-
-        // Refresh the sync status switches - some syncs may have become active.
-        updateAccountSwitches();
-
-        for (int i = 0, count = mSyncCategory.getPreferenceCount(); i < count; i++) {
-            Preference pref = mSyncCategory.getPreference(i);
-            if (! (pref instanceof SyncStateSwitchPreference)) {
-                continue;
-            }
-            SyncStateSwitchPreference syncPref = (SyncStateSwitchPreference) pref;
-
-            String authority = syncPref.getAuthority();
-            Account account = syncPref.getAccount();
-
-            SyncStatusInfo status = ContentResolver.getSyncStatusAsUser(account, authority, userId);
-            boolean syncEnabled = ContentResolver.getSyncAutomaticallyAsUser(account, authority,
-                    userId);
-            boolean authorityIsPending = status != null && status.pending;
-            boolean initialSync = status != null && status.initialize;
-
-            boolean activelySyncing = isSyncing(currentSyncs, account, authority);
-            boolean lastSyncFailed = status != null
-                    && status.lastFailureTime != 0
-                    && status.getLastFailureMesgAsInt(0)
-                    != ContentResolver.SYNC_ERROR_SYNC_ALREADY_IN_PROGRESS;
-            if (!syncEnabled) lastSyncFailed = false;
-//            if (lastSyncFailed && !activelySyncing && !authorityIsPending) {
-//                syncIsFailing = true;
-//            }
-            if (Log.isLoggable(TAG, Log.VERBOSE)) {
-                Log.v(TAG, "Update sync status: " + account + " " + authority +
-                        " active = " + activelySyncing + " pend =" +  authorityIsPending);
+    private void loadSyncModel(int which) {
+        final int loadId = ++mSyncModelLoadId;
+        final Context context = getActivity().getApplicationContext();
+        final Account account = mAccount;
+        final UserHandle user = mUserHandle;
+        final AccountSyncModel previous = mSyncModel;
+        final boolean checkAccount = previous == null
+                || (which & AccountSyncModel.CHANGE_ADAPTERS) != 0;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            AccountSyncModel model = null;
+            try {
+                // Error screen doesn't need to be updated.
+                if (!checkAccount || accountExists(context, account, user)) {
+                    model = AccountSyncModel.load(
+                            new AccountSyncModel.SystemSyncSource(context.getPackageManager(),
+                                    user.getIdentifier()),
+                            account, previous, which);
+                }
+            } catch (RuntimeException e) {
+                Log.w(TAG, "Unable to load sync state of " + account, e);
             }
+            final AccountSyncModel loaded = model;
+            ThreadUtils.postOnMainThread(() -> {
+                if (loadId != mSyncModelLoadId) {
+                    return;
+                }
+                if (loaded != null) {
+                    onSyncModelLoaded(loaded);
+                }
+                mUpdateScheduler.onRefreshFinished();
+            });
+        });
+    }
 
-            final long successEndTime = (status == null) ? 0 : status.lastSuccessTime;
-            if (!syncEnabled) {
-                syncPref.setSummary(R.string.sync_disabled);
-            } else if (activelySyncing) {
-                syncPref.setSummary(R.string.sync_in_progress);
-            } else if (successEndTime != 0) {
-                final String timeString = DateUtils.formatDateTime(getActivity(), successEndTime,
-                        DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_TIME);
-                syncPref.setSummary(getResources().getString(R.string.last_synced, timeString));
-            } else {
-                syncPref.setSummary("");
+    private void onSyncModelLoaded(AccountSyncModel model) {
+        final AccountSyncModel previous = mSyncModel;
+        mSyncModel = model;
+        if (!model.hasSameShownAuthorities(previous)) {
+            updateAccountSwitches(model);
+            return;
+        }
+        // Only touch the switches whose state changed, so an ongoing sync does not rebind the
+        // whole list on each status change.
+        for (AuthorityState state : model.getChangedAuthorities(previous)) {
+            final Preference pref = mSyncCategory.findPreference(state.authority);
+            if (pref instanceof SyncStateSwitchPreference) {
+                updateSyncStateSwitch((SyncStateSwitchPreference) pref, state,
+                        model.isMasterSyncAutomatically());
             }
-            int syncState = ContentResolver.getIsSyncableAsUser(account, authority, userId);
-
-            syncPref.setActive(activelySyncing && (syncState >= 0) &&
-                    !initialSync);
-            syncPref.setPending(authorityIsPending && (syncState >= 0) &&
-                    !initialSync);
-
-            syncPref.setFailed(lastSyncFailed);
-            final boolean oneTimeSyncMode = !ContentResolver.getMasterSyncAutomaticallyAsUser(
-                    userId);
-            syncPref.setOneTimeSyncMode(oneTimeSyncMode);
-            syncPref.setChecked(oneTimeSyncMode || syncEnabled);
         }
     }
 
-    private void updateAccountSwitches() {
-        mInvisibleAdapters.clear();
-
-        SyncAdapterType[] syncAdapters = ContentResolver.getSyncAdapterTypesAsUser(
-                mUserHandle.getIdentifier());
-        ArrayList<String> authorities = new ArrayList<>(syncAdapters.length);
-        for (SyncAdapterType sa : syncAdapters) {
-            // Only keep track of sync adapters for this account
-            if (!sa.accountType.equals(mAccount.type)) continue;
-            if (sa.isUserVisible()) {
-                if (Log.isLoggable(TAG, Log.VERBOSE)) {
-                    Log.v(TAG, "updateAccountSwitches: added authority " + sa.authority
-                            + " to accountType " + sa.accountType);
-                }
-                authorities.add(sa.authority);
-            } else {
-                // keep track of invisible sync adapters, so sync now forces
-                // them to sync as well.
-                mInvisibleAdapters.add(sa);
-            }
+    private void updateSyncStateSwitch(SyncStateSwitchPreference syncPref, AuthorityState state,
+            boolean masterSyncAutomatically) {
+        if (Log.isLoggable(TAG, Log.VERBOSE)) {
+            Log.v(TAG, "Update sync status: " + mAccount + " " + state.authority +
+                    " active = " + state.activelySyncing + " pend =" + state.pending);
+        }
+
+        if (!state.syncEnabled) {
+            syncPref.setSummary(R.string.sync_disabled);
+        } else if (state.activelySyncing) {
+            syncPref.setSummary(R.string.sync_in_progress);
+        } else if (state.lastSuccessTime != 0) {
+            final String timeString = DateUtils.formatDateTime(getActivity(),
+                    state.lastSuccessTime, DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_SHOW_TIME);
+            syncPref.setSummary(getResources().getString(R.string.last_synced, timeString));
+        } else {
+            syncPref.setSummary("");
         }
 
+        syncPref.setActive(state.isActive());
+        syncPref.setPending(state.isPending());
+        syncPref.setFailed(state.isFailed());
+        final boolean oneTimeSyncMode = !masterSyncAutomatically;
+        syncPref.setOneTimeSyncMode(oneTimeSyncMode);
+        syncPref.setChecked(oneTimeSyncMode || state.syncEnabled);
+    }
+
+    private void updateAccountSwitches(AccountSyncModel model) {
         mSyncCategory.removeAll();
+        final List<AuthorityState> authorities = model.getShownAuthorities();
         final List<Preference> switches = new ArrayList<>(authorities.size());
 
         if (Log.isLoggable(TAG, Log.VERBOSE)) {
             Log.v(TAG, "looking for sync adapters that match account " + mAccount);
         }
-        for (final String authority : authorities) {
-            // We could check services here....
-            int syncState = ContentResolver.getIsSyncableAsUser(mAccount, authority,
-                    mUserHandle.getIdentifier());
+        for (final AuthorityState state : authorities) {
             if (Log.isLoggable(TAG, Log.VERBOSE)) {
-                Log.v(TAG, "  found authority " + authority + " " + syncState);
-            }
-            if (syncState > 0) {
-                final Preference pref = createSyncStateSwitch(mAccount, authority);
-                switches.add(pref);
+                Log.v(TAG, "  found authority " + state.authority + " " + state.syncable);
             }
+            final SyncStateSwitchPreference pref = createSyncStateSwitch(mAccount, state);
+            updateSyncStateSwitch(pref, state, model.isMasterSyncAutomatically());
+            switches.add(pref);
         }
 
         Collections.sort(switches);
@@ -405,25 +389,15 @@ public class AccountSyncFragment extends SettingsPreferenceFragment implements
         }
     }
 
-    private Preference createSyncStateSwitch(Account account, String authority) {
+    private SyncStateSwitchPreference createSyncStateSwitch(Account account,
+            AuthorityState state) {
         final Context themedContext = getPreferenceManager().getContext();
         SyncStateSwitchPreference preference =
-                new SyncStateSwitchPreference(themedContext, account, authority);
+                new SyncStateSwitchPreference(themedContext, account, state.authority);
         preference.setPersistent(false);
-        final PackageManager packageManager = getActivity().getPackageManager();
-        final ProviderInfo providerInfo = packageManager.resolveContentProviderAsUser(
-                authority, 0, mUserHandle.getIdentifier());
-        if (providerInfo == null) {
-            return null;
-        }
-        CharSequence providerLabel = providerInfo.loadLabel(packageManager);
-        if (TextUtils.isEmpty(providerLabel)) {
-            Log.e(TAG, "Provider needs a label for authority '" + authority + "'");
-            return null;
-        }
-        String title = getString(R.string.sync_item_title, providerLabel);
+        String title = getString(R.string.sync_item_title, state.label);
         preference.setTitle(title);
-        preference.setKey(authority);
+        preference.setKey(state.authority);
         return preference;
     }
 
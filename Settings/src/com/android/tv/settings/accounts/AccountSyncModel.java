@@ -0,0 +1,407 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.accounts;
+
+import android.accounts.Account;
+import android.content.ContentResolver;
+import android.content.SyncAdapterType;
+import android.content.SyncInfo;
+import android.content.SyncStatusInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ProviderInfo;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable snapshot of the sync adapters of one account and the sync status of each of them.
+ *
+ * <p>A snapshot is loaded in one pass off the main thread. Later snapshots only query what the
+ * {@link android.content.SyncStatusObserver} mask says may have changed and take everything else
+ * from the previous snapshot; {@link #getChangedAuthorities} then tells which switches actually
+ * need to be updated.
+ */
+final class AccountSyncModel {
+    private static final String TAG = "AccountSyncModel";
+
+    /** Change flag for the sync adapters themselves, e.g. after packages or accounts changed. */
+    static final int CHANGE_ADAPTERS = 1 << 30;
+    static final int CHANGE_ALL = CHANGE_ADAPTERS
+            | ContentResolver.SYNC_OBSERVER_TYPE_ACTIVE
+            | ContentResolver.SYNC_OBSERVER_TYPE_STATUS
+            | ContentResolver.SYNC_OBSERVER_TYPE_SETTINGS;
+
+    /** The sync framework queries a snapshot is loaded from. */
+    interface SyncSource {
+        SyncAdapterType[] getSyncAdapterTypes();
+
+        /** Returns the label of the provider of the authority, or null if it has none. */
+        @Nullable
+        CharSequence getProviderLabel(String authority);
+
+        List<SyncInfo> getCurrentSyncs();
+
+        @Nullable
+        SyncStatusInfo getSyncStatus(Account account, String authority);
+
+        boolean getSyncAutomatically(Account account, String authority);
+
+        int getIsSyncable(Account account, String authority);
+
+        boolean getMasterSyncAutomatically();
+    }
+
+    /** {@link SyncSource} backed by {@link ContentResolver} for one user. */
+    static final class SystemSyncSource implements SyncSource {
+        private final PackageManager mPackageManager;
+        private final int mUserId;
+
+        SystemSyncSource(PackageManager packageManager, int userId) {
+            mPackageManager = packageManager;
+            mUserId = userId;
+        }
+
+        @Override
+        public SyncAdapterType[] getSyncAdapterTypes() {
+            return ContentResolver.getSyncAdapterTypesAsUser(mUserId);
+        }
+
+        @Override
+        public CharSequence getProviderLabel(String authority) {
+            final ProviderInfo providerInfo = mPackageManager.resolveContentProviderAsUser(
+                    authority, 0, mUserId);
+            if (providerInfo == null) {
+                return null;
+            }
+            final CharSequence providerLabel = providerInfo.loadLabel(mPackageManager);
+            if (TextUtils.isEmpty(providerLabel)) {
+                Log.e(TAG, "Provider needs a label for authority '" + authority + "'");
+                return null;
+            }
+            return providerLabel;
+        }
+
+        @Override
+        public List<SyncInfo> getCurrentSyncs() {
+            return ContentResolver.getCurrentSyncsAsUser(mUserId);
+        }
+
+        @Override
+        public SyncStatusInfo getSyncStatus(Account account, String authority) {
+            return ContentResolver.getSyncStatusAsUser(account, authority, mUserId);
+        }
+
+        @Override
+        public boolean getSyncAutomatically(Account account, String authority) {
+            return ContentResolver.getSyncAutomaticallyAsUser(account, authority, mUserId);
+        }
+
+        @Override
+        public int getIsSyncable(Account account, String authority) {
+            return ContentResolver.getIsSyncableAsUser(account, authority, mUserId);
+        }
+
+        @Override
+        public boolean getMasterSyncAutomatically() {
+            return ContentResolver.getMasterSyncAutomaticallyAsUser(mUserId);
+        }
+    }
+
+    /** Sync state of one user visible authority of the account. */
+    static final class AuthorityState {
+        final String authority;
+        /** Label of the provider, or null if the authority cannot be shown. */
+        @Nullable
+        final CharSequence label;
+        final int syncable;
+        final boolean syncEnabled;
+        final boolean activelySyncing;
+        final boolean pending;
+        final boolean initialSync;
+        final boolean lastSyncFailed;
+        final long lastSuccessTime;
+
+        AuthorityState(String authority, @Nullable CharSequence label, int syncable,
+                boolean syncEnabled, boolean activelySyncing, boolean pending,
+                boolean initialSync, boolean lastSyncFailed, long lastSuccessTime) {
+            this.authority = authority;
+            this.label = label;
+            this.syncable = syncable;
+            this.syncEnabled = syncEnabled;
+            this.activelySyncing = activelySyncing;
+            this.pending = pending;
+            this.initialSync = initialSync;
+            this.lastSyncFailed = lastSyncFailed;
+            this.lastSuccessTime = lastSuccessTime;
+        }
+
+        boolean isShown() {
+            return syncable > 0 && label != null;
+        }
+
+        boolean isActive() {
+            return activelySyncing && syncable >= 0 && !initialSync;
+        }
+
+        boolean isPending() {
+            return pending && syncable >= 0 && !initialSync;
+        }
+
+        boolean isFailed() {
+            return syncEnabled && lastSyncFailed;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof AuthorityState)) {
+                return false;
+            }
+            final AuthorityState other = (AuthorityState) o;
+            return authority.equals(other.authority)
+                    && TextUtils.equals(label, other.label)
+                    && syncable == other.syncable
+                    && syncEnabled == other.syncEnabled
+                    && activelySyncing == other.activelySyncing
+                    && pending == other.pending
+                    && initialSync == other.initialSync
+                    && lastSyncFailed == other.lastSyncFailed
+                    && lastSuccessTime == other.lastSuccessTime;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(authority, syncable, syncEnabled, activelySyncing, pending,
+                    initialSync, lastSyncFailed, lastSuccessTime);
+        }
+
+        @Override
+        public String toString() {
+            return "AuthorityState{" + authority
+                    + " syncable=" + syncable
+                    + " enabled=" + syncEnabled
+                    + " active=" + activelySyncing
+                    + " pending=" + pending
+                    + " initial=" + initialSync
+                    + " failed=" + lastSyncFailed
+                    + " lastSuccess=" + lastSuccessTime + "}";
+        }
+    }
+
+    private final List<AuthorityState> mAuthorities;
+    private final Map<String, AuthorityState> mAuthoritiesByName;
+    private final List<String> mInvisibleAuthorities;
+    private final boolean mMasterSyncAutomatically;
+
+    private AccountSyncModel(List<AuthorityState> authorities, List<String> invisibleAuthorities,
+            boolean masterSyncAutomatically) {
+        mAuthorities = Collections.unmodifiableList(authorities);
+        mAuthoritiesByName = new ArrayMap<>(authorities.size());
+        for (AuthorityState state : authorities) {
+            mAuthoritiesByName.put(state.authority, state);
+        }
+        mInvisibleAuthorities = Collections.unmodifiableList(invisibleAuthorities);
+        mMasterSyncAutomatically = masterSyncAutomatically;
+    }
+
+    /**
+     * Loads the sync state of the account. Must not be called on the main thread.
+     *
+     * @param previous the snapshot to take unchanged state from, or null to load everything
+     * @param which the {@code SYNC_OBSERVER_TYPE_*} flags, and {@link #CHANGE_ADAPTERS}, of the
+     *              state which may have changed since {@code previous}
+     */
+    static AccountSyncModel load(SyncSource source, Account account,
+            @Nullable AccountSyncModel previous, int which) {
+        if (previous == null) {
+            which = CHANGE_ALL;
+        }
+        final boolean settingsChanged = (which & ContentResolver.SYNC_OBSERVER_TYPE_SETTINGS) != 0;
+        final boolean statusChanged = (which & ContentResolver.SYNC_OBSERVER_TYPE_STATUS) != 0;
+        final boolean activeChanged = (which & ContentResolver.SYNC_OBSERVER_TYPE_ACTIVE) != 0;
+
+        final List<String> authorities;
+        final List<String> invisibleAuthorities;
+        if ((which & CHANGE_ADAPTERS) != 0) {
+            authorities = new ArrayList<>();
+            invisibleAuthorities = new ArrayList<>();
+            for (SyncAdapterType sa : source.getSyncAdapterTypes()) {
+                // Only keep track of sync adapters for this account
+                if (!sa.accountType.equals(account.type)) {
+                    continue;
+                }
+                if (sa.isUserVisible()) {
+                    authorities.add(sa.authority);
+                } else {
+                    // keep track of invisible sync adapters, so sync now forces
+                    // them to sync as well.
+                    invisibleAuthorities.add(sa.authority);
+                }
+            }
+        } else {
+            authorities = new ArrayList<>(previous.mAuthorities.size());
+            for (AuthorityState state : previous.mAuthorities) {
+                authorities.add(state.authority);
+            }
+            invisibleAuthorities = previous.mInvisibleAuthorities;
+        }
+
+        final boolean masterSyncAutomatically = settingsChanged
+                ? source.getMasterSyncAutomatically() : previous.mMasterSyncAutomatically;
+
+        List<SyncInfo> currentSyncs = null;
+        final List<AuthorityState> states = new ArrayList<>(authorities.size());
+        for (String authority : authorities) {
+            final AuthorityState old = previous != null
+                    ? previous.mAuthoritiesByName.get(authority) : null;
+            if (old != null && (which & CHANGE_ALL) == 0) {
+                states.add(old);
+                continue;
+            }
+            final boolean full = old == null;
+
+            final CharSequence label = full || (which & CHANGE_ADAPTERS) != 0
+                    ? source.getProviderLabel(authority) : old.label;
+
+            final int syncable;
+            final boolean syncEnabled;
+            if (full || settingsChanged) {
+                syncable = source.getIsSyncable(account, authority);
+                syncEnabled = source.getSyncAutomatically(account, authority);
+            } else {
+                syncable = old.syncable;
+                syncEnabled = old.syncEnabled;
+            }
+
+            final boolean pending;
+            final boolean initialSync;
+            final boolean lastSyncFailed;
+            final long lastSuccessTime;
+            if (full || statusChanged) {
+                final SyncStatusInfo status = source.getSyncStatus(account, authority);
+                pending = status != null && status.pending;
+                initialSync = status != null && status.initialize;
+                lastSyncFailed = status != null
+                        && status.lastFailureTime != 0
+                        && status.getLastFailureMesgAsInt(0)
+                        != ContentResolver.SYNC_ERROR_SYNC_ALREADY_IN_PROGRESS;
+                lastSuccessTime = status == null ? 0 : status.lastSuccessTime;
+            } else {
+                pending = old.pending;
+                initialSync = old.initialSync;
+                lastSyncFailed = old.lastSyncFailed;
+                lastSuccessTime = old.lastSuccessTime;
+            }
+
+            final boolean activelySyncing;
+            if (full || activeChanged) {
+                if (currentSyncs == null) {
+                    currentSyncs = source.getCurrentSyncs();
+                }
+                activelySyncing = isSyncing(currentSyncs, account, authority);
+            } else {
+                activelySyncing = old.activelySyncing;
+            }
+
+            states.add(new AuthorityState(authority, label, syncable, syncEnabled,
+                    activelySyncing, pending, initialSync, lastSyncFailed, lastSuccessTime));
+        }
+        return new AccountSyncModel(states, invisibleAuthorities, masterSyncAutomatically);
+    }
+
+    private static boolean isSyncing(List<SyncInfo> currentSyncs, Account account,
+            String authority) {
+        for (SyncInfo syncInfo : currentSyncs) {
+            if (syncInfo.account.equals(account) && syncInfo.authority.equals(authority)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the authorities with a switch on screen, in sync adapter order. */
+    List<AuthorityState> getShownAuthorities() {
+        final List<AuthorityState> shown = new ArrayList<>(mAuthorities.size());
+        for (AuthorityState state : mAuthorities) {
+            if (state.isShown()) {
+                shown.add(state);
+            }
+        }
+        return shown;
+    }
+
+    /** Returns the authorities of the sync adapters which are not user visible. */
+    List<String> getInvisibleAuthorities() {
+        return mInvisibleAuthorities;
+    }
+
+    boolean isMasterSyncAutomatically() {
+        return mMasterSyncAutomatically;
+    }
+
+    /**
+     * Returns whether the same switches, with the same titles, are shown for both snapshots,
+     * so that they only need to be updated rather than rebuilt.
+     */
+    boolean hasSameShownAuthorities(@Nullable AccountSyncModel other) {
+        if (other == null) {
+            return false;
+        }
+        final List<AuthorityState> shown = getShownAuthorities();
+        final List<AuthorityState> otherShown = other.getShownAuthorities();
+        if (shown.size() != otherShown.size()) {
+            return false;
+        }
+        for (int i = 0; i < shown.size(); i++) {
+            final AuthorityState state = shown.get(i);
+            final AuthorityState otherState = otherShown.get(i);
+            if (!state.authority.equals(otherState.authority)
+                    || !TextUtils.equals(state.label, otherState.label)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the shown authorities whose switch looks different than in {@code previous}; all
+     * of them if the master sync setting changed.
+     */
+    List<AuthorityState> getChangedAuthorities(@Nullable AccountSyncModel previous) {
+        final List<AuthorityState> shown = getShownAuthorities();
+        if (previous == null || previous.mMasterSyncAutomatically != mMasterSyncAutomatically) {
+            return shown;
+        }
+        final List<AuthorityState> changed = new ArrayList<>();
+        for (AuthorityState state : shown) {
+            if (!state.equals(previous.mAuthoritiesByName.get(state.authority))) {
+                changed.add(state);
+            }
+        }
+        return changed;
+    }
+}
@@ -204,6 +204,36 @@ public class AccountsFragment extends SettingsPreferenceFragment {
      * AccountManager.
      */
     public static void setUpAddAccountPrefIntent(Preference preference, Context context) {
+        setUpAddAccountPrefIntent(preference, getAllowableAccountTypes(context));
+    }
+
+    /**
+     * Same as {@link #setUpAddAccountPrefIntent(Preference, Context)}, with account types
+     * previously returned by {@link #getAllowableAccountTypes(Context)}.
+     */
+    public static void setUpAddAccountPrefIntent(Preference preference,
+            String[] allowableAccountTypes) {
+        Intent i = new Intent().setComponent(new ComponentName("com.android.tv.settings",
+                "com.android.tv.settings.accounts.AddAccountWithTypeActivity"));
+        i.putExtra(AddAccountWithTypeActivity.EXTRA_ALLOWABLE_ACCOUNT_TYPES_STRING_ARRAY,
+                allowableAccountTypes);
+
+                // If there are available account types, show the "add account" button.
+        preference.setVisible(allowableAccountTypes.length != 0);
+        preference.setIntent(i);
+        preference.setOnPreferenceClickListener(
+                preference1 -> {
+                    logEntrySelected(TvSettingsEnums.ACCOUNT_CLASSIC_ADD_ACCOUNT);
+                    return false;
+                });
+    }
+
+    /**
+     * Returns the account types that can be added, i.e. whose authenticator has a title or an
+     * icon. Queries AccountManager and loads package resources, so may be called off the main
+     * thread.
+     */
+    public static String[] getAllowableAccountTypes(Context context) {
         final AccountManager am = AccountManager.get(context);
         final AuthenticatorDescription[] authTypes = am.getAuthenticatorTypes();
         final ArrayList<String> allowableAccountTypes = new ArrayList<>(authTypes.length);
@@ -217,20 +247,7 @@ public class AccountsFragment extends SettingsPreferenceFragment {
                 allowableAccountTypes.add(authDesc.type);
             }
         }
-
-        Intent i = new Intent().setComponent(new ComponentName("com.android.tv.settings",
-                "com.android.tv.settings.accounts.AddAccountWithTypeActivity"));
-        i.putExtra(AddAccountWithTypeActivity.EXTRA_ALLOWABLE_ACCOUNT_TYPES_STRING_ARRAY,
-                allowableAccountTypes.toArray(new String[allowableAccountTypes.size()]));
-
-                // If there are available account types, show the "add account" button.
-        preference.setVisible(!allowableAccountTypes.isEmpty());
-        preference.setIntent(i);
-        preference.setOnPreferenceClickListener(
-                preference1 -> {
-                    logEntrySelected(TvSettingsEnums.ACCOUNT_CLASSIC_ADD_ACCOUNT);
-                    return false;
-                });
+        return allowableAccountTypes.toArray(new String[allowableAccountTypes.size()]);
     }
 
     private static Context getTargetContext(Context context, AuthenticatorDescription authDesc) {
@@ -17,7 +17,6 @@
 package com.android.tv.settings.accounts;
 
 import android.content.Context;
-import android.content.Intent;
 import android.os.UserHandle;
 import android.os.UserManager;
 import android.util.Log;
@@ -26,10 +25,9 @@ import androidx.annotation.IntDef;
 
 import com.android.settingslib.RestrictedLockUtils;
 import com.android.settingslib.RestrictedLockUtilsInternal;
-import com.android.tv.settings.MainFragment;
+import com.android.tv.settings.MainMenuModel;
 import com.android.tv.settings.R;
 import com.android.tv.settings.overlay.FlavorUtils;
-import com.android.tv.settings.util.SliceUtils;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -59,6 +57,15 @@ public class AccountsUtil {
      * @return the accounts fragment to launch
      */
     public static @AccountsFragmentType int getAccountsFragmentToLaunch(Context context) {
+        return getAccountsFragmentToLaunch(context, MainMenuModel.getInstance(context));
+    }
+
+    /**
+     * Same as {@link #getAccountsFragmentToLaunch(Context)}, resolving the accounts intent and
+     * slice provider through the given cached model.
+     */
+    public static @AccountsFragmentType int getAccountsFragmentToLaunch(Context context,
+            MainMenuModel mainMenuModel) {
         if (AccountsUtil.isAdminRestricted(context)) {
             return ACCOUNTS_FRAGMENT_RESTRICTED;
         }
@@ -73,15 +80,14 @@ public class AccountsUtil {
         }
 
         // If the intent can be handled, use it.
-        Intent accountsIntent = new Intent(ACTION_ACCOUNTS);
-        if (MainFragment.systemIntentIsHandled(context, accountsIntent) != null) {
+        if (mainMenuModel.getSystemActivity(ACTION_ACCOUNTS) != null) {
             return ACCOUNTS_SYSTEM_INTENT;
         }
 
         // If a slice is available, use it to display the accounts settings, otherwise fall back to
         // use AccountsFragment.
         String uri = context.getString(R.string.account_slice_uri);
-        if (SliceUtils.isSliceProviderValid(context, uri)) {
+        if (mainMenuModel.isSliceProviderValid(uri)) {
             return ACCOUNTS_SLICE_FRAGMENT;
         }
 
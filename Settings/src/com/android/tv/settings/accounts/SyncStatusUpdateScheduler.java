@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.accounts;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+/**
+ * Coalesces sync status changes into at most one refresh per update window.
+ *
+ * <p>A running sync reports status changes in bursts. Changes reported while a refresh is
+ * waiting for its window, or is still running, are merged into a single following refresh,
+ * whose {@code which} flags are the union of theirs. Must be used on the thread of the handler.
+ */
+final class SyncStatusUpdateScheduler {
+    /** Minimum time between the start of two refreshes, about one frame. */
+    static final long UPDATE_WINDOW_MS = 16;
+
+    /** Refreshes the state; must call {@link #onRefreshFinished()} once done. */
+    interface Refresher {
+        void refresh(int which);
+    }
+
+    private final Handler mHandler;
+    private final Refresher mRefresher;
+    private final Runnable mRefreshRunnable = this::startRefresh;
+
+    private int mPendingChanges;
+    private boolean mScheduled;
+    private boolean mRefreshing;
+    private long mLastRefreshTime = Long.MIN_VALUE;
+
+    SyncStatusUpdateScheduler(Handler handler, Refresher refresher) {
+        mHandler = handler;
+        mRefresher = refresher;
+    }
+
+    /** Schedules a refresh for the changed state, given as {@code which} flags. */
+    void onStatusChanged(int which) {
+        mPendingChanges |= which;
+        scheduleRefresh();
+    }
+
+    /** Called once the refresh started by the {@link Refresher} is done. */
+    void onRefreshFinished() {
+        mRefreshing = false;
+        if (mPendingChanges != 0) {
+            scheduleRefresh();
+        }
+    }
+
+    /** Drops pending changes; a refresh still running will not be followed by another. */
+    void cancel() {
+        mHandler.removeCallbacks(mRefreshRunnable);
+        mPendingChanges = 0;
+        mScheduled = false;
+        mRefreshing = false;
+    }
+
+    private void scheduleRefresh() {
+        if (mScheduled || mRefreshing) {
+            return;
+        }
+        mScheduled = true;
+        final long now = SystemClock.uptimeMillis();
+        final long delay = mLastRefreshTime == Long.MIN_VALUE
+                ? 0 : Math.max(0, mLastRefreshTime + UPDATE_WINDOW_MS - now);
+        mHandler.postDelayed(mRefreshRunnable, delay);
+    }
+
+    private void startRefresh() {
+        final int which = mPendingChanges;
+        mPendingChanges = 0;
+        mScheduled = false;
+        mRefreshing = true;
+        mLastRefreshTime = SystemClock.uptimeMillis();
+        mRefresher.refresh(which);
+    }
+}
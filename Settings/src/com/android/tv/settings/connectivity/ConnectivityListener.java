@@ -34,10 +34,12 @@ import android.net.wifi.WifiConfiguration;
 import android.net.wifi.WifiInfo;
 import android.net.wifi.WifiManager;
 import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
 import android.telephony.PhoneStateListener;
 import android.telephony.SignalStrength;
 import android.telephony.TelephonyManager;
-import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.Log;
 
@@ -53,16 +55,23 @@ import com.android.tv.settings.library.network.WifiTracker;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
+import java.util.function.Supplier;
 
 /**
  * Listens for changes to the current connectivity status.
+ *
+ * <p>Each change event loads a {@link ConnectivitySnapshot} on a background thread, and the
+ * listeners are only notified when it differs from the previous one. The connectivity getters
+ * read the latest published snapshot rather than querying the system again. The first snapshot is
+ * also loaded in the background; until it is published, no network is reported as connected.
  */
 public class ConnectivityListener implements WifiTracker.WifiListener {
     private static final String TAG = "ConnectivityListener";
 
+    private static HandlerThread sBackgroundThread;
+
     private final Context mContext;
-    private final Listener mListener;
+    private final ConnectivitySnapshotPublisher mPublisher = new ConnectivitySnapshotPublisher();
 
     private WifiTracker mWifiTracker;
 
@@ -73,25 +82,23 @@ public class ConnectivityListener implements WifiTracker.WifiListener {
     private final BroadcastReceiver mNetworkReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
-            updateConnectivityStatus();
-            if (mListener != null) {
-                mListener.onConnectivityChange();
-            }
+            scheduleSnapshotUpdate();
         }
     };
     private final PhoneStateListener mPhoneStateListener = new PhoneStateListener() {
         @Override
         public void onSignalStrengthsChanged(SignalStrength signalStrength) {
             mCellSignalStrength = signalStrength;
-            mListener.onConnectivityChange();
+            scheduleSnapshotUpdate();
         }
     };
 
     private SignalStrength mCellSignalStrength;
-    private int mNetworkType;
-    private String mWifiSsid;
-    private int mWifiSignalStrength;
     private final Handler mHandler = new Handler();
+    private final Handler mBackgroundHandler = new Handler(getBackgroundLooper());
+    // Incremented for each snapshot update, so that only the result of the latest one is
+    // published.
+    private volatile int mSnapshotGeneration;
     private LinkProperties mLateLp = null;
     private final InterfaceStateListener mEthernetListener;
     private final ArrayMap<String, IpConfiguration> mAvailableInterfaces = new ArrayMap<>();
@@ -103,7 +110,7 @@ public class ConnectivityListener implements WifiTracker.WifiListener {
                 Context.CONNECTIVITY_SERVICE);
         mWifiManager = mContext.getSystemService(WifiManager.class);
         mEthernetManager = mContext.getSystemService(EthernetManager.class);
-        mListener = listener;
+        mPublisher.addListener(listener);
         if (mWifiManager != null) {
             lifecycle.addObserver(new DefaultLifecycleObserver() {
                 @Override
@@ -126,16 +133,31 @@ public class ConnectivityListener implements WifiTracker.WifiListener {
             } else {
                 mAvailableInterfaces.remove(iface);
             }
-            updateConnectivityStatus();
-            if (mListener != null) {
-                mListener.onConnectivityChange();
-            }
+            scheduleSnapshotUpdate();
         };
-        updateConnectivityStatus();
+        // The listeners are notified once the first snapshot is loaded.
+        scheduleSnapshotUpdate();
+    }
+
+    private static synchronized Looper getBackgroundLooper() {
+        if (sBackgroundThread == null) {
+            sBackgroundThread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+            sBackgroundThread.start();
+        }
+        return sBackgroundThread.getLooper();
+    }
+
+    /** Adds a listener notified of connectivity changes; adding it again has no effect. */
+    public void addListener(Listener listener) {
+        mPublisher.addListener(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        mPublisher.removeListener(listener);
     }
 
     private void start() {
-        updateConnectivityStatus();
+        scheduleSnapshotUpdate();
         IntentFilter networkIntentFilter = new IntentFilter();
         networkIntentFilter.addAction(WifiManager.NETWORK_STATE_CHANGED_ACTION);
         networkIntentFilter.addAction(WifiManager.RSSI_CHANGED_ACTION);
@@ -157,6 +179,7 @@ public class ConnectivityListener implements WifiTracker.WifiListener {
     }
 
     private void stop() {
+        mSnapshotGeneration++;
         mContext.unregisterReceiver(mNetworkReceiver);
         mWifiListener = null;
         final TelephonyManager telephonyManager = mContext
@@ -176,8 +199,7 @@ public class ConnectivityListener implements WifiTracker.WifiListener {
 
     public String getWifiIpAddress() {
         if (isWifiConnected()) {
-            Network network = mWifiManager.getCurrentNetwork();
-            return formatIpAddresses(network);
+            return mPublisher.getSnapshot().wifiIpAddress;
         } else {
             return "";
         }
@@ -251,24 +273,22 @@ public class ConnectivityListener implements WifiTracker.WifiListener {
         }
     }
 
+    private int getNetworkType() {
+        final ConnectivitySnapshot snapshot = mPublisher.getSnapshot();
+        return snapshot != null ? snapshot.networkType : ConnectivityManager.TYPE_NONE;
+    }
+
     public boolean isEthernetConnected() {
-        return mNetworkType == ConnectivityManager.TYPE_ETHERNET;
+        return getNetworkType() == ConnectivityManager.TYPE_ETHERNET;
     }
 
     public boolean isWifiConnected() {
-        if (mNetworkType == ConnectivityManager.TYPE_WIFI) {
-            return true;
-        } else {
-            if (mWifiManager != null) {
-                WifiInfo connectionInfo = mWifiManager.getConnectionInfo();
-                return connectionInfo.getNetworkId() != -1;
-            }
-        }
-        return false;
+        final ConnectivitySnapshot snapshot = mPublisher.getSnapshot();
+        return snapshot != null && snapshot.wifiConnected;
     }
 
     public boolean isCellConnected() {
-        return mNetworkType == ConnectivityManager.TYPE_MOBILE;
+        return getNetworkType() == ConnectivityManager.TYPE_MOBILE;
     }
 
     private void ensureRunningOnUiThread() {
@@ -290,10 +310,10 @@ public class ConnectivityListener implements WifiTracker.WifiListener {
         return isEthernetEnabled() && (mAvailableInterfaces.size() > 0);
     }
 
-    private Network getFirstEthernet() {
-        final Network[] networks = mConnectivityManager.getAllNetworks();
+    static Network getFirstEthernet(ConnectivityManager connectivityManager) {
+        final Network[] networks = connectivityManager.getAllNetworks();
         for (final Network network : networks) {
-            NetworkInfo networkInfo = mConnectivityManager.getNetworkInfo(network);
+            NetworkInfo networkInfo = connectivityManager.getNetworkInfo(network);
             if (networkInfo != null && networkInfo.getType() == ConnectivityManager.TYPE_ETHERNET) {
                 return network;
             }
@@ -301,8 +321,11 @@ public class ConnectivityListener implements WifiTracker.WifiListener {
         return null;
     }
 
-    private String formatIpAddresses(Network network) {
-        final LinkProperties linkProperties = mConnectivityManager.getLinkProperties(network);
+    static String formatIpAddresses(ConnectivityManager connectivityManager, Network network) {
+        if (network == null) {
+            return null;
+        }
+        final LinkProperties linkProperties = connectivityManager.getLinkProperties(network);
         if (linkProperties == null) {
             return null;
         }
@@ -327,11 +350,8 @@ public class ConnectivityListener implements WifiTracker.WifiListener {
      * if none available.
      */
     public String getEthernetIpAddress() {
-        final Network network = getFirstEthernet();
-        if (network == null) {
-            return null;
-        }
-        return formatIpAddresses(network);
+        final ConnectivitySnapshot snapshot = mPublisher.getSnapshot();
+        return snapshot != null ? snapshot.ethernetIpAddress : null;
     }
 
 
@@ -354,9 +374,8 @@ public class ConnectivityListener implements WifiTracker.WifiListener {
     }
 
     public int getWifiSignalStrength(int maxLevel) {
-        if (mWifiManager != null) {
-            WifiInfo wifiInfo = mWifiManager.getConnectionInfo();
-            return WifiManager.calculateSignalLevel(wifiInfo.getRssi(), maxLevel);
+        if (isWifiConnected()) {
+            return WifiManager.calculateSignalLevel(mPublisher.getSnapshot().wifiRssi, maxLevel);
         }
         return 0;
     }
@@ -378,9 +397,8 @@ public class ConnectivityListener implements WifiTracker.WifiListener {
     }
 
     public boolean isWifiEnabledOrEnabling() {
-        return mWifiManager != null
-                && (mWifiManager.getWifiState() == WifiManager.WIFI_STATE_ENABLED
-                || mWifiManager.getWifiState() == WifiManager.WIFI_STATE_ENABLING);
+        final ConnectivitySnapshot snapshot = mPublisher.getSnapshot();
+        return snapshot != null && snapshot.wifiEnabledOrEnabling;
     }
 
     public void setWifiEnabled(boolean enable) {
@@ -389,70 +407,46 @@ public class ConnectivityListener implements WifiTracker.WifiListener {
         }
     }
 
-    private void updateConnectivityStatus() {
-        NetworkInfo networkInfo = mConnectivityManager.getActiveNetworkInfo();
-        if (networkInfo == null) {
-            mNetworkType = ConnectivityManager.TYPE_NONE;
-        } else {
-            switch (networkInfo.getType()) {
-                case ConnectivityManager.TYPE_WIFI: {
-
-                    if (mWifiManager == null) {
-                        break;
-                    }
-                    // Determine if this is
-                    // an open or secure wifi connection.
-                    mNetworkType = ConnectivityManager.TYPE_WIFI;
-
-                    String ssid = getSsid();
-                    if (!TextUtils.equals(mWifiSsid, ssid)) {
-                        mWifiSsid = ssid;
-                    }
-
-                    WifiInfo wifiInfo = mWifiManager.getConnectionInfo();
-                    // Calculate the signal strength.
-                    int signalStrength;
-                    if (wifiInfo != null) {
-                        // Calculate the signal strength between 0 and 3.
-                        signalStrength = WifiManager.calculateSignalLevel(wifiInfo.getRssi(), 4);
-                    } else {
-                        signalStrength = 0;
-                    }
-                    if (mWifiSignalStrength != signalStrength) {
-                        mWifiSignalStrength = signalStrength;
-                    }
-                    break;
-                }
-
-                case ConnectivityManager.TYPE_ETHERNET:
-                    mNetworkType = ConnectivityManager.TYPE_ETHERNET;
-                    break;
-
-                case ConnectivityManager.TYPE_MOBILE:
-                    mNetworkType = ConnectivityManager.TYPE_MOBILE;
-                    break;
-
-                default:
-                    mNetworkType = ConnectivityManager.TYPE_NONE;
-                    break;
+    /**
+     * Captures the state only known on the main thread, returning how to load a snapshot from
+     * it. The returned supplier may be called on any thread.
+     */
+    private Supplier<ConnectivitySnapshot> prepareSnapshotLoad() {
+        final int cellSignalLevel = mCellSignalStrength != null
+                ? mCellSignalStrength.getLevel() : 0;
+        final LinkProperties linkProperties = mLateLp;
+        final String ethernetInterface = mAvailableInterfaces.isEmpty()
+                ? null : mAvailableInterfaces.keyAt(0);
+        final IpConfiguration ethernetIpConfiguration = mAvailableInterfaces.isEmpty()
+                ? null : mAvailableInterfaces.valueAt(0);
+        return () -> ConnectivitySnapshot.load(mConnectivityManager, mWifiManager,
+                cellSignalLevel, linkProperties, ethernetInterface, ethernetIpConfiguration);
+    }
+
+    private void scheduleSnapshotUpdate() {
+        final Supplier<ConnectivitySnapshot> load = prepareSnapshotLoad();
+        final int generation = ++mSnapshotGeneration;
+        mBackgroundHandler.post(() -> {
+            if (generation != mSnapshotGeneration) {
+                return;
             }
-        }
+            final ConnectivitySnapshot snapshot = load.get();
+            mUiHandler.post(() -> {
+                if (generation == mSnapshotGeneration) {
+                    mPublisher.publish(snapshot);
+                }
+            });
+        });
     }
 
     @Override
     public void onWifiStateChanged(int state) {
-        updateConnectivityStatus();
-        if (mListener != null) {
-            mListener.onConnectivityChange();
-        }
+        scheduleSnapshotUpdate();
     }
 
     @Override
     public void onConnectedChanged() {
-        updateConnectivityStatus();
-        if (mListener != null) {
-            mListener.onConnectivityChange();
-        }
+        scheduleSnapshotUpdate();
     }
 
     @Override
@@ -463,9 +457,7 @@ public class ConnectivityListener implements WifiTracker.WifiListener {
     }
 
     public void onIpAddrChanged() {
-        if (mListener != null) {
-            mListener.onConnectivityChange();
-        }
+        scheduleSnapshotUpdate();
     }
 
     public interface Listener {
@@ -475,16 +467,10 @@ public class ConnectivityListener implements WifiTracker.WifiListener {
     private final NetworkCallback mNetworkCallback = new NetworkCallback() {
         @Override
         public void onLinkPropertiesChanged(Network network, LinkProperties lp) {
-
-            if (mLateLp != null) {
-                if (!Objects.equals(mLateLp, lp)) {
-                    if ((lp.hasIpv4Address() && !mLateLp.hasIpv4Address())
-                            || (lp.hasGlobalIpv6Address() && !mLateLp.hasGlobalIpv6Address())) {
-                        onIpAddrChanged();
-                    }
-                }
-            }
             mLateLp = lp;
+            // The snapshot compares the addresses themselves, so unrelated link property changes
+            // do not notify the listeners.
+            onIpAddrChanged();
         }
     };
 
@@ -495,22 +481,11 @@ public class ConnectivityListener implements WifiTracker.WifiListener {
     /**
      * Get the SSID of current connected network.
      *
-     * @return SSID
+     * @return SSID, or null if wifi is not connected
      */
     public String getSsid() {
-        if (mWifiManager == null) {
-            return null;
-        }
-        WifiInfo wifiInfo = mWifiManager.getConnectionInfo();
-        // Find the SSID of network.
-        String ssid = null;
-        if (wifiInfo != null) {
-            ssid = wifiInfo.getSSID();
-            if (ssid != null) {
-                ssid = sanitizeSsid(ssid);
-            }
-        }
-        return ssid;
+        final ConnectivitySnapshot snapshot = mPublisher.getSnapshot();
+        return snapshot != null ? snapshot.wifiSsid : null;
     }
 
     public static String sanitizeSsid(@Nullable String string) {
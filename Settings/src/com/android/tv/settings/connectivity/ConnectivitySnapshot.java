@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.connectivity;
+
+import android.net.ConnectivityManager;
+import android.net.IpConfiguration;
+import android.net.LinkProperties;
+import android.net.NetworkInfo;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+import android.text.TextUtils;
+
+import androidx.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Immutable view of the connectivity state shown by the network settings, used by
+ * {@link ConnectivityListener} to only notify its listeners when something they show changed.
+ */
+final class ConnectivitySnapshot {
+    /** Levels of the wifi signal strength shown in the network details. */
+    static final int SIGNAL_LEVELS = 4;
+    /** Levels of the wifi icon shown in the main menu. */
+    static final int ICON_SIGNAL_LEVELS = 5;
+
+    final int networkType;
+    final boolean wifiEnabledOrEnabling;
+    final boolean wifiConnected;
+    @Nullable
+    final String wifiSsid;
+    // Only compared through the signal levels, so that small changes do not notify listeners.
+    final int wifiRssi;
+    final int wifiSignalLevel;
+    final int wifiIconSignalLevel;
+    final int cellSignalLevel;
+    final boolean hasIpv4Address;
+    final boolean hasGlobalIpv6Address;
+    @Nullable
+    final String wifiIpAddress;
+    @Nullable
+    final String ethernetIpAddress;
+    @Nullable
+    final String ethernetInterface;
+    @Nullable
+    final IpConfiguration ethernetIpConfiguration;
+
+    ConnectivitySnapshot(int networkType, boolean wifiEnabledOrEnabling, boolean wifiConnected,
+            @Nullable String wifiSsid, int wifiRssi, int wifiSignalLevel, int wifiIconSignalLevel,
+            int cellSignalLevel, boolean hasIpv4Address, boolean hasGlobalIpv6Address,
+            @Nullable String wifiIpAddress, @Nullable String ethernetIpAddress,
+            @Nullable String ethernetInterface, @Nullable IpConfiguration ethernetIpConfiguration) {
+        this.networkType = networkType;
+        this.wifiEnabledOrEnabling = wifiEnabledOrEnabling;
+        this.wifiConnected = wifiConnected;
+        this.wifiSsid = wifiSsid;
+        this.wifiRssi = wifiRssi;
+        this.wifiSignalLevel = wifiSignalLevel;
+        this.wifiIconSignalLevel = wifiIconSignalLevel;
+        this.cellSignalLevel = cellSignalLevel;
+        this.hasIpv4Address = hasIpv4Address;
+        this.hasGlobalIpv6Address = hasGlobalIpv6Address;
+        this.wifiIpAddress = wifiIpAddress;
+        this.ethernetIpAddress = ethernetIpAddress;
+        this.ethernetInterface = ethernetInterface;
+        this.ethernetIpConfiguration = ethernetIpConfiguration;
+    }
+
+    /**
+     * Queries the connectivity state, reading the wifi connection info once. This makes binder
+     * calls, so it should not be called on the main thread.
+     *
+     * @param cellSignalLevel level of the cell signal strength, or 0 if unknown
+     * @param linkProperties link properties of the default network, or null if unknown
+     * @param ethernetInterface name of the first available ethernet interface, or null
+     * @param ethernetIpConfiguration IP configuration of {@code ethernetInterface}, or null
+     */
+    static ConnectivitySnapshot load(ConnectivityManager connectivityManager,
+            @Nullable WifiManager wifiManager, int cellSignalLevel,
+            @Nullable LinkProperties linkProperties, @Nullable String ethernetInterface,
+            @Nullable IpConfiguration ethernetIpConfiguration) {
+        final NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
+        final int networkType;
+        if (networkInfo == null) {
+            networkType = ConnectivityManager.TYPE_NONE;
+        } else {
+            switch (networkInfo.getType()) {
+                case ConnectivityManager.TYPE_WIFI:
+                case ConnectivityManager.TYPE_ETHERNET:
+                case ConnectivityManager.TYPE_MOBILE:
+                    networkType = networkInfo.getType();
+                    break;
+                default:
+                    networkType = ConnectivityManager.TYPE_NONE;
+                    break;
+            }
+        }
+
+        boolean wifiEnabledOrEnabling = false;
+        boolean wifiConnected = false;
+        String wifiSsid = null;
+        int wifiRssi = 0;
+        int wifiSignalLevel = 0;
+        int wifiIconSignalLevel = 0;
+        String wifiIpAddress = null;
+        if (wifiManager != null) {
+            final int wifiState = wifiManager.getWifiState();
+            wifiEnabledOrEnabling = wifiState == WifiManager.WIFI_STATE_ENABLED
+                    || wifiState == WifiManager.WIFI_STATE_ENABLING;
+            final WifiInfo wifiInfo = wifiManager.getConnectionInfo();
+            if (wifiInfo != null) {
+                wifiConnected = networkType == ConnectivityManager.TYPE_WIFI
+                        || wifiInfo.getNetworkId() != -1;
+                if (wifiConnected) {
+                    wifiSsid = ConnectivityListener.sanitizeSsid(wifiInfo.getSSID());
+                    wifiRssi = wifiInfo.getRssi();
+                    wifiSignalLevel = WifiManager.calculateSignalLevel(wifiRssi, SIGNAL_LEVELS);
+                    wifiIconSignalLevel = WifiManager.calculateSignalLevel(wifiRssi,
+                            ICON_SIGNAL_LEVELS);
+                    wifiIpAddress = ConnectivityListener.formatIpAddresses(connectivityManager,
+                            wifiManager.getCurrentNetwork());
+                }
+            }
+        }
+
+        // Without an interface whose link is up, there is no ethernet address to show.
+        final String ethernetIpAddress = ethernetInterface == null ? null
+                : ConnectivityListener.formatIpAddresses(connectivityManager,
+                        ConnectivityListener.getFirstEthernet(connectivityManager));
+
+        return new ConnectivitySnapshot(networkType, wifiEnabledOrEnabling, wifiConnected,
+                wifiSsid, wifiRssi, wifiSignalLevel, wifiIconSignalLevel,
+                networkType == ConnectivityManager.TYPE_MOBILE ? cellSignalLevel : 0,
+                linkProperties != null && linkProperties.hasIpv4Address(),
+                linkProperties != null && linkProperties.hasGlobalIpv6Address(),
+                wifiIpAddress, ethernetIpAddress, ethernetInterface, ethernetIpConfiguration);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ConnectivitySnapshot)) {
+            return false;
+        }
+        final ConnectivitySnapshot other = (ConnectivitySnapshot) o;
+        return networkType == other.networkType
+                && wifiEnabledOrEnabling == other.wifiEnabledOrEnabling
+                && wifiConnected == other.wifiConnected
+                && TextUtils.equals(wifiSsid, other.wifiSsid)
+                && wifiSignalLevel == other.wifiSignalLevel
+                && wifiIconSignalLevel == other.wifiIconSignalLevel
+                && cellSignalLevel == other.cellSignalLevel
+                && hasIpv4Address == other.hasIpv4Address
+                && hasGlobalIpv6Address == other.hasGlobalIpv6Address
+                && TextUtils.equals(wifiIpAddress, other.wifiIpAddress)
+                && TextUtils.equals(ethernetIpAddress, other.ethernetIpAddress)
+                && TextUtils.equals(ethernetInterface, other.ethernetInterface)
+                && Objects.equals(ethernetIpConfiguration, other.ethernetIpConfiguration);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(networkType, wifiEnabledOrEnabling, wifiConnected, wifiSsid,
+                wifiSignalLevel, wifiIconSignalLevel, cellSignalLevel, hasIpv4Address,
+                hasGlobalIpv6Address, wifiIpAddress, ethernetIpAddress, ethernetInterface,
+                ethernetIpConfiguration);
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectivitySnapshot{type=" + networkType
+                + " wifiEnabled=" + wifiEnabledOrEnabling
+                + " wifiConnected=" + wifiConnected
+                + " ssid=" + wifiSsid
+                + " wifiLevel=" + wifiSignalLevel + "/" + wifiIconSignalLevel
+                + " cellLevel=" + cellSignalLevel
+                + " ipv4=" + hasIpv4Address
+                + " ipv6=" + hasGlobalIpv6Address
+                + " wifiIp=" + wifiIpAddress
+                + " ethernetIp=" + ethernetIpAddress
+                + " ethernet=" + ethernetInterface + "}";
+    }
+}
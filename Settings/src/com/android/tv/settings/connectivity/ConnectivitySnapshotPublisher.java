@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.connectivity;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the latest {@link ConnectivitySnapshot} of a {@link ConnectivityListener} and notifies
+ * its listeners, each once, when a different snapshot is published. Must be used on the main
+ * thread.
+ */
+final class ConnectivitySnapshotPublisher {
+    private final List<ConnectivityListener.Listener> mListeners = new ArrayList<>();
+    private ConnectivitySnapshot mSnapshot;
+
+    /** Adds the listener, returning false if it is null or already added. */
+    boolean addListener(@Nullable ConnectivityListener.Listener listener) {
+        if (listener == null || mListeners.contains(listener)) {
+            return false;
+        }
+        mListeners.add(listener);
+        return true;
+    }
+
+    boolean removeListener(ConnectivityListener.Listener listener) {
+        return mListeners.remove(listener);
+    }
+
+    int getListenerCount() {
+        return mListeners.size();
+    }
+
+    /** Returns the latest snapshot, or null if none was set yet. */
+    @Nullable
+    ConnectivitySnapshot getSnapshot() {
+        return mSnapshot;
+    }
+
+    /**
+     * Sets the snapshot, notifying the listeners if it differs from the previous one.
+     *
+     * @return whether the listeners were notified
+     */
+    boolean publish(ConnectivitySnapshot snapshot) {
+        if (snapshot.equals(mSnapshot)) {
+            return false;
+        }
+        mSnapshot = snapshot;
+        // Iterate over a copy, so that listeners may unregister when notified.
+        for (ConnectivityListener.Listener listener : new ArrayList<>(mListeners)) {
+            listener.onConnectivityChange();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.connectivity;
+
+import android.content.Context;
+import android.net.wifi.ScanResult;
+
+import com.android.tv.settings.library.network.AccessPoint;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The access points matching a network request, in the order of the access point list they are
+ * picked from.
+ *
+ * <p>Matched keys are accumulated over all {@code onMatch} callbacks of the request. The matched
+ * list only changes when an access point starts or stops matching, or the order of the access
+ * points changes, so callers can skip refreshing their adapter otherwise.
+ */
+final class MatchedAccessPointList {
+    /** Limit passed to {@link #update} to keep all matched access points. */
+    static final int NO_LIMIT = 0;
+
+    // Insertion ordered, so keys keep the order they were first matched in.
+    private final Set<String> mMatchedKeys = new LinkedHashSet<>();
+    private final List<AccessPoint> mMatched = new ArrayList<>();
+
+    /**
+     * Returns the distinct access point keys of the scan results, in scan order. Computing a key
+     * may query the {@link android.net.wifi.WifiManager}, so this should not be called on the main
+     * thread.
+     */
+    static List<String> getKeys(Context context, List<ScanResult> scanResults) {
+        final Set<String> keys = new LinkedHashSet<>();
+        for (ScanResult scanResult : scanResults) {
+            keys.add(AccessPoint.getKey(context, scanResult));
+        }
+        return new ArrayList<>(keys);
+    }
+
+    /** Adds matched keys, returning whether any of them is new. */
+    boolean addKeys(Collection<String> keys) {
+        return mMatchedKeys.addAll(keys);
+    }
+
+    /**
+     * Picks the matched access points out of {@code accessPoints}, keeping their order, which is
+     * the order of their wifi score.
+     *
+     * @param limit maximum number of access points to keep, or {@link #NO_LIMIT}
+     * @return whether the matched list changed
+     */
+    boolean update(List<AccessPoint> accessPoints, int limit) {
+        int count = 0;
+        boolean changed = false;
+        for (AccessPoint accessPoint : accessPoints) {
+            if (limit != NO_LIMIT && count >= limit) {
+                break;
+            }
+            if (!mMatchedKeys.contains(accessPoint.getKey())) {
+                continue;
+            }
+            if (count < mMatched.size()) {
+                if (mMatched.get(count) != accessPoint) {
+                    mMatched.set(count, accessPoint);
+                    changed = true;
+                }
+            } else {
+                mMatched.add(accessPoint);
+                changed = true;
+            }
+            count++;
+        }
+        if (count < mMatched.size()) {
+            mMatched.subList(count, mMatched.size()).clear();
+            changed = true;
+        }
+        return changed;
+    }
+
+    /** Returns the matched access points as of the last {@link #update}. */
+    List<AccessPoint> getMatched() {
+        return Collections.unmodifiableList(mMatched);
+    }
+
+    int getMatchedKeyCount() {
+        return mMatchedKeys.size();
+    }
+}
@@ -52,6 +52,7 @@ import com.android.settingslib.core.lifecycle.ObservableDialogFragment;
 import com.android.tv.settings.library.network.AccessPoint;
 import com.android.tv.settings.library.network.WifiTracker;
 import com.android.tv.settings.library.network.WifiTrackerFactory;
+import com.android.tv.settings.library.util.ThreadUtils;
 import com.android.tv.settings.R;
 import com.android.tv.settings.connectivity.NetworkRequestErrorDialogFragment.ERROR_DIALOG_TYPE;
 
@@ -73,7 +74,8 @@ public class NetworkRequestDialogFragment extends ObservableDialogFragment imple
      * Spec defines there should be 5 wifi ap on the list at most or just show all if {@code
      * mShowLimitedItem} is false.
      */
-    private static final int MAX_NUMBER_LIST_ITEM = 5;
+    @VisibleForTesting
+    static final int MAX_NUMBER_LIST_ITEM = 5;
     private boolean mShowLimitedItem = true;
 
     /** Delayed time to stop scanning wifi. */
@@ -144,7 +146,7 @@ public class NetworkRequestDialogFragment extends ObservableDialogFragment imple
             neutralBtn.setVisibility(View.GONE);
             neutralBtn.setOnClickListener(v -> {
                 mShowLimitedItem = false;
-                renewAccessPointList(null /* List<ScanResult> */);
+                renewAccessPointList();
                 notifyAdapterRefresh();
                 neutralBtn.setVisibility(View.GONE);
             });
@@ -414,29 +416,37 @@ public class NetworkRequestDialogFragment extends ObservableDialogFragment imple
         // Shouldn't need to renew cached list, since input result is empty.
         if (scanResults != null && scanResults.size() > 0) {
             mHandler.removeMessages(MESSAGE_STOP_SCAN_WIFI_LIST);
-            renewAccessPointList(scanResults);
 
-            notifyAdapterRefresh();
+            // Computing the keys may need the WifiManager, so it is done in the background.
+            final Context context = getContext().getApplicationContext();
+            final List<ScanResult> results = new ArrayList<>(scanResults);
+            ThreadUtils.postOnBackgroundThread(() -> {
+                final List<String> keys = MatchedAccessPointList.getKeys(context, results);
+                ThreadUtils.postOnMainThread(() -> onMatchedKeys(keys));
+            });
         }
     }
 
-    // Updates internal AccessPoint list from WifiTracker. scanResults are used to update key list
-    // of AccessPoint, and could be null if there is no necessary to update key list.
-    private void renewAccessPointList(List<ScanResult> scanResults) {
+    private void onMatchedKeys(List<String> keys) {
         if (mFilterWifiTracker == null) {
             return;
         }
+        mFilterWifiTracker.updateKeys(keys);
+        if (renewAccessPointList()) {
+            notifyAdapterRefresh();
+        }
+    }
 
-        // TODO(b/119846365): Checks if we could escalate the converting effort.
-        // Updates keys of scanResults into FilterWifiTracker for updating matched AccessPoints.
-        if (scanResults != null) {
-            mFilterWifiTracker.updateKeys(scanResults);
+    // Updates internal AccessPoint list from WifiTracker, returning whether it changed.
+    private boolean renewAccessPointList() {
+        if (mFilterWifiTracker == null || !mFilterWifiTracker.updateAccessPoints()) {
+            return false;
         }
 
-        // Re-gets matched AccessPoints from WifiTracker.
         final List<AccessPoint> list = getAccessPointList();
         list.clear();
         list.addAll(mFilterWifiTracker.getAccessPoints());
+        return true;
     }
 
     @VisibleForTesting
@@ -464,53 +474,33 @@ public class NetworkRequestDialogFragment extends ObservableDialogFragment imple
     }
 
     private final class FilterWifiTracker {
-        private final List<String> mAccessPointKeys;
+        private final MatchedAccessPointList mMatchedList = new MatchedAccessPointList();
         private final WifiTracker mWifiTracker;
-        private final Context mContext;
 
         FilterWifiTracker(Context context, Lifecycle lifecycle) {
             mWifiTracker = WifiTrackerFactory.create(context, mWifiListener,
                     lifecycle, /* includeSaved */ true, /* includeScans */ true);
-            mAccessPointKeys = new ArrayList<>();
-            mContext = context;
         }
 
         /**
          * Updates key list from input. {@code onMatch()} may be called in multi-times according
          * wifi scanning result, so needs patchwork here.
          */
-        public void updateKeys(List<ScanResult> scanResults) {
-            for (ScanResult scanResult : scanResults) {
-                final String key = AccessPoint.getKey(mContext, scanResult);
-                if (!mAccessPointKeys.contains(key)) {
-                    mAccessPointKeys.add(key);
-                }
-            }
+        public void updateKeys(List<String> keys) {
+            mMatchedList.addKeys(keys);
         }
 
         /**
-         * Returns only AccessPoints whose key is in {@code mAccessPointKeys}.
+         * Re-picks the AccessPoints whose key has been matched from WifiTracker.
          *
-         * @return List of matched AccessPoints.
+         * @return whether the matched AccessPoints changed.
          */
-        public List<AccessPoint> getAccessPoints() {
-            final List<AccessPoint> allAccessPoints = mWifiTracker.getAccessPoints();
-            final List<AccessPoint> result = new ArrayList<>();
-
+        public boolean updateAccessPoints() {
             // The order should be kept, because order means wifi score (sorting in WifiTracker).
-            int count = 0;
-            for (AccessPoint accessPoint : allAccessPoints) {
-                final String key = accessPoint.getKey();
-                if (mAccessPointKeys.contains(key)) {
-                    result.add(accessPoint);
-
-                    count++;
-                    // Limits how many count of items could show.
-                    if (mShowLimitedItem && count >= MAX_NUMBER_LIST_ITEM) {
-                        break;
-                    }
-                }
-            }
+            // Limits how many count of items could show.
+            final boolean changed = mMatchedList.update(mWifiTracker.getAccessPoints(),
+                    mShowLimitedItem ? MAX_NUMBER_LIST_ITEM : MatchedAccessPointList.NO_LIMIT);
+            final int count = mMatchedList.getMatched().size();
 
             // Update related UI buttons
             if (mShowLimitedItem && (count >= MAX_NUMBER_LIST_ITEM)) {
@@ -527,7 +517,12 @@ public class NetworkRequestDialogFragment extends ObservableDialogFragment imple
                 updateConnectButton(true);
             }
 
-            return result;
+            return changed;
+        }
+
+        /** Returns the matched AccessPoints as of the last {@link #updateAccessPoints()}. */
+        public List<AccessPoint> getAccessPoints() {
+            return mMatchedList.getMatched();
         }
 
         private WifiTracker.WifiListener mWifiListener = new WifiTracker.WifiListener() {
@@ -544,6 +539,8 @@ public class NetworkRequestDialogFragment extends ObservableDialogFragment imple
 
             @Override
             public void onAccessPointsChanged() {
+                // Matched AccessPoints may have disappeared or changed order.
+                renewAccessPointList();
                 notifyAdapterRefresh();
             }
         };
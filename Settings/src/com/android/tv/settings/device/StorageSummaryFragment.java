@@ -24,13 +24,11 @@ import static com.android.tv.settings.overlay.FlavorUtils.FLAVOR_X;
 import android.app.tvsettings.TvSettingsEnums;
 import android.content.Context;
 import android.os.Bundle;
-import android.os.Handler;
 import android.os.storage.DiskInfo;
 import android.os.storage.StorageManager;
 import android.os.storage.VolumeInfo;
 import android.os.storage.VolumeRecord;
 import android.util.ArraySet;
-import android.util.Log;
 
 import androidx.annotation.Keep;
 import androidx.preference.Preference;
@@ -41,11 +39,8 @@ import com.android.tv.settings.SettingsPreferenceFragment;
 import com.android.tv.settings.device.storage.MissingStorageFragment;
 import com.android.tv.settings.device.storage.NewStorageActivity;
 import com.android.tv.settings.device.storage.StorageFragment;
-import com.android.tv.settings.device.storage.StoragePreference;
 import com.android.tv.settings.overlay.FlavorUtils;
 
-import java.io.File;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -60,19 +55,14 @@ public class StorageSummaryFragment extends SettingsPreferenceFragment {
     private static final String KEY_REMOVABLE_CATEGORY = "removable_storage";
 
     private static final int REFRESH_DELAY_MILLIS = 500;
+    // Storage events come in bursts while a disk is attached or formatted.
+    private static final int STORAGE_EVENT_DEBOUNCE_MILLIS = 250;
 
     private StorageManager mStorageManager;
+    private StorageSummaryLoader mLoader;
     private final StorageSummaryFragment.StorageEventListener
             mStorageEventListener = new StorageSummaryFragment.StorageEventListener();
 
-    private final Handler mHandler = new Handler();
-    private final Runnable mRefreshRunnable = new Runnable() {
-        @Override
-        public void run() {
-            refresh();
-        }
-    };
-
     public static StorageSummaryFragment newInstance() {
         return new StorageSummaryFragment();
     }
@@ -80,6 +70,7 @@ public class StorageSummaryFragment extends SettingsPreferenceFragment {
     @Override
     public void onCreate(Bundle savedInstanceState) {
         mStorageManager = getContext().getSystemService(StorageManager.class);
+        mLoader = new StorageSummaryLoader(getContext(), this::refresh);
         super.onCreate(savedInstanceState);
     }
 
@@ -111,15 +102,14 @@ public class StorageSummaryFragment extends SettingsPreferenceFragment {
     @Override
     public void onResume() {
         super.onResume();
-        mHandler.removeCallbacks(mRefreshRunnable);
         // Delay to allow entrance animations to complete
-        mHandler.postDelayed(mRefreshRunnable, REFRESH_DELAY_MILLIS);
+        mLoader.requestLoad(REFRESH_DELAY_MILLIS);
     }
 
     @Override
     public void onPause() {
         super.onPause();
-        mHandler.removeCallbacks(mRefreshRunnable);
+        mLoader.cancel();
     }
 
     @Override
@@ -128,48 +118,21 @@ public class StorageSummaryFragment extends SettingsPreferenceFragment {
         mStorageManager.unregisterListener(mStorageEventListener);
     }
 
-    private void refresh() {
+    private void requestRefresh() {
+        if (isResumed()) {
+            mLoader.requestLoad(STORAGE_EVENT_DEBOUNCE_MILLIS);
+        }
+    }
+
+    private void refresh(StorageSummaryLoader.Summary summary) {
         if (!isResumed()) {
             return;
         }
         final Context themedContext = getPreferenceManager().getContext();
-
-        final List<VolumeInfo> volumes = mStorageManager.getVolumes();
-        volumes.sort(VolumeInfo.getDescriptionComparator());
-
-        final List<VolumeInfo> privateVolumes = new ArrayList<>(volumes.size());
-        final List<VolumeInfo> publicVolumes = new ArrayList<>(volumes.size());
-
-        // Find mounted volumes
-        for (final VolumeInfo vol : volumes) {
-            if (vol.getType() == VolumeInfo.TYPE_PRIVATE) {
-                privateVolumes.add(vol);
-            } else if (vol.getType() == VolumeInfo.TYPE_PUBLIC) {
-                publicVolumes.add(vol);
-            } else {
-                Log.d(TAG, "Skipping volume " + vol.toString());
-            }
-        }
-
-        // Find missing private filesystems
-        final List<VolumeRecord> volumeRecords = mStorageManager.getVolumeRecords();
-        final List<VolumeRecord> privateMissingVolumes = new ArrayList<>(volumeRecords.size());
-
-        for (final VolumeRecord record : volumeRecords) {
-            if (record.getType() == VolumeInfo.TYPE_PRIVATE
-                    && mStorageManager.findVolumeByUuid(record.getFsUuid()) == null) {
-                privateMissingVolumes.add(record);
-            }
-        }
-
-        // Find unreadable disks
-        final List<DiskInfo> disks = mStorageManager.getDisks();
-        final List<DiskInfo> unsupportedDisks = new ArrayList<>(disks.size());
-        for (final DiskInfo disk : disks) {
-            if (disk.volumeCount == 0 && disk.size > 0) {
-                unsupportedDisks.add(disk);
-            }
-        }
+        final List<StorageSummaryLoader.VolumeEntry> privateVolumes = summary.privateVolumes;
+        final List<StorageSummaryLoader.VolumeEntry> publicVolumes = summary.publicVolumes;
+        final List<VolumeRecord> privateMissingVolumes = summary.privateMissingVolumes;
+        final List<DiskInfo> unsupportedDisks = summary.unsupportedDisks;
 
         // Add the prefs
         final PreferenceCategory deviceCategory =
@@ -177,7 +140,8 @@ public class StorageSummaryFragment extends SettingsPreferenceFragment {
         final Set<String> touchedDeviceKeys =
                 new ArraySet<>(privateVolumes.size() + privateMissingVolumes.size());
 
-        for (final VolumeInfo volumeInfo : privateVolumes) {
+        for (final StorageSummaryLoader.VolumeEntry volumeEntry : privateVolumes) {
+            final VolumeInfo volumeInfo = volumeEntry.volumeInfo;
             final String key = StorageSummaryFragment.VolPreference.makeKey(volumeInfo);
             touchedDeviceKeys.add(key);
             StorageSummaryFragment.VolPreference volPreference =
@@ -185,7 +149,7 @@ public class StorageSummaryFragment extends SettingsPreferenceFragment {
             if (volPreference == null) {
                 volPreference = new StorageSummaryFragment.VolPreference(themedContext, volumeInfo);
             }
-            volPreference.refresh(themedContext, mStorageManager, volumeInfo);
+            volPreference.refresh(themedContext, volumeEntry);
             deviceCategory.addPreference(volPreference);
         }
 
@@ -217,7 +181,8 @@ public class StorageSummaryFragment extends SettingsPreferenceFragment {
         // Only show section if there are public/unknown volumes present
         removableCategory.setVisible(publicCount > 0);
 
-        for (final VolumeInfo volumeInfo : publicVolumes) {
+        for (final StorageSummaryLoader.VolumeEntry volumeEntry : publicVolumes) {
+            final VolumeInfo volumeInfo = volumeEntry.volumeInfo;
             final String key = StorageSummaryFragment.VolPreference.makeKey(volumeInfo);
             touchedRemovableKeys.add(key);
             StorageSummaryFragment.VolPreference volPreference =
@@ -225,7 +190,7 @@ public class StorageSummaryFragment extends SettingsPreferenceFragment {
             if (volPreference == null) {
                 volPreference = new StorageSummaryFragment.VolPreference(themedContext, volumeInfo);
             }
-            volPreference.refresh(themedContext, mStorageManager, volumeInfo);
+            volPreference.refresh(themedContext, volumeEntry);
             removableCategory.addPreference(volPreference);
         }
         for (final DiskInfo diskInfo : unsupportedDisks) {
@@ -256,31 +221,19 @@ public class StorageSummaryFragment extends SettingsPreferenceFragment {
             setKey(makeKey(volumeInfo));
         }
 
-        private void refresh(Context context, StorageManager storageManager,
-                VolumeInfo volumeInfo) {
-            final String description = storageManager
-                    .getBestVolumeDescription(volumeInfo);
+        private void refresh(Context context, StorageSummaryLoader.VolumeEntry volumeEntry) {
+            final String description = volumeEntry.description;
             setTitle(description);
-            if (volumeInfo.isMountedReadable()) {
-                setSummary(getSizeString(volumeInfo));
+            if (volumeEntry.mountedReadable) {
+                setSummary(volumeEntry.sizeString);
                 setFragment(StorageFragment.class.getName());
-                StorageFragment.prepareArgs(getExtras(), volumeInfo);
+                StorageFragment.prepareArgs(getExtras(), volumeEntry.volumeInfo);
             } else {
                 setFragment(null);
                 setSummary(context.getString(R.string.storage_unmount_success, description));
             }
         }
 
-        private String getSizeString(VolumeInfo vol) {
-            final File path = vol.getPath();
-            if (vol.isMountedReadable() && path != null) {
-                return String.format(getContext().getString(R.string.storage_size),
-                        StoragePreference.formatSize(getContext(), path.getTotalSpace()));
-            } else {
-                return null;
-            }
-        }
-
         public static String makeKey(VolumeInfo volumeInfo) {
             return "VolPref:" + volumeInfo.getId();
         }
@@ -317,32 +270,32 @@ public class StorageSummaryFragment extends SettingsPreferenceFragment {
     private class StorageEventListener extends android.os.storage.StorageEventListener {
         @Override
         public void onStorageStateChanged(String path, String oldState, String newState) {
-            refresh();
+            requestRefresh();
         }
 
         @Override
         public void onVolumeStateChanged(VolumeInfo vol, int oldState, int newState) {
-            refresh();
+            requestRefresh();
         }
 
         @Override
         public void onVolumeRecordChanged(VolumeRecord rec) {
-            refresh();
+            requestRefresh();
         }
 
         @Override
         public void onVolumeForgotten(String fsUuid) {
-            refresh();
+            requestRefresh();
         }
 
         @Override
         public void onDiskScanned(DiskInfo disk, int volumeCount) {
-            refresh();
+            requestRefresh();
         }
 
         @Override
         public void onDiskDestroyed(DiskInfo disk) {
-            refresh();
+            requestRefresh();
         }
 
     }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.device;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.storage.DiskInfo;
+import android.os.storage.StorageManager;
+import android.os.storage.VolumeInfo;
+import android.os.storage.VolumeRecord;
+import android.util.Log;
+
+import com.android.tv.settings.R;
+import com.android.tv.settings.device.storage.StoragePreference;
+import com.android.tv.settings.library.util.ThreadUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Loads the volumes, volume records and disks shown by {@link StorageSummaryFragment} on a
+ * background thread, and delivers them as an immutable {@link Summary} on the main thread.
+ *
+ * <p>Load requests are debounced, so a burst of storage events results in a single load.
+ */
+class StorageSummaryLoader {
+    private static final String TAG = "StorageSummaryLoader";
+
+    /** Receives loaded summaries on the main thread. */
+    interface Callback {
+        void onStorageSummaryLoaded(Summary summary);
+    }
+
+    private final Context mContext;
+    private final StorageManager mStorageManager;
+    private final Callback mCallback;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mLoadRunnable = this::startLoad;
+    // Incremented on every load and cancel; results of older loads are dropped.
+    private int mGeneration;
+
+    StorageSummaryLoader(Context context, Callback callback) {
+        mContext = context.getApplicationContext();
+        mStorageManager = mContext.getSystemService(StorageManager.class);
+        mCallback = callback;
+    }
+
+    /**
+     * Schedules a load after {@code delayMillis}. A request made while another one is pending
+     * replaces it.
+     */
+    void requestLoad(long delayMillis) {
+        mHandler.removeCallbacks(mLoadRunnable);
+        mHandler.postDelayed(mLoadRunnable, delayMillis);
+    }
+
+    /** Cancels any pending load and drops the result of the one in flight, if any. */
+    void cancel() {
+        mHandler.removeCallbacks(mLoadRunnable);
+        mGeneration++;
+    }
+
+    private void startLoad() {
+        final int generation = ++mGeneration;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final Summary summary = loadSummary();
+            mHandler.post(() -> {
+                if (generation == mGeneration) {
+                    mCallback.onStorageSummaryLoaded(summary);
+                }
+            });
+        });
+    }
+
+    private Summary loadSummary() {
+        final List<VolumeInfo> volumes = mStorageManager.getVolumes();
+        volumes.sort(VolumeInfo.getDescriptionComparator());
+
+        final List<VolumeEntry> privateVolumes = new ArrayList<>(volumes.size());
+        final List<VolumeEntry> publicVolumes = new ArrayList<>(volumes.size());
+
+        // Find mounted volumes
+        for (final VolumeInfo vol : volumes) {
+            if (vol.getType() == VolumeInfo.TYPE_PRIVATE) {
+                privateVolumes.add(createVolumeEntry(vol));
+            } else if (vol.getType() == VolumeInfo.TYPE_PUBLIC) {
+                publicVolumes.add(createVolumeEntry(vol));
+            } else {
+                Log.d(TAG, "Skipping volume " + vol.toString());
+            }
+        }
+
+        // Find missing private filesystems
+        final List<VolumeRecord> volumeRecords = mStorageManager.getVolumeRecords();
+        final List<VolumeRecord> privateMissingVolumes = new ArrayList<>(volumeRecords.size());
+
+        for (final VolumeRecord record : volumeRecords) {
+            if (record.getType() == VolumeInfo.TYPE_PRIVATE
+                    && mStorageManager.findVolumeByUuid(record.getFsUuid()) == null) {
+                privateMissingVolumes.add(record);
+            }
+        }
+
+        // Find unreadable disks
+        final List<DiskInfo> disks = mStorageManager.getDisks();
+        final List<DiskInfo> unsupportedDisks = new ArrayList<>(disks.size());
+        for (final DiskInfo disk : disks) {
+            if (disk.volumeCount == 0 && disk.size > 0) {
+                unsupportedDisks.add(disk);
+            }
+        }
+
+        return new Summary(privateVolumes, publicVolumes, privateMissingVolumes,
+                unsupportedDisks);
+    }
+
+    private VolumeEntry createVolumeEntry(VolumeInfo vol) {
+        final String description = mStorageManager.getBestVolumeDescription(vol);
+        final boolean mountedReadable = vol.isMountedReadable();
+        String sizeString = null;
+        final File path = vol.getPath();
+        if (mountedReadable && path != null) {
+            sizeString = String.format(mContext.getString(R.string.storage_size),
+                    StoragePreference.formatSize(mContext, path.getTotalSpace()));
+        }
+        return new VolumeEntry(vol, description, mountedReadable, sizeString);
+    }
+
+    /** Immutable model of the storage summary screen. */
+    static final class Summary {
+        final List<VolumeEntry> privateVolumes;
+        final List<VolumeEntry> publicVolumes;
+        final List<VolumeRecord> privateMissingVolumes;
+        final List<DiskInfo> unsupportedDisks;
+
+        Summary(List<VolumeEntry> privateVolumes, List<VolumeEntry> publicVolumes,
+                List<VolumeRecord> privateMissingVolumes, List<DiskInfo> unsupportedDisks) {
+            this.privateVolumes = Collections.unmodifiableList(privateVolumes);
+            this.publicVolumes = Collections.unmodifiableList(publicVolumes);
+            this.privateMissingVolumes = Collections.unmodifiableList(privateMissingVolumes);
+            this.unsupportedDisks = Collections.unmodifiableList(unsupportedDisks);
+        }
+    }
+
+    /** A volume with its description and formatted size, computed during the load. */
+    static final class VolumeEntry {
+        final VolumeInfo volumeInfo;
+        final String description;
+        final boolean mountedReadable;
+        /** The formatted total size, or null if the volume is not readable. */
+        final String sizeString;
+
+        VolumeEntry(VolumeInfo volumeInfo, String description, boolean mountedReadable,
+                String sizeString) {
+            this.volumeInfo = volumeInfo;
+            this.description = description;
+            this.mountedReadable = mountedReadable;
+            this.sizeString = sizeString;
+        }
+    }
+}
@@ -50,7 +50,8 @@ public class AdvancedDisplayFragment extends SettingsPreferenceFragment {
         gameModePreference.setChecked(getGameModeStatus() == 1);
 
         Preference dynamicRangePreference = findPreference(KEY_DYNAMIC_RANGE);
-        if (getDisplayManager().getSupportedHdrOutputTypes().length == 0) {
+        if (!DisplayCapabilitiesRepository.getInstance(getDisplayManager())
+                .hasDeviceHdrOutputTypes()) {
             removePreference(dynamicRangePreference);
         }
     }
@@ -26,6 +26,7 @@ import android.media.AudioFormat;
 import android.media.AudioManager;
 import android.os.Bundle;
 import android.provider.Settings;
+import android.util.ArraySet;
 import android.widget.Toast;
 
 import androidx.annotation.Keep;
@@ -45,6 +46,7 @@ import com.android.tv.settings.overlay.FlavorUtils;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * The "Advanced sound settings" screen in TV Settings.
@@ -71,8 +73,7 @@ public class AdvancedVolumeFragment extends PreferenceControllerFragment {
             AudioFormat.ENCODING_DRA
     };
 
-    private Map<Integer, Boolean> mFormats;
-    private List<Integer> mReportedFormats;
+    private SurroundFormatModel mSurroundFormatModel;
     private AudioManager mAudioManager;
     private List<AbstractPreferenceController> mPreferenceControllers;
     private PreferenceCategory mSupportedFormatsPreferenceCategory;
@@ -84,8 +85,8 @@ public class AdvancedVolumeFragment extends PreferenceControllerFragment {
     @Override
     public void onAttach(Context context) {
         mAudioManager = getAudioManager();
-        mFormats = mAudioManager.getSurroundFormats();
-        mReportedFormats = mAudioManager.getReportedSurroundFormats();
+        mSurroundFormatModel = createSurroundFormatModel(context);
+        final SurroundFormatModel.Snapshot snapshot = mSurroundFormatModel.load();
 
         // For the first time, when the user has never changed the surround sound setting, enable
         // all the surround sound formats supported by android and audio device, and disable the
@@ -93,13 +94,25 @@ public class AdvancedVolumeFragment extends PreferenceControllerFragment {
         String formatString = Settings.Global.getString(getContext().getContentResolver(),
                 Settings.Global.ENCODED_SURROUND_OUTPUT_ENABLED_FORMATS);
         if (formatString == null) {
-            for (int format : mFormats.keySet()) {
-                mAudioManager.setSurroundFormatEnabled(format, mReportedFormats.contains(format));
+            for (int format : snapshot.formats.keySet()) {
+                mAudioManager.setSurroundFormatEnabled(format, snapshot.isReported(format));
             }
         }
         super.onAttach(context);
     }
 
+    @Override
+    public void onStart() {
+        super.onStart();
+        mSurroundFormatModel.start(this::onSurroundFormatsChanged);
+    }
+
+    @Override
+    public void onStop() {
+        mSurroundFormatModel.stop();
+        super.onStop();
+    }
+
     @Override
     protected int getPreferenceScreenResId() {
         return R.xml.advanced_sound;
@@ -128,10 +141,11 @@ public class AdvancedVolumeFragment extends PreferenceControllerFragment {
 
     @Override
     protected List<AbstractPreferenceController> onCreatePreferenceControllers(Context context) {
-        mPreferenceControllers = new ArrayList<>(mFormats.size());
-        for (Map.Entry<Integer, Boolean> format : mFormats.entrySet()) {
+        final Map<Integer, Boolean> formats = mSurroundFormatModel.getSnapshot().formats;
+        mPreferenceControllers = new ArrayList<>(formats.size());
+        for (int formatId : formats.keySet()) {
             mPreferenceControllers.add(new SoundFormatPreferenceController(context,
-                    format.getKey() /*formatId*/, mAudioManager, mFormats, mReportedFormats));
+                    formatId, mAudioManager, mSurroundFormatModel));
         }
         return mPreferenceControllers;
     }
@@ -205,6 +219,11 @@ public class AdvancedVolumeFragment extends PreferenceControllerFragment {
         return getContext().getSystemService(AudioManager.class);
     }
 
+    @VisibleForTesting
+    SurroundFormatModel createSurroundFormatModel(Context context) {
+        return new SurroundFormatModel(context, mAudioManager);
+    }
+
     private PreferenceGroup getPreferenceGroup() {
         return (PreferenceGroup) findPreference(KEY_ADVANCED_SOUND_OPTION);
     }
@@ -224,9 +243,11 @@ public class AdvancedVolumeFragment extends PreferenceControllerFragment {
                 R.string.surround_sound_unsupported_title, KEY_UNSUPPORTED_SURROUND_SOUND);
         getPreferenceScreen().addPreference(mUnsupportedFormatsPreferenceCategory);
 
-        for (int formatId : SURROUND_SOUND_DISPLAY_ORDER) {
-            if (mFormats.containsKey(formatId)) {
-                boolean enabled = mFormats.get(formatId);
+        final SurroundFormatModel.Snapshot snapshot = mSurroundFormatModel.getSnapshot();
+        for (int order = 0; order < SURROUND_SOUND_DISPLAY_ORDER.length; order++) {
+            final int formatId = SURROUND_SOUND_DISPLAY_ORDER[order];
+            if (snapshot.formats.containsKey(formatId)) {
+                boolean enabled = snapshot.formats.get(formatId);
 
                 // If the format is not a known surround sound format, do not create a preference
                 // for it.
@@ -246,6 +267,8 @@ public class AdvancedVolumeFragment extends PreferenceControllerFragment {
                 };
                 pref.setTitle(titleId);
                 pref.setKey(KEY_SURROUND_SOUND_FORMAT_PREFIX + formatId);
+                // Keeps the display order when the preference moves to the other category.
+                pref.setOrder(order);
                 pref.setChecked(enabled);
                 if (getEntryId(formatId) != -1) {
                     pref.setOnPreferenceClickListener(
@@ -255,7 +278,7 @@ public class AdvancedVolumeFragment extends PreferenceControllerFragment {
                             }
                     );
                 }
-                if (mReportedFormats.contains(formatId)) {
+                if (snapshot.isReported(formatId)) {
                     mSupportedFormatsPreferenceCategory.addPreference(pref);
                 } else {
                     mUnsupportedFormatsPreferenceCategory.addPreference(pref);
@@ -282,8 +305,10 @@ public class AdvancedVolumeFragment extends PreferenceControllerFragment {
                 R.string.surround_sound_disabled_formats, KEY_DISABLED_FORMATS);
         mFormatsInfoPreferenceCategory.addPreference(mDisabledFormatsPreferenceCategory);
 
-        for (int formatId : SURROUND_SOUND_DISPLAY_ORDER) {
-            if (mFormats.containsKey(formatId)) {
+        final SurroundFormatModel.Snapshot snapshot = mSurroundFormatModel.getSnapshot();
+        for (int order = 0; order < SURROUND_SOUND_DISPLAY_ORDER.length; order++) {
+            final int formatId = SURROUND_SOUND_DISPLAY_ORDER[order];
+            if (snapshot.formats.containsKey(formatId)) {
                 // If the format is not a known surround sound format, do not create a preference
                 // for it.
                 int titleId = getFormatDisplayResourceId(formatId);
@@ -291,7 +316,8 @@ public class AdvancedVolumeFragment extends PreferenceControllerFragment {
                     continue;
                 }
                 pref = createPreference(titleId, KEY_SURROUND_SOUND_FORMAT_INFO_PREFIX + formatId);
-                if (mReportedFormats.contains(formatId)) {
+                pref.setOrder(order);
+                if (snapshot.isReported(formatId)) {
                     mEnabledFormatsPreferenceCategory.addPreference(pref);
                 } else {
                     mDisabledFormatsPreferenceCategory.addPreference(pref);
@@ -301,6 +327,46 @@ public class AdvancedVolumeFragment extends PreferenceControllerFragment {
         hideFormatInfoPreferences();
     }
 
+    /**
+     * Updates the preferences of the formats whose state changed after an HDMI audio device was
+     * plugged or unplugged. Formats without a preference are ignored.
+     */
+    @VisibleForTesting
+    void onSurroundFormatsChanged(Set<Integer> changedFormatIds) {
+        final SurroundFormatModel.Snapshot snapshot = mSurroundFormatModel.getSnapshot();
+        final Set<String> changedKeys = new ArraySet<>();
+        for (int formatId : changedFormatIds) {
+            final boolean reported = snapshot.isReported(formatId);
+            // The categories may be hidden, so look the preferences up in the categories rather
+            // than in the screen.
+            moveFormatPreference(KEY_SURROUND_SOUND_FORMAT_PREFIX + formatId, reported,
+                    mSupportedFormatsPreferenceCategory, mUnsupportedFormatsPreferenceCategory);
+            moveFormatPreference(KEY_SURROUND_SOUND_FORMAT_INFO_PREFIX + formatId, reported,
+                    mEnabledFormatsPreferenceCategory, mDisabledFormatsPreferenceCategory);
+            changedKeys.add(KEY_SURROUND_SOUND_FORMAT_PREFIX + formatId);
+        }
+        for (AbstractPreferenceController controller : mPreferenceControllers) {
+            if (!changedKeys.contains(controller.getPreferenceKey())) {
+                continue;
+            }
+            final Preference preference = findPreference(controller.getPreferenceKey());
+            if (preference != null) {
+                controller.updateState(preference);
+            }
+        }
+    }
+
+    /** Moves the preference of a format to the category matching whether it is reported. */
+    private static void moveFormatPreference(String key, boolean reported,
+            PreferenceCategory reportedCategory, PreferenceCategory unreportedCategory) {
+        final PreferenceCategory from = reported ? unreportedCategory : reportedCategory;
+        final Preference preference = from.findPreference(key);
+        if (preference != null) {
+            from.removePreference(preference);
+            (reported ? reportedCategory : unreportedCategory).addPreference(preference);
+        }
+    }
+
     private void showFormatPreferences() {
         getPreferenceScreen().addPreference(mSupportedFormatsPreferenceCategory);
         getPreferenceScreen().addPreference(mUnsupportedFormatsPreferenceCategory);
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.device.displaysound;
+
+import android.hardware.display.DisplayManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Display;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The display modes and HDR capabilities of the default display, shared by the display settings
+ * screens.
+ *
+ * <p>Each capability is queried on first use, so that screens only query what they show, and
+ * kept until the default display changes. Settings which the user changes on these screens,
+ * such as the user disabled HDR types or the current mode, are not cached. Must be used on the
+ * main thread.
+ */
+final class DisplayCapabilitiesRepository {
+    /** Resolutions listed before the others, in descending order. */
+    static final Set<Integer> STANDARD_RESOLUTIONS_IN_ORDER = Set.of(2160, 1080, 720, 576, 480);
+
+    /**
+     * Sorts modes by descending resolution, listing the standard resolutions first, then by
+     * descending refresh rate.
+     */
+    static final Comparator<Display.Mode> MODE_COMPARATOR = (o1, o2) -> {
+        int resolution1 = Math.min(o1.getPhysicalHeight(), o1.getPhysicalWidth());
+        int resolution2 = Math.min(o2.getPhysicalHeight(), o2.getPhysicalWidth());
+
+        // The resolution which is in list of standard resolutions appears before the one
+        // which is not.
+        if (STANDARD_RESOLUTIONS_IN_ORDER.contains(resolution2)
+                && !STANDARD_RESOLUTIONS_IN_ORDER.contains(resolution1)) {
+            return 1;
+        }
+        if (STANDARD_RESOLUTIONS_IN_ORDER.contains(resolution1)
+                && !STANDARD_RESOLUTIONS_IN_ORDER.contains(resolution2)) {
+            return -1;
+        }
+        if (resolution2 == resolution1) {
+            return (int) o2.getRefreshRate() - (int) o1.getRefreshRate();
+        }
+        return resolution2 - resolution1;
+    };
+
+    private static DisplayCapabilitiesRepository sInstance;
+
+    // Weak, as the display manager holds on to the context it was created for. Callers go
+    // through getInstance() with their own display manager, which keeps it alive.
+    private final WeakReference<DisplayManager> mDisplayManager;
+
+    private List<Display.Mode> mSortedModes;
+    private Set<Integer> mDisplayHdrTypes;
+    private int[] mDeviceHdrOutputTypes;
+    private int[] mSupportedHdrTypes;
+    private Boolean mSeamlessRefreshRateSwitchingSupported;
+
+    private final DisplayManager.DisplayListener mDisplayListener =
+            new DisplayManager.DisplayListener() {
+                @Override
+                public void onDisplayAdded(int displayId) {
+                }
+
+                @Override
+                public void onDisplayRemoved(int displayId) {
+                }
+
+                @Override
+                public void onDisplayChanged(int displayId) {
+                    if (displayId == Display.DEFAULT_DISPLAY) {
+                        invalidate();
+                    }
+                }
+            };
+
+    /**
+     * Returns the repository for the given display manager. Screens of the same activity share
+     * one display manager, and so one repository; it is replaced when another display manager
+     * is passed.
+     */
+    static synchronized DisplayCapabilitiesRepository getInstance(DisplayManager displayManager) {
+        if (sInstance == null || sInstance.mDisplayManager.get() != displayManager) {
+            if (sInstance != null) {
+                // Display listeners are registered process-wide, so any display manager can
+                // remove the previous one.
+                displayManager.unregisterDisplayListener(sInstance.mDisplayListener);
+            }
+            sInstance = new DisplayCapabilitiesRepository(displayManager);
+        }
+        return sInstance;
+    }
+
+    private DisplayCapabilitiesRepository(DisplayManager displayManager) {
+        mDisplayManager = new WeakReference<>(displayManager);
+        displayManager.registerDisplayListener(mDisplayListener,
+                new Handler(Looper.getMainLooper()));
+    }
+
+    /** Returns the distinct supported modes, in the order they are listed to the user. */
+    List<Display.Mode> getSortedModes() {
+        if (mSortedModes == null) {
+            mSortedModes = sortModes(getDisplay().getSupportedModes());
+        }
+        return mSortedModes;
+    }
+
+    /** Returns the HDR types supported by the display in any of its modes. */
+    Set<Integer> getDisplayHdrTypes() {
+        if (mDisplayHdrTypes == null) {
+            mDisplayHdrTypes = getHdrTypes(getDisplay().getSupportedModes());
+        }
+        return mDisplayHdrTypes;
+    }
+
+    /** Returns the HDR output types supported by the device. */
+    int[] getDeviceHdrOutputTypes() {
+        if (mDeviceHdrOutputTypes == null) {
+            mDeviceHdrOutputTypes = mDisplayManager.get().getSupportedHdrOutputTypes();
+        }
+        return mDeviceHdrOutputTypes.clone();
+    }
+
+    boolean hasDeviceHdrOutputTypes() {
+        return getDeviceHdrOutputTypes().length != 0;
+    }
+
+    /** Returns the HDR types supported by both the device and the display, in ascending order. */
+    int[] getSupportedHdrTypes() {
+        if (mSupportedHdrTypes == null) {
+            mSupportedHdrTypes = intersect(getDeviceHdrOutputTypes(), getDisplayHdrTypes());
+        }
+        return mSupportedHdrTypes.clone();
+    }
+
+    boolean isSeamlessRefreshRateSwitchingSupported() {
+        if (mSeamlessRefreshRateSwitchingSupported == null) {
+            mSeamlessRefreshRateSwitchingSupported =
+                    mDisplayManager.get().supportsSeamlessRefreshRateSwitching();
+        }
+        return mSeamlessRefreshRateSwitchingSupported;
+    }
+
+    @VisibleForTesting
+    void invalidate() {
+        mSortedModes = null;
+        mDisplayHdrTypes = null;
+        mDeviceHdrOutputTypes = null;
+        mSupportedHdrTypes = null;
+        mSeamlessRefreshRateSwitchingSupported = null;
+    }
+
+    private Display getDisplay() {
+        return mDisplayManager.get().getDisplay(Display.DEFAULT_DISPLAY);
+    }
+
+    /** Returns the distinct modes, sorted with {@link #MODE_COMPARATOR}. */
+    @VisibleForTesting
+    static List<Display.Mode> sortModes(Display.Mode[] modes) {
+        // Display modes which are equal would show up as identical entries.
+        final List<Display.Mode> sortedModes =
+                new ArrayList<>(new LinkedHashSet<>(Arrays.asList(modes)));
+        sortedModes.sort(MODE_COMPARATOR);
+        return Collections.unmodifiableList(sortedModes);
+    }
+
+    /** Returns the HDR types supported in any of the modes. */
+    @VisibleForTesting
+    static Set<Integer> getHdrTypes(Display.Mode[] modes) {
+        final Set<Integer> hdrTypes = new TreeSet<>();
+        for (Display.Mode mode : modes) {
+            for (int hdrType : mode.getSupportedHdrTypes()) {
+                hdrTypes.add(hdrType);
+            }
+        }
+        return Collections.unmodifiableSet(hdrTypes);
+    }
+
+    /** Returns the distinct device HDR types which the display supports, in ascending order. */
+    @VisibleForTesting
+    static int[] intersect(int[] deviceHdrTypes, Set<Integer> displayHdrTypes) {
+        return Arrays.stream(deviceHdrTypes)
+                .filter(displayHdrTypes::contains)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+}
@@ -120,7 +120,8 @@ public class DisplaySoundFragment extends SettingsPreferenceFragment implements
         }
 
         SwitchPreference dynamicRangePreference = findPreference(KEY_DYNAMIC_RANGE);
-        if (mDisplayManager.getSupportedHdrOutputTypes().length == 0) {
+        if (!DisplayCapabilitiesRepository.getInstance(mDisplayManager)
+                .hasDeviceHdrOutputTypes()) {
             removePreference(dynamicRangePreference);
             return;
         }
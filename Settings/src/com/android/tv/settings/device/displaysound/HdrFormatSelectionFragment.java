@@ -52,7 +52,6 @@ import com.android.tv.settings.overlay.FlavorUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -104,7 +103,8 @@ public class HdrFormatSelectionFragment extends PreferenceControllerFragment {
         mDisplayManager = getDisplayManager();
         mDeviceHdrTypes = toSet(getDeviceSupportedHdrTypes());
         mUserDisabledHdrTypes = toSet(mDisplayManager.getUserDisabledHdrTypes());
-        mDisplayReportedHdrTypes = getDisplaySupportedHdrTypes();
+        mDisplayReportedHdrTypes =
+                DisplayCapabilitiesRepository.getInstance(mDisplayManager).getDisplayHdrTypes();
 
         super.onAttach(context);
     }
@@ -214,15 +214,6 @@ public class HdrFormatSelectionFragment extends PreferenceControllerFragment {
         return getContext().getResources().getIntArray(R.array.config_deviceSupportedHdrFormats);
     }
 
-    private Set<Integer> getDisplaySupportedHdrTypes() {
-        Set<Integer> hdrTypes = new HashSet<>();
-        Display display = mDisplayManager.getDisplay(Display.DEFAULT_DISPLAY);
-        Arrays.stream(display.getSupportedModes())
-                .map(Display.Mode::getSupportedHdrTypes)
-                .forEach(types -> Arrays.stream(types).forEach(hdrTypes::add));
-        return hdrTypes;
-    }
-
     private void selectRadioPreference(Preference preference) {
         final RadioPreference radioPreference = (RadioPreference) preference;
         radioPreference.setChecked(true);
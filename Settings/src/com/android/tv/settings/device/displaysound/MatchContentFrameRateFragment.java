@@ -84,7 +84,8 @@ public class MatchContentFrameRateFragment extends SettingsPreferenceFragment {
 
     @VisibleForTesting
     boolean isSeamlessSwitchingSupported() {
-        return getDisplayManager().supportsSeamlessRefreshRateSwitching();
+        return DisplayCapabilitiesRepository.getInstance(getDisplayManager())
+                .isSeamlessRefreshRateSwitchingSupported();
     }
 
     @VisibleForTesting
@@ -44,7 +44,6 @@ import com.android.tv.settings.RadioPreference;
 import com.android.tv.settings.SettingsPreferenceFragment;
 import com.android.tv.settings.overlay.FlavorUtils;
 
-import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -73,32 +72,11 @@ public class PreferredDynamicRangeForceFragment extends SettingsPreferenceFragme
     @Override
     public void onAttach(Context context) {
         mDisplayManager = getDisplayManager();
-        mHdrTypes = getIntersectingDeviceAndDisplayHdrTypes();
+        mHdrTypes = DisplayCapabilitiesRepository.getInstance(mDisplayManager)
+                .getSupportedHdrTypes();
         super.onAttach(context);
     }
 
-    private int[] getIntersectingDeviceAndDisplayHdrTypes() {
-        Set<Integer> displaySupportedHdrTypes = new HashSet<>();
-        Display display = mDisplayManager.getDisplay(Display.DEFAULT_DISPLAY);
-        Arrays.stream(display.getSupportedModes()).forEach(mode -> Arrays.stream(
-                mode.getSupportedHdrTypes()).forEach(displaySupportedHdrTypes::add));
-
-        int[] deviceSupportedHdrOutputTypes = mDisplayManager.getSupportedHdrOutputTypes();
-        Set<Integer> intersectingHdrTypes = new HashSet<>();
-        for (Integer hdrType : deviceSupportedHdrOutputTypes) {
-            if (displaySupportedHdrTypes.contains(hdrType)) {
-                intersectingHdrTypes.add(hdrType);
-            }
-        }
-
-        int[] mergedArray = new int[intersectingHdrTypes.size()];
-        int index = 0;
-        for (Integer hdrType : intersectingHdrTypes) {
-            mergedArray[index++] = hdrType;
-        }
-        return mergedArray;
-    }
-
     @Override
     public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
         setPreferencesFromResource(R.xml.preferred_dynamic_range_force, null);
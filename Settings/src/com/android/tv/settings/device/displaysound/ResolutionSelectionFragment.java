@@ -48,12 +48,9 @@ import com.android.tv.settings.RadioPreference;
 import com.android.tv.settings.overlay.FlavorUtils;
 import com.android.tv.settings.util.ResolutionSelectionUtils;
 
-import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -74,7 +71,6 @@ public class ResolutionSelectionFragment extends PreferenceControllerFragment {
     private PreferenceCategory mResolutionPreferenceCategory;
     private Display.Mode mAutoMode;
 
-    static final Set<Integer> STANDARD_RESOLUTIONS_IN_ORDER = Set.of(2160, 1080, 720, 576, 480);
     static final int DIALOG_TIMEOUT_MILLIS = 12000;
     static final int DIALOG_START_MILLIS = 1000;
 
@@ -104,31 +100,8 @@ public class ResolutionSelectionFragment extends PreferenceControllerFragment {
         setPreferencesFromResource(R.xml.resolution_selection, null);
         mResolutionPreferenceCategory = findPreference(KEY_MODE_SELECTION);
 
-        Display display = mDisplayManager.getDisplay(Display.DEFAULT_DISPLAY);
-        mModes = display.getSupportedModes();
-        Arrays.sort(mModes, new Comparator<Display.Mode>() {
-            // Sort in descending order of refresh rate.
-            @Override
-            public int compare(Display.Mode o1, Display.Mode o2) {
-                int resolution1 = Math.min(o1.getPhysicalHeight(), o1.getPhysicalWidth());
-                int resolution2 = Math.min(o2.getPhysicalHeight(), o2.getPhysicalWidth());
-
-                // The resolution which is in list of standard resolutions appears before the one
-                // which is not.
-                if (STANDARD_RESOLUTIONS_IN_ORDER.contains(resolution2)
-                        && !STANDARD_RESOLUTIONS_IN_ORDER.contains(resolution1)) {
-                    return 1;
-                }
-                if (STANDARD_RESOLUTIONS_IN_ORDER.contains(resolution1)
-                        && !STANDARD_RESOLUTIONS_IN_ORDER.contains(resolution2)) {
-                    return -1;
-                }
-                if (resolution2 == resolution1) {
-                    return (int) o2.getRefreshRate() - (int) o1.getRefreshRate();
-                }
-                return resolution2 - resolution1;
-            }
-        });
+        mModes = DisplayCapabilitiesRepository.getInstance(mDisplayManager).getSortedModes()
+                .toArray(new Display.Mode[0]);
 
         createPreferences();
 
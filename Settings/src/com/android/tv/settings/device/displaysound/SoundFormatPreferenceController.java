@@ -34,8 +34,6 @@ import com.android.tv.settings.R;
 
 import java.util.Arrays;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
 
 /**
  * Controller for the surround sound switch preferences.
@@ -45,21 +43,18 @@ public class SoundFormatPreferenceController extends AbstractPreferenceControlle
     private static final String TAG = "SoundFormatController";
 
     private int mFormatId;
-    private Map<Integer, Boolean> mFormats;
-    private List<Integer> mReportedFormats;
+    private SurroundFormatModel mModel;
     private AudioManager mAudioManager;
 
     public SoundFormatPreferenceController(
             Context context,
             int formatId,
             AudioManager audioManager,
-            @NonNull Map<Integer, Boolean> formats,
-            @NonNull List<Integer> reportedFormats) {
+            @NonNull SurroundFormatModel model) {
         super(context);
         mFormatId = formatId;
         mAudioManager = audioManager;
-        mFormats = formats;
-        mReportedFormats = reportedFormats;
+        mModel = model;
     }
 
     @Override
@@ -118,7 +113,7 @@ public class SoundFormatPreferenceController extends AbstractPreferenceControlle
         if (enabledFormats == null) {
             // Starting with Android P passthrough setting ALWAYS has been replaced with MANUAL.
             // In that case all formats will be enabled when in MANUAL mode.
-            formats.addAll(mFormats.keySet());
+            formats.addAll(mModel.getSnapshot().formats.keySet());
         } else {
             try {
                 Arrays.stream(TextUtils.split(enabledFormats, ",")).mapToInt(Integer::parseInt)
@@ -145,7 +140,7 @@ public class SoundFormatPreferenceController extends AbstractPreferenceControlle
 
     /** @return true if the given format is reported by the device. */
     private boolean isReportedFormat() {
-        return mReportedFormats.contains(mFormatId);
+        return mModel.getSnapshot().isReported(mFormatId);
     }
 
     private void showWarningDialogOnEnableUnsupportedFormat(SwitchPreference preference) {
@@ -0,0 +1,211 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.device.displaysound;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.media.AudioManager;
+import android.util.ArraySet;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.tv.settings.library.util.ThreadUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * The surround sound formats supported by the Android device and by the connected audio device,
+ * for {@link AdvancedVolumeFragment}.
+ *
+ * <p>The formats are queried from the audio server once when the screen is created, and again
+ * on a background thread when an HDMI audio device is plugged or unplugged, or when the screen
+ * is started again after being stopped. Must be used on the main thread.
+ */
+final class SurroundFormatModel {
+    /** Queries the surround formats, so that it can be faked in tests. */
+    interface AudioSource {
+        /** Returns the formats supported by the Android device, and whether they are enabled. */
+        Map<Integer, Boolean> getSurroundFormats();
+
+        /** Returns the formats reported by the connected audio device. */
+        List<Integer> getReportedSurroundFormats();
+    }
+
+    static final class SystemAudioSource implements AudioSource {
+        private final AudioManager mAudioManager;
+
+        SystemAudioSource(AudioManager audioManager) {
+            mAudioManager = audioManager;
+        }
+
+        @Override
+        public Map<Integer, Boolean> getSurroundFormats() {
+            return mAudioManager.getSurroundFormats();
+        }
+
+        @Override
+        public List<Integer> getReportedSurroundFormats() {
+            return mAudioManager.getReportedSurroundFormats();
+        }
+    }
+
+    /** Immutable state of the surround formats at the time they were queried. */
+    static final class Snapshot {
+        /** Formats supported by the Android device, and whether they are enabled. */
+        final Map<Integer, Boolean> formats;
+        /** Formats reported by the connected audio device. */
+        final List<Integer> reportedFormats;
+
+        Snapshot(Map<Integer, Boolean> formats, List<Integer> reportedFormats) {
+            this.formats = Collections.unmodifiableMap(formats);
+            this.reportedFormats = Collections.unmodifiableList(reportedFormats);
+        }
+
+        boolean isReported(int formatId) {
+            return reportedFormats.contains(formatId);
+        }
+    }
+
+    /** Notified on the main thread when the formats are refreshed. */
+    interface Listener {
+        /**
+         * Called when the formats changed.
+         *
+         * @param changedFormatIds the formats whose enabled or reported state changed
+         */
+        void onSurroundFormatsChanged(Set<Integer> changedFormatIds);
+    }
+
+    private final Context mContext;
+    private final AudioSource mSource;
+    private final Executor mBackgroundExecutor;
+    private Snapshot mSnapshot;
+    @Nullable
+    private Listener mListener;
+    // Incremented when a refresh starts or the model is stopped, so that only the result of the
+    // latest refresh is applied.
+    private int mRefreshGeneration;
+    // Whether plug events may have been missed since the snapshot was loaded.
+    private boolean mSnapshotMaybeStale;
+
+    private final BroadcastReceiver mHdmiAudioPlugReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            // The plug broadcast is sticky. The state it reports is already covered by the
+            // snapshot loaded before the first start, or by the refresh of a later start.
+            if (!isInitialStickyBroadcast()) {
+                refresh();
+            }
+        }
+    };
+
+    SurroundFormatModel(Context context, AudioManager audioManager) {
+        this(context, new SystemAudioSource(audioManager), ThreadUtils::postOnBackgroundThread);
+    }
+
+    @VisibleForTesting
+    SurroundFormatModel(Context context, AudioSource source, Executor backgroundExecutor) {
+        mContext = context;
+        mSource = source;
+        mBackgroundExecutor = backgroundExecutor;
+    }
+
+    /** Queries the formats on the calling thread. */
+    Snapshot load() {
+        mSnapshot = query();
+        mSnapshotMaybeStale = false;
+        return mSnapshot;
+    }
+
+    /** Returns the formats, as of the last load or refresh. */
+    Snapshot getSnapshot() {
+        return mSnapshot;
+    }
+
+    /**
+     * Refreshes the formats when an HDMI audio device is plugged or unplugged, and right away if
+     * the model was stopped since the formats were loaded.
+     */
+    void start(Listener listener) {
+        mListener = listener;
+        mContext.registerReceiver(mHdmiAudioPlugReceiver,
+                new IntentFilter(AudioManager.ACTION_HDMI_AUDIO_PLUG));
+        if (mSnapshotMaybeStale) {
+            refresh();
+        }
+    }
+
+    void stop() {
+        if (mListener == null) {
+            return;
+        }
+        mContext.unregisterReceiver(mHdmiAudioPlugReceiver);
+        mListener = null;
+        mRefreshGeneration++;
+        mSnapshotMaybeStale = true;
+    }
+
+    /** Queries the formats on a background thread, and notifies the listener if they changed. */
+    @VisibleForTesting
+    void refresh() {
+        final int generation = ++mRefreshGeneration;
+        mBackgroundExecutor.execute(() -> {
+            final Snapshot snapshot = query();
+            ThreadUtils.postOnMainThread(() -> {
+                if (generation == mRefreshGeneration) {
+                    apply(snapshot);
+                }
+            });
+        });
+    }
+
+    private void apply(Snapshot snapshot) {
+        final Set<Integer> changedFormatIds = diff(mSnapshot, snapshot);
+        mSnapshot = snapshot;
+        if (!changedFormatIds.isEmpty() && mListener != null) {
+            mListener.onSurroundFormatsChanged(changedFormatIds);
+        }
+    }
+
+    private Snapshot query() {
+        return new Snapshot(mSource.getSurroundFormats(), mSource.getReportedSurroundFormats());
+    }
+
+    /** Returns the formats whose enabled or reported state differs between the snapshots. */
+    @VisibleForTesting
+    static Set<Integer> diff(Snapshot oldSnapshot, Snapshot newSnapshot) {
+        final Set<Integer> formatIds = new ArraySet<>(oldSnapshot.formats.keySet());
+        formatIds.addAll(newSnapshot.formats.keySet());
+        final Set<Integer> changedFormatIds = new ArraySet<>();
+        for (int formatId : formatIds) {
+            if (!Objects.equals(oldSnapshot.formats.get(formatId),
+                    newSnapshot.formats.get(formatId))
+                    || oldSnapshot.isReported(formatId) != newSnapshot.isReported(formatId)) {
+                changedFormatIds.add(formatId);
+            }
+        }
+        return changedFormatIds;
+    }
+}
@@ -84,6 +84,8 @@ public class EnergyModesContentProvider extends ContentProvider {
     /** Key for a String array representing the features of an energy mode. */
     private static final String KEY_FEATURES = "features";
 
+    private EnergyModesHelper mEnergyModesHelper;
+
     @Override
     public boolean onCreate() {
         return true;
@@ -140,8 +142,17 @@ public class EnergyModesContentProvider extends ContentProvider {
         }
     }
 
+    private synchronized EnergyModesHelper getEnergyModesHelper() {
+        // The helper answers from the process-wide compiled policy, so it can be shared by all
+        // binder calls.
+        if (mEnergyModesHelper == null) {
+            mEnergyModesHelper = new EnergyModesHelper(getContext());
+        }
+        return mEnergyModesHelper;
+    }
+
     private Bundle getEnergyModes() {
-        EnergyModesHelper energyModesHelper = new EnergyModesHelper(getContext());
+        EnergyModesHelper energyModesHelper = getEnergyModesHelper();
 
         final EnergyMode defaultMode = energyModesHelper.getDefaultEnergyMode();
         final EnergyMode currentMode = energyModesHelper.updateEnergyMode();
@@ -157,7 +168,7 @@ public class EnergyModesContentProvider extends ContentProvider {
         getContext().enforceCallingOrSelfPermission(MANAGE_LOW_POWER_STANDBY, null);
         final long ident = Binder.clearCallingIdentity();
         try {
-            EnergyModesHelper energyModesHelper = new EnergyModesHelper(getContext());
+            EnergyModesHelper energyModesHelper = getEnergyModesHelper();
             EnergyMode energyMode = energyModesHelper.getEnergyMode(/* identifier= */ identifier);
             if (energyMode == null) {
                 throw new IllegalArgumentException("Unknown energy mode: " + identifier);
@@ -177,7 +188,7 @@ public class EnergyModesContentProvider extends ContentProvider {
             return null;
         }
 
-        return getContext().getString(mode.identifierRes);
+        return getEnergyModesHelper().getIdentifier(mode);
     }
 
     @NonNull
@@ -24,18 +24,19 @@ import android.annotation.IntegerRes;
 import android.annotation.NonNull;
 import android.annotation.Nullable;
 import android.annotation.StringRes;
+import android.content.BroadcastReceiver;
 import android.content.Context;
-import android.content.res.Resources;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.os.PowerManager;
 import android.os.PowerManager.LowPowerStandbyPolicy;
 import android.provider.DeviceConfig;
 import android.text.TextUtils;
-import android.util.ArraySet;
+
+import androidx.annotation.VisibleForTesting;
 
 import com.android.tv.settings.R;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -47,6 +48,13 @@ public final class EnergyModesHelper {
     public static final String KEY_ENABLE_POLICY = "enable_policy";
     private static final String LIST_ITEM_BULLET = "\u2022 ";
 
+    private static final Object sPolicyLock = new Object();
+    private static EnergyModesPolicy sPolicy;
+    @VisibleForTesting
+    static final DeviceConfig.OnPropertiesChangedListener sPropertiesChangedListener =
+            properties -> invalidateCompiledPolicy();
+    private static boolean sInvalidationRegistered;
+
     private final Context mContext;
 
     /** Describes an Energy Mode. */
@@ -231,12 +239,48 @@ public final class EnergyModesHelper {
         return powerManager.isLowPowerStandbySupported();
     }
 
-    private boolean areEnergyModesEnabled() {
-        boolean enableEnergyModes = mContext.getResources().getBoolean(R.bool.enable_energy_modes);
-        boolean customPoliciesEnabled = DeviceConfig.getBoolean(NAMESPACE_LOW_POWER_STANDBY,
-                KEY_ENABLE_POLICY, true);
+    /**
+     * Returns the energy modes resolved against the current resources and DeviceConfig. The
+     * result is compiled once per process and recompiled after the low_power_standby DeviceConfig
+     * namespace or a resource overlay changed.
+     */
+    static EnergyModesPolicy getCompiledPolicy(Context context) {
+        synchronized (sPolicyLock) {
+            if (!sInvalidationRegistered) {
+                registerInvalidation(context.getApplicationContext());
+                sInvalidationRegistered = true;
+            }
+            if (sPolicy == null) {
+                sPolicy = EnergyModesPolicy.compile(context, ENERGY_MODES,
+                        isLowPowerStandbySupported(context));
+            }
+            return sPolicy;
+        }
+    }
+
+    @VisibleForTesting
+    static void invalidateCompiledPolicy() {
+        synchronized (sPolicyLock) {
+            sPolicy = null;
+        }
+    }
+
+    private static void registerInvalidation(Context appContext) {
+        DeviceConfig.addOnPropertiesChangedListener(NAMESPACE_LOW_POWER_STANDBY,
+                appContext.getMainExecutor(), sPropertiesChangedListener);
 
-        return enableEnergyModes && customPoliciesEnabled && isLowPowerStandbySupported(mContext);
+        final IntentFilter overlayFilter = new IntentFilter(Intent.ACTION_OVERLAY_CHANGED);
+        overlayFilter.addDataScheme("package");
+        appContext.registerReceiver(new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                invalidateCompiledPolicy();
+            }
+        }, overlayFilter);
+    }
+
+    private EnergyModesPolicy getCompiledPolicy() {
+        return getCompiledPolicy(mContext);
     }
 
     /** Returns whether Energy Modes should be shown and used on this device */
@@ -247,43 +291,11 @@ public final class EnergyModesHelper {
     /** Returns all enabled energy modes in the order they should be presented. */
     @NonNull
     public List<EnergyMode> getEnergyModes() {
-        ArrayList<EnergyMode> enabledModes = new ArrayList<>();
-        if (!areEnergyModesEnabled()) {
-            return enabledModes;
-        }
-
-        if (isEnergyModeEnabled(MODE_LOW_ENERGY)) {
-            enabledModes.add(MODE_LOW_ENERGY);
-        }
-
-        if (isEnergyModeEnabled(MODE_MODERATE_ENERGY)) {
-            enabledModes.add(MODE_MODERATE_ENERGY);
-        }
-
-        if (isEnergyModeEnabled(MODE_UNRESTRICTED)) {
-            enabledModes.add(MODE_UNRESTRICTED);
-        } else if (isEnergyModeEnabled(MODE_HIGH_ENERGY)) {
-            enabledModes.add(MODE_HIGH_ENERGY);
-        }
-
-        return enabledModes;
+        return getCompiledPolicy().enabledModes;
     }
 
     private boolean isEnergyModeEnabled(EnergyMode mode) {
-        if (mode == null) {
-            return false;
-        }
-
-        if (mode == MODE_HIGH_ENERGY && isEnergyModeEnabled(MODE_UNRESTRICTED)) {
-            // unrestricted mode overrides high energy mode
-            return false;
-        }
-
-        Resources resources = mContext.getResources();
-        boolean baseEnabled = resources.getBoolean(mode.enabledRes);
-        String identifier = mContext.getString(mode.identifierRes);
-        return DeviceConfig.getBoolean(NAMESPACE_LOW_POWER_STANDBY,
-                "policy_" + identifier + "_enabled", baseEnabled);
+        return getCompiledPolicy().isEnabled(mode);
     }
 
     /** Returns an energy mode by its identifier, or null if not found. */
@@ -301,13 +313,14 @@ public final class EnergyModesHelper {
     /** Returns an energy mode by its identifier, or null if not found. */
     @Nullable
     public EnergyMode getEnergyMode(String identifier) {
-        for (EnergyMode energyMode : ENERGY_MODES) {
-            if (mContext.getString(energyMode.identifierRes).equals(identifier)) {
-                return energyMode;
-            }
-        }
+        return getCompiledPolicy().getEnergyMode(identifier);
+    }
 
-        return null;
+    /** Returns the identifier of the energy mode. */
+    @NonNull
+    public String getIdentifier(@NonNull EnergyMode mode) {
+        final String identifier = getCompiledPolicy().getIdentifier(mode);
+        return identifier != null ? identifier : mContext.getString(mode.identifierRes);
     }
 
     /** Returns the description of the energy mode, incl. list of features */
@@ -356,89 +369,13 @@ public final class EnergyModesHelper {
         return featureList.toString();
     }
 
-    @Nullable
-    private String[] getDeviceConfigStringArray(String key) {
-        String string = DeviceConfig.getString(NAMESPACE_LOW_POWER_STANDBY, key, null);
-        if (string == null) {
-            return null;
-        }
-        return string.split(",");
-    }
-
     LowPowerStandbyPolicy getPolicy(EnergyMode mode) {
-        if (!mode.enableLowPowerStandby) {
-            return new LowPowerStandbyPolicy(
-                    mContext.getString(mode.identifierRes),
-                    Collections.emptySet(),
-                    0,
-                    Collections.emptySet());
-        }
-
-        return new LowPowerStandbyPolicy(
-                mContext.getString(mode.identifierRes),
-                getExemptPackages(mode),
-                getAllowedReasons(mode),
-                getAllowedFeatures(mode));
-    }
-
-    @NonNull
-    private Set<String> getExemptPackages(@NonNull EnergyMode mode) {
-        final String identifier = mContext.getString(mode.identifierRes);
-        final Set<String> exemptPackages = combineStringArrays(mode.baseExemptPackagesRes,
-                "policy_" + identifier + "_exempt_packages", mode.vendorExemptPackagesRes);
-
-        if (mode.baseMode != null) {
-            exemptPackages.addAll(getExemptPackages(mode.baseMode));
-        }
-
-        return exemptPackages;
+        return getCompiledPolicy().getLowPowerStandbyPolicy(mode);
     }
 
     @NonNull
     Set<String> getAllowedFeatures(@NonNull EnergyMode mode) {
-        final String identifier = mContext.getString(mode.identifierRes);
-        final Set<String> allowedFeatures = combineStringArrays(mode.baseAllowedFeaturesRes,
-                "policy_" + identifier + "_allowed_features", mode.vendorAllowedFeaturesRes);
-
-        if (mode.baseMode != null) {
-            allowedFeatures.addAll(getAllowedFeatures(mode.baseMode));
-        }
-
-        return allowedFeatures;
-    }
-
-    private Set<String> combineStringArrays(@ArrayRes int baseArrayRes, String baseOverrideKey,
-            @ArrayRes int vendorArrayRes) {
-        final Resources resources = mContext.getResources();
-        final String[] baseArray = resources.getStringArray(baseArrayRes);
-        final String[] baseOverrideArray = getDeviceConfigStringArray(baseOverrideKey);
-        final String[] vendorArray = resources.getStringArray(vendorArrayRes);
-
-        ArraySet<String> result = new ArraySet<>();
-        result.addAll(new ArraySet<>(baseOverrideArray != null
-                ? baseOverrideArray
-                : baseArray));
-        result.addAll(new ArraySet<>(vendorArray));
-        return result;
-    }
-
-    private int getAllowedReasons(@NonNull EnergyMode mode) {
-        final Resources resources = mContext.getResources();
-        final String identifier = mContext.getString(mode.identifierRes);
-
-        final int baseAllowedReasons = resources.getInteger(mode.baseAllowedReasonsRes);
-        final int deviceConfigAllowedReasonOverride = DeviceConfig.getInt(
-                NAMESPACE_LOW_POWER_STANDBY, "policy_" + identifier + "_allowed_reasons", -1);
-        final int vendorAllowedReasons = resources.getInteger(mode.vendorAllowedReasonsRes);
-        int allowedReasons = ((deviceConfigAllowedReasonOverride != -1
-                ? deviceConfigAllowedReasonOverride
-                : baseAllowedReasons) | vendorAllowedReasons);
-
-        if (mode.baseMode != null) {
-            allowedReasons |= getAllowedReasons(mode.baseMode);
-        }
-
-        return allowedReasons;
+        return getCompiledPolicy().getAllowedFeatures(mode);
     }
 
     /** Sets the given energy mode in the system. */
@@ -457,10 +394,7 @@ public final class EnergyModesHelper {
      */
     @Nullable
     public EnergyMode getDefaultEnergyMode() {
-        if (!areEnergyModesAvailable()) {
-            return null;
-        }
-        return getEnergyMode(mContext.getString(R.string.default_energy_mode));
+        return getCompiledPolicy().defaultMode;
     }
 
     /**
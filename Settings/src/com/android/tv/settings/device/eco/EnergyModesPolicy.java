@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.device.eco;
+
+import static com.android.tv.settings.device.eco.EnergyModesHelper.KEY_ENABLE_POLICY;
+import static com.android.tv.settings.device.eco.EnergyModesHelper.MODE_HIGH_ENERGY;
+import static com.android.tv.settings.device.eco.EnergyModesHelper.MODE_LOW_ENERGY;
+import static com.android.tv.settings.device.eco.EnergyModesHelper.MODE_MODERATE_ENERGY;
+import static com.android.tv.settings.device.eco.EnergyModesHelper.MODE_UNRESTRICTED;
+import static com.android.tv.settings.device.eco.EnergyModesHelper.NAMESPACE_LOW_POWER_STANDBY;
+
+import android.annotation.ArrayRes;
+import android.annotation.IntegerRes;
+import android.annotation.NonNull;
+import android.annotation.Nullable;
+import android.content.Context;
+import android.content.res.Resources;
+import android.os.PowerManager.LowPowerStandbyPolicy;
+import android.provider.DeviceConfig;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Log;
+
+import com.android.tv.settings.R;
+import com.android.tv.settings.device.eco.EnergyModesHelper.EnergyMode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable result of resolving all energy modes against resources and DeviceConfig: which
+ * modes are enabled and in which order, the default mode, and the Low Power Standby policy of
+ * each mode with everything inherited from its base modes.
+ *
+ * <p>Compiled by {@link EnergyModesHelper} and shared until DeviceConfig or a resource overlay
+ * changes.
+ */
+final class EnergyModesPolicy {
+    private static final String TAG = "EnergyModesPolicy";
+
+    /** Whether energy modes are enabled on this device at all. */
+    final boolean energyModesEnabled;
+    /** The enabled modes in the order they should be presented. */
+    final List<EnergyMode> enabledModes;
+    /** The default mode, or null if energy modes are unavailable or no valid default is set. */
+    @Nullable
+    final EnergyMode defaultMode;
+
+    private final Map<EnergyMode, String> mIdentifiers;
+    private final Map<String, EnergyMode> mModesByIdentifier;
+    private final Set<EnergyMode> mModesEnabled;
+    private final Map<EnergyMode, ResolvedMode> mResolvedModes;
+
+    private EnergyModesPolicy(boolean energyModesEnabled, List<EnergyMode> enabledModes,
+            @Nullable EnergyMode defaultMode, Map<EnergyMode, String> identifiers,
+            Map<String, EnergyMode> modesByIdentifier, Set<EnergyMode> modesEnabled,
+            Map<EnergyMode, ResolvedMode> resolvedModes) {
+        this.energyModesEnabled = energyModesEnabled;
+        this.enabledModes = Collections.unmodifiableList(enabledModes);
+        this.defaultMode = defaultMode;
+        mIdentifiers = identifiers;
+        mModesByIdentifier = modesByIdentifier;
+        mModesEnabled = modesEnabled;
+        mResolvedModes = resolvedModes;
+    }
+
+    /** Resolves the given modes. Reads resources and DeviceConfig, so is relatively slow. */
+    static EnergyModesPolicy compile(Context context, EnergyMode[] modes,
+            boolean lowPowerStandbySupported) {
+        final Resources resources = context.getResources();
+
+        final Map<EnergyMode, String> identifiers = new ArrayMap<>(modes.length);
+        final Map<String, EnergyMode> modesByIdentifier = new ArrayMap<>(modes.length);
+        for (EnergyMode mode : modes) {
+            final String identifier = context.getString(mode.identifierRes);
+            identifiers.put(mode, identifier);
+            if (!modesByIdentifier.containsKey(identifier)) {
+                modesByIdentifier.put(identifier, mode);
+            }
+        }
+
+        final Set<EnergyMode> modesEnabled = new ArraySet<>(modes.length);
+        for (EnergyMode mode : modes) {
+            if (DeviceConfig.getBoolean(NAMESPACE_LOW_POWER_STANDBY,
+                    "policy_" + identifiers.get(mode) + "_enabled",
+                    resources.getBoolean(mode.enabledRes))) {
+                modesEnabled.add(mode);
+            }
+        }
+        if (modesEnabled.contains(MODE_UNRESTRICTED)) {
+            // unrestricted mode overrides high energy mode
+            modesEnabled.remove(MODE_HIGH_ENERGY);
+        }
+
+        final Map<EnergyMode, ResolvedMode> resolvedModes = new ArrayMap<>(modes.length);
+        for (EnergyMode mode : modes) {
+            resolve(context, mode, identifiers, resolvedModes, new ArraySet<>());
+        }
+
+        final boolean energyModesEnabled = resources.getBoolean(R.bool.enable_energy_modes)
+                && DeviceConfig.getBoolean(NAMESPACE_LOW_POWER_STANDBY, KEY_ENABLE_POLICY, true)
+                && lowPowerStandbySupported;
+        final List<EnergyMode> enabledModes = new ArrayList<>();
+        if (energyModesEnabled) {
+            for (EnergyMode mode : new EnergyMode[] {
+                    MODE_LOW_ENERGY, MODE_MODERATE_ENERGY, MODE_UNRESTRICTED, MODE_HIGH_ENERGY}) {
+                if (modesEnabled.contains(mode)) {
+                    enabledModes.add(mode);
+                }
+            }
+        }
+
+        final EnergyMode defaultMode = enabledModes.isEmpty() ? null
+                : modesByIdentifier.get(context.getString(R.string.default_energy_mode));
+
+        return new EnergyModesPolicy(energyModesEnabled, enabledModes, defaultMode,
+                identifiers, modesByIdentifier, modesEnabled, resolvedModes);
+    }
+
+    /**
+     * Resolves the mode and its base modes, memoizing results in {@code resolvedModes}. A
+     * base mode that is already being resolved further up the chain is skipped, so a
+     * misconfigured cycle terminates instead of recursing forever.
+     */
+    private static ResolvedMode resolve(Context context, EnergyMode mode,
+            Map<EnergyMode, String> identifiers, Map<EnergyMode, ResolvedMode> resolvedModes,
+            Set<EnergyMode> resolving) {
+        final ResolvedMode cached = resolvedModes.get(mode);
+        if (cached != null) {
+            return cached;
+        }
+        String identifier = identifiers.get(mode);
+        if (identifier == null) {
+            // A base mode that is not part of the compiled set.
+            identifier = context.getString(mode.identifierRes);
+            identifiers.put(mode, identifier);
+        }
+        if (!resolving.add(mode)) {
+            Log.w(TAG, "Cycle in baseMode chain of energy mode " + identifier);
+            return null;
+        }
+
+        final Set<String> exemptPackages = combineStringArrays(context,
+                mode.baseExemptPackagesRes, "policy_" + identifier + "_exempt_packages",
+                mode.vendorExemptPackagesRes);
+        final Set<String> allowedFeatures = combineStringArrays(context,
+                mode.baseAllowedFeaturesRes, "policy_" + identifier + "_allowed_features",
+                mode.vendorAllowedFeaturesRes);
+        int allowedReasons = combineReasons(context, mode.baseAllowedReasonsRes,
+                "policy_" + identifier + "_allowed_reasons", mode.vendorAllowedReasonsRes);
+
+        if (mode.baseMode != null) {
+            final ResolvedMode base =
+                    resolve(context, mode.baseMode, identifiers, resolvedModes, resolving);
+            if (base != null) {
+                exemptPackages.addAll(base.exemptPackages);
+                allowedFeatures.addAll(base.allowedFeatures);
+                allowedReasons |= base.allowedReasons;
+            }
+        }
+        resolving.remove(mode);
+
+        final ResolvedMode resolved = new ResolvedMode(identifier, mode.enableLowPowerStandby,
+                exemptPackages, allowedReasons, allowedFeatures);
+        resolvedModes.put(mode, resolved);
+        return resolved;
+    }
+
+    private static Set<String> combineStringArrays(Context context, @ArrayRes int baseArrayRes,
+            String baseOverrideKey, @ArrayRes int vendorArrayRes) {
+        final Resources resources = context.getResources();
+        final String baseOverride =
+                DeviceConfig.getString(NAMESPACE_LOW_POWER_STANDBY, baseOverrideKey, null);
+
+        ArraySet<String> result = new ArraySet<>();
+        if (baseOverride != null) {
+            Collections.addAll(result, baseOverride.split(","));
+        } else if (baseArrayRes != 0) {
+            Collections.addAll(result, resources.getStringArray(baseArrayRes));
+        }
+        if (vendorArrayRes != 0) {
+            Collections.addAll(result, resources.getStringArray(vendorArrayRes));
+        }
+        return result;
+    }
+
+    private static int combineReasons(Context context, @IntegerRes int baseReasonsRes,
+            String baseOverrideKey, @IntegerRes int vendorReasonsRes) {
+        final Resources resources = context.getResources();
+        final int baseOverride =
+                DeviceConfig.getInt(NAMESPACE_LOW_POWER_STANDBY, baseOverrideKey, -1);
+        final int baseReasons = baseOverride != -1 ? baseOverride
+                : baseReasonsRes != 0 ? resources.getInteger(baseReasonsRes) : 0;
+        final int vendorReasons = vendorReasonsRes != 0 ? resources.getInteger(vendorReasonsRes)
+                : 0;
+        return baseReasons | vendorReasons;
+    }
+
+    /** Returns whether the mode is enabled, regardless of energy modes being available. */
+    boolean isEnabled(@Nullable EnergyMode mode) {
+        return mModesEnabled.contains(mode);
+    }
+
+    /** Returns the identifier of the mode, or null if it's not part of this policy. */
+    @Nullable
+    String getIdentifier(@NonNull EnergyMode mode) {
+        return mIdentifiers.get(mode);
+    }
+
+    /** Returns the mode with the given identifier, or null if not found. */
+    @Nullable
+    EnergyMode getEnergyMode(String identifier) {
+        return mModesByIdentifier.get(identifier);
+    }
+
+    /** Returns the allowed features of the mode, including those of its base modes. */
+    @NonNull
+    Set<String> getAllowedFeatures(@NonNull EnergyMode mode) {
+        return getResolvedMode(mode).allowedFeatures;
+    }
+
+    /** Returns the Low Power Standby policy that is applied for the mode. */
+    @NonNull
+    LowPowerStandbyPolicy getLowPowerStandbyPolicy(@NonNull EnergyMode mode) {
+        return getResolvedMode(mode).policy;
+    }
+
+    private ResolvedMode getResolvedMode(EnergyMode mode) {
+        final ResolvedMode resolved = mResolvedModes.get(mode);
+        if (resolved == null) {
+            throw new IllegalArgumentException("Unknown energy mode " + mode);
+        }
+        return resolved;
+    }
+
+    /** A mode with everything it inherits from its base modes. */
+    private static final class ResolvedMode {
+        final Set<String> exemptPackages;
+        final int allowedReasons;
+        final Set<String> allowedFeatures;
+        final LowPowerStandbyPolicy policy;
+
+        ResolvedMode(String identifier, boolean enableLowPowerStandby,
+                Set<String> exemptPackages, int allowedReasons, Set<String> allowedFeatures) {
+            this.exemptPackages = Collections.unmodifiableSet(exemptPackages);
+            this.allowedReasons = allowedReasons;
+            this.allowedFeatures = Collections.unmodifiableSet(allowedFeatures);
+            this.policy = enableLowPowerStandby
+                    ? new LowPowerStandbyPolicy(identifier, this.exemptPackages, allowedReasons,
+                            this.allowedFeatures)
+                    : new LowPowerStandbyPolicy(identifier, Collections.emptySet(), 0,
+                            Collections.emptySet());
+        }
+    }
+}
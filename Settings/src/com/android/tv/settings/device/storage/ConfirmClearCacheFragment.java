@@ -61,6 +61,7 @@ public class ConfirmClearCacheFragment extends GuidedStepSupportFragment {
             for (PackageInfo info : infos) {
                 pm.deleteApplicationCacheFiles(info.packageName, null);
             }
+            StorageMeasurementEngine.getInstance(getContext()).invalidateAll();
             getFragmentManager().popBackStack();
         } else {
             getFragmentManager().popBackStack();
@@ -32,7 +32,7 @@ import android.util.Log;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
 
-import com.android.settingslib.deviceinfo.StorageMeasurement;
+import com.android.settingslib.deviceinfo.StorageMeasurement.MeasurementDetails;
 import com.android.tv.settings.R;
 import com.android.tv.settings.SettingsPreferenceFragment;
 import com.android.tv.settings.device.apps.AppsFragment;
@@ -65,8 +65,8 @@ public class StorageFragment extends SettingsPreferenceFragment {
 
     private VolumeInfo mVolumeInfo;
 
-    private StorageMeasurement mMeasure;
-    private final StorageMeasurement.MeasurementReceiver mMeasurementReceiver =
+    private StorageMeasurementEngine mMeasurementEngine;
+    private final StorageMeasurementEngine.Receiver mMeasurementReceiver =
             new MeasurementReceiver();
     private final StorageEventListener mStorageEventListener = new StorageEventListener();
 
@@ -89,6 +89,7 @@ public class StorageFragment extends SettingsPreferenceFragment {
     public void onCreate(Bundle savedInstanceState) {
         mStorageManager = getContext().getSystemService(StorageManager.class);
         mPackageManager = getContext().getPackageManager();
+        mMeasurementEngine = StorageMeasurementEngine.getInstance(getContext());
         updateVolumeInfo();
         super.onCreate(savedInstanceState);
     }
@@ -204,24 +205,37 @@ public class StorageFragment extends SettingsPreferenceFragment {
     private void startMeasurement() {
         if (mVolumeInfo != null && mVolumeInfo.isMountedReadable()) {
             final VolumeInfo sharedVolume = mStorageManager.findEmulatedForPrivate(mVolumeInfo);
-            mMeasure = new StorageMeasurement(getContext(), mVolumeInfo, sharedVolume);
-            mMeasure.setReceiver(mMeasurementReceiver);
-            mMeasure.forceMeasure();
+            // Cached details, if any, are delivered before this returns.
+            mMeasurementEngine.measure(mVolumeInfo, sharedVolume, mMeasurementReceiver);
         }
     }
 
     private void stopMeasurement() {
-        if (mMeasure != null) {
-            mMeasure.onDestroy();
-        }
+        mMeasurementEngine.release(mMeasurementReceiver);
     }
 
-    private void updateDetails(StorageMeasurement.MeasurementDetails details) {
+    private void updateDetails(MeasurementDetails details, int measured) {
         if (mVolumeInfo == null) {
             Log.w(TAG, "Unexpected details update. Volume info is null.");
             return;
         }
+        if ((measured & StorageMeasurementEngine.MEASURED_TOTAL) != 0) {
+            try {
+                mAvailablePref.setSize(mStorageManager.getAllocatableBytes(
+                        StorageManager.convert(mVolumeInfo.fsUuid)));
+            } catch (IOException | IllegalArgumentException e) {
+                mAvailablePref.setSize(details.availSize);
+            }
+        }
         final int currentUser = ActivityManager.getCurrentUser();
+        if ((measured & StorageMeasurementEngine.MEASURED_APPS) != 0) {
+            mAppsUsagePref.setSize(details.appsSize.get(currentUser));
+            mCacheUsagePref.setSize(details.cacheSize);
+        }
+        if ((measured & StorageMeasurementEngine.MEASURED_MEDIA) == 0) {
+            return;
+        }
+
         final long dcimSize = totalValues(details.mediaSize.get(currentUser),
                 Environment.DIRECTORY_DCIM,
                 Environment.DIRECTORY_MOVIES, Environment.DIRECTORY_PICTURES);
@@ -234,17 +248,9 @@ public class StorageFragment extends SettingsPreferenceFragment {
         final long downloadsSize = totalValues(details.mediaSize.get(currentUser),
                 Environment.DIRECTORY_DOWNLOADS);
 
-        try {
-            mAvailablePref.setSize(mStorageManager.getAllocatableBytes(
-                    StorageManager.convert(mVolumeInfo.fsUuid)));
-        } catch (IOException | IllegalArgumentException e) {
-            mAvailablePref.setSize(details.availSize);
-        }
-        mAppsUsagePref.setSize(details.appsSize.get(currentUser));
         mDcimUsagePref.setSize(dcimSize);
         mMusicUsagePref.setSize(musicSize);
         mDownloadsUsagePref.setSize(downloadsSize);
-        mCacheUsagePref.setSize(details.cacheSize);
         mMiscUsagePref.setSize(details.miscSize.get(currentUser));
     }
 
@@ -264,11 +270,11 @@ public class StorageFragment extends SettingsPreferenceFragment {
         return total;
     }
 
-    private class MeasurementReceiver implements StorageMeasurement.MeasurementReceiver {
+    private class MeasurementReceiver implements StorageMeasurementEngine.Receiver {
 
         @Override
-        public void onDetailsChanged(StorageMeasurement.MeasurementDetails details) {
-            updateDetails(details);
+        public void onDetailsChanged(MeasurementDetails details, int measured) {
+            updateDetails(details, measured);
         }
     }
 
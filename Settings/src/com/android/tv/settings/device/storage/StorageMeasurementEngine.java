@@ -0,0 +1,455 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.device.storage;
+
+import android.app.usage.ExternalStorageStats;
+import android.app.usage.StorageStats;
+import android.app.usage.StorageStatsManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.UserInfo;
+import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.os.storage.StorageEventListener;
+import android.os.storage.StorageManager;
+import android.os.storage.VolumeInfo;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseLongArray;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.deviceinfo.StorageMeasurement.MeasurementDetails;
+import com.android.tv.settings.library.util.ThreadUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the disk usage of volumes and keeps the last results per volume, so that the storage
+ * screens can show known numbers immediately and refresh them in the background.
+ *
+ * <p>Users are queried in parallel, and results are published in stages as they become
+ * available: total and available space first, then apps, then media and misc. The cache is
+ * invalidated when the volume changes state or is forgotten, and when a package is added or
+ * removed. It is otherwise considered stale after {@link #STALE_AFTER_MS}.
+ *
+ * <p>All public methods must be called on the main thread.
+ */
+final class StorageMeasurementEngine {
+    private static final String TAG = "StorageMeasureEngine";
+    private static final boolean DEBUG = false;
+
+    /** Total and available size are valid. */
+    static final int MEASURED_TOTAL = 1;
+    /** App, data and cache sizes are valid. */
+    static final int MEASURED_APPS = 1 << 1;
+    /** Media and misc sizes on shared storage are valid. */
+    static final int MEASURED_MEDIA = 1 << 2;
+    static final int MEASURED_ALL = MEASURED_TOTAL | MEASURED_APPS | MEASURED_MEDIA;
+
+    @VisibleForTesting
+    static final long STALE_AFTER_MS = 60 * 1000;
+    private static final int THREAD_COUNT = 4;
+    private static final long THREAD_KEEP_ALIVE_MS = 10 * 1000;
+
+    private static StorageMeasurementEngine sInstance;
+
+    /** Receives measurement results, on the main thread. */
+    interface Receiver {
+        /**
+         * @param details the most recent details for the volume. Must not be modified.
+         * @param measured mask of the {@code MEASURED_*} parts of {@code details} that are valid.
+         */
+        void onDetailsChanged(MeasurementDetails details, int measured);
+    }
+
+    private final UserManager mUserManager;
+    private final StorageManager mStorageManager;
+    private final StorageStatsManager mStats;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Executor mExecutor;
+
+    private final Map<String, Entry> mEntries = new ArrayMap<>();
+    private final Map<Receiver, String> mReceivers = new ArrayMap<>();
+
+    private final StorageEventListener mStorageEventListener = new StorageEventListener() {
+        @Override
+        public void onVolumeStateChanged(VolumeInfo vol, int oldState, int newState) {
+            invalidate(vol.fsUuid);
+        }
+
+        @Override
+        public void onVolumeForgotten(String fsUuid) {
+            mEntries.remove(keyOf(fsUuid));
+        }
+    };
+
+    // App sizes change when packages are installed or removed, including updates.
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            invalidateAll();
+        }
+    };
+
+    static synchronized StorageMeasurementEngine getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new StorageMeasurementEngine(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private StorageMeasurementEngine(Context context) {
+        this(context, context.getSystemService(UserManager.class),
+                context.getSystemService(StorageManager.class),
+                context.getSystemService(StorageStatsManager.class), createExecutor());
+    }
+
+    @VisibleForTesting
+    StorageMeasurementEngine(Context context, UserManager userManager,
+            StorageManager storageManager, StorageStatsManager stats, Executor executor) {
+        mUserManager = userManager;
+        mStorageManager = storageManager;
+        mStats = stats;
+        mExecutor = executor;
+        mStorageManager.registerListener(mStorageEventListener);
+        final IntentFilter packageFilter = new IntentFilter();
+        packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        packageFilter.addDataScheme("package");
+        context.registerReceiver(mPackageReceiver, packageFilter);
+    }
+
+    private static Executor createExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT,
+                THREAD_KEEP_ALIVE_MS, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        // The engine lives as long as the process, so idle threads are let go between
+        // measurements.
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Registers the receiver for the volume. Cached details are delivered before this method
+     * returns, and the volume is measured again if it has no details yet or they are stale.
+     */
+    void measure(VolumeInfo volume, VolumeInfo sharedVolume, Receiver receiver) {
+        ThreadUtils.ensureMainThread();
+        final String key = keyOf(volume.fsUuid);
+        mReceivers.put(receiver, key);
+
+        Entry entry = mEntries.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            mEntries.put(key, entry);
+        }
+        entry.volumeId = volume.getId();
+        if (entry.measured != 0) {
+            receiver.onDetailsChanged(entry.buildDetails(), entry.measured);
+        }
+        if (!entry.inFlight && entry.isStale(SystemClock.elapsedRealtime())) {
+            start(key, entry, volume, sharedVolume);
+        }
+    }
+
+    /** Stops delivering results to the receiver. Measurements in flight still fill the cache. */
+    void release(Receiver receiver) {
+        ThreadUtils.ensureMainThread();
+        mReceivers.remove(receiver);
+    }
+
+    /** Drops the freshness of the cached details of a volume, re-measuring it if observed. */
+    void invalidate(String fsUuid) {
+        ThreadUtils.ensureMainThread();
+        final String key = keyOf(fsUuid);
+        final Entry entry = mEntries.get(key);
+        if (entry == null) {
+            return;
+        }
+        entry.generation++;
+        entry.inFlight = false;
+        entry.measuredAt = 0;
+        if (!mReceivers.containsValue(key) || entry.volumeId == null) {
+            return;
+        }
+        final VolumeInfo volume = mStorageManager.findVolumeById(entry.volumeId);
+        if (volume != null && volume.isMountedReadable()) {
+            start(key, entry, volume, mStorageManager.findEmulatedForPrivate(volume));
+        }
+    }
+
+    /** Drops the freshness of every cached volume, e.g. after clearing all app caches. */
+    void invalidateAll() {
+        ThreadUtils.ensureMainThread();
+        for (Entry entry : mEntries.values()) {
+            entry.generation++;
+            entry.inFlight = false;
+            entry.measuredAt = 0;
+        }
+    }
+
+    private void start(String key, Entry entry, VolumeInfo volume, VolumeInfo sharedVolume) {
+        entry.inFlight = true;
+        entry.pending = MEASURED_ALL;
+        final int generation = entry.generation;
+        mExecutor.execute(() -> measureTotal(key, generation, volume, sharedVolume));
+    }
+
+    private void measureTotal(String key, int generation, VolumeInfo volume,
+            VolumeInfo sharedVolume) {
+        final long start = SystemClock.elapsedRealtime();
+        final Result result = new Result(MEASURED_TOTAL);
+        if (volume.getType() == VolumeInfo.TYPE_PUBLIC
+                || volume.getType() == VolumeInfo.TYPE_STUB) {
+            result.totalSize = volume.getPath().getTotalSpace();
+            result.availSize = volume.getPath().getUsableSpace();
+            // Nothing else is measured on public volumes.
+            result.parts = MEASURED_ALL;
+            publish(key, generation, result);
+            return;
+        }
+
+        try {
+            result.totalSize = mStats.getTotalBytes(volume.fsUuid);
+            result.availSize = mStats.getFreeBytes(volume.fsUuid);
+        } catch (IOException e) {
+            // The storage volume became null while we were measuring it.
+            Log.w(TAG, e);
+            result.parts = MEASURED_ALL;
+            publish(key, generation, result);
+            return;
+        }
+        if (DEBUG) {
+            Log.d(TAG, "Measured total storage in " + (SystemClock.elapsedRealtime() - start)
+                    + "ms");
+        }
+        publish(key, generation, result);
+
+        final List<UserInfo> users = mUserManager.getUsers();
+        final boolean measureApps = volume.getType() == VolumeInfo.TYPE_PRIVATE
+                && volume.isMountedReadable();
+        final boolean measureMedia = sharedVolume != null && sharedVolume.isMountedReadable();
+        measureApps(key, generation, volume, measureApps ? users : new ArrayList<>());
+        measureMedia(key, generation, sharedVolume, measureMedia ? users : new ArrayList<>());
+    }
+
+    private void measureApps(String key, int generation, VolumeInfo volume,
+            List<UserInfo> users) {
+        final Result result = new Result(MEASURED_APPS);
+        if (users.isEmpty()) {
+            publish(key, generation, result);
+            return;
+        }
+        final long start = SystemClock.elapsedRealtime();
+        final AtomicInteger remaining = new AtomicInteger(users.size());
+        for (UserInfo user : users) {
+            mExecutor.execute(() -> {
+                try {
+                    final StorageStats stats =
+                            mStats.queryStatsForUser(volume.fsUuid, UserHandle.of(user.id));
+                    synchronized (result) {
+                        // Only count code once against current user
+                        if (user.id == UserHandle.myUserId()) {
+                            addValue(result.usersSize, user.id, stats.getAppBytes());
+                        }
+                        addValue(result.usersSize, user.id, stats.getDataBytes());
+                        addValue(result.appsSize, user.id,
+                                stats.getAppBytes() + stats.getDataBytes());
+                        result.cacheSize += stats.getCacheBytes();
+                    }
+                } catch (IOException e) {
+                    Log.w(TAG, e);
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    if (DEBUG) {
+                        Log.d(TAG, "Measured private storage in "
+                                + (SystemClock.elapsedRealtime() - start) + "ms");
+                    }
+                    publish(key, generation, result);
+                }
+            });
+        }
+    }
+
+    private void measureMedia(String key, int generation, VolumeInfo sharedVolume,
+            List<UserInfo> users) {
+        final Result result = new Result(MEASURED_MEDIA);
+        if (users.isEmpty()) {
+            publish(key, generation, result);
+            return;
+        }
+        final long start = SystemClock.elapsedRealtime();
+        final AtomicInteger remaining = new AtomicInteger(users.size());
+        for (UserInfo user : users) {
+            mExecutor.execute(() -> {
+                final HashMap<String, Long> mediaMap = new HashMap<>();
+                synchronized (result) {
+                    result.mediaSize.put(user.id, mediaMap);
+                }
+                try {
+                    final ExternalStorageStats stats = mStats.queryExternalStatsForUser(
+                            sharedVolume.fsUuid, UserHandle.of(user.id));
+                    synchronized (result) {
+                        addValue(result.usersSize, user.id, stats.getTotalBytes());
+
+                        // Track detailed data types
+                        mediaMap.put(Environment.DIRECTORY_MUSIC, stats.getAudioBytes());
+                        mediaMap.put(Environment.DIRECTORY_MOVIES, stats.getVideoBytes());
+                        mediaMap.put(Environment.DIRECTORY_PICTURES, stats.getImageBytes());
+
+                        final long miscBytes = stats.getTotalBytes() - stats.getAudioBytes()
+                                - stats.getVideoBytes() - stats.getImageBytes();
+                        addValue(result.miscSize, user.id, miscBytes);
+                    }
+                } catch (IOException e) {
+                    Log.w(TAG, e);
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    if (DEBUG) {
+                        Log.d(TAG, "Measured shared storage in "
+                                + (SystemClock.elapsedRealtime() - start) + "ms");
+                    }
+                    publish(key, generation, result);
+                }
+            });
+        }
+    }
+
+    private void publish(String key, int generation, Result result) {
+        mMainHandler.post(() -> {
+            final Entry entry = mEntries.get(key);
+            if (entry == null || entry.generation != generation) {
+                if (DEBUG) {
+                    Log.d(TAG, "Dropping outdated result for " + key);
+                }
+                return;
+            }
+            entry.merge(result);
+            if (entry.pending == 0) {
+                entry.inFlight = false;
+                entry.measuredAt = SystemClock.elapsedRealtime();
+            }
+            final MeasurementDetails details = entry.buildDetails();
+            for (Map.Entry<Receiver, String> receiver : new ArrayList<>(mReceivers.entrySet())) {
+                if (key.equals(receiver.getValue())) {
+                    receiver.getKey().onDetailsChanged(details, entry.measured);
+                }
+            }
+        });
+    }
+
+    private static String keyOf(String fsUuid) {
+        // Internal storage has a null fsUuid.
+        return fsUuid == null ? "" : fsUuid;
+    }
+
+    private static void addValue(SparseLongArray array, int key, long value) {
+        array.put(key, array.get(key) + value);
+    }
+
+    /** A partial measurement produced by one stage. */
+    private static final class Result {
+        int parts;
+        long totalSize;
+        long availSize;
+        long cacheSize;
+        final SparseLongArray usersSize = new SparseLongArray();
+        final SparseLongArray appsSize = new SparseLongArray();
+        final SparseArray<HashMap<String, Long>> mediaSize = new SparseArray<>();
+        final SparseLongArray miscSize = new SparseLongArray();
+
+        Result(int parts) {
+            this.parts = parts;
+        }
+    }
+
+    /** Cached state of one volume. Only accessed on the main thread. */
+    private static final class Entry {
+        String volumeId;
+        int generation;
+        boolean inFlight;
+        long measuredAt;
+        int measured;
+        int pending;
+
+        Result total;
+        Result apps;
+        Result media;
+
+        boolean isStale(long now) {
+            return measuredAt == 0 || now - measuredAt > STALE_AFTER_MS;
+        }
+
+        void merge(Result result) {
+            if ((result.parts & MEASURED_TOTAL) != 0) {
+                total = result;
+            }
+            if ((result.parts & MEASURED_APPS) != 0) {
+                apps = result;
+            }
+            if ((result.parts & MEASURED_MEDIA) != 0) {
+                media = result;
+            }
+            measured |= result.parts;
+            pending &= ~result.parts;
+        }
+
+        MeasurementDetails buildDetails() {
+            final MeasurementDetails details = new MeasurementDetails();
+            if (total != null) {
+                details.totalSize = total.totalSize;
+                details.availSize = total.availSize;
+            }
+            if (apps != null) {
+                details.cacheSize = apps.cacheSize;
+                details.appsSize = apps.appsSize.clone();
+                addAll(details.usersSize, apps.usersSize);
+            }
+            if (media != null) {
+                for (int i = 0; i < media.mediaSize.size(); i++) {
+                    details.mediaSize.put(media.mediaSize.keyAt(i),
+                            new HashMap<>(media.mediaSize.valueAt(i)));
+                }
+                details.miscSize = media.miscSize.clone();
+                addAll(details.usersSize, media.usersSize);
+            }
+            return details;
+        }
+
+        private static void addAll(SparseLongArray target, SparseLongArray source) {
+            for (int i = 0; i < source.size(); i++) {
+                addValue(target, source.keyAt(i), source.valueAt(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.deviceadmin;
+
+import android.app.AppGlobals;
+import android.app.admin.DeviceAdminInfo;
+import android.app.admin.DeviceAdminReceiver;
+import android.app.admin.DevicePolicyManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ActivityInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.os.RemoteException;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads the device admins of all profiles of the current user, keeping the parsed admins between
+ * loads.
+ *
+ * <p>Parsing an admin reads its XML metadata and loads its label, description and icon, so it is
+ * only done again when the package version changed, or when the package was invalidated by a
+ * package broadcast. Loads must not run on the main thread.
+ */
+final class DeviceAdminCatalogue {
+    private static final String TAG = "DeviceAdminCatalogue";
+
+    /** The package and device policy queries admins are loaded from. */
+    interface AdminSource {
+        List<UserHandle> getUserProfiles();
+
+        @Nullable
+        List<ComponentName> getActiveAdmins(int userId);
+
+        /** Returns the receiver of an active admin, or null if it cannot be found. */
+        @Nullable
+        ActivityInfo getReceiverInfo(ComponentName component, int userId);
+
+        /** Returns the receivers of {@code DeviceAdminReceiver.ACTION_DEVICE_ADMIN_ENABLED}. */
+        @Nullable
+        List<ResolveInfo> queryAdminReceivers(int userId);
+
+        /** Parses the admin receiver, or returns null if it is not a valid device admin. */
+        @Nullable
+        DeviceAdminListItem parse(ActivityInfo ai);
+    }
+
+    /** {@link AdminSource} backed by the system services. */
+    static final class SystemAdminSource implements AdminSource {
+        private final Context mContext;
+        private final DevicePolicyManager mDPM;
+        private final UserManager mUm;
+        private final PackageManager mPackageManager;
+
+        SystemAdminSource(Context context) {
+            mContext = context;
+            mDPM = context.getSystemService(DevicePolicyManager.class);
+            mUm = context.getSystemService(UserManager.class);
+            mPackageManager = context.getPackageManager();
+        }
+
+        @Override
+        public List<UserHandle> getUserProfiles() {
+            return mUm.getUserProfiles();
+        }
+
+        @Override
+        public List<ComponentName> getActiveAdmins(int userId) {
+            return mDPM.getActiveAdminsAsUser(userId);
+        }
+
+        @Override
+        public ActivityInfo getReceiverInfo(ComponentName component, int userId) {
+            try {
+                return AppGlobals.getPackageManager().getReceiverInfo(component,
+                        PackageManager.GET_META_DATA
+                                | PackageManager.MATCH_DISABLED_UNTIL_USED_COMPONENTS
+                                | PackageManager.MATCH_DIRECT_BOOT_UNAWARE
+                                | PackageManager.MATCH_DIRECT_BOOT_AWARE, userId);
+            } catch (RemoteException e) {
+                Log.w(TAG, "Unable to load component: " + component);
+                return null;
+            }
+        }
+
+        @Override
+        public List<ResolveInfo> queryAdminReceivers(int userId) {
+            return mPackageManager.queryBroadcastReceiversAsUser(
+                    new Intent(DeviceAdminReceiver.ACTION_DEVICE_ADMIN_ENABLED),
+                    PackageManager.GET_META_DATA
+                            | PackageManager.MATCH_DISABLED_UNTIL_USED_COMPONENTS,
+                    userId);
+        }
+
+        @Override
+        public DeviceAdminListItem parse(ActivityInfo ai) {
+            try {
+                return new DeviceAdminListItem(mContext, new DeviceAdminInfo(mContext, ai));
+            } catch (XmlPullParserException | IOException e) {
+                Log.w(TAG, "Skipping " + ai, e);
+            }
+            return null;
+        }
+    }
+
+    private static final class CachedAdmin {
+        final long versionCode;
+        /** The parsed admin, or null if parsing failed. */
+        @Nullable
+        final DeviceAdminListItem item;
+
+        CachedAdmin(long versionCode, @Nullable DeviceAdminListItem item) {
+            this.versionCode = versionCode;
+            this.item = item;
+        }
+    }
+
+    private final AdminSource mSource;
+    private final Object mLock = new Object();
+    // Parsed admins by item key. Guarded by mLock.
+    private final Map<String, CachedAdmin> mCache = new ArrayMap<>();
+    // Packages to parse again on the next load, per user id; UserHandle.USER_ALL for packages of
+    // any user. Guarded by mLock.
+    private final Map<Integer, Set<String>> mInvalidatedPackages = new ArrayMap<>();
+
+    DeviceAdminCatalogue(AdminSource source) {
+        mSource = source;
+    }
+
+    /**
+     * Makes the next load parse the admins of the package again.
+     *
+     * @param userId the user whose package changed, or {@link UserHandle#USER_ALL}
+     */
+    void invalidatePackage(String packageName, int userId) {
+        synchronized (mLock) {
+            Set<String> packages = mInvalidatedPackages.get(userId);
+            if (packages == null) {
+                packages = new ArraySet<>();
+                mInvalidatedPackages.put(userId, packages);
+            }
+            packages.add(packageName);
+        }
+    }
+
+    /**
+     * Returns the admins of all profiles, sorted by name: active admins, plus the visible
+     * internal receivers of {@code ACTION_DEVICE_ADMIN_ENABLED} which are not active.
+     */
+    List<DeviceAdminListItem> load() {
+        synchronized (mLock) {
+            final Map<String, CachedAdmin> seen = new ArrayMap<>(mCache.size());
+            final List<DeviceAdminListItem> admins = new ArrayList<>();
+            for (UserHandle profile : mSource.getUserProfiles()) {
+                loadAdminsForProfile(profile.getIdentifier(), admins, seen);
+            }
+            // Forget admins which went away, e.g. with their package.
+            mCache.clear();
+            mCache.putAll(seen);
+            mInvalidatedPackages.clear();
+
+            // Stable, so admins with the same name keep the order they were found in.
+            Collections.sort(admins);
+            return Collections.unmodifiableList(admins);
+        }
+    }
+
+    private void loadAdminsForProfile(int userId, List<DeviceAdminListItem> admins,
+            Map<String, CachedAdmin> seen) {
+        final List<ResolveInfo> receivers = mSource.queryAdminReceivers(userId);
+        final Map<ComponentName, ActivityInfo> receiverInfos = new ArrayMap<>();
+        if (receivers != null) {
+            for (ResolveInfo resolveInfo : receivers) {
+                receiverInfos.put(new ComponentName(resolveInfo.activityInfo.packageName,
+                        resolveInfo.activityInfo.name), resolveInfo.activityInfo);
+            }
+        }
+
+        // Active admins are listed regardless of visibility.
+        final List<ComponentName> activeAdmins = mSource.getActiveAdmins(userId);
+        if (activeAdmins != null) {
+            for (ComponentName activeAdmin : activeAdmins) {
+                final DeviceAdminListItem item = getActiveAdmin(activeAdmin,
+                        receiverInfos.get(activeAdmin), userId, seen);
+                if (item != null) {
+                    admins.add(item);
+                }
+            }
+        }
+
+        if (receivers == null) {
+            return;
+        }
+        for (ResolveInfo resolveInfo : receivers) {
+            final ActivityInfo ai = resolveInfo.activityInfo;
+            final ComponentName component = new ComponentName(ai.packageName, ai.name);
+            if (activeAdmins != null && activeAdmins.contains(component)) {
+                continue;
+            }
+            if (!ai.applicationInfo.isInternal()) {
+                continue;
+            }
+            final DeviceAdminListItem item = getOrParse(component, ai, userId, seen);
+            if (item != null && item.isVisible()) {
+                admins.add(item);
+            }
+        }
+    }
+
+    private DeviceAdminListItem getActiveAdmin(ComponentName component,
+            @Nullable ActivityInfo receiverInfo, int userId, Map<String, CachedAdmin> seen) {
+        if (receiverInfo == null) {
+            // Not an enabled receiver; only ask for the receiver if it needs to be parsed.
+            final String key = DeviceAdminListItem.getKey(component, userId);
+            final CachedAdmin cached = mCache.get(key);
+            if (cached != null && !isInvalidated(component.getPackageName(), userId)) {
+                seen.put(key, cached);
+                return cached.item;
+            }
+            receiverInfo = mSource.getReceiverInfo(component, userId);
+            if (receiverInfo == null) {
+                return null;
+            }
+        }
+        return getOrParse(component, receiverInfo, userId, seen);
+    }
+
+    private DeviceAdminListItem getOrParse(ComponentName component, ActivityInfo ai, int userId,
+            Map<String, CachedAdmin> seen) {
+        final String key = DeviceAdminListItem.getKey(component, userId);
+        CachedAdmin cached = seen.get(key);
+        if (cached == null) {
+            cached = mCache.get(key);
+            final long versionCode = ai.applicationInfo.longVersionCode;
+            if (cached == null || cached.versionCode != versionCode
+                    || isInvalidated(component.getPackageName(), userId)) {
+                cached = new CachedAdmin(versionCode, mSource.parse(ai));
+            }
+            seen.put(key, cached);
+        }
+        return cached.item;
+    }
+
+    private boolean isInvalidated(String packageName, int userId) {
+        final Set<String> packages = mInvalidatedPackages.get(userId);
+        final Set<String> allUsersPackages = mInvalidatedPackages.get(UserHandle.USER_ALL);
+        return (packages != null && packages.contains(packageName))
+                || (allUsersPackages != null && allUsersPackages.contains(packageName));
+    }
+}
@@ -18,6 +18,7 @@ package com.android.tv.settings.deviceadmin;
 
 import android.app.admin.DeviceAdminInfo;
 import android.app.admin.DevicePolicyManager;
+import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
@@ -26,6 +27,8 @@ import android.graphics.drawable.Drawable;
 import android.os.UserHandle;
 import android.util.Log;
 
+import androidx.annotation.VisibleForTesting;
+
 /**
  * List item for device admin apps installed on the device.
  * Forked from:
@@ -37,25 +40,44 @@ public class DeviceAdminListItem implements Comparable<DeviceAdminListItem> {
 
     private final UserHandle mUserHandle;
     private final String mKey;
-    private final DeviceAdminInfo mInfo;
+    private final ComponentName mComponent;
     private final CharSequence mName;
     private final Drawable mIcon;
     private final DevicePolicyManager mDPM;
+    private final boolean mVisible;
     private CharSequence mDescription;
 
     public DeviceAdminListItem(Context context, DeviceAdminInfo info) {
-        mInfo = info;
-        mUserHandle = new UserHandle(getUserIdFromDeviceAdminInfo(mInfo));
-        mKey = mUserHandle.getIdentifier() + "@" + mInfo.getComponent().flattenToString();
+        mComponent = info.getComponent();
+        mUserHandle = new UserHandle(getUserIdFromDeviceAdminInfo(info));
+        mKey = getKey(mComponent, mUserHandle.getIdentifier());
         mDPM = (DevicePolicyManager) context.getSystemService(Context.DEVICE_POLICY_SERVICE);
+        mVisible = info.isVisible();
         final PackageManager pm = context.getPackageManager();
-        mName = mInfo.loadLabel(pm);
+        mName = info.loadLabel(pm);
         try {
-            mDescription = mInfo.loadDescription(pm);
+            mDescription = info.loadDescription(pm);
         } catch (Resources.NotFoundException exception) {
             Log.w(TAG, "Setting description to null because can't find resource: " + mKey);
         }
-        mIcon = pm.getUserBadgedIcon(mInfo.loadIcon(pm), mUserHandle);
+        mIcon = pm.getUserBadgedIcon(info.loadIcon(pm), mUserHandle);
+    }
+
+    @VisibleForTesting
+    DeviceAdminListItem(DevicePolicyManager dpm, ComponentName component, UserHandle user,
+            CharSequence name, boolean visible) {
+        mComponent = component;
+        mUserHandle = user;
+        mKey = getKey(component, user.getIdentifier());
+        mDPM = dpm;
+        mVisible = visible;
+        mName = name;
+        mIcon = null;
+    }
+
+    /** Returns the key of the item for the admin component of the user. */
+    static String getKey(ComponentName component, int userId) {
+        return userId + "@" + component.flattenToString();
     }
 
     @Override
@@ -76,7 +98,7 @@ public class DeviceAdminListItem implements Comparable<DeviceAdminListItem> {
     }
 
     public boolean isActive() {
-        return mDPM.isAdminActiveAsUser(mInfo.getComponent(), getUserIdFromDeviceAdminInfo(mInfo));
+        return mDPM.isAdminActiveAsUser(mComponent, mUserHandle.getIdentifier());
     }
 
     public Drawable getIcon() {
@@ -84,16 +106,21 @@ public class DeviceAdminListItem implements Comparable<DeviceAdminListItem> {
     }
 
     public boolean isEnabled() {
-        return !mDPM.isRemovingAdmin(mInfo.getComponent(), getUserIdFromDeviceAdminInfo(mInfo));
+        return !mDPM.isRemovingAdmin(mComponent, mUserHandle.getIdentifier());
+    }
+
+    /** Returns whether the admin may be listed even when it is not active. */
+    public boolean isVisible() {
+        return mVisible;
     }
 
     public UserHandle getUser() {
-        return new UserHandle(getUserIdFromDeviceAdminInfo(mInfo));
+        return mUserHandle;
     }
 
     public Intent getLaunchIntent(Context context) {
         return new Intent(context, DeviceAdminAdd.class)
-                .putExtra(DevicePolicyManager.EXTRA_DEVICE_ADMIN, mInfo.getComponent());
+                .putExtra(DevicePolicyManager.EXTRA_DEVICE_ADMIN, mComponent);
     }
 
     /**
@@ -18,25 +18,17 @@ package com.android.tv.settings.deviceadmin;
 
 import static android.app.admin.DevicePolicyManager.ACTION_DEVICE_POLICY_MANAGER_STATE_CHANGED;
 
-import android.app.AppGlobals;
-import android.app.admin.DeviceAdminInfo;
-import android.app.admin.DeviceAdminReceiver;
 import android.app.admin.DevicePolicyManager;
 import android.content.BroadcastReceiver;
 import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
-import android.content.pm.ActivityInfo;
-import android.content.pm.IPackageManager;
-import android.content.pm.PackageManager;
-import android.content.pm.ResolveInfo;
-import android.os.RemoteException;
+import android.net.Uri;
 import android.os.UserHandle;
 import android.os.UserManager;
 import android.text.TextUtils;
 import android.util.ArrayMap;
-import android.util.Log;
 import android.util.SparseArray;
 
 import androidx.annotation.VisibleForTesting;
@@ -50,12 +42,8 @@ import com.android.settingslib.core.lifecycle.LifecycleObserver;
 import com.android.settingslib.core.lifecycle.events.OnStart;
 import com.android.settingslib.core.lifecycle.events.OnStop;
 import com.android.settingslib.widget.FooterPreference;
+import com.android.tv.settings.library.util.ThreadUtils;
 
-import org.xmlpull.v1.XmlPullParserException;
-
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -70,21 +58,23 @@ public class DeviceAdminListPreferenceController extends AbstractPreferenceContr
         implements LifecycleObserver, OnStart, OnStop {
 
     private static final IntentFilter FILTER = new IntentFilter();
+    private static final IntentFilter PACKAGE_FILTER = new IntentFilter();
     private static final String TAG = "DeviceAdminListPrefCtrl";
     private static final String KEY_DEVICE_ADMIN_FOOTER = "device_admin_footer";
     private static final String KEY_PREF_CATEGORY = "device_admin_settings";
 
     private final DevicePolicyManager mDPM;
     private final UserManager mUm;
-    private final PackageManager mPackageManager;
-    private final IPackageManager mIPackageManager;
+    private final DeviceAdminCatalogue mCatalogue;
 
     /**
-     * Internal collection of device admin info objects for all profiles associated with the current
-     * user.
+     * Sorted device admins for all profiles associated with the current user, as last loaded by
+     * {@link #mCatalogue}.
      */
-    private final ArrayList<DeviceAdminListItem> mAdmins = new ArrayList<>();
+    private List<DeviceAdminListItem> mAdmins = Collections.emptyList();
     private final SparseArray<ComponentName> mProfileOwnerComponents = new SparseArray<>();
+    // Id of the latest load, so that only its result is shown.
+    private int mLoadId;
 
     private final BroadcastReceiver mBroadcastReceiver = new BroadcastReceiver() {
         @Override
@@ -97,19 +87,38 @@ public class DeviceAdminListPreferenceController extends AbstractPreferenceContr
         }
     };
 
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final Uri data = intent.getData();
+            final String packageName = data != null ? data.getSchemeSpecificPart() : null;
+            if (TextUtils.isEmpty(packageName)) {
+                return;
+            }
+            final int uid = intent.getIntExtra(Intent.EXTRA_UID, -1);
+            mCatalogue.invalidatePackage(packageName,
+                    uid != -1 ? UserHandle.getUserId(uid) : UserHandle.USER_ALL);
+            updateList();
+        }
+    };
+
     private PreferenceGroup mPreferenceGroup;
     private FooterPreference mFooterPreference;
 
     static {
         FILTER.addAction(ACTION_DEVICE_POLICY_MANAGER_STATE_CHANGED);
+        PACKAGE_FILTER.addAction(Intent.ACTION_PACKAGE_ADDED);
+        PACKAGE_FILTER.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        PACKAGE_FILTER.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        PACKAGE_FILTER.addDataScheme("package");
     }
 
     public DeviceAdminListPreferenceController(Context context) {
         super(context);
         mDPM = (DevicePolicyManager) context.getSystemService(Context.DEVICE_POLICY_SERVICE);
         mUm = (UserManager) context.getSystemService(Context.USER_SERVICE);
-        mPackageManager = mContext.getPackageManager();
-        mIPackageManager = AppGlobals.getPackageManager();
+        mCatalogue = new DeviceAdminCatalogue(
+                new DeviceAdminCatalogue.SystemAdminSource(context.getApplicationContext()));
     }
 
     @Override
@@ -124,6 +133,9 @@ public class DeviceAdminListPreferenceController extends AbstractPreferenceContr
         mContext.registerReceiverAsUser(
                 mBroadcastReceiver, UserHandle.ALL, FILTER,
                 null /* broadcastPermission */, null /* scheduler */);
+        mContext.registerReceiverAsUser(
+                mPackageReceiver, UserHandle.ALL, PACKAGE_FILTER,
+                null /* broadcastPermission */, null /* scheduler */);
     }
 
     @Override
@@ -152,22 +164,22 @@ public class DeviceAdminListPreferenceController extends AbstractPreferenceContr
     @Override
     public void onStop() {
         mContext.unregisterReceiver(mBroadcastReceiver);
+        mContext.unregisterReceiver(mPackageReceiver);
+        mLoadId++;
     }
 
     @VisibleForTesting
     void updateList() {
-        refreshData();
-        refreshUI();
-    }
-
-    private void refreshData() {
-        mAdmins.clear();
-        final List<UserHandle> profiles = mUm.getUserProfiles();
-        for (UserHandle profile : profiles) {
-            final int profileId = profile.getIdentifier();
-            updateAvailableAdminsForProfile(profileId);
-        }
-        Collections.sort(mAdmins);
+        final int loadId = ++mLoadId;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final List<DeviceAdminListItem> admins = mCatalogue.load();
+            ThreadUtils.postOnMainThread(() -> {
+                if (loadId == mLoadId) {
+                    mAdmins = admins;
+                    refreshUI();
+                }
+            });
+        });
     }
 
     private void refreshUI() {
@@ -217,107 +229,4 @@ public class DeviceAdminListPreferenceController extends AbstractPreferenceContr
         pref.setOnPreferenceChangeListener((preference, newValue) -> false);
         pref.setSingleLineTitle(true);
     }
-
-    /**
-     * Add device admins to the internal collection that belong to a profile.
-     *
-     * @param profileId the profile identifier.
-     */
-    private void updateAvailableAdminsForProfile(final int profileId) {
-        // We are adding the union of two sets 'A' and 'B' of device admins to mAvailableAdmins.
-        // - Set 'A' is the set of active admins for the profile
-        // - set 'B' is the set of listeners to DeviceAdminReceiver.ACTION_DEVICE_ADMIN_ENABLED for
-        //   the profile.
-
-        // Add all of set 'A' to mAvailableAdmins.
-        final List<ComponentName> activeAdminsForProfile = mDPM.getActiveAdminsAsUser(profileId);
-        addActiveAdminsForProfile(activeAdminsForProfile, profileId);
-
-        // Collect set 'B' and add B-A to mAvailableAdmins.
-        addDeviceAdminBroadcastReceiversForProfile(activeAdminsForProfile, profileId);
-    }
-
-    /**
-     * Add a {@link DeviceAdminInfo} object to the internal collection of available admins for all
-     * active admin components associated with a profile.
-     */
-    private void addActiveAdminsForProfile(List<ComponentName> activeAdmins, int profileId) {
-        if (activeAdmins == null) {
-            return;
-        }
-
-        for (ComponentName activeAdmin : activeAdmins) {
-            final ActivityInfo ai;
-            try {
-                ai = mIPackageManager.getReceiverInfo(activeAdmin, PackageManager.GET_META_DATA
-                        | PackageManager.MATCH_DISABLED_UNTIL_USED_COMPONENTS
-                        | PackageManager.MATCH_DIRECT_BOOT_UNAWARE
-                        | PackageManager.MATCH_DIRECT_BOOT_AWARE, profileId);
-            } catch (RemoteException e) {
-                Log.w(TAG, "Unable to load component: " + activeAdmin);
-                continue;
-            }
-            final DeviceAdminInfo deviceAdminInfo = createDeviceAdminInfo(mContext, ai);
-            if (deviceAdminInfo == null) {
-                continue;
-            }
-            mAdmins.add(new DeviceAdminListItem(mContext, deviceAdminInfo));
-        }
-    }
-
-    /**
-     * Add a profile's device admins that are receivers of
-     * {@code DeviceAdminReceiver.ACTION_DEVICE_ADMIN_ENABLED} to the internal collection if they
-     * haven't been added yet.
-     *
-     * @param alreadyAddedComponents the set of active admin component names. Receivers of
-     *                               {@code DeviceAdminReceiver.ACTION_DEVICE_ADMIN_ENABLED}
-     *                               whose component is in this
-     *                               set are not added to the internal collection again.
-     * @param profileId              the identifier of the profile
-     */
-    private void addDeviceAdminBroadcastReceiversForProfile(
-            Collection<ComponentName> alreadyAddedComponents, int profileId) {
-        final List<ResolveInfo> enabledForProfile = mPackageManager.queryBroadcastReceiversAsUser(
-                new Intent(DeviceAdminReceiver.ACTION_DEVICE_ADMIN_ENABLED),
-                PackageManager.GET_META_DATA | PackageManager.MATCH_DISABLED_UNTIL_USED_COMPONENTS,
-                profileId);
-        if (enabledForProfile == null) {
-            return;
-        }
-        for (ResolveInfo resolveInfo : enabledForProfile) {
-            final ComponentName riComponentName =
-                    new ComponentName(resolveInfo.activityInfo.packageName,
-                            resolveInfo.activityInfo.name);
-            if (alreadyAddedComponents != null
-                    && alreadyAddedComponents.contains(riComponentName)) {
-                continue;
-            }
-            DeviceAdminInfo deviceAdminInfo = createDeviceAdminInfo(
-                    mContext, resolveInfo.activityInfo);
-            // add only visible ones (note: active admins are added regardless of visibility)
-            if (deviceAdminInfo != null && deviceAdminInfo.isVisible()) {
-                if (!deviceAdminInfo.getActivityInfo().applicationInfo.isInternal()) {
-                    continue;
-                }
-                mAdmins.add(new DeviceAdminListItem(mContext, deviceAdminInfo));
-            }
-        }
-    }
-
-    /**
-     * Creates a device admin info object for the resolved intent that points to the component of
-     * the device admin.
-     *
-     * @param ai ActivityInfo for the admin component.
-     * @return new {@link DeviceAdminInfo} object or null if there was an error.
-     */
-    private static DeviceAdminInfo createDeviceAdminInfo(Context context, ActivityInfo ai) {
-        try {
-            return new DeviceAdminInfo(context, ai);
-        } catch (XmlPullParserException | IOException e) {
-            Log.w(TAG, "Skipping " + ai, e);
-        }
-        return null;
-    }
 }
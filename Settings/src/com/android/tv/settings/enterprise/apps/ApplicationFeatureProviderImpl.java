@@ -28,6 +28,8 @@ import android.os.RemoteException;
 import android.os.UserManager;
 import android.util.ArraySet;
 
+import com.android.tv.settings.library.util.ThreadUtils;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -44,6 +46,7 @@ public class ApplicationFeatureProviderImpl implements ApplicationFeatureProvide
     private final IPackageManager mPms;
     private final DevicePolicyManager mDpm;
     private final UserManager mUm;
+    private InstalledPackagesIndex mInstalledPackagesIndex;
 
     public ApplicationFeatureProviderImpl(Context context, PackageManager pm,
             IPackageManager pms, DevicePolicyManager dpm) {
@@ -56,42 +59,54 @@ public class ApplicationFeatureProviderImpl implements ApplicationFeatureProvide
 
     @Override
     public void calculateNumberOfPolicyInstalledApps(boolean async, NumberOfAppsCallback callback) {
-        final CurrentUserAndManagedProfilePolicyInstalledAppCounter counter =
-                new CurrentUserAndManagedProfilePolicyInstalledAppCounter(mContext, mPm, callback);
         if (async) {
-            counter.execute();
+            ThreadUtils.postOnBackgroundThread(() -> {
+                final int count = getInstalledPackagesIndex().countPolicyInstalledApps();
+                ThreadUtils.postOnMainThread(() -> callback.onNumberOfAppsResult(count));
+            });
         } else {
-            counter.executeInForeground();
+            callback.onNumberOfAppsResult(getInstalledPackagesIndex().countPolicyInstalledApps());
         }
     }
 
     @Override
     public void listPolicyInstalledApps(ListOfAppsCallback callback) {
-        final CurrentUserPolicyInstalledAppLister lister =
-                new CurrentUserPolicyInstalledAppLister(mPm, mUm, callback);
-        lister.execute();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final List<UserAppInfo> apps = getInstalledPackagesIndex().listPolicyInstalledApps();
+            ThreadUtils.postOnMainThread(() -> callback.onListOfAppsResult(apps));
+        });
     }
 
     @Override
     public void calculateNumberOfAppsWithAdminGrantedPermissions(String[] permissions,
             boolean async, NumberOfAppsCallback callback) {
-        final CurrentUserAndManagedProfileAppWithAdminGrantedPermissionsCounter counter =
-                new CurrentUserAndManagedProfileAppWithAdminGrantedPermissionsCounter(mContext,
-                        permissions, mPm, mPms, mDpm, callback);
         if (async) {
-            counter.execute();
+            ThreadUtils.postOnBackgroundThread(() -> {
+                final int count = getInstalledPackagesIndex()
+                        .countAppsWithAdminGrantedPermissions(permissions);
+                ThreadUtils.postOnMainThread(() -> callback.onNumberOfAppsResult(count));
+            });
         } else {
-            counter.executeInForeground();
+            callback.onNumberOfAppsResult(getInstalledPackagesIndex()
+                    .countAppsWithAdminGrantedPermissions(permissions));
         }
     }
 
     @Override
     public void listAppsWithAdminGrantedPermissions(String[] permissions,
             ListOfAppsCallback callback) {
-        final CurrentUserAppWithAdminGrantedPermissionsLister lister =
-                new CurrentUserAppWithAdminGrantedPermissionsLister(permissions, mPm, mPms, mDpm,
-                        mUm, callback);
-        lister.execute();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final List<UserAppInfo> apps = getInstalledPackagesIndex()
+                    .listAppsWithAdminGrantedPermissions(permissions);
+            ThreadUtils.postOnMainThread(() -> callback.onListOfAppsResult(apps));
+        });
+    }
+
+    private synchronized InstalledPackagesIndex getInstalledPackagesIndex() {
+        if (mInstalledPackagesIndex == null) {
+            mInstalledPackagesIndex = new InstalledPackagesIndex(mContext, mPm, mPms, mDpm, mUm);
+        }
+        return mInstalledPackagesIndex;
     }
 
     @Override
@@ -125,75 +140,6 @@ public class ApplicationFeatureProviderImpl implements ApplicationFeatureProvide
         return preferredActivities;
     }
 
-
-    private static class CurrentUserAndManagedProfilePolicyInstalledAppCounter
-            extends InstalledAppCounter {
-        private final NumberOfAppsCallback mCallback;
-
-        CurrentUserAndManagedProfilePolicyInstalledAppCounter(Context context,
-                PackageManager packageManager, NumberOfAppsCallback callback) {
-            super(context, PackageManager.INSTALL_REASON_POLICY, packageManager);
-            mCallback = callback;
-        }
-
-        @Override
-        protected void onCountComplete(int num) {
-            mCallback.onNumberOfAppsResult(num);
-        }
-    }
-
-    private static class CurrentUserAndManagedProfileAppWithAdminGrantedPermissionsCounter
-            extends AppWithAdminGrantedPermissionsCounter {
-        private final NumberOfAppsCallback mCallback;
-
-        CurrentUserAndManagedProfileAppWithAdminGrantedPermissionsCounter(Context context,
-                String[] permissions, PackageManager packageManager,
-                IPackageManager packageManagerService,
-                DevicePolicyManager devicePolicyManager, NumberOfAppsCallback callback) {
-            super(context, permissions, packageManager, packageManagerService, devicePolicyManager);
-            mCallback = callback;
-        }
-
-        @Override
-        protected void onCountComplete(int num) {
-            mCallback.onNumberOfAppsResult(num);
-        }
-    }
-
-    private static class CurrentUserPolicyInstalledAppLister extends InstalledAppLister {
-        private final ListOfAppsCallback mCallback;
-
-        CurrentUserPolicyInstalledAppLister(PackageManager packageManager,
-                UserManager userManager, ListOfAppsCallback callback) {
-            super(packageManager, userManager);
-            mCallback = callback;
-        }
-
-        @Override
-        protected void onAppListBuilt(List<UserAppInfo> list) {
-            mCallback.onListOfAppsResult(list);
-        }
-    }
-
-    private static class CurrentUserAppWithAdminGrantedPermissionsLister extends
-            AppWithAdminGrantedPermissionsLister {
-        private final ListOfAppsCallback mCallback;
-
-        CurrentUserAppWithAdminGrantedPermissionsLister(String[] permissions,
-                PackageManager packageManager, IPackageManager packageManagerService,
-                DevicePolicyManager devicePolicyManager, UserManager userManager,
-                ListOfAppsCallback callback) {
-            super(permissions, packageManager, packageManagerService, devicePolicyManager,
-                    userManager);
-            mCallback = callback;
-        }
-
-        @Override
-        protected void onAppListBuilt(List<UserAppInfo> list) {
-            mCallback.onListOfAppsResult(list);
-        }
-    }
-
     private ComponentInfo getComponentInfo(ResolveInfo resolveInfo) {
         if (resolveInfo.activityInfo != null) {
             return resolveInfo.activityInfo;
@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.enterprise.apps;
+
+import android.app.admin.DevicePolicyManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.IPackageManager;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.UserInfo;
+import android.net.Uri;
+import android.os.Build;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the packages installed in the current user and its profiles, shared by all enterprise
+ * privacy counters and listers.
+ *
+ * <p>The index is built with one package query per profile the first time it is used. Package
+ * broadcasts afterwards only mark the affected packages, which are re-queried on the next lookup;
+ * a profile being added or removed rebuilds the index. Policy installed apps are kept as a set,
+ * and packages are indexed by the permissions they request so that checking admin granted
+ * permissions only looks at the few apps that could have them.
+ *
+ * <p>Inclusion rules are the same as those of {@link InstalledAppCounter} and
+ * {@link AppWithAdminGrantedPermissionsCounter}.
+ */
+class InstalledPackagesIndex {
+
+    private static final int BASE_FLAGS = PackageManager.GET_DISABLED_COMPONENTS
+            | PackageManager.GET_DISABLED_UNTIL_USED_COMPONENTS;
+
+    private final Context mContext;
+    private final PackageManager mPm;
+    private final IPackageManager mPms;
+    private final DevicePolicyManager mDpm;
+    private final UserManager mUm;
+
+    private final Object mLock = new Object();
+    // All fields below are guarded by mLock.
+    private boolean mBuilt;
+    private boolean mReceiverRegistered;
+    private final List<UserInfo> mProfiles = new ArrayList<>();
+    // Per user id, keeping the order in which the package manager returned the packages.
+    private final Map<Integer, LinkedHashMap<String, Entry>> mEntries = new ArrayMap<>();
+    private final Set<Entry> mPolicyInstalled = new ArraySet<>();
+    // Pre-M apps installed by policy; granted their permissions at install time, possibly
+    // through a shared uid, so they are checked whatever they request.
+    private final Set<Entry> mPolicyInstalledInstallTimePermissions = new ArraySet<>();
+    private final Map<String, Set<Entry>> mByRequestedPermission = new ArrayMap<>();
+    private final Set<String> mChangedPackages = new ArraySet<>();
+
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final String action = intent.getAction();
+            if (Intent.ACTION_MANAGED_PROFILE_ADDED.equals(action)
+                    || Intent.ACTION_MANAGED_PROFILE_REMOVED.equals(action)) {
+                invalidate();
+                return;
+            }
+            final Uri data = intent.getData();
+            if (data != null) {
+                onPackageChanged(data.getSchemeSpecificPart());
+            }
+        }
+    };
+
+    InstalledPackagesIndex(Context context, PackageManager pm, IPackageManager pms,
+            DevicePolicyManager dpm, UserManager um) {
+        mContext = context;
+        mPm = pm;
+        mPms = pms;
+        mDpm = dpm;
+        mUm = um;
+    }
+
+    /** Returns the number of apps installed by policy. */
+    int countPolicyInstalledApps() {
+        synchronized (mLock) {
+            ensureUpToDateLocked();
+            return mPolicyInstalled.size();
+        }
+    }
+
+    /** Returns the apps installed by policy, grouped by profile. */
+    List<UserAppInfo> listPolicyInstalledApps() {
+        synchronized (mLock) {
+            ensureUpToDateLocked();
+            final List<UserAppInfo> result = new ArrayList<>(mPolicyInstalled.size());
+            for (UserInfo user : mProfiles) {
+                for (Entry entry : mEntries.get(user.id).values()) {
+                    if (mPolicyInstalled.contains(entry)) {
+                        result.add(new UserAppInfo(user, entry.info));
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /** Returns the number of apps the admin granted one or more of the permissions to. */
+    int countAppsWithAdminGrantedPermissions(String[] permissions) {
+        synchronized (mLock) {
+            ensureUpToDateLocked();
+            int count = 0;
+            for (Entry entry : getPermissionCandidatesLocked(permissions)) {
+                if (hasAdminGrantedPermission(permissions, entry)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    /** Returns the apps the admin granted one or more of the permissions to. */
+    List<UserAppInfo> listAppsWithAdminGrantedPermissions(String[] permissions) {
+        synchronized (mLock) {
+            ensureUpToDateLocked();
+            final Set<Entry> candidates = getPermissionCandidatesLocked(permissions);
+            final List<UserAppInfo> result = new ArrayList<>();
+            for (UserInfo user : mProfiles) {
+                for (Entry entry : mEntries.get(user.id).values()) {
+                    if (candidates.contains(entry) && hasAdminGrantedPermission(permissions,
+                            entry)) {
+                        result.add(new UserAppInfo(user, entry.info));
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /** Drops the index; it is rebuilt on the next lookup. */
+    void invalidate() {
+        synchronized (mLock) {
+            mBuilt = false;
+            mChangedPackages.clear();
+        }
+    }
+
+    @VisibleForTesting
+    void onPackageChanged(String packageName) {
+        synchronized (mLock) {
+            if (mBuilt) {
+                mChangedPackages.add(packageName);
+            }
+        }
+    }
+
+    private Set<Entry> getPermissionCandidatesLocked(String[] permissions) {
+        final Set<Entry> candidates = new ArraySet<>(mPolicyInstalledInstallTimePermissions);
+        for (String permission : permissions) {
+            final Set<Entry> requesting = mByRequestedPermission.get(permission);
+            if (requesting != null) {
+                candidates.addAll(requesting);
+            }
+        }
+        return candidates;
+    }
+
+    private boolean hasAdminGrantedPermission(String[] permissions, Entry entry) {
+        return AppWithAdminGrantedPermissionsCounter.includeInCount(permissions, mDpm, mPm, mPms,
+                entry.info);
+    }
+
+    private void ensureUpToDateLocked() {
+        if (!mReceiverRegistered) {
+            registerReceiver();
+            mReceiverRegistered = true;
+        }
+        if (!mBuilt) {
+            buildLocked();
+            mBuilt = true;
+        } else if (!mChangedPackages.isEmpty()) {
+            for (String packageName : mChangedPackages) {
+                for (UserInfo user : mProfiles) {
+                    refreshPackageLocked(user, packageName);
+                }
+            }
+            mChangedPackages.clear();
+        }
+    }
+
+    private void registerReceiver() {
+        final IntentFilter packageFilter = new IntentFilter();
+        packageFilter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        packageFilter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        packageFilter.addDataScheme("package");
+        mContext.registerReceiverAsUser(mReceiver, UserHandle.ALL, packageFilter,
+                null /* broadcastPermission */, null /* scheduler */);
+
+        final IntentFilter profileFilter = new IntentFilter();
+        profileFilter.addAction(Intent.ACTION_MANAGED_PROFILE_ADDED);
+        profileFilter.addAction(Intent.ACTION_MANAGED_PROFILE_REMOVED);
+        mContext.registerReceiver(mReceiver, profileFilter);
+    }
+
+    private void buildLocked() {
+        mProfiles.clear();
+        mEntries.clear();
+        mPolicyInstalled.clear();
+        mPolicyInstalledInstallTimePermissions.clear();
+        mByRequestedPermission.clear();
+        for (UserInfo user : mUm.getProfiles(UserHandle.myUserId())) {
+            mProfiles.add(user);
+            final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+            mEntries.put(user.id, entries);
+            final List<PackageInfo> packages =
+                    mPm.getInstalledPackagesAsUser(getFlags(user), user.id);
+            for (PackageInfo packageInfo : packages) {
+                if (packageInfo.applicationInfo != null) {
+                    final Entry entry = createEntry(packageInfo);
+                    entries.put(packageInfo.packageName, entry);
+                    addToIndexesLocked(entry);
+                }
+            }
+        }
+    }
+
+    private void refreshPackageLocked(UserInfo user, String packageName) {
+        final Map<String, Entry> entries = mEntries.get(user.id);
+        final Entry old = entries.get(packageName);
+        if (old != null) {
+            removeFromIndexesLocked(old);
+        }
+        try {
+            final PackageInfo packageInfo =
+                    mPm.getPackageInfoAsUser(packageName, getFlags(user), user.id);
+            if (packageInfo.applicationInfo != null) {
+                final Entry entry = createEntry(packageInfo);
+                // Replacing the value of an existing key keeps its position.
+                entries.put(packageName, entry);
+                addToIndexesLocked(entry);
+                return;
+            }
+        } catch (PackageManager.NameNotFoundException e) {
+            // Removed from this profile.
+        }
+        entries.remove(packageName);
+    }
+
+    private Entry createEntry(PackageInfo packageInfo) {
+        final ApplicationInfo info = packageInfo.applicationInfo;
+        final int installReason = mPm.getInstallReason(info.packageName,
+                new UserHandle(UserHandle.getUserId(info.uid)));
+        // Only policy installed apps are counted, so only they need the launcher check.
+        final boolean policyInstalled = installReason == PackageManager.INSTALL_REASON_POLICY
+                && InstalledAppCounter.includeInCount(InstalledAppCounter.IGNORE_INSTALL_REASON,
+                        mPm, info);
+        return new Entry(info, installReason, packageInfo.requestedPermissions,
+                policyInstalled);
+    }
+
+    private void addToIndexesLocked(Entry entry) {
+        if (entry.policyInstalled) {
+            mPolicyInstalled.add(entry);
+        }
+        if (entry.usesInstallTimePermissions()
+                && entry.installReason == PackageManager.INSTALL_REASON_POLICY) {
+            mPolicyInstalledInstallTimePermissions.add(entry);
+        }
+        if (entry.requestedPermissions != null) {
+            for (String permission : entry.requestedPermissions) {
+                Set<Entry> requesting = mByRequestedPermission.get(permission);
+                if (requesting == null) {
+                    requesting = new ArraySet<>();
+                    mByRequestedPermission.put(permission, requesting);
+                }
+                requesting.add(entry);
+            }
+        }
+    }
+
+    private void removeFromIndexesLocked(Entry entry) {
+        mPolicyInstalled.remove(entry);
+        mPolicyInstalledInstallTimePermissions.remove(entry);
+        if (entry.requestedPermissions != null) {
+            for (String permission : entry.requestedPermissions) {
+                final Set<Entry> requesting = mByRequestedPermission.get(permission);
+                if (requesting != null) {
+                    requesting.remove(entry);
+                }
+            }
+        }
+    }
+
+    private static int getFlags(UserInfo user) {
+        return BASE_FLAGS | PackageManager.GET_PERMISSIONS
+                | (user.isAdmin() ? PackageManager.MATCH_ANY_USER : 0);
+    }
+
+    /** An installed package in one profile. Compared by identity. */
+    private static final class Entry {
+        final ApplicationInfo info;
+        final int installReason;
+        final String[] requestedPermissions;
+        final boolean policyInstalled;
+
+        Entry(ApplicationInfo info, int installReason, String[] requestedPermissions,
+                boolean policyInstalled) {
+            this.info = info;
+            this.installReason = installReason;
+            this.requestedPermissions = requestedPermissions;
+            this.policyInstalled = policyInstalled;
+        }
+
+        boolean usesInstallTimePermissions() {
+            return info.targetSdkVersion < Build.VERSION_CODES.M;
+        }
+    }
+}
@@ -31,13 +31,10 @@ import androidx.preference.Preference;
 import androidx.preference.PreferenceGroup;
 import androidx.preference.TwoStatePreference;
 
-import com.android.internal.app.LocalePicker;
 import com.android.tv.settings.R;
 import com.android.tv.settings.RadioPreference;
 import com.android.tv.settings.SettingsPreferenceFragment;
 
-import java.util.List;
-
 /**
  * The "Captions" screen in TV settings.
  */
@@ -80,21 +77,12 @@ public class CaptionFragment extends SettingsPreferenceFragment implements
 
         mCaptionsDisplayPref = (TwoStatePreference) findPreference(KEY_CAPTIONS_DISPLAY);
 
-        final List<LocalePicker.LocaleInfo> localeInfoList =
-                LocalePicker.getAllAssetLocales(getContext(), false);
-        final String[] langNames = new String[localeInfoList.size() + 1];
-        final String[] langLocales = new String[localeInfoList.size() + 1];
-        langNames[0] = getString(R.string.captions_language_default);
-        langLocales[0] = "";
-        int i = 1;
-        for (final LocalePicker.LocaleInfo info : localeInfoList) {
-            langNames[i] = info.toString();
-            langLocales[i] = info.getLocale().toString();
-            i++;
-        }
         mCaptionsLanguagePref = (ListPreference) findPreference(KEY_CAPTIONS_LANGUAGE);
-        mCaptionsLanguagePref.setEntries(langNames);
-        mCaptionsLanguagePref.setEntryValues(langLocales);
+        // Listing and naming every asset locale is slow, so unless it is cached, the list is
+        // built in the background, and the preference stays disabled until it is.
+        mCaptionsLanguagePref.setEnabled(false);
+        CaptionLocaleCatalogue.getInstance(getContext())
+                .getEntries(this::setCaptionsLanguageEntries);
         mCaptionsLanguagePref.setOnPreferenceChangeListener(this);
 
         mCaptionsTextSizePref = (ListPreference) findPreference(KEY_CAPTIONS_TEXT_SIZE);
@@ -109,6 +97,17 @@ public class CaptionFragment extends SettingsPreferenceFragment implements
         mCaptionsStyleCustomPref = (RadioPreference) findPreference(KEY_CAPTIONS_STYLE_CUSTOM);
     }
 
+    private void setCaptionsLanguageEntries(CaptionLocaleCatalogue.Entries entries) {
+        if (!isAdded()) {
+            // Delivered after the fragment went away.
+            return;
+        }
+        mCaptionsLanguagePref.setEntries(entries.names);
+        mCaptionsLanguagePref.setEntryValues(entries.values);
+        // Also rebinds the preference, updating its summary to the name of the current value.
+        mCaptionsLanguagePref.setEnabled(true);
+    }
+
     @Override
     public boolean onPreferenceTreeClick(Preference preference) {
         final String key = preference.getKey();
@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.system;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.LocaleList;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.internal.app.LocalePicker;
+import com.android.tv.settings.R;
+import com.android.tv.settings.library.util.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * The entries of the caption language list, i.e. the default entry followed by every asset
+ * locale, named in the system locale.
+ *
+ * <p>The entries are built once per process on a background thread, and kept until the system
+ * locale changes. Requests made while a build is in flight share its result.
+ */
+final class CaptionLocaleCatalogue {
+    private static CaptionLocaleCatalogue sInstance;
+
+    /** Lists the locales, so that it can be faked in tests. */
+    interface LocaleSource {
+        List<LocalePicker.LocaleInfo> getAllAssetLocales();
+
+        /** Returns the name of the entry which follows the system locale. */
+        CharSequence getDefaultName();
+    }
+
+    static final class SystemLocaleSource implements LocaleSource {
+        private final Context mContext;
+
+        SystemLocaleSource(Context context) {
+            mContext = context;
+        }
+
+        @Override
+        public List<LocalePicker.LocaleInfo> getAllAssetLocales() {
+            return LocalePicker.getAllAssetLocales(mContext, false);
+        }
+
+        @Override
+        public CharSequence getDefaultName() {
+            return mContext.getString(R.string.captions_language_default);
+        }
+    }
+
+    /** Entries of the list preference. The arrays are shared and must not be modified. */
+    static final class Entries {
+        /** System locales the names are localized for. */
+        final LocaleList systemLocales;
+        final CharSequence[] names;
+        final CharSequence[] values;
+
+        Entries(LocaleList systemLocales, CharSequence[] names, CharSequence[] values) {
+            this.systemLocales = systemLocales;
+            this.names = names;
+            this.values = values;
+        }
+    }
+
+    private final LocaleSource mSource;
+    private final Object mLock = new Object();
+    // Guarded by mLock.
+    private Entries mEntries;
+    // Guarded by mLock. Incremented when the entries are invalidated, so that a build which
+    // started before is not cached.
+    private int mGeneration;
+    // Callbacks waiting for the build in flight, or null if there is none. Only accessed on the
+    // main thread.
+    private List<Consumer<Entries>> mPendingCallbacks;
+    @VisibleForTesting
+    Executor mBackgroundExecutor = ThreadUtils::postOnBackgroundThread;
+
+    private final BroadcastReceiver mLocaleReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            invalidate();
+        }
+    };
+
+    /** Returns the process-wide catalogue. */
+    static synchronized CaptionLocaleCatalogue getInstance(Context context) {
+        if (sInstance == null) {
+            final Context appContext = context.getApplicationContext();
+            sInstance = new CaptionLocaleCatalogue(appContext,
+                    new SystemLocaleSource(appContext));
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    CaptionLocaleCatalogue(Context context, LocaleSource source) {
+        mSource = source;
+        context.registerReceiver(mLocaleReceiver,
+                new IntentFilter(Intent.ACTION_LOCALE_CHANGED));
+    }
+
+    /** Returns the entries for the current system locale, or null if they are not built yet. */
+    @Nullable
+    Entries getCachedEntries() {
+        synchronized (mLock) {
+            if (mEntries != null && mEntries.systemLocales.equals(LocaleList.getDefault())) {
+                return mEntries;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Passes the entries for the current system locale to the callback on the main thread,
+     * building them on a background thread if needed. The callback is called synchronously if
+     * the entries are cached. Must be called on the main thread.
+     */
+    void getEntries(Consumer<Entries> callback) {
+        ThreadUtils.ensureMainThread();
+        final Entries entries = getCachedEntries();
+        if (entries != null) {
+            callback.accept(entries);
+            return;
+        }
+        if (mPendingCallbacks != null) {
+            mPendingCallbacks.add(callback);
+            return;
+        }
+        mPendingCallbacks = new ArrayList<>();
+        mPendingCallbacks.add(callback);
+        mBackgroundExecutor.execute(() -> {
+            final Entries built = build();
+            ThreadUtils.postOnMainThread(() -> {
+                final List<Consumer<Entries>> callbacks = mPendingCallbacks;
+                mPendingCallbacks = null;
+                for (Consumer<Entries> pending : callbacks) {
+                    pending.accept(built);
+                }
+            });
+        });
+    }
+
+    /** Builds the entries for the current system locale, caching them. */
+    @VisibleForTesting
+    Entries build() {
+        final int generation;
+        synchronized (mLock) {
+            generation = mGeneration;
+        }
+        final LocaleList systemLocales = LocaleList.getDefault();
+        final List<LocalePicker.LocaleInfo> localeInfoList = mSource.getAllAssetLocales();
+        final CharSequence[] names = new CharSequence[localeInfoList.size() + 1];
+        final CharSequence[] values = new CharSequence[localeInfoList.size() + 1];
+        names[0] = mSource.getDefaultName();
+        values[0] = "";
+        int i = 1;
+        for (final LocalePicker.LocaleInfo info : localeInfoList) {
+            names[i] = info.toString();
+            values[i] = info.getLocale().toString();
+            i++;
+        }
+        final Entries entries = new Entries(systemLocales, names, values);
+        synchronized (mLock) {
+            if (generation == mGeneration) {
+                mEntries = entries;
+            }
+        }
+        return entries;
+    }
+
+    /** Drops the cached entries. */
+    void invalidate() {
+        synchronized (mLock) {
+            mEntries = null;
+            mGeneration++;
+        }
+    }
+}
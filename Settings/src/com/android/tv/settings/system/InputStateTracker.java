@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.system;
+
+import android.content.Context;
+import android.media.tv.TvInputInfo;
+import android.media.tv.TvInputManager;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks the state and label of the TV inputs listed in {@link InputsFragment}, updated from
+ * {@link TvInputManager.TvInputCallback} events instead of re-enumerating all inputs.
+ *
+ * <p>Each {@code on*} method returns whether the listing of the input changed, i.e. whether its
+ * preference has to be added, moved, removed or refreshed.
+ */
+final class InputStateTracker {
+    /** State of an input which is not listed. */
+    static final int STATE_NONE = -1;
+
+    /** Queries the inputs, so that it can be faked in tests. */
+    interface InputSource {
+        /** Returns the ids of the inputs to list, in display order. */
+        List<String> getInputIds();
+
+        /** Returns whether the input should be listed; false if it is gone. */
+        boolean isListed(String inputId);
+
+        /**
+         * Returns the {@code TvInputManager.INPUT_STATE_*} state of the input.
+         *
+         * @throws IllegalArgumentException if the input is gone
+         */
+        int getInputState(String inputId);
+
+        /** Returns the label of the input, or null if it is gone. */
+        @Nullable
+        CharSequence loadLabel(String inputId);
+    }
+
+    static final class SystemInputSource implements InputSource {
+        private final Context mContext;
+        private final TvInputManager mTvInputManager;
+
+        SystemInputSource(Context context, TvInputManager tvInputManager) {
+            mContext = context;
+            mTvInputManager = tvInputManager;
+        }
+
+        @Override
+        public List<String> getInputIds() {
+            final List<String> inputIds = new ArrayList<>();
+            for (TvInputInfo info : mTvInputManager.getTvInputList()) {
+                if (isListed(info)) {
+                    inputIds.add(info.getId());
+                }
+            }
+            return inputIds;
+        }
+
+        @Override
+        public boolean isListed(String inputId) {
+            return isListed(mTvInputManager.getTvInputInfo(inputId));
+        }
+
+        @Override
+        public int getInputState(String inputId) {
+            return mTvInputManager.getInputState(inputId);
+        }
+
+        @Override
+        public CharSequence loadLabel(String inputId) {
+            final TvInputInfo info = mTvInputManager.getTvInputInfo(inputId);
+            return info != null ? info.loadLabel(mContext) : null;
+        }
+
+        private static boolean isListed(@Nullable TvInputInfo info) {
+            return info != null && info.getType() != TvInputInfo.TYPE_TUNER
+                    && TextUtils.isEmpty(info.getParentId());
+        }
+    }
+
+    private final InputSource mSource;
+    private final Map<String, Integer> mStates = new ArrayMap<>();
+    private final Map<String, CharSequence> mLabels = new ArrayMap<>();
+
+    InputStateTracker(InputSource source) {
+        mSource = source;
+    }
+
+    /** Loads all inputs, returning the ids of the listed ones. */
+    List<String> load() {
+        mStates.clear();
+        mLabels.clear();
+        final List<String> inputIds = new ArrayList<>();
+        for (String inputId : mSource.getInputIds()) {
+            try {
+                mStates.put(inputId, mSource.getInputState(inputId));
+            } catch (IllegalArgumentException e) {
+                // Input is gone while iterating. Ignore.
+                continue;
+            }
+            inputIds.add(inputId);
+        }
+        return inputIds;
+    }
+
+    boolean onInputAdded(String inputId) {
+        if (mStates.containsKey(inputId) || !mSource.isListed(inputId)) {
+            return false;
+        }
+        try {
+            mStates.put(inputId, mSource.getInputState(inputId));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return true;
+    }
+
+    boolean onInputRemoved(String inputId) {
+        mLabels.remove(inputId);
+        return mStates.remove(inputId) != null;
+    }
+
+    boolean onInputStateChanged(String inputId, int state) {
+        final Integer previous = mStates.get(inputId);
+        if (previous == null || previous == state) {
+            return false;
+        }
+        mStates.put(inputId, state);
+        return true;
+    }
+
+    /** Drops the cached label of the input, and starts or stops listing it if needed. */
+    boolean onInputUpdated(String inputId) {
+        mLabels.remove(inputId);
+        if (!mSource.isListed(inputId)) {
+            return onInputRemoved(inputId);
+        }
+        return mStates.containsKey(inputId) || onInputAdded(inputId);
+    }
+
+    /** Returns the state of the input, or {@link #STATE_NONE} if it is not listed. */
+    int getState(String inputId) {
+        final Integer state = mStates.get(inputId);
+        return state != null ? state : STATE_NONE;
+    }
+
+    /** Returns the label of the input, loading it at most once until it is updated. */
+    @Nullable
+    CharSequence getLabel(String inputId) {
+        CharSequence label = mLabels.get(inputId);
+        if (label == null && mStates.containsKey(inputId)) {
+            label = mSource.loadLabel(inputId);
+            if (label != null) {
+                mLabels.put(inputId, label);
+            }
+        }
+        return label;
+    }
+}
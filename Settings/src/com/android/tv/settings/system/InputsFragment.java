@@ -22,10 +22,13 @@ import android.icu.text.MessageFormat;
 import android.media.tv.TvInputInfo;
 import android.media.tv.TvInputManager;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.UserHandle;
 import android.text.TextUtils;
 
 import androidx.annotation.Keep;
+import androidx.annotation.Nullable;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceGroup;
 import androidx.preference.TwoStatePreference;
@@ -33,6 +36,7 @@ import androidx.preference.TwoStatePreference;
 import com.android.tv.settings.R;
 import com.android.tv.settings.SettingsPreferenceFragment;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
@@ -64,8 +68,44 @@ public class InputsFragment extends SettingsPreferenceFragment {
 
     private TvInputManager mTvInputManager;
     private HdmiControlManager mHdmiControlManager;
-    private Map<String, String> mCustomLabels;
-    private Set<String> mHiddenIds;
+    private InputStateTracker mInputStateTracker;
+    private Map<String, String> mCustomLabels = Collections.emptyMap();
+    private Set<String> mHiddenIds = Collections.emptySet();
+
+    private MessageFormat mConnectedHeaderFormat;
+    private MessageFormat mStandbyHeaderFormat;
+    private MessageFormat mDisconnectedHeaderFormat;
+
+    private final TvInputManager.TvInputCallback mInputCallback =
+            new TvInputManager.TvInputCallback() {
+                @Override
+                public void onInputAdded(String inputId) {
+                    if (mInputStateTracker.onInputAdded(inputId)) {
+                        updateInputPreference(inputId, false);
+                    }
+                }
+
+                @Override
+                public void onInputRemoved(String inputId) {
+                    if (mInputStateTracker.onInputRemoved(inputId)) {
+                        updateInputPreference(inputId, false);
+                    }
+                }
+
+                @Override
+                public void onInputStateChanged(String inputId, int state) {
+                    if (mInputStateTracker.onInputStateChanged(inputId, state)) {
+                        updateInputPreference(inputId, false);
+                    }
+                }
+
+                @Override
+                public void onInputUpdated(String inputId) {
+                    if (mInputStateTracker.onInputUpdated(inputId)) {
+                        updateInputPreference(inputId, true);
+                    }
+                }
+            };
 
     public static InputsFragment newInstance() {
         return new InputsFragment();
@@ -74,14 +114,36 @@ public class InputsFragment extends SettingsPreferenceFragment {
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        mTvInputManager = (TvInputManager) getContext().getSystemService(Context.TV_INPUT_SERVICE);
-        mHdmiControlManager = getContext().getSystemService(HdmiControlManager.class);
+        final Context context = getContext();
+        mTvInputManager = (TvInputManager) context.getSystemService(Context.TV_INPUT_SERVICE);
+        mHdmiControlManager = context.getSystemService(HdmiControlManager.class);
+        mInputStateTracker = new InputStateTracker(
+                new InputStateTracker.SystemInputSource(context, mTvInputManager));
+
+        // The inputs are listed once, and then kept up to date by the callback, including while
+        // the fragment is in the back stack.
+        mTvInputManager.registerCallback(mInputCallback, new Handler(Looper.getMainLooper()));
+        for (String inputId : mInputStateTracker.load()) {
+            updateInputPreference(inputId, true);
+        }
+        final Locale locale = Locale.getDefault();
+        mConnectedHeaderFormat = new MessageFormat(
+                getString(R.string.inputs_header_connected_input), locale);
+        mStandbyHeaderFormat = new MessageFormat(
+                getString(R.string.inputs_header_standby_input), locale);
+        mDisconnectedHeaderFormat = new MessageFormat(
+                getString(R.string.inputs_header_disconnected_input), locale);
+        updateGroupHeader(mConnectedGroup, mConnectedHeaderFormat);
+        updateGroupHeader(mStandbyGroup, mStandbyHeaderFormat);
+        updateGroupHeader(mDisconnectedGroup, mDisconnectedHeaderFormat);
     }
 
     @Override
     public void onResume() {
         super.onResume();
         final Context context = getContext();
+        // Custom labels and hidden inputs are edited in InputOptionsFragment, and are not covered
+        // by the input callback.
         mCustomLabels =
                 TvInputInfo.TvInputSettings.getCustomLabels(context, UserHandle.USER_SYSTEM);
         mHiddenIds =
@@ -89,6 +151,12 @@ public class InputsFragment extends SettingsPreferenceFragment {
         refresh();
     }
 
+    @Override
+    public void onDestroy() {
+        mTvInputManager.unregisterCallback(mInputCallback);
+        super.onDestroy();
+    }
+
     @Override
     public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
         setPreferencesFromResource(R.xml.inputs, null);
@@ -113,72 +181,85 @@ public class InputsFragment extends SettingsPreferenceFragment {
         mCecVolumePref.setChecked(mHdmiControlManager.getHdmiCecVolumeControlEnabled()
                 == HdmiControlManager.VOLUME_CONTROL_ENABLED);
 
-        for (TvInputInfo info : mTvInputManager.getTvInputList()) {
-            if (info.getType() == TvInputInfo.TYPE_TUNER
-                    || !TextUtils.isEmpty(info.getParentId())) {
-                continue;
-            }
+        refreshLabels(mConnectedGroup);
+        refreshLabels(mStandbyGroup);
+        refreshLabels(mDisconnectedGroup);
+    }
 
-            int state;
-            try {
-                state = mTvInputManager.getInputState(info.getId());
-            } catch (IllegalArgumentException e) {
-                // Input is gone while iterating. Ignore.
-                continue;
-            }
+    private static void refreshLabels(PreferenceGroup group) {
+        for (int i = 0; i < group.getPreferenceCount(); i++) {
+            ((InputPreference) group.getPreference(i)).refreshLabels();
+        }
+    }
 
-            InputPreference inputPref = (InputPreference) findPreference(makeInputPrefKey(info));
+    /**
+     * Moves the preference of the input to the group of its current state, creating or removing
+     * it as needed.
+     *
+     * @param infoChanged whether the {@link TvInputInfo} of the input may have changed
+     */
+    private void updateInputPreference(String inputId, boolean infoChanged) {
+        final PreferenceGroup targetGroup = getGroup(mInputStateTracker.getState(inputId));
+        InputPreference inputPref = (InputPreference) findPreference(makeInputPrefKey(inputId));
+        if (inputPref != null && inputPref.getParent() != targetGroup) {
+            final PreferenceGroup previousGroup = inputPref.getParent();
+            previousGroup.removePreference(inputPref);
+            updateGroupHeader(previousGroup);
+        }
+        if (targetGroup == null) {
+            return;
+        }
+        if (inputPref == null || infoChanged) {
+            final TvInputInfo info = mTvInputManager.getTvInputInfo(inputId);
+            if (info == null) {
+                // Input is gone, its removal callback is on its way.
+                return;
+            }
             if (inputPref == null) {
                 inputPref = new InputPreference(getPreferenceManager().getContext());
             }
             inputPref.refresh(info);
+        }
+        if (inputPref.getParent() == null) {
+            targetGroup.addPreference(inputPref);
+            updateGroupHeader(targetGroup);
+        }
+    }
 
-            switch (state) {
-                case TvInputManager.INPUT_STATE_CONNECTED:
-                    mStandbyGroup.removePreference(inputPref);
-                    mDisconnectedGroup.removePreference(inputPref);
-                    mConnectedGroup.addPreference(inputPref);
-                    break;
-                case TvInputManager.INPUT_STATE_CONNECTED_STANDBY:
-                    mConnectedGroup.removePreference(inputPref);
-                    mDisconnectedGroup.removePreference(inputPref);
-                    mStandbyGroup.addPreference(inputPref);
-                    break;
-                case TvInputManager.INPUT_STATE_DISCONNECTED:
-                    mConnectedGroup.removePreference(inputPref);
-                    mStandbyGroup.removePreference(inputPref);
-                    mDisconnectedGroup.addPreference(inputPref);
-                    break;
-            }
+    @Nullable
+    private PreferenceGroup getGroup(int state) {
+        switch (state) {
+            case TvInputManager.INPUT_STATE_CONNECTED:
+                return mConnectedGroup;
+            case TvInputManager.INPUT_STATE_CONNECTED_STANDBY:
+                return mStandbyGroup;
+            case TvInputManager.INPUT_STATE_DISCONNECTED:
+                return mDisconnectedGroup;
+            default:
+                return null;
+        }
+    }
+
+    private void updateGroupHeader(PreferenceGroup group) {
+        if (group == mConnectedGroup) {
+            updateGroupHeader(group, mConnectedHeaderFormat);
+        } else if (group == mStandbyGroup) {
+            updateGroupHeader(group, mStandbyHeaderFormat);
+        } else if (group == mDisconnectedGroup) {
+            updateGroupHeader(group, mDisconnectedHeaderFormat);
         }
+    }
 
-        final int connectedCount = mConnectedGroup.getPreferenceCount();
-        MessageFormat msgFormat = new MessageFormat(
-                getResources().getString(R.string.inputs_header_connected_input),
-                Locale.getDefault());
-        Map<String, Object> arguments = new HashMap<>();
-        arguments.put(ICU_PLURAL_COUNT, connectedCount);
-        String songsFound = msgFormat.format(arguments);
-        mConnectedGroup.setTitle(msgFormat.format(arguments));
-        mConnectedGroup.setVisible(connectedCount > 0);
-
-        final int standbyCount = mStandbyGroup.getPreferenceCount();
-        msgFormat = new MessageFormat(
-                getResources().getString(R.string.inputs_header_standby_input),
-                Locale.getDefault());
-        arguments = new HashMap<>();
-        arguments.put(ICU_PLURAL_COUNT, standbyCount);
-        mStandbyGroup.setTitle(msgFormat.format(arguments));
-        mStandbyGroup.setVisible(standbyCount > 0);
-
-        final int disconnectedCount = mDisconnectedGroup.getPreferenceCount();
-        msgFormat = new MessageFormat(
-                getResources().getString(R.string.inputs_header_disconnected_input),
-                Locale.getDefault());
-        arguments = new HashMap<>();
-        arguments.put(ICU_PLURAL_COUNT, disconnectedCount);
-        mDisconnectedGroup.setTitle(msgFormat.format(arguments));
-        mDisconnectedGroup.setVisible(disconnectedCount > 0);
+    private static void updateGroupHeader(PreferenceGroup group, MessageFormat headerFormat) {
+        if (headerFormat == null) {
+            // Still listing the inputs in onCreate().
+            return;
+        }
+        final int count = group.getPreferenceCount();
+        final Map<String, Object> arguments = new HashMap<>();
+        arguments.put(ICU_PLURAL_COUNT, count);
+        group.setTitle(headerFormat.format(arguments));
+        group.setVisible(count > 0);
     }
 
     @Override
@@ -213,31 +294,42 @@ public class InputsFragment extends SettingsPreferenceFragment {
     }
 
     private class InputPreference extends Preference {
+        private String mInputId;
+
         public InputPreference(Context context) {
             super(context);
         }
 
         public void refresh(TvInputInfo inputInfo) {
+            mInputId = inputInfo.getId();
             setKey(makeInputPrefKey(inputInfo));
+            setFragment(InputOptionsFragment.class.getName());
+            InputOptionsFragment.prepareArgs(getExtras(), inputInfo);
+            refreshLabels();
+        }
 
-            setTitle(inputInfo.loadLabel(getContext()));
+        public void refreshLabels() {
+            final CharSequence label = mInputStateTracker.getLabel(mInputId);
+            setTitle(label);
 
             String customLabel;
-            if (mHiddenIds.contains(inputInfo.getId())) {
+            if (mHiddenIds.contains(mInputId)) {
                 customLabel = getString(R.string.inputs_hide);
             } else {
-                customLabel = mCustomLabels.get(inputInfo.getId());
-                if (TextUtils.isEmpty(customLabel)) {
-                    customLabel = inputInfo.loadLabel(getContext()).toString();
+                customLabel = mCustomLabels.get(mInputId);
+                if (TextUtils.isEmpty(customLabel) && label != null) {
+                    customLabel = label.toString();
                 }
             }
             setSummary(customLabel);
-            setFragment(InputOptionsFragment.class.getName());
-            InputOptionsFragment.prepareArgs(getExtras(), inputInfo);
         }
     }
 
     public static String makeInputPrefKey(TvInputInfo inputInfo) {
-        return "InputPref:" + inputInfo.getId();
+        return makeInputPrefKey(inputInfo.getId());
+    }
+
+    private static String makeInputPrefKey(String inputId) {
+        return "InputPref:" + inputId;
     }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.system.development;
+
+import android.os.Handler;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.development.SystemPropPoker;
+
+/**
+ * Coalesces {@link SystemPropPoker} pokes. Every poke makes all running processes re-read their
+ * system properties, so property writes made in quick succession are followed by one poke
+ * instead of one each.
+ */
+final class DeferredPropPoker {
+
+    @VisibleForTesting
+    static final long POKE_DELAY_MS = 200;
+
+    private final Handler mHandler;
+    private final Runnable mPoke;
+    private final Runnable mPendingPoke = this::pokeNow;
+    private boolean mPending;
+
+    DeferredPropPoker(Handler handler) {
+        this(handler, () -> SystemPropPoker.getInstance().poke());
+    }
+
+    @VisibleForTesting
+    DeferredPropPoker(Handler handler, Runnable poke) {
+        mHandler = handler;
+        mPoke = poke;
+    }
+
+    /** Pokes after {@link #POKE_DELAY_MS}, unless another poke is scheduled before that. */
+    void schedulePoke() {
+        mHandler.removeCallbacks(mPendingPoke);
+        mHandler.postDelayed(mPendingPoke, POKE_DELAY_MS);
+        mPending = true;
+    }
+
+    /** Pokes right away if a poke is scheduled. */
+    void flush() {
+        if (mPending) {
+            pokeNow();
+        }
+    }
+
+    /** Pokes right away, replacing any scheduled poke. */
+    void pokeNow() {
+        mHandler.removeCallbacks(mPendingPoke);
+        mPending = false;
+        mPoke.run();
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.system.development;
+
+import static com.android.tv.settings.system.development.DevelopmentFragment.ADB_PORT_PROP;
+import static com.android.tv.settings.system.development.DevelopmentFragment.BTSNOOP_LOG_MODE_PROPERTY;
+import static com.android.tv.settings.system.development.DevelopmentFragment.HDCP_CHECKING_PROPERTY;
+import static com.android.tv.settings.system.development.DevelopmentFragment.MOCK_LOCATION_APP_OPS;
+import static com.android.tv.settings.system.development.DevelopmentFragment.PACKAGE_MIME_TYPE;
+import static com.android.tv.settings.system.development.DevelopmentFragment.TERMINAL_APP_PACKAGE;
+
+import android.adb.ADBRootService;
+import android.app.ActivityManager;
+import android.app.AppOpsManager;
+import android.app.backup.IBackupManager;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.net.wifi.WifiManager;
+import android.os.IBinder;
+import android.os.Parcel;
+import android.os.RemoteException;
+import android.os.ServiceManager;
+import android.os.StrictMode;
+import android.os.SystemProperties;
+import android.provider.Settings;
+import android.sysprop.DisplayProperties;
+import android.text.TextUtils;
+import android.view.IWindowManager;
+import android.view.ThreadedRenderer;
+import android.view.accessibility.AccessibilityManager;
+
+import androidx.annotation.Nullable;
+
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable state of the options shown by {@link DevelopmentFragment}, read in a single pass.
+ *
+ * <p>Reading involves settings provider queries, system properties and binder calls into
+ * several system services, so {@link #load} should be called off the main thread. The static
+ * readers are shared with the fragment for refreshing a single option after writing it.
+ */
+final class DeveloperOptionsSnapshot {
+
+    /** Returned by {@link #readAnimationScale} if the window manager could not be reached. */
+    static final float SCALE_UNAVAILABLE = Float.NaN;
+
+    final boolean adbEnabled;
+    final boolean adbRootEnabled;
+    final boolean terminalEnabled;
+    final boolean keepScreenOn;
+    final boolean debugViewAttributes;
+    final boolean forceAllowOnExternal;
+    final String btHciSnoopLogMode;
+    final String hdcpChecking;
+    /** Null if the backup manager could not be reached. */
+    @Nullable
+    final Boolean hasBackupPassword;
+    @Nullable
+    final String debugApp;
+    @Nullable
+    final String debugAppLabel;
+    final boolean waitForDebugger;
+    @Nullable
+    final String mockLocationApp;
+    @Nullable
+    final String mockLocationAppLabel;
+    final boolean strictModeVisual;
+    final boolean pointerLocation;
+    final boolean showTouches;
+    /** Null if SurfaceFlinger could not be reached. */
+    @Nullable
+    final FlingerState flinger;
+    final boolean forceMsaa;
+    final String trackFrameTime;
+    final String showNonRectClip;
+    final boolean showHwScreenUpdates;
+    final boolean showHwLayersUpdates;
+    final String debugHwOverdraw;
+    final boolean debugLayout;
+    final float windowAnimationScale;
+    final float transitionAnimationScale;
+    final float animatorDurationScale;
+    final String overlayDisplayDevices;
+    final String openGlTraces;
+    final boolean immediatelyDestroyActivities;
+    /** Null if the activity manager could not be reached. */
+    @Nullable
+    final Integer appProcessLimit;
+    final boolean showAllAnrs;
+    final boolean verifyAppsOverUsb;
+    final boolean verifierSettingEnabled;
+    final boolean debuggable;
+    final boolean forceRtl;
+    final boolean windowBlursEnabled;
+    final boolean wifiDisplayCertification;
+    final boolean wifiVerboseLogging;
+    final boolean mobileDataAlwaysOn;
+    final boolean daltonizerEnabled;
+    final int daltonizerMode;
+    final boolean usbAudioRoutingDisabled;
+    final boolean forceResizable;
+    final int adbPort;
+    @Nullable
+    final String adbHostAddress;
+
+    private DeveloperOptionsSnapshot(Context context, IWindowManager windowManager,
+            IBackupManager backupManager, @Nullable ADBRootService adbRootService,
+            boolean hasTerminal, @Nullable String previousMockLocationApp) {
+        final ContentResolver cr = context.getContentResolver();
+        final PackageManager pm = context.getPackageManager();
+
+        adbEnabled = Settings.Global.getInt(cr, Settings.Global.ADB_ENABLED, 0) != 0;
+        adbRootEnabled = adbRootService != null && adbRootService.getEnabled();
+        terminalEnabled = hasTerminal
+                && pm.getApplicationEnabledSetting(TERMINAL_APP_PACKAGE)
+                        == PackageManager.COMPONENT_ENABLED_STATE_ENABLED;
+        keepScreenOn = Settings.Global.getInt(cr,
+                Settings.Global.STAY_ON_WHILE_PLUGGED_IN, 0) != 0;
+        debugViewAttributes = Settings.Global.getInt(cr,
+                Settings.Global.DEBUG_VIEW_ATTRIBUTES, 0) != 0;
+        forceAllowOnExternal = Settings.Global.getInt(cr,
+                Settings.Global.FORCE_ALLOW_ON_EXTERNAL, 0) != 0;
+        btHciSnoopLogMode = readBtHciSnoopLogMode();
+        hdcpChecking = readHdcpChecking();
+        hasBackupPassword = readHasBackupPassword(backupManager);
+
+        debugApp = readDebugApp(cr);
+        debugAppLabel = readAppLabel(pm, debugApp);
+        waitForDebugger = readWaitForDebugger(cr);
+        mockLocationApp = readMockLocationApp(context, previousMockLocationApp);
+        mockLocationAppLabel = readAppLabel(pm, mockLocationApp);
+
+        strictModeVisual = readStrictModeVisual();
+        pointerLocation = Settings.System.getInt(cr, Settings.System.POINTER_LOCATION, 0) != 0;
+        showTouches = Settings.System.getInt(cr, Settings.System.SHOW_TOUCHES, 0) != 0;
+        flinger = readFlingerState();
+        forceMsaa = DisplayProperties.debug_force_msaa().orElse(false);
+        trackFrameTime = readTrackFrameTime();
+        showNonRectClip = readShowNonRectClip();
+        showHwScreenUpdates =
+                SystemProperties.getBoolean(ThreadedRenderer.DEBUG_DIRTY_REGIONS_PROPERTY, false);
+        showHwLayersUpdates = SystemProperties.getBoolean(
+                ThreadedRenderer.DEBUG_SHOW_LAYERS_UPDATES_PROPERTY, false);
+        debugHwOverdraw = readDebugHwOverdraw();
+        debugLayout = DisplayProperties.debug_layout().orElse(false);
+        windowAnimationScale = readAnimationScale(windowManager, 0);
+        transitionAnimationScale = readAnimationScale(windowManager, 1);
+        animatorDurationScale = readAnimationScale(windowManager, 2);
+        overlayDisplayDevices = readOverlayDisplayDevices(cr);
+        openGlTraces = readOpenGlTraces();
+        immediatelyDestroyActivities = Settings.Global.getInt(cr,
+                Settings.Global.ALWAYS_FINISH_ACTIVITIES, 0) != 0;
+        appProcessLimit = readAppProcessLimit();
+        showAllAnrs = Settings.Secure.getInt(cr, Settings.Secure.ANR_SHOW_BACKGROUND, 0) != 0;
+        verifyAppsOverUsb = readVerifyAppsOverUsb(cr);
+        verifierSettingEnabled = readVerifierSettingEnabled(context);
+        debuggable = "1".equals(SystemProperties.get("ro.debuggable"));
+
+        forceRtl = Settings.Global.getInt(cr, Settings.Global.DEVELOPMENT_FORCE_RTL, 0) != 0;
+        windowBlursEnabled = Settings.Global.getInt(cr,
+                Settings.Global.DISABLE_WINDOW_BLURS, 0) == 0;
+        wifiDisplayCertification = Settings.Global.getInt(cr,
+                Settings.Global.WIFI_DISPLAY_CERTIFICATION_ON, 0) != 0;
+        final WifiManager wifiManager = context.getSystemService(WifiManager.class);
+        wifiVerboseLogging = wifiManager != null && wifiManager.isVerboseLoggingEnabled();
+        mobileDataAlwaysOn = Settings.Global.getInt(cr,
+                Settings.Global.MOBILE_DATA_ALWAYS_ON, 0) != 0;
+        daltonizerEnabled = Settings.Secure.getInt(cr,
+                Settings.Secure.ACCESSIBILITY_DISPLAY_DALTONIZER_ENABLED, 0) != 0;
+        daltonizerMode = Settings.Secure.getInt(cr,
+                Settings.Secure.ACCESSIBILITY_DISPLAY_DALTONIZER,
+                AccessibilityManager.DALTONIZER_DISABLED);
+        usbAudioRoutingDisabled = Settings.Secure.getInt(cr,
+                Settings.Secure.USB_AUDIO_AUTOMATIC_ROUTING_DISABLED, 0) != 0;
+        forceResizable = Settings.Global.getInt(cr,
+                Settings.Global.DEVELOPMENT_FORCE_RESIZABLE_ACTIVITIES, 0) != 0;
+        adbPort = readAdbPort();
+        adbHostAddress = adbPort > 0 ? readAdbHostAddress() : null;
+    }
+
+    /**
+     * Reads all options.
+     *
+     * @param adbRootService null if adb root is not available
+     * @param hasTerminal whether the terminal app is installed
+     * @param previousMockLocationApp the mock location app to keep if none is allowed anymore
+     */
+    static DeveloperOptionsSnapshot load(Context context, IWindowManager windowManager,
+            IBackupManager backupManager, @Nullable ADBRootService adbRootService,
+            boolean hasTerminal, @Nullable String previousMockLocationApp) {
+        return new DeveloperOptionsSnapshot(context, windowManager, backupManager,
+                adbRootService, hasTerminal, previousMockLocationApp);
+    }
+
+    static String readBtHciSnoopLogMode() {
+        return SystemProperties.get(BTSNOOP_LOG_MODE_PROPERTY);
+    }
+
+    static String readHdcpChecking() {
+        return SystemProperties.get(HDCP_CHECKING_PROPERTY);
+    }
+
+    @Nullable
+    private static Boolean readHasBackupPassword(IBackupManager backupManager) {
+        try {
+            return backupManager.hasBackupPassword();
+        } catch (RemoteException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    static String readDebugApp(ContentResolver cr) {
+        return Settings.Global.getString(cr, Settings.Global.DEBUG_APP);
+    }
+
+    static boolean readWaitForDebugger(ContentResolver cr) {
+        return Settings.Global.getInt(cr, Settings.Global.WAIT_FOR_DEBUGGER, 0) != 0;
+    }
+
+    /**
+     * Returns the package that is allowed to mock locations, or {@code fallback} if there is
+     * none.
+     */
+    @Nullable
+    static String readMockLocationApp(Context context, @Nullable String fallback) {
+        final AppOpsManager appOpsManager = context.getSystemService(AppOpsManager.class);
+        final List<AppOpsManager.PackageOps> packageOps =
+                appOpsManager.getPackagesForOps(MOCK_LOCATION_APP_OPS);
+        if (packageOps != null) {
+            for (AppOpsManager.PackageOps packageOp : packageOps) {
+                if (packageOp.getOps().get(0).getMode() == AppOpsManager.MODE_ALLOWED) {
+                    return packageOps.get(0).getPackageName();
+                }
+            }
+        }
+        return fallback;
+    }
+
+    /** Returns the label of the package, the package name if it has none, or null if empty. */
+    @Nullable
+    static String readAppLabel(PackageManager pm, @Nullable String packageName) {
+        if (TextUtils.isEmpty(packageName)) {
+            return null;
+        }
+        try {
+            final ApplicationInfo ai = pm.getApplicationInfo(packageName,
+                    PackageManager.GET_DISABLED_COMPONENTS);
+            final CharSequence label = pm.getApplicationLabel(ai);
+            return label != null ? label.toString() : packageName;
+        } catch (PackageManager.NameNotFoundException e) {
+            return packageName;
+        }
+    }
+
+    // The system property that controls strictmode flashes is either not explicitly set, on or
+    // off. Only the explicit on state is shown as enabled.
+    private static boolean readStrictModeVisual() {
+        return !TextUtils.isEmpty(SystemProperties.get(StrictMode.VISUAL_PROPERTY))
+                && SystemProperties.getBoolean(StrictMode.VISUAL_PROPERTY, false);
+    }
+
+    @Nullable
+    static FlingerState readFlingerState() {
+        // magic communication with surface flinger.
+        try {
+            IBinder flinger = ServiceManager.getService("SurfaceFlinger");
+            if (flinger == null) {
+                return null;
+            }
+            Parcel data = Parcel.obtain();
+            Parcel reply = Parcel.obtain();
+            try {
+                data.writeInterfaceToken("android.ui.ISurfaceComposer");
+                flinger.transact(1010, data, reply, 0);
+                @SuppressWarnings("unused")
+                int showCpu = reply.readInt();
+                @SuppressWarnings("unused")
+                int enableGL = reply.readInt();
+                int showUpdates = reply.readInt();
+                @SuppressWarnings("unused")
+                int showBackground = reply.readInt();
+                int disableOverlays = reply.readInt();
+                return new FlingerState(showUpdates != 0, disableOverlays != 0);
+            } finally {
+                reply.recycle();
+                data.recycle();
+            }
+        } catch (RemoteException ex) {
+            return null;
+        }
+    }
+
+    static String readTrackFrameTime() {
+        return SystemProperties.get(ThreadedRenderer.PROFILE_PROPERTY, "");
+    }
+
+    static String readShowNonRectClip() {
+        return SystemProperties.get(ThreadedRenderer.DEBUG_SHOW_NON_RECTANGULAR_CLIP_PROPERTY,
+                "hide");
+    }
+
+    static String readDebugHwOverdraw() {
+        return SystemProperties.get(ThreadedRenderer.DEBUG_OVERDRAW_PROPERTY, "");
+    }
+
+    /** Returns the animation scale, or {@link #SCALE_UNAVAILABLE}. */
+    static float readAnimationScale(IWindowManager windowManager, int which) {
+        try {
+            return windowManager.getAnimationScale(which);
+        } catch (RemoteException e) {
+            return SCALE_UNAVAILABLE;
+        }
+    }
+
+    static String readOverlayDisplayDevices(ContentResolver cr) {
+        final String value = Settings.Global.getString(cr,
+                Settings.Global.OVERLAY_DISPLAY_DEVICES);
+        return value != null ? value : "";
+    }
+
+    static String readOpenGlTraces() {
+        return DisplayProperties.debug_opengl_trace().orElse("");
+    }
+
+    @Nullable
+    static Integer readAppProcessLimit() {
+        try {
+            return ActivityManager.getService().getProcessLimit();
+        } catch (RemoteException e) {
+            return null;
+        }
+    }
+
+    static boolean readVerifyAppsOverUsb(ContentResolver cr) {
+        return Settings.Global.getInt(cr, Settings.Global.PACKAGE_VERIFIER_INCLUDE_ADB, 1) != 0;
+    }
+
+    /** Whether "verify apps over USB" can be changed: adb is on and a verifier is installed. */
+    static boolean readVerifierSettingEnabled(Context context) {
+        if (Settings.Global.getInt(context.getContentResolver(),
+                Settings.Global.ADB_ENABLED, 0) == 0) {
+            return false;
+        }
+        final Intent verification = new Intent(Intent.ACTION_PACKAGE_NEEDS_VERIFICATION);
+        verification.setType(PACKAGE_MIME_TYPE);
+        verification.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        return !context.getPackageManager().queryBroadcastReceivers(verification, 0).isEmpty();
+    }
+
+    static int readAdbPort() {
+        return SystemProperties.getInt(ADB_PORT_PROP, -1);
+    }
+
+    /** Returns the first non-loopback IPv4 address of the device, or null. */
+    @Nullable
+    static String readAdbHostAddress() {
+        try {
+            List<NetworkInterface> interfaces = Collections.list(
+                    NetworkInterface.getNetworkInterfaces());
+            for (NetworkInterface intf : interfaces) {
+                List<InetAddress> addrs = Collections.list(intf.getInetAddresses());
+                for (InetAddress addr : addrs) {
+                    if (!addr.isLoopbackAddress()
+                            && addr.getHostAddress().indexOf(':') < 0) {
+                        return addr.getHostAddress();
+                    }
+                }
+            }
+        } catch (SocketException se) {
+            // Do nothing
+        }
+        return null;
+    }
+
+    /** The SurfaceFlinger debug flags shown as options. */
+    static final class FlingerState {
+        final boolean showUpdates;
+        final boolean disableOverlays;
+
+        FlingerState(boolean showUpdates, boolean disableOverlays) {
+            this.showUpdates = showUpdates;
+            this.disableOverlays = disableOverlays;
+        }
+    }
+}
@@ -35,7 +35,6 @@ import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
-import android.content.pm.ResolveInfo;
 import android.database.ContentObserver;
 import android.hardware.usb.UsbManager;
 import android.media.MediaRecorder.AudioSource;
@@ -55,7 +54,6 @@ import android.os.Looper;
 import android.os.Parcel;
 import android.os.RemoteException;
 import android.os.ServiceManager;
-import android.os.StrictMode;
 import android.os.SystemProperties;
 import android.os.UserManager;
 import android.provider.Settings;
@@ -72,6 +70,7 @@ import android.view.ViewGroup;
 import android.view.accessibility.AccessibilityManager;
 import android.widget.Toast;
 
+import androidx.annotation.VisibleForTesting;
 import androidx.preference.ListPreference;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceGroup;
@@ -85,20 +84,18 @@ import com.android.settingslib.development.SystemPropPoker;
 import com.android.tv.settings.R;
 import com.android.tv.settings.RestrictedPreferenceAdapter;
 import com.android.tv.settings.SettingsPreferenceFragment;
+import com.android.tv.settings.library.util.ThreadUtils;
 import com.android.tv.settings.overlay.FlavorUtils;
 import com.android.tv.settings.system.development.audio.AudioDebug;
 import com.android.tv.settings.system.development.audio.AudioMetrics;
 import com.android.tv.settings.system.development.audio.AudioReaderException;
 
-import java.net.NetworkInterface;
-import java.net.InetAddress;
-import java.net.SocketException;
-
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 /**
  * Displays preferences for application developers.
@@ -112,15 +109,15 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
     private static final String ENABLE_ADB = "enable_adb";
     private static final String ENABLE_ADB_ROOT = "enable_adb_root";
     private static final String ADB_TCPIP = "adb_over_network";
-    private static final String ADB_PORT_PROP = "service.adb.tcp.port";
+    static final String ADB_PORT_PROP = "service.adb.tcp.port";
     private static final String CLEAR_ADB_KEYS = "clear_adb_keys";
     private static final String ENABLE_TERMINAL = "enable_terminal";
     private static final String KEEP_SCREEN_ON = "keep_screen_on";
     private static final String BT_HCI_SNOOP_LOG = "bt_hci_snoop_log";
-    private static final String BTSNOOP_LOG_MODE_PROPERTY = "persist.bluetooth.btsnooplogmode";
+    static final String BTSNOOP_LOG_MODE_PROPERTY = "persist.bluetooth.btsnooplogmode";
     private static final String ENABLE_OEM_UNLOCK = "oem_unlock_enable";
     private static final String HDCP_CHECKING_KEY = "hdcp_checking";
-    private static final String HDCP_CHECKING_PROPERTY = "persist.sys.hdcp_checking";
+    static final String HDCP_CHECKING_PROPERTY = "persist.sys.hdcp_checking";
     private static final String LOCAL_BACKUP_PASSWORD = "local_backup_password";
     private static final String BUGREPORT = "bugreport";
     private static final String BUGREPORT_IN_POWER_KEY = "bugreport_in_power";
@@ -178,9 +175,9 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
 
     private static final String SHOW_ALL_ANRS_KEY = "show_all_anrs";
 
-    private static final String PACKAGE_MIME_TYPE = "application/vnd.android.package-archive";
+    static final String PACKAGE_MIME_TYPE = "application/vnd.android.package-archive";
 
-    private static final String TERMINAL_APP_PACKAGE = "com.android.terminal";
+    static final String TERMINAL_APP_PACKAGE = "com.android.terminal";
 
     private static final int RESULT_DEBUG_APP = 1000;
     private static final int RESULT_MOCK_LOCATION_APP = 1001;
@@ -189,7 +186,7 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
 
     private static final String DEFAULT_LOG_RING_BUFFER_SIZE_IN_BYTES = "262144"; // 256K
 
-    private static final int[] MOCK_LOCATION_APP_OPS = new int[]{AppOpsManager.OP_MOCK_LOCATION};
+    static final int[] MOCK_LOCATION_APP_OPS = new int[]{AppOpsManager.OP_MOCK_LOCATION};
 
     private static final String STATE_SHOWING_DIALOG_KEY = "showing_dialog_key";
 
@@ -299,6 +296,11 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
     }
 
     private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final DeferredPropPoker mPropPoker = new DeferredPropPoker(mHandler);
+    // Incremented whenever options are loaded; results of older background loads are dropped.
+    private int mOptionsLoadId;
+    @VisibleForTesting
+    Executor mBackgroundExecutor = ThreadUtils::postOnBackgroundThread;
     private final NetworkCallback mNetworkCallback = new NetworkCallback();
     private ContentObserver mToggleContentObserver;
 
@@ -581,12 +583,16 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
     }
 
     private void setPrefsEnabledState(boolean enabled) {
+        setPrefsEnabled(enabled);
+        updateAllOptions();
+    }
+
+    private void setPrefsEnabled(boolean enabled) {
         for (final Preference pref : mAllPrefs) {
             pref.setEnabled(enabled && !mDisabledPrefs.contains(pref));
         }
         mLogdSizeController.enablePreference(enabled);
         mLogpersistController.enablePreference(enabled);
-        updateAllOptions();
     }
 
     @Override
@@ -609,18 +615,8 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
 
         mLastEnabledState = DevelopmentSettingsEnabler.isDevelopmentSettingsEnabled(getContext());
         mEnableDeveloper.setChecked(mLastEnabledState);
-        setPrefsEnabledState(mLastEnabledState);
-
-        if (mHaveDebugSettings && !mLastEnabledState) {
-            // Overall debugging is disabled, but there are some debug
-            // settings that are enabled.  This is an invalid state.  Switch
-            // to debug settings being enabled, so the user knows there is
-            // stuff enabled and can turn it all off if they want.
-            DevelopmentSettingsEnabler.setDevelopmentSettingsEnabled(getContext(), true);
-            mLastEnabledState = true;
-            mEnableDeveloper.setChecked(mLastEnabledState);
-            setPrefsEnabledState(mLastEnabledState);
-        }
+        setPrefsEnabled(mLastEnabledState);
+        loadAllOptionsInBackground();
 
         if (mColorModePreference != null) {
             mColorModePreference.startListening();
@@ -643,6 +639,8 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
     @Override
     public void onPause() {
         super.onPause();
+        mOptionsLoadId++;
+        mPropPoker.flush();
         if (mColorModePreference != null) {
             mColorModePreference.stopListening();
         }
@@ -692,89 +690,111 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
         mHaveDebugSettings |= value;
     }
 
-    private void updateAllOptions() {
-        final Context context = getActivity();
-        final ContentResolver cr = context.getContentResolver();
+    /** Reads and binds all options on the main thread, superseding any background load. */
+    @VisibleForTesting
+    void updateAllOptions() {
+        mOptionsLoadId++;
+        bindAllOptions(createOptionsLoader().get());
+    }
+
+    private void loadAllOptionsInBackground() {
+        final int loadId = ++mOptionsLoadId;
+        final Supplier<DeveloperOptionsSnapshot> loader = createOptionsLoader();
+        mBackgroundExecutor.execute(() -> {
+            final DeveloperOptionsSnapshot snapshot = loader.get();
+            ThreadUtils.postOnMainThread(() -> {
+                if (loadId == mOptionsLoadId) {
+                    onAllOptionsLoaded(snapshot);
+                }
+            });
+        });
+    }
+
+    /** Captures the fragment state needed for loading, so the loader can run on any thread. */
+    @VisibleForTesting
+    Supplier<DeveloperOptionsSnapshot> createOptionsLoader() {
+        final Context context = getContext().getApplicationContext();
+        final boolean hasTerminal = mEnableTerminal != null;
+        final String mockLocationApp = mMockLocationApp;
+        return () -> DeveloperOptionsSnapshot.load(context, mWindowManager, mBackupManager,
+                mADBRootService, hasTerminal, mockLocationApp);
+    }
+
+    private void onAllOptionsLoaded(DeveloperOptionsSnapshot snapshot) {
+        bindAllOptions(snapshot);
+
+        if (mHaveDebugSettings && !mLastEnabledState) {
+            // Overall debugging is disabled, but there are some debug
+            // settings that are enabled.  This is an invalid state.  Switch
+            // to debug settings being enabled, so the user knows there is
+            // stuff enabled and can turn it all off if they want.
+            DevelopmentSettingsEnabler.setDevelopmentSettingsEnabled(getContext(), true);
+            mLastEnabledState = true;
+            mEnableDeveloper.setChecked(mLastEnabledState);
+            setPrefsEnabledState(mLastEnabledState);
+        }
+    }
+
+    private void bindAllOptions(DeveloperOptionsSnapshot options) {
         mHaveDebugSettings = false;
-        updateSwitchPreference(mEnableAdb, Settings.Global.getInt(cr,
-                Settings.Global.ADB_ENABLED, 0) != 0);
-        updateSwitchPreference(mEnableAdbRoot, mADBRootService.getEnabled());
+        updateSwitchPreference(mEnableAdb, options.adbEnabled);
+        updateSwitchPreference(mEnableAdbRoot, options.adbRootEnabled);
         if (mEnableTerminal != null) {
-            updateSwitchPreference(mEnableTerminal,
-                    context.getPackageManager().getApplicationEnabledSetting(TERMINAL_APP_PACKAGE)
-                            == PackageManager.COMPONENT_ENABLED_STATE_ENABLED);
+            updateSwitchPreference(mEnableTerminal, options.terminalEnabled);
         }
-        updateSwitchPreference(mKeepScreenOn, Settings.Global.getInt(cr,
-                Settings.Global.STAY_ON_WHILE_PLUGGED_IN, 0) != 0);
+        updateSwitchPreference(mKeepScreenOn, options.keepScreenOn);
         mEnableOemUnlock.updateState();
-        updateSwitchPreference(mDebugViewAttributes, Settings.Global.getInt(cr,
-                Settings.Global.DEBUG_VIEW_ATTRIBUTES, 0) != 0);
-        updateSwitchPreference(mForceAllowOnExternal, Settings.Global.getInt(cr,
-                Settings.Global.FORCE_ALLOW_ON_EXTERNAL, 0) != 0);
-        updateBluetoothHciSnoopLogValues();
-        updateHdcpValues();
-        updatePasswordSummary();
-        updateDebuggerOptions();
-        updateMockLocation();
-        updateStrictModeVisualOptions();
-        updatePointerLocationOptions();
-        updateShowTouchesOptions();
-        updateFlingerOptions();
-        updateMsaaOptions();
-        updateTrackFrameTimeOptions();
-        updateShowNonRectClipOptions();
-        updateShowHwScreenUpdatesOptions();
-        updateShowHwLayersUpdatesOptions();
-        updateDebugHwOverdrawOptions();
-        updateDebugLayoutOptions();
-        updateAnimationScaleOptions();
-        updateOverlayDisplayDevicesOptions();
-        updateOpenGLTracesOptions();
-        updateImmediatelyDestroyActivitiesOptions();
-        updateAppProcessLimitOptions();
-        updateShowAllANRsOptions();
-        updateVerifyAppsOverUsbOptions();
-        updateBugreportOptions();
-        updateForceRtlOptions();
-        updateWindowBlursOptions();
+        updateSwitchPreference(mDebugViewAttributes, options.debugViewAttributes);
+        updateSwitchPreference(mForceAllowOnExternal, options.forceAllowOnExternal);
+        updateBluetoothHciSnoopLogValues(options.btHciSnoopLogMode);
+        updateHdcpValues(options.hdcpChecking);
+        updatePasswordSummary(options.hasBackupPassword);
+        updateDebuggerOptions(options.debugApp, options.debugAppLabel, options.waitForDebugger);
+        updateMockLocation(options.mockLocationApp, options.mockLocationAppLabel);
+        updateSwitchPreference(mStrictMode, options.strictModeVisual);
+        updateSwitchPreference(mPointerLocation, options.pointerLocation);
+        updateSwitchPreference(mShowTouches, options.showTouches);
+        updateFlingerOptions(options.flinger);
+        updateSwitchPreference(mForceMsaa, options.forceMsaa);
+        updateListValue(mTrackFrameTime, options.trackFrameTime);
+        updateListValue(mShowNonRectClip, options.showNonRectClip);
+        updateSwitchPreference(mShowHwScreenUpdates, options.showHwScreenUpdates);
+        updateSwitchPreference(mShowHwLayersUpdates, options.showHwLayersUpdates);
+        updateListValue(mDebugHwOverdraw, options.debugHwOverdraw);
+        updateSwitchPreference(mDebugLayout, options.debugLayout);
+        updateAnimationScaleValue(options.windowAnimationScale, mWindowAnimationScale);
+        updateAnimationScaleValue(options.transitionAnimationScale, mTransitionAnimationScale);
+        updateAnimationScaleValue(options.animatorDurationScale, mAnimatorDurationScale);
+        updateListValue(mOverlayDisplayDevices, options.overlayDisplayDevices);
+        updateListValue(mOpenGLTraces, options.openGlTraces);
+        updateSwitchPreference(mImmediatelyDestroyActivities,
+                options.immediatelyDestroyActivities);
+        updateAppProcessLimitOptions(options.appProcessLimit);
+        updateSwitchPreference(mShowAllANRs, options.showAllAnrs);
+        updateVerifyAppsOverUsbOptions(options.verifyAppsOverUsb,
+                options.verifierSettingEnabled);
+        updateBugreportOptions(options.debuggable);
+        updateSwitchPreference(mForceRtlLayout, options.forceRtl);
+        updateWindowBlursOptions(options.windowBlursEnabled);
         mLogdSizeController.updateLogdSizeValues();
         mLogpersistController.updateLogpersistValues();
-        updateWifiDisplayCertificationOptions();
-        updateWifiVerboseLoggingOptions();
-        updateMobileDataAlwaysOnOptions();
-        updateSimulateColorSpace();
-        updateUSBAudioOptions();
-        updateForceResizableOptions();
+        updateSwitchPreference(mWifiDisplayCertification, options.wifiDisplayCertification);
+        updateSwitchPreference(mWifiVerboseLogging, options.wifiVerboseLogging);
+        updateSwitchPreference(mMobileDataAlwaysOn, options.mobileDataAlwaysOn);
+        updateSimulateColorSpace(options.daltonizerEnabled, options.daltonizerMode);
+        updateSwitchPreference(mUSBAudio, options.usbAudioRoutingDisabled);
+        updateSwitchPreference(mForceResizable, options.forceResizable);
         updateAudioRecordingOptions();
-        updateAdbOverNetwork();
+        updateAdbOverNetwork(options.adbPort, options.adbHostAddress);
     }
 
     private void updateAdbOverNetwork() {
-        final int port = SystemProperties.getInt(ADB_PORT_PROP, -1);
-        final boolean enabled = port > 0;
-
-        updateSwitchPreference(mAdbOverNetwork, enabled);
-
-        String hostAddress = null;
+        final int port = DeveloperOptionsSnapshot.readAdbPort();
+        updateAdbOverNetwork(port, port > 0 ? DeveloperOptionsSnapshot.readAdbHostAddress() : null);
+    }
 
-        if (enabled) {
-            try {
-                List<NetworkInterface> interfaces = Collections.list(
-                        NetworkInterface.getNetworkInterfaces());
-                for (NetworkInterface intf : interfaces) {
-                    List<InetAddress> addrs = Collections.list(intf.getInetAddresses());
-                    for (InetAddress addr : addrs) {
-                        if (!addr.isLoopbackAddress() &&
-                            addr.getHostAddress().indexOf(':') < 0) {
-                            hostAddress = addr.getHostAddress();
-                            break;
-                        }
-                    }
-                }
-            } catch (SocketException se) {
-                // Do nothing
-            };
-        }
+    private void updateAdbOverNetwork(int port, String hostAddress) {
+        updateSwitchPreference(mAdbOverNetwork, port > 0);
 
         if (hostAddress != null) {
             mAdbOverNetwork.setSummary(hostAddress + ":" + String.valueOf(port));
@@ -806,13 +826,16 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
         mHaveDebugSettings = false;
         updateAllOptions();
         SystemPropPoker.getInstance().unblockPokes();
-        SystemPropPoker.getInstance().poke();
+        mPropPoker.pokeNow();
     }
 
     private void updateBluetoothHciSnoopLogValues() {
+        updateBluetoothHciSnoopLogValues(DeveloperOptionsSnapshot.readBtHciSnoopLogMode());
+    }
+
+    private void updateBluetoothHciSnoopLogValues(String currentValue) {
         ListPreference bluetoothSnoopLog = (ListPreference) findPreference(BT_HCI_SNOOP_LOG);
         if (bluetoothSnoopLog != null) {
-            String currentValue = SystemProperties.get(BTSNOOP_LOG_MODE_PROPERTY);
             String[] values = getResources().getStringArray(R.array.bt_hci_snoop_log_values);
             String[] summaries = getResources().getStringArray(R.array.bt_hci_snoop_log_entries);
             int disabledIndex = 0; // defaults to DISABLED
@@ -833,10 +856,27 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
         preference.setOnPreferenceChangeListener(this);
     }
 
+    /** Selects the entry matching the value, or the first entry if there is none. */
+    private static void updateListValue(ListPreference preference, String value) {
+        CharSequence[] values = preference.getEntryValues();
+        for (int i = 0; i < values.length; i++) {
+            if (value.contentEquals(values[i])) {
+                preference.setValueIndex(i);
+                preference.setSummary(preference.getEntries()[i]);
+                return;
+            }
+        }
+        preference.setValueIndex(0);
+        preference.setSummary(preference.getEntries()[0]);
+    }
+
     private void updateHdcpValues() {
+        updateHdcpValues(DeveloperOptionsSnapshot.readHdcpChecking());
+    }
+
+    private void updateHdcpValues(String currentValue) {
         ListPreference hdcpChecking = (ListPreference) findPreference(HDCP_CHECKING_KEY);
         if (hdcpChecking != null) {
-            String currentValue = SystemProperties.get(HDCP_CHECKING_PROPERTY);
             String[] values = getResources().getStringArray(R.array.hdcp_checking_values);
             String[] summaries = getResources().getStringArray(R.array.hdcp_checking_summaries);
             int index = 1; // Defaults to drm-only. Needs to match with R.array.hdcp_checking_values
@@ -844,15 +884,14 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
         }
     }
 
-    private void updatePasswordSummary() {
-        try {
-            if (mBackupManager.hasBackupPassword()) {
-                mPassword.setSummary(R.string.local_backup_password_summary_change);
-            } else {
-                mPassword.setSummary(R.string.local_backup_password_summary_none);
-            }
-        } catch (RemoteException e) {
-            // ignore
+    private void updatePasswordSummary(Boolean hasBackupPassword) {
+        if (hasBackupPassword == null) {
+            return;
+        }
+        if (hasBackupPassword) {
+            mPassword.setSummary(R.string.local_backup_password_summary_change);
+        } else {
+            mPassword.setSummary(R.string.local_backup_password_summary_none);
         }
     }
 
@@ -860,7 +899,7 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
         SystemProperties.set(BTSNOOP_LOG_MODE_PROPERTY,
                 newValue == null ? "" : newValue.toString());
         updateBluetoothHciSnoopLogValues();
-        SystemPropPoker.getInstance().poke();
+        mPropPoker.schedulePoke();
     }
 
     private void writeDebuggerOptions() {
@@ -919,19 +958,16 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
     }
 
     private void updateDebuggerOptions() {
-        mDebugApp = Settings.Global.getString(mContentResolver, Settings.Global.DEBUG_APP);
-        updateSwitchPreference(mWaitForDebugger, Settings.Global.getInt(mContentResolver,
-                Settings.Global.WAIT_FOR_DEBUGGER, 0) != 0);
+        final String debugApp = DeveloperOptionsSnapshot.readDebugApp(mContentResolver);
+        updateDebuggerOptions(debugApp,
+                DeveloperOptionsSnapshot.readAppLabel(getActivity().getPackageManager(), debugApp),
+                DeveloperOptionsSnapshot.readWaitForDebugger(mContentResolver));
+    }
+
+    private void updateDebuggerOptions(String debugApp, String label, boolean waitForDebugger) {
+        mDebugApp = debugApp;
+        updateSwitchPreference(mWaitForDebugger, waitForDebugger);
         if (mDebugApp != null && mDebugApp.length() > 0) {
-            String label;
-            try {
-                ApplicationInfo ai = getActivity().getPackageManager().getApplicationInfo(mDebugApp,
-                        PackageManager.GET_DISABLED_COMPONENTS);
-                CharSequence lab = getActivity().getPackageManager().getApplicationLabel(ai);
-                label = lab != null ? lab.toString() : mDebugApp;
-            } catch (PackageManager.NameNotFoundException e) {
-                label = mDebugApp;
-            }
             mDebugAppPref.setSummary(getResources().getString(R.string.debug_app_set, label));
             mWaitForDebugger.setEnabled(true);
             mHaveDebugSettings = true;
@@ -942,33 +978,15 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
     }
 
     private void updateMockLocation() {
-        AppOpsManager appOpsManager =
-                (AppOpsManager) getActivity().getSystemService(Context.APP_OPS_SERVICE);
-
-        List<AppOpsManager.PackageOps> packageOps =
-                appOpsManager.getPackagesForOps(MOCK_LOCATION_APP_OPS);
-        if (packageOps != null) {
-            for (AppOpsManager.PackageOps packageOp : packageOps) {
-                if (packageOp.getOps().get(0).getMode() == AppOpsManager.MODE_ALLOWED) {
-                    mMockLocationApp = packageOps.get(0).getPackageName();
-                    break;
-                }
-            }
-        }
+        final String mockLocationApp =
+                DeveloperOptionsSnapshot.readMockLocationApp(getActivity(), mMockLocationApp);
+        updateMockLocation(mockLocationApp, DeveloperOptionsSnapshot.readAppLabel(
+                getActivity().getPackageManager(), mockLocationApp));
+    }
 
+    private void updateMockLocation(String mockLocationApp, String label) {
+        mMockLocationApp = mockLocationApp;
         if (!TextUtils.isEmpty(mMockLocationApp)) {
-            String label = mMockLocationApp;
-            try {
-                ApplicationInfo ai = getActivity().getPackageManager().getApplicationInfo(
-                        mMockLocationApp, PackageManager.GET_DISABLED_COMPONENTS);
-                CharSequence appLabel = getActivity().getPackageManager().getApplicationLabel(ai);
-                if (appLabel != null) {
-                    label = appLabel.toString();
-                }
-            } catch (PackageManager.NameNotFoundException e) {
-                /* ignore */
-            }
-
             mMockLocationAppPref.setSummary(getString(R.string.mock_location_app_set, label));
             mHaveDebugSettings = true;
         } else {
@@ -977,10 +995,14 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
     }
 
     private void updateVerifyAppsOverUsbOptions() {
-        updateSwitchPreference(mVerifyAppsOverUsb,
-                Settings.Global.getInt(mContentResolver,
-                        Settings.Global.PACKAGE_VERIFIER_INCLUDE_ADB, 1) != 0);
-        mVerifyAppsOverUsb.setEnabled(enableVerifierSetting());
+        updateVerifyAppsOverUsbOptions(
+                DeveloperOptionsSnapshot.readVerifyAppsOverUsb(mContentResolver),
+                DeveloperOptionsSnapshot.readVerifierSettingEnabled(getActivity()));
+    }
+
+    private void updateVerifyAppsOverUsbOptions(boolean verifyAppsOverUsb, boolean enabled) {
+        updateSwitchPreference(mVerifyAppsOverUsb, verifyAppsOverUsb);
+        mVerifyAppsOverUsb.setEnabled(enabled);
     }
 
     private void writeVerifyAppsOverUsbOptions() {
@@ -988,18 +1010,6 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
                 mVerifyAppsOverUsb.isChecked() ? 1 : 0);
     }
 
-    private boolean enableVerifierSetting() {
-        if (Settings.Global.getInt(mContentResolver, Settings.Global.ADB_ENABLED, 0) == 0) {
-            return false;
-        }
-        final PackageManager pm = getActivity().getPackageManager();
-        final Intent verification = new Intent(Intent.ACTION_PACKAGE_NEEDS_VERIFICATION);
-        verification.setType(PACKAGE_MIME_TYPE);
-        verification.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
-        final List<ResolveInfo> receivers = pm.queryBroadcastReceivers(verification, 0);
-        return !receivers.isEmpty();
-    }
-
     private boolean showVerifierSetting() {
         return Settings.Global.getInt(mContentResolver,
                 Settings.Global.PACKAGE_VERIFIER_SETTING_VISIBLE, 1) > 0;
@@ -1013,9 +1023,8 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
         return (FlavorUtils.getFlavor(getContext()) & X_EXPERIENCE_FLAVORS_MASK) == 0;
     }
 
-    private void updateBugreportOptions() {
-        boolean enabled = "1".equals(SystemProperties.get("ro.debuggable"))
-                || mEnableDeveloper.isChecked();
+    private void updateBugreportOptions(boolean debuggable) {
+        boolean enabled = debuggable || mEnableDeveloper.isChecked();
         mBugreport.setEnabled(enabled);
         final ComponentName componentName = new ComponentName("com.android.shell",
                 "com.android.shell.BugreportStorageProvider");
@@ -1038,19 +1047,6 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
         }
     }
 
-    // Returns the current state of the system property that controls
-    // strictmode flashes.  One of:
-    //    0: not explicitly set one way or another
-    //    1: on
-    //    2: off
-    private static int currentStrictModeActiveIndex() {
-        if (TextUtils.isEmpty(SystemProperties.get(StrictMode.VISUAL_PROPERTY))) {
-            return 0;
-        }
-        boolean enabled = SystemProperties.getBoolean(StrictMode.VISUAL_PROPERTY, false);
-        return enabled ? 1 : 2;
-    }
-
     private void writeStrictModeVisualOptions() {
         try {
             mWindowManager.setStrictModeVisualIndicatorPreference(mStrictMode.isChecked()
@@ -1060,54 +1056,24 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
         }
     }
 
-    private void updateStrictModeVisualOptions() {
-        updateSwitchPreference(mStrictMode, currentStrictModeActiveIndex() == 1);
-    }
-
     private void writePointerLocationOptions() {
         Settings.System.putInt(mContentResolver,
                 Settings.System.POINTER_LOCATION, mPointerLocation.isChecked() ? 1 : 0);
     }
 
-    private void updatePointerLocationOptions() {
-        updateSwitchPreference(mPointerLocation,
-                Settings.System.getInt(mContentResolver, Settings.System.POINTER_LOCATION, 0) != 0);
-    }
-
     private void writeShowTouchesOptions() {
         Settings.System.putInt(mContentResolver,
                 Settings.System.SHOW_TOUCHES, mShowTouches.isChecked() ? 1 : 0);
     }
 
-    private void updateShowTouchesOptions() {
-        updateSwitchPreference(mShowTouches,
-                Settings.System.getInt(mContentResolver, Settings.System.SHOW_TOUCHES, 0) != 0);
+    private void updateFlingerOptions() {
+        updateFlingerOptions(DeveloperOptionsSnapshot.readFlingerState());
     }
 
-    private void updateFlingerOptions() {
-        // magic communication with surface flinger.
-        try {
-            IBinder flinger = ServiceManager.getService("SurfaceFlinger");
-            if (flinger != null) {
-                Parcel data = Parcel.obtain();
-                Parcel reply = Parcel.obtain();
-                data.writeInterfaceToken("android.ui.ISurfaceComposer");
-                flinger.transact(1010, data, reply, 0);
-                @SuppressWarnings("unused")
-                int showCpu = reply.readInt();
-                @SuppressWarnings("unused")
-                int enableGL = reply.readInt();
-                int showUpdates = reply.readInt();
-                updateSwitchPreference(mShowScreenUpdates, showUpdates != 0);
-                @SuppressWarnings("unused")
-                int showBackground = reply.readInt();
-                int disableOverlays = reply.readInt();
-                updateSwitchPreference(mDisableOverlays, disableOverlays != 0);
-                reply.recycle();
-                data.recycle();
-            }
-        } catch (RemoteException ex) {
-            // ignore
+    private void updateFlingerOptions(DeveloperOptionsSnapshot.FlingerState flinger) {
+        if (flinger != null) {
+            updateSwitchPreference(mShowScreenUpdates, flinger.showUpdates);
+            updateSwitchPreference(mDisableOverlays, flinger.disableOverlays);
         }
     }
 
@@ -1147,130 +1113,52 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
         }
     }
 
-    private void updateMsaaOptions() {
-        updateSwitchPreference(mForceMsaa, DisplayProperties.debug_force_msaa().orElse(false));
-    }
-
     private void writeMsaaOptions() {
         DisplayProperties.debug_force_msaa(mForceMsaa.isChecked());
-        SystemPropPoker.getInstance().poke();
-    }
-
-    private void updateTrackFrameTimeOptions() {
-        String value = SystemProperties.get(ThreadedRenderer.PROFILE_PROPERTY);
-        if (value == null) {
-            value = "";
-        }
-
-        CharSequence[] values = mTrackFrameTime.getEntryValues();
-        for (int i = 0; i < values.length; i++) {
-            if (value.contentEquals(values[i])) {
-                mTrackFrameTime.setValueIndex(i);
-                mTrackFrameTime.setSummary(mTrackFrameTime.getEntries()[i]);
-                return;
-            }
-        }
-        mTrackFrameTime.setValueIndex(0);
-        mTrackFrameTime.setSummary(mTrackFrameTime.getEntries()[0]);
+        mPropPoker.schedulePoke();
     }
 
     private void writeTrackFrameTimeOptions(Object newValue) {
         SystemProperties.set(ThreadedRenderer.PROFILE_PROPERTY,
                 newValue == null ? "" : newValue.toString());
-        SystemPropPoker.getInstance().poke();
-        updateTrackFrameTimeOptions();
-    }
-
-    private void updateShowNonRectClipOptions() {
-        String value = SystemProperties.get(
-                ThreadedRenderer.DEBUG_SHOW_NON_RECTANGULAR_CLIP_PROPERTY);
-        if (value == null) {
-            value = "hide";
-        }
-
-        CharSequence[] values = mShowNonRectClip.getEntryValues();
-        for (int i = 0; i < values.length; i++) {
-            if (value.contentEquals(values[i])) {
-                mShowNonRectClip.setValueIndex(i);
-                mShowNonRectClip.setSummary(mShowNonRectClip.getEntries()[i]);
-                return;
-            }
-        }
-        mShowNonRectClip.setValueIndex(0);
-        mShowNonRectClip.setSummary(mShowNonRectClip.getEntries()[0]);
+        mPropPoker.schedulePoke();
+        updateListValue(mTrackFrameTime, DeveloperOptionsSnapshot.readTrackFrameTime());
     }
 
     private void writeShowNonRectClipOptions(Object newValue) {
         SystemProperties.set(ThreadedRenderer.DEBUG_SHOW_NON_RECTANGULAR_CLIP_PROPERTY,
                 newValue == null ? "" : newValue.toString());
-        SystemPropPoker.getInstance().poke();
-        updateShowNonRectClipOptions();
-    }
-
-    private void updateShowHwScreenUpdatesOptions() {
-        updateSwitchPreference(mShowHwScreenUpdates,
-                SystemProperties.getBoolean(ThreadedRenderer.DEBUG_DIRTY_REGIONS_PROPERTY, false));
+        mPropPoker.schedulePoke();
+        updateListValue(mShowNonRectClip, DeveloperOptionsSnapshot.readShowNonRectClip());
     }
 
     private void writeShowHwScreenUpdatesOptions() {
         SystemProperties.set(ThreadedRenderer.DEBUG_DIRTY_REGIONS_PROPERTY,
                 mShowHwScreenUpdates.isChecked() ? "true" : null);
-        SystemPropPoker.getInstance().poke();
-    }
-
-    private void updateShowHwLayersUpdatesOptions() {
-        updateSwitchPreference(mShowHwLayersUpdates, SystemProperties.getBoolean(
-                ThreadedRenderer.DEBUG_SHOW_LAYERS_UPDATES_PROPERTY, false));
+        mPropPoker.schedulePoke();
     }
 
     private void writeShowHwLayersUpdatesOptions() {
         SystemProperties.set(ThreadedRenderer.DEBUG_SHOW_LAYERS_UPDATES_PROPERTY,
                 mShowHwLayersUpdates.isChecked() ? "true" : null);
-        SystemPropPoker.getInstance().poke();
-    }
-
-    private void updateDebugHwOverdrawOptions() {
-        String value = SystemProperties.get(ThreadedRenderer.DEBUG_OVERDRAW_PROPERTY);
-        if (value == null) {
-            value = "";
-        }
-
-        CharSequence[] values = mDebugHwOverdraw.getEntryValues();
-        for (int i = 0; i < values.length; i++) {
-            if (value.contentEquals(values[i])) {
-                mDebugHwOverdraw.setValueIndex(i);
-                mDebugHwOverdraw.setSummary(mDebugHwOverdraw.getEntries()[i]);
-                return;
-            }
-        }
-        mDebugHwOverdraw.setValueIndex(0);
-        mDebugHwOverdraw.setSummary(mDebugHwOverdraw.getEntries()[0]);
+        mPropPoker.schedulePoke();
     }
 
     private void writeDebugHwOverdrawOptions(Object newValue) {
         SystemProperties.set(ThreadedRenderer.DEBUG_OVERDRAW_PROPERTY,
                 newValue == null ? "" : newValue.toString());
-        SystemPropPoker.getInstance().poke();
-        updateDebugHwOverdrawOptions();
-    }
-
-    private void updateDebugLayoutOptions() {
-        updateSwitchPreference(mDebugLayout,
-                DisplayProperties.debug_layout().orElse(false));
+        mPropPoker.schedulePoke();
+        updateListValue(mDebugHwOverdraw, DeveloperOptionsSnapshot.readDebugHwOverdraw());
     }
 
     private void writeDebugLayoutOptions() {
         DisplayProperties.debug_layout(mDebugLayout.isChecked());
-        SystemPropPoker.getInstance().poke();
+        mPropPoker.schedulePoke();
     }
 
-    private void updateSimulateColorSpace() {
-        final boolean enabled = Settings.Secure.getInt(
-                mContentResolver, Settings.Secure.ACCESSIBILITY_DISPLAY_DALTONIZER_ENABLED, 0) != 0;
+    private void updateSimulateColorSpace(boolean enabled, int daltonizerMode) {
         if (enabled) {
-            final String mode = Integer.toString(Settings.Secure.getInt(
-                    mContentResolver, Settings.Secure.ACCESSIBILITY_DISPLAY_DALTONIZER,
-                    AccessibilityManager.DALTONIZER_DISABLED));
+            final String mode = Integer.toString(daltonizerMode);
             mSimulateColorSpace.setValue(mode);
             final int index = mSimulateColorSpace.findIndexOfValue(mode);
             if (index < 0) {
@@ -1317,11 +1205,6 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
         }
     }
 
-    private void updateUSBAudioOptions() {
-        updateSwitchPreference(mUSBAudio, Settings.Secure.getInt(mContentResolver,
-                Settings.Secure.USB_AUDIO_AUTOMATIC_ROUTING_DISABLED, 0) != 0);
-    }
-
     private void writeUSBAudioOptions() {
         Settings.Secure.putInt(mContentResolver,
                 Settings.Secure.USB_AUDIO_AUTOMATIC_ROUTING_DISABLED,
@@ -1389,24 +1272,12 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
         mAudioDebug.writeAudioToFile();
     }
 
-    private void updateForceResizableOptions() {
-        updateSwitchPreference(mForceResizable,
-                Settings.Global.getInt(mContentResolver,
-                        Settings.Global.DEVELOPMENT_FORCE_RESIZABLE_ACTIVITIES, 0) != 0);
-    }
-
     private void writeForceResizableOptions() {
         Settings.Global.putInt(mContentResolver,
                 Settings.Global.DEVELOPMENT_FORCE_RESIZABLE_ACTIVITIES,
                 mForceResizable.isChecked() ? 1 : 0);
     }
 
-    private void updateForceRtlOptions() {
-        updateSwitchPreference(mForceRtlLayout,
-                Settings.Global.getInt(mContentResolver,
-                        Settings.Global.DEVELOPMENT_FORCE_RTL, 0) != 0);
-    }
-
     private void writeForceRtlOptions() {
         boolean value = mForceRtlLayout.isChecked();
         Settings.Global.putInt(mContentResolver,
@@ -1416,13 +1287,11 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
                 getActivity().getResources().getConfiguration().getLocales().get(0));
     }
 
-    private void updateWindowBlursOptions() {
+    private void updateWindowBlursOptions(boolean enabled) {
         if (!CROSS_WINDOW_BLUR_SUPPORTED) {
             mWindowBlurs.setVisible(false);
         } else {
-            updateSwitchPreference(mWindowBlurs,
-                    Settings.Global.getInt(mContentResolver,
-                            Settings.Global.DISABLE_WINDOW_BLURS, 0) == 0);
+            updateSwitchPreference(mWindowBlurs, enabled);
         }
     }
 
@@ -1432,33 +1301,18 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
                 Settings.Global.DISABLE_WINDOW_BLURS, value ? 0 : 1);
     }
 
-    private void updateWifiDisplayCertificationOptions() {
-        updateSwitchPreference(mWifiDisplayCertification, Settings.Global.getInt(
-                mContentResolver, Settings.Global.WIFI_DISPLAY_CERTIFICATION_ON, 0) != 0);
-    }
-
     private void writeWifiDisplayCertificationOptions() {
         Settings.Global.putInt(mContentResolver,
                 Settings.Global.WIFI_DISPLAY_CERTIFICATION_ON,
                 mWifiDisplayCertification.isChecked() ? 1 : 0);
     }
 
-    private void updateWifiVerboseLoggingOptions() {
-        boolean enabled = mWifiManager != null && mWifiManager.isVerboseLoggingEnabled();
-        updateSwitchPreference(mWifiVerboseLogging, enabled);
-    }
-
     private void writeWifiVerboseLoggingOptions() {
         if (mWifiManager != null) {
             mWifiManager.setVerboseLoggingEnabled(mWifiVerboseLogging.isChecked());
         }
     }
 
-    private void updateMobileDataAlwaysOnOptions() {
-        updateSwitchPreference(mMobileDataAlwaysOn, Settings.Global.getInt(mContentResolver,
-                Settings.Global.MOBILE_DATA_ALWAYS_ON, 0) != 0);
-    }
-
     private void writeMobileDataAlwaysOnOptions() {
         Settings.Global.putInt(mContentResolver, Settings.Global.MOBILE_DATA_ALWAYS_ON,
                 mMobileDataAlwaysOn.isChecked() ? 1 : 0);
@@ -1538,122 +1392,75 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
         }
     }
 
-    private void updateImmediatelyDestroyActivitiesOptions() {
-        updateSwitchPreference(mImmediatelyDestroyActivities, Settings.Global.getInt(
-                mContentResolver, Settings.Global.ALWAYS_FINISH_ACTIVITIES, 0) != 0);
-    }
-
-    private void updateAnimationScaleValue(int which, ListPreference pref) {
-        try {
-            float scale = mWindowManager.getAnimationScale(which);
-            if (scale != 1) {
-                mHaveDebugSettings = true;
-            }
-            CharSequence[] values = pref.getEntryValues();
-            for (int i = 0; i < values.length; i++) {
-                float val = Float.parseFloat(values[i].toString());
-                if (scale <= val) {
-                    pref.setValueIndex(i);
-                    pref.setSummary(pref.getEntries()[i]);
-                    return;
-                }
+    private void updateAnimationScaleValue(float scale, ListPreference pref) {
+        if (Float.isNaN(scale)) {
+            return;
+        }
+        if (scale != 1) {
+            mHaveDebugSettings = true;
+        }
+        CharSequence[] values = pref.getEntryValues();
+        for (int i = 0; i < values.length; i++) {
+            float val = Float.parseFloat(values[i].toString());
+            if (scale <= val) {
+                pref.setValueIndex(i);
+                pref.setSummary(pref.getEntries()[i]);
+                return;
             }
-            pref.setValueIndex(values.length - 1);
-            pref.setSummary(pref.getEntries()[0]);
-        } catch (RemoteException e) {
-            // ignore
         }
-    }
-
-    private void updateAnimationScaleOptions() {
-        updateAnimationScaleValue(0, mWindowAnimationScale);
-        updateAnimationScaleValue(1, mTransitionAnimationScale);
-        updateAnimationScaleValue(2, mAnimatorDurationScale);
+        pref.setValueIndex(values.length - 1);
+        pref.setSummary(pref.getEntries()[0]);
     }
 
     private void writeAnimationScaleOption(int which, ListPreference pref, Object newValue) {
         try {
             float scale = newValue != null ? Float.parseFloat(newValue.toString()) : 1;
             mWindowManager.setAnimationScale(which, scale);
-            updateAnimationScaleValue(which, pref);
+            updateAnimationScaleValue(
+                    DeveloperOptionsSnapshot.readAnimationScale(mWindowManager, which), pref);
         } catch (RemoteException e) {
             // ignore
         }
     }
 
-    private void updateOverlayDisplayDevicesOptions() {
-        String value = Settings.Global.getString(mContentResolver,
-                Settings.Global.OVERLAY_DISPLAY_DEVICES);
-        if (value == null) {
-            value = "";
-        }
-
-        CharSequence[] values = mOverlayDisplayDevices.getEntryValues();
-        for (int i = 0; i < values.length; i++) {
-            if (value.contentEquals(values[i])) {
-                mOverlayDisplayDevices.setValueIndex(i);
-                mOverlayDisplayDevices.setSummary(mOverlayDisplayDevices.getEntries()[i]);
-                return;
-            }
-        }
-        mOverlayDisplayDevices.setValueIndex(0);
-        mOverlayDisplayDevices.setSummary(mOverlayDisplayDevices.getEntries()[0]);
-    }
-
     private void writeOverlayDisplayDevicesOptions(Object newValue) {
         Settings.Global.putString(mContentResolver, Settings.Global.OVERLAY_DISPLAY_DEVICES,
                 (String) newValue);
-        updateOverlayDisplayDevicesOptions();
-    }
-
-    private void updateOpenGLTracesOptions() {
-        String value = DisplayProperties.debug_opengl_trace().orElse("");
-
-        CharSequence[] values = mOpenGLTraces.getEntryValues();
-        for (int i = 0; i < values.length; i++) {
-            if (value.contentEquals(values[i])) {
-                mOpenGLTraces.setValueIndex(i);
-                mOpenGLTraces.setSummary(mOpenGLTraces.getEntries()[i]);
-                return;
-            }
-        }
-        mOpenGLTraces.setValueIndex(0);
-        mOpenGLTraces.setSummary(mOpenGLTraces.getEntries()[0]);
+        updateListValue(mOverlayDisplayDevices,
+                DeveloperOptionsSnapshot.readOverlayDisplayDevices(mContentResolver));
     }
 
     private void writeOpenGLTracesOptions(Object newValue) {
         DisplayProperties.debug_opengl_trace(newValue == null ? "" : newValue.toString());
-        SystemPropPoker.getInstance().poke();
-        updateOpenGLTracesOptions();
+        mPropPoker.schedulePoke();
+        updateListValue(mOpenGLTraces, DeveloperOptionsSnapshot.readOpenGlTraces());
     }
 
-    private void updateAppProcessLimitOptions() {
-        try {
-            int limit = ActivityManager.getService().getProcessLimit();
-            CharSequence[] values = mAppProcessLimit.getEntryValues();
-            for (int i = 0; i < values.length; i++) {
-                int val = Integer.parseInt(values[i].toString());
-                if (val >= limit) {
-                    if (i != 0) {
-                        mHaveDebugSettings = true;
-                    }
-                    mAppProcessLimit.setValueIndex(i);
-                    mAppProcessLimit.setSummary(mAppProcessLimit.getEntries()[i]);
-                    return;
+    private void updateAppProcessLimitOptions(Integer limit) {
+        if (limit == null) {
+            return;
+        }
+        CharSequence[] values = mAppProcessLimit.getEntryValues();
+        for (int i = 0; i < values.length; i++) {
+            int val = Integer.parseInt(values[i].toString());
+            if (val >= limit) {
+                if (i != 0) {
+                    mHaveDebugSettings = true;
                 }
+                mAppProcessLimit.setValueIndex(i);
+                mAppProcessLimit.setSummary(mAppProcessLimit.getEntries()[i]);
+                return;
             }
-            mAppProcessLimit.setValueIndex(0);
-            mAppProcessLimit.setSummary(mAppProcessLimit.getEntries()[0]);
-        } catch (RemoteException e) {
-            // ignore
         }
+        mAppProcessLimit.setValueIndex(0);
+        mAppProcessLimit.setSummary(mAppProcessLimit.getEntries()[0]);
     }
 
     private void writeAppProcessLimitOptions(Object newValue) {
         try {
             int limit = newValue != null ? Integer.parseInt(newValue.toString()) : -1;
             ActivityManager.getService().setProcessLimit(limit);
-            updateAppProcessLimitOptions();
+            updateAppProcessLimitOptions(DeveloperOptionsSnapshot.readAppProcessLimit());
         } catch (RemoteException e) {
             // ignore
         }
@@ -1664,11 +1471,6 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
                 mShowAllANRs.isChecked() ? 1 : 0);
     }
 
-    private void updateShowAllANRsOptions() {
-        updateSwitchPreference(mShowAllANRs, Settings.Secure.getInt(
-                mContentResolver, Settings.Secure.ANR_SHOW_BACKGROUND, 0) != 0);
-    }
-
     @Override
     public void onOemUnlockConfirm() {
         mEnableOemUnlock.onOemUnlockConfirm();
@@ -1833,7 +1635,7 @@ public class DevelopmentFragment extends SettingsPreferenceFragment
         if (HDCP_CHECKING_KEY.equals(preference.getKey())) {
             SystemProperties.set(HDCP_CHECKING_PROPERTY, newValue.toString());
             updateHdcpValues();
-            SystemPropPoker.getInstance().poke();
+            mPropPoker.schedulePoke();
             return true;
         } else if (preference == mUsbConfiguration.getOriginalPreference()) {
             writeUsbConfigurationOption(newValue);
@@ -23,10 +23,17 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.os.Handler;
+import android.os.SystemClock;
+import android.util.ArrayMap;
 import android.util.Log;
 
+import androidx.annotation.VisibleForTesting;
+
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Listens for unconfigured or problematic devices to show up on
@@ -40,6 +47,9 @@ public class BluetoothScanner {
     private static final int CONSECUTIVE_MISS_THRESHOLD = 4;
     private static final int FAILED_SETTING_NAME = CONSECUTIVE_MISS_THRESHOLD + 1;
     private static final int SCAN_DELAY = 4000;
+    // Minimum interval between two deliveries of onDeviceChanged for the same scan session.
+    @VisibleForTesting
+    static final int DEVICE_CHANGE_INTERVAL = 1000;
 
     private static Receiver sReceiver;
 
@@ -105,6 +115,54 @@ public class BluetoothScanner {
         }
     }
 
+    /** Counters describing the activity of the current scan session. */
+    public static class ScanStats {
+        /** Distinct devices found since the first listener registered. */
+        public int devicesSeen;
+        /** onDeviceChanged callbacks actually delivered to listeners. */
+        public int updatesDelivered;
+        /** Changes superseded by a newer one of the same device before they were delivered. */
+        public int updatesDropped;
+        /** Sum and max of the delay between receiving an update and delivering it. */
+        public long totalCallbackLatencyMs;
+        public long maxCallbackLatencyMs;
+
+        void recordDelivery(long latencyMs) {
+            updatesDelivered++;
+            totalCallbackLatencyMs += latencyMs;
+            maxCallbackLatencyMs = Math.max(maxCallbackLatencyMs, latencyMs);
+        }
+
+        void reset() {
+            devicesSeen = 0;
+            updatesDelivered = 0;
+            updatesDropped = 0;
+            totalCallbackLatencyMs = 0;
+            maxCallbackLatencyMs = 0;
+        }
+
+        ScanStats copy() {
+            ScanStats stats = new ScanStats();
+            stats.devicesSeen = devicesSeen;
+            stats.updatesDelivered = updatesDelivered;
+            stats.updatesDropped = updatesDropped;
+            stats.totalCallbackLatencyMs = totalCallbackLatencyMs;
+            stats.maxCallbackLatencyMs = maxCallbackLatencyMs;
+            return stats;
+        }
+
+        @Override
+        public String toString() {
+            return "ScanStats(seen=" + devicesSeen
+                    + " delivered=" + updatesDelivered
+                    + " dropped=" + updatesDropped
+                    + " avgLatencyMs="
+                    + (updatesDelivered == 0 ? 0 : totalCallbackLatencyMs / updatesDelivered)
+                    + " maxLatencyMs=" + maxCallbackLatencyMs
+                    + ")";
+        }
+    }
+
     private BluetoothScanner() {
         throw new RuntimeException("do not instantiate");
     }
@@ -160,27 +218,69 @@ public class BluetoothScanner {
         }
     }
 
+    /**
+     * Returns a copy of the statistics of the current scan session, or null if scanning was
+     * never started.
+     */
+    public static ScanStats getScanStats() {
+        return sReceiver != null ? sReceiver.getScanStats() : null;
+    }
+
+    /** Stops scanning and forgets the receiver, so that the next listener starts afresh. */
+    @VisibleForTesting
+    static void reset() {
+        if (sReceiver != null) {
+            sReceiver.stopNow();
+            sReceiver = null;
+        }
+    }
+
     private static class ClientRecord {
         public final Listener listener;
-        public final ArrayList<Device> devices;
+        // Matching devices, keyed by address, in the order they were reported to the listener.
+        public final LinkedHashMap<String, Device> devices;
         public final List<BluetoothDeviceCriteria> matchers;
+        // Criteria results by address. Device properties are assumed to be stable, so the
+        // matchers run at most once per device for the lifetime of the client.
+        private final Map<String, Boolean> mMatchCache = new ArrayMap<>();
 
         public ClientRecord(Listener listener, List<BluetoothDeviceCriteria> matchers) {
             this.listener = listener;
-            devices = new ArrayList<>();
+            devices = new LinkedHashMap<>();
             this.matchers = matchers;
         }
+
+        public boolean matches(Device device) {
+            Boolean match = mMatchCache.get(device.address);
+            if (match == null) {
+                match = false;
+                for (BluetoothDeviceCriteria matcher : matchers) {
+                    if (matcher.isMatchingDevice(device.btDevice)) {
+                        match = true;
+                        break;
+                    }
+                }
+                mMatchCache.put(device.address, match);
+            }
+            return match;
+        }
     }
 
     private static class Receiver extends BroadcastReceiver {
         private final Handler mHandler = new Handler();
         // TODO mListenerLock should probably now protect mClients
         private final ArrayList<ClientRecord> mClients = new ArrayList<>();
-        private final ArrayList<Device> mPresentDevices = new ArrayList<>();
+        // Devices found by recent scans, keyed by address, in discovery order.
+        private final LinkedHashMap<String, Device> mPresentDevices = new LinkedHashMap<>();
+        // Changed devices waiting for the next coalesced delivery, with the time their change
+        // was first received.
+        private final LinkedHashMap<Device, Long> mPendingChanges = new LinkedHashMap<>();
+        private final ScanStats mStats = new ScanStats();
         private final Context mContext;
         private final BluetoothAdapter mBtAdapter;
         private static boolean mKeepScanning;
         private boolean mRegistered = false;
+        private long mLastChangeDelivery = -DEVICE_CHANGE_INTERVAL;
         private final Object mListenerLock = new Object();
 
         public Receiver(Context context) {
@@ -217,6 +317,8 @@ public class BluetoothScanner {
             // and broadcasts when discovery has finished
             if (size == 1) {
                 mPresentDevices.clear();
+                mPendingChanges.clear();
+                mStats.reset();
                 IntentFilter filter = new IntentFilter(BluetoothDevice.ACTION_FOUND);
                 filter.addAction(BluetoothAdapter.ACTION_DISCOVERY_FINISHED);
                 mContext.registerReceiver(this, filter);
@@ -227,15 +329,10 @@ public class BluetoothScanner {
             mKeepScanning = true;
 
             // Call back with the ones we have already
-            final int N = mPresentDevices.size();
-            for (int i=0; i<N; i++) {
-                Device target = mPresentDevices.get(i);
-                for (BluetoothDeviceCriteria matcher : newClient.matchers) {
-                    if (matcher.isMatchingDevice(target.btDevice)) {
-                        newClient.devices.add(target);
-                        newClient.listener.onDeviceAdded(target);
-                        break;
-                    }
+            for (Device target : mPresentDevices.values()) {
+                if (newClient.matches(target)) {
+                    newClient.devices.put(target.address, target);
+                    newClient.listener.onDeviceAdded(target);
                 }
             }
 
@@ -288,7 +385,7 @@ public class BluetoothScanner {
                 size = mClients.size();
             }
             if (size == 0) {
-                Log.d(TAG, "mStopTask.run()");
+                Log.d(TAG, "mStopTask.run() " + mStats);
 
                 // cancel any pending scans
                 mHandler.removeCallbacks(mScanTask);
@@ -296,6 +393,10 @@ public class BluetoothScanner {
                 // If there is a pending stop, cancel it
                 mHandler.removeCallbacks(mStopTask);
 
+                // Nobody is left to receive coalesced updates
+                mHandler.removeCallbacks(mChangeDeliveryTask);
+                mPendingChanges.clear();
+
                 // Make sure we're not doing discovery anymore
                 if (mBtAdapter != null) {
                     mBtAdapter.cancelDiscovery();
@@ -314,27 +415,20 @@ public class BluetoothScanner {
         }
 
         public void removeDevice(String btAddress) {
-            int count = mPresentDevices.size();
-            for (int i = 0; i < count; i++) {
-                Device d = mPresentDevices.get(i);
-                if (btAddress.equals(d.address)) {
-                    mPresentDevices.remove(d);
-                    break;
-                }
+            Device removed = mPresentDevices.remove(btAddress);
+            if (removed != null) {
+                mPendingChanges.remove(removed);
             }
 
             for (int ptr = mClients.size() - 1; ptr > -1; ptr--) {
-                ClientRecord client = mClients.get(ptr);
-                for (int devPtr = client.devices.size() - 1; devPtr > -1; devPtr--) {
-                    Device d = client.devices.get(devPtr);
-                    if (btAddress.equals(d.address)) {
-                        client.devices.remove(devPtr);
-                        break;
-                    }
-                }
+                mClients.get(ptr).devices.remove(btAddress);
             }
         }
 
+        public ScanStats getScanStats() {
+            return mStats.copy();
+        }
+
         private final Runnable mStopTask = new Runnable() {
             @Override
             public void run() {
@@ -358,6 +452,20 @@ public class BluetoothScanner {
             }
         };
 
+        private final Runnable mChangeDeliveryTask = new Runnable() {
+            @Override
+            public void run() {
+                mLastChangeDelivery = SystemClock.uptimeMillis();
+                final Iterator<Map.Entry<Device, Long>> it =
+                        mPendingChanges.entrySet().iterator();
+                while (it.hasNext()) {
+                    final Map.Entry<Device, Long> entry = it.next();
+                    it.remove();
+                    sendDeviceChanged(entry.getKey(), entry.getValue());
+                }
+            }
+        };
+
         @Override
         public void onReceive(Context context, Intent intent) {
             final String action = intent.getAction();
@@ -385,15 +493,7 @@ public class BluetoothScanner {
                 }
 
                 // See if this is a device we already know about
-                Device device = null;
-                final int N = mPresentDevices.size();
-                for (int i=0; i<N; i++) {
-                    final Device d = mPresentDevices.get(i);
-                    if (address.equals(d.address)) {
-                        device = d;
-                        break;
-                    }
-                }
+                Device device = mPresentDevices.get(address);
 
                 if (device == null) {
                     if (DEBUG) {
@@ -407,7 +507,8 @@ public class BluetoothScanner {
 
                     device.setNameString(name);
                     // Save it
-                    mPresentDevices.add(device);
+                    mPresentDevices.put(address, device);
+                    mStats.devicesSeen++;
 
                     // Tell the listeners
                     sendDeviceAdded(device);
@@ -423,16 +524,16 @@ public class BluetoothScanner {
                         return;
                     } else {
                         device.setNameString(name);
-                        sendDeviceChanged(device);
+                        queueDeviceChanged(device);
                         // If we can't parse it properly, treat it as a delete
                         // when we iterate through them again.
                     }
                 }
             } else if (BluetoothAdapter.ACTION_DISCOVERY_FINISHED.equals(action)) {
                 // Clear any devices that have disappeared since the last scan completed
-                final int N = mPresentDevices.size();
-                for (int i=N-1; i>=0; i--) {
-                    Device device = mPresentDevices.get(i);
+                final Iterator<Device> it = mPresentDevices.values().iterator();
+                while (it.hasNext()) {
+                    Device device = it.next();
                     if (device.consecutiveMisses < 0) {
                         // -1 means found on this scan, raise to 0 for next time
                         if (DEBUG) Log.d(TAG, device.address + " -- Found");
@@ -441,7 +542,8 @@ public class BluetoothScanner {
                     } else if (device.consecutiveMisses >= CONSECUTIVE_MISS_THRESHOLD) {
                         // Too many failures
                         if (DEBUG) Log.d(TAG, device.address + " -- Removing");
-                        mPresentDevices.remove(i);
+                        it.remove();
+                        mPendingChanges.remove(device);
                         sendDeviceRemoved(device);
 
                     } else {
@@ -464,6 +566,26 @@ public class BluetoothScanner {
             }
         }
 
+        /**
+         * Queues an onDeviceChanged callback. Changes are delivered in batches at most once per
+         * {@link #DEVICE_CHANGE_INTERVAL}, so a burst of scan results reporting a device under
+         * changing names results in one callback carrying its latest state.
+         */
+        private void queueDeviceChanged(Device device) {
+            if (mPendingChanges.containsKey(device)) {
+                // The queued callback reads the device when delivered, so it carries this change.
+                mStats.updatesDropped++;
+                return;
+            }
+            final long now = SystemClock.uptimeMillis();
+            mPendingChanges.put(device, now);
+            if (mPendingChanges.size() == 1) {
+                final long delay =
+                        Math.max(0, mLastChangeDelivery + DEVICE_CHANGE_INTERVAL - now);
+                mHandler.postDelayed(mChangeDeliveryTask, delay);
+            }
+        }
+
         private void sendScanningStarted() {
             synchronized (mListenerLock) {
                 final int N = mClients.size();
@@ -480,7 +602,7 @@ public class BluetoothScanner {
                 // remove its listener in this callback.
                 for (int i = N - 1; i >= 0; --i) {
                     ClientRecord client = mClients.get(i);
-                    client.listener.onScanningStopped(client.devices);
+                    client.listener.onScanningStopped(new ArrayList<>(client.devices.values()));
                 }
             }
         }
@@ -489,28 +611,22 @@ public class BluetoothScanner {
             synchronized (mListenerLock) {
                 for (int ptr = mClients.size() - 1; ptr > -1; ptr--) {
                     ClientRecord client = mClients.get(ptr);
-                    for (BluetoothDeviceCriteria matcher : client.matchers) {
-                        if (matcher.isMatchingDevice(device.btDevice)) {
-                            client.devices.add(device);
-                            client.listener.onDeviceAdded(device);
-                            break;
-                        }
+                    if (client.matches(device)) {
+                        client.devices.put(device.address, device);
+                        client.listener.onDeviceAdded(device);
                     }
                 }
             }
         }
 
-        private void sendDeviceChanged(Device device) {
+        private void sendDeviceChanged(Device device, long receivedAt) {
             synchronized (mListenerLock) {
                 final int N = mClients.size();
                 for (int i = 0; i < N; i++) {
                     ClientRecord client = mClients.get(i);
-                    for (int ptr = client.devices.size() - 1; ptr > -1; ptr--) {
-                        Device d = client.devices.get(ptr);
-                        if (d.btDevice.getAddress().equals(device.btDevice.getAddress())) {
-                            client.listener.onDeviceChanged(device);
-                            break;
-                        }
+                    if (client.devices.containsKey(device.address)) {
+                        client.listener.onDeviceChanged(device);
+                        mStats.recordDelivery(SystemClock.uptimeMillis() - receivedAt);
                     }
                 }
             }
@@ -520,13 +636,8 @@ public class BluetoothScanner {
             synchronized (mListenerLock) {
                 for (int ptr = mClients.size() - 1; ptr > -1; ptr--) {
                     ClientRecord client = mClients.get(ptr);
-                    for (int devPtr = client.devices.size() - 1; devPtr > -1; devPtr--) {
-                        Device d = client.devices.get(devPtr);
-                        if (d.btDevice.getAddress().equals(device.btDevice.getAddress())) {
-                            client.devices.remove(devPtr);
-                            client.listener.onDeviceRemoved(device);
-                            break;
-                        }
+                    if (client.devices.remove(device.address) != null) {
+                        client.listener.onDeviceRemoved(device);
                     }
                 }
             }
@@ -16,12 +16,18 @@
 
 package com.android.tv.settings;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.robolectric.shadow.api.Shadow.extract;
@@ -30,7 +36,10 @@ import android.accounts.Account;
 import android.accounts.AccountManager;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
+import android.content.ContextWrapper;
+import android.content.pm.PackageManager;
 import android.icu.text.MessageFormat;
+import android.os.Looper;
 import android.telephony.SignalStrength;
 
 import androidx.preference.Preference;
@@ -45,13 +54,18 @@ import org.mockito.Spy;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.shadows.ShadowAccountManager;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.shadows.androidx.fragment.FragmentController;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RunWith(RobolectricTestRunner.class)
 public class MainFragmentTest {
@@ -317,6 +331,80 @@ public class MainFragmentTest {
         assertTrue(mMainFragment.mHasBtAccessories);
     }
 
+    @Test
+    public void testOnStart_loadsRowsOffMainThread() {
+        final AtomicBoolean loadedOnMainThread = new AtomicBoolean();
+        final AtomicInteger bondedDevicesQueries = new AtomicInteger();
+        final BluetoothAdapter btAdapter = mock(BluetoothAdapter.class);
+        doAnswer(invocation -> {
+            if (Looper.getMainLooper().isCurrentThread()) {
+                loadedOnMainThread.set(true);
+            }
+            bondedDevicesQueries.incrementAndGet();
+            return Collections.singleton(mock(BluetoothDevice.class));
+        }).when(btAdapter).getBondedDevices();
+        final MainFragment fragment = spy(MainFragment.class);
+        doAnswer(invocation -> {
+            final MainRowsLoader loader = new MainRowsLoader(RuntimeEnvironment.application,
+                    new MainMenuModel(RuntimeEnvironment.application), btAdapter,
+                    invocation.getArgument(0));
+            loader.mExecutor = runnable -> {
+                final Thread thread = new Thread(runnable);
+                thread.start();
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            };
+            return loader;
+        }).when(fragment).createRowsLoader(any());
+
+        final FragmentController<MainFragment> controller =
+                FragmentController.of(fragment).create();
+        assertEquals(0, bondedDevicesQueries.get());
+
+        controller.start();
+        ShadowLooper.idleMainLooper();
+
+        assertFalse(loadedOnMainThread.get());
+        assertEquals(1, bondedDevicesQueries.get());
+        assertTrue(fragment.mHasBtAccessories);
+    }
+
+    @Test
+    public void testOnStart_repeatedStarts_resolveEachActionOnce() {
+        final PackageManager pm = spy(RuntimeEnvironment.application.getPackageManager());
+        final MainFragment fragment = spy(MainFragment.class);
+        fragment.mMainMenuModel = new MainMenuModel(
+                new ContextWrapper(RuntimeEnvironment.application) {
+                    @Override
+                    public PackageManager getPackageManager() {
+                        return pm;
+                    }
+                });
+
+        final FragmentController<MainFragment> controller =
+                FragmentController.of(fragment).create().start();
+        for (int i = 0; i < 3; i++) {
+            controller.stop().start();
+        }
+        ShadowLooper.idleMainLooper();
+        // Resolve both actions once more so that they are cached even if the background preload
+        // has not run yet.
+        fragment.mMainMenuModel.getSystemActivity(MainFragment.ACTION_SOUND);
+        fragment.mMainMenuModel.getSystemActivity(MainFragment.ACTION_CONNECTED_DEVICES);
+
+        // One query per action, regardless of the number of starts.
+        verify(pm, times(1)).queryIntentActivities(
+                argThat(intent -> MainFragment.ACTION_SOUND.equals(intent.getAction())),
+                anyInt());
+        verify(pm, times(1)).queryIntentActivities(
+                argThat(intent -> MainFragment.ACTION_CONNECTED_DEVICES.equals(
+                        intent.getAction())),
+                anyInt());
+    }
+
     @Test
     public void
             updateConnectivity_givenConnectivityListenerNull_thenNetworkPreferenceIsNotUpdated() {
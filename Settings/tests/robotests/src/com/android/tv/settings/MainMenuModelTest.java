@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class MainMenuModelTest {
+
+    private static final String PACKAGE_NAME = "com.android.tv.settings.test";
+
+    private PackageManager mPackageManager;
+    private MainMenuModel mModel;
+
+    @Before
+    public void setUp() {
+        mPackageManager = spy(RuntimeEnvironment.application.getPackageManager());
+        mModel = new MainMenuModel(new ContextWrapper(RuntimeEnvironment.application) {
+            @Override
+            public PackageManager getPackageManager() {
+                return mPackageManager;
+            }
+        });
+    }
+
+    @Test
+    public void getSystemActivity_afterPackageChange_resolvesAgain() {
+        mModel.getSystemActivity(MainFragment.ACTION_SOUND);
+        mModel.getSystemActivity(MainFragment.ACTION_SOUND);
+        verify(mPackageManager, times(1)).queryIntentActivities(any(Intent.class), anyInt());
+
+        mModel.onPackageChanged(PACKAGE_NAME);
+        mModel.getSystemActivity(MainFragment.ACTION_SOUND);
+
+        verify(mPackageManager, times(2)).queryIntentActivities(any(Intent.class), anyInt());
+    }
+
+    @Test
+    public void getPartnerResources_sameLocales_cached() {
+        assertSame(mModel.getPartnerResources(PACKAGE_NAME),
+                mModel.getPartnerResources(PACKAGE_NAME));
+    }
+
+    @Test
+    public void getPartnerResources_afterPackageChange_resolvedAgain() {
+        final MainMenuModel.PartnerResources resources =
+                mModel.getPartnerResources(PACKAGE_NAME);
+
+        mModel.onPackageChanged(PACKAGE_NAME);
+
+        assertNotSame(resources, mModel.getPartnerResources(PACKAGE_NAME));
+    }
+
+    @Test
+    public void onPackageChanged_doesNotQueryPackageManager() throws Exception {
+        mModel.getPartnerResources(PACKAGE_NAME);
+
+        mModel.onPackageChanged(PACKAGE_NAME);
+
+        verify(mPackageManager, never()).getPackageInfo(anyString(), anyInt());
+    }
+
+    @Test
+    public void getPartnerResources_afterLocaleChange_resolvedAgain() {
+        RuntimeEnvironment.setQualifiers("en-rUS");
+        final MainMenuModel.PartnerResources resources =
+                mModel.getPartnerResources(PACKAGE_NAME);
+
+        RuntimeEnvironment.setQualifiers("fr-rFR");
+
+        assertNotSame(resources, mModel.getPartnerResources(PACKAGE_NAME));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(RobolectricTestRunner.class)
+public class MainRowsLoaderTest {
+
+    private final AtomicBoolean mLoadedOnMainThread = new AtomicBoolean();
+    private final AtomicInteger mBondedDevicesQueries = new AtomicInteger();
+    private final List<MainRowsSnapshot> mSnapshots = new ArrayList<>();
+
+    private Context mContext;
+    private MainRowsLoader mLoader;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        final BluetoothAdapter btAdapter = mock(BluetoothAdapter.class);
+        doAnswer(invocation -> {
+            if (Looper.getMainLooper().isCurrentThread()) {
+                mLoadedOnMainThread.set(true);
+            }
+            mBondedDevicesQueries.incrementAndGet();
+            return Collections.emptySet();
+        }).when(btAdapter).getBondedDevices();
+
+        mLoader = new MainRowsLoader(mContext, new MainMenuModel(mContext), btAdapter,
+                mSnapshots::add);
+        mLoader.mExecutor = runnable -> {
+            final Thread thread = new Thread(runnable);
+            thread.start();
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        };
+        mLoader.register();
+    }
+
+    @Test
+    public void start_loadsOffMainThread() {
+        mLoader.start();
+        ShadowLooper.idleMainLooper();
+
+        assertFalse(mLoadedOnMainThread.get());
+        assertEquals(1, mBondedDevicesQueries.get());
+        assertEquals(1, mSnapshots.size());
+        assertFalse(mSnapshots.get(0).hasBtAccessories);
+    }
+
+    @Test
+    public void start_withoutChanges_skipsLoad() {
+        mLoader.start();
+        ShadowLooper.idleMainLooper();
+        mLoader.stop();
+
+        mLoader.start();
+        ShadowLooper.idleMainLooper();
+
+        assertEquals(1, mBondedDevicesQueries.get());
+        assertEquals(1, mSnapshots.size());
+    }
+
+    @Test
+    public void start_afterBluetoothChangeWhileStopped_reloads() {
+        mLoader.start();
+        ShadowLooper.idleMainLooper();
+        mLoader.stop();
+
+        mContext.sendBroadcast(new Intent(BluetoothDevice.ACTION_ACL_CONNECTED));
+        ShadowLooper.idleMainLooper();
+        assertEquals(1, mBondedDevicesQueries.get());
+
+        mLoader.start();
+        ShadowLooper.idleMainLooper();
+
+        assertFalse(mLoadedOnMainThread.get());
+        assertEquals(2, mBondedDevicesQueries.get());
+        assertEquals(2, mSnapshots.size());
+    }
+
+    @Test
+    public void getCachedSnapshot_newLoader_returnsLastDeliveredSnapshot() {
+        mLoader.start();
+        ShadowLooper.idleMainLooper();
+
+        final MainRowsLoader loader = new MainRowsLoader(mContext, new MainMenuModel(mContext),
+                null, mSnapshots::add);
+
+        assertSame(mSnapshots.get(0), mLoader.getCachedSnapshot());
+        assertSame(mSnapshots.get(0), loader.getCachedSnapshot());
+    }
+}
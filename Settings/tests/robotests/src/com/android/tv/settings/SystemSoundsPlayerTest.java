@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings;
+
+import static com.android.tv.settings.SystemSoundsPlayer.DEBOUNCE_MS;
+import static com.android.tv.settings.SystemSoundsPlayer.FX_DESELECT;
+import static com.android.tv.settings.SystemSoundsPlayer.FX_SELECT;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.os.Looper;
+import android.provider.Settings;
+
+import androidx.lifecycle.Lifecycle;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class SystemSoundsPlayerTest {
+
+    private ContentResolver mContentResolver;
+    private SystemSoundsPlayer mPlayer;
+
+    @Before
+    public void setUp() {
+        final Context context = RuntimeEnvironment.application;
+        mContentResolver = context.getContentResolver();
+        setSoundEffectsEnabled(true);
+        mPlayer = new SystemSoundsPlayer(context, Looper.getMainLooper(), mock(Lifecycle.class));
+    }
+
+    @Test
+    public void isSoundEffectsEnabled_cachedUntilSettingChanges() {
+        assertTrue(mPlayer.isSoundEffectsEnabled());
+
+        // Not read again without a change notification.
+        setSoundEffectsEnabled(false);
+        assertTrue(mPlayer.isSoundEffectsEnabled());
+
+        notifySoundEffectsEnabledChanged();
+        assertFalse(mPlayer.isSoundEffectsEnabled());
+
+        setSoundEffectsEnabled(true);
+        notifySoundEffectsEnabledChanged();
+        assertTrue(mPlayer.isSoundEffectsEnabled());
+    }
+
+    @Test
+    public void shouldPlay_repeatWithinDebounce_dropped() {
+        assertTrue(mPlayer.shouldPlay(FX_SELECT, 1000));
+        assertFalse(mPlayer.shouldPlay(FX_SELECT, 1000 + DEBOUNCE_MS - 1));
+    }
+
+    @Test
+    public void shouldPlay_heldKey_playsOncePerDebounce() {
+        // A key repeat every 20ms plays the first request of each window.
+        int played = 0;
+        for (long t = 1000; t < 1000 + 4 * DEBOUNCE_MS; t += 20) {
+            final boolean play = mPlayer.shouldPlay(FX_SELECT, t);
+            assertEquals((t - 1000) % DEBOUNCE_MS == 0, play);
+            if (play) {
+                played++;
+            }
+        }
+        assertEquals(4, played);
+    }
+
+    @Test
+    public void shouldPlay_afterDebounce_played() {
+        assertTrue(mPlayer.shouldPlay(FX_SELECT, 1000));
+        assertTrue(mPlayer.shouldPlay(FX_SELECT, 1000 + DEBOUNCE_MS));
+    }
+
+    @Test
+    public void shouldPlay_otherEffect_notDebounced() {
+        assertTrue(mPlayer.shouldPlay(FX_SELECT, 1000));
+        assertTrue(mPlayer.shouldPlay(FX_DESELECT, 1001));
+    }
+
+    @Test
+    public void shouldPlay_countsRequests() {
+        mPlayer.shouldPlay(FX_SELECT, 1000);
+        mPlayer.shouldPlay(FX_SELECT, 1010);
+        mPlayer.shouldPlay(FX_SELECT, 1020);
+        mPlayer.shouldPlay(FX_DESELECT, 1030);
+
+        final SystemSoundsPlayer.PlaybackStats stats = mPlayer.getPlaybackStats();
+        assertEquals(4, stats.requested);
+        assertEquals(2, stats.debounced);
+        assertEquals(0, stats.played);
+    }
+
+    @Test
+    public void getPlaybackStats_returnsCopy() {
+        final SystemSoundsPlayer.PlaybackStats stats = mPlayer.getPlaybackStats();
+        mPlayer.shouldPlay(FX_SELECT, 1000);
+
+        assertEquals(0, stats.requested);
+        assertEquals(1, mPlayer.getPlaybackStats().requested);
+    }
+
+    private void setSoundEffectsEnabled(boolean enabled) {
+        Settings.System.putInt(mContentResolver, Settings.System.SOUND_EFFECTS_ENABLED,
+                enabled ? 1 : 0);
+    }
+
+    private void notifySoundEffectsEnabledChanged() {
+        mContentResolver.notifyChange(
+                Settings.System.getUriFor(Settings.System.SOUND_EFFECTS_ENABLED), null);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.about;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+@RunWith(RobolectricTestRunner.class)
+public class DeviceInfoSnapshotTest {
+
+    private int mLoadCount;
+    private DeviceInfoSnapshot.Cache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = new DeviceInfoSnapshot.Cache(() -> {
+            mLoadCount++;
+            return createSnapshot();
+        });
+    }
+
+    @Test
+    public void getCached_notLoaded_returnsNull() {
+        assertNull(mCache.getCached());
+        assertEquals(0, mLoadCount);
+    }
+
+    @Test
+    public void getOrLoad_loadsOnce() {
+        final DeviceInfoSnapshot snapshot = mCache.getOrLoad();
+
+        assertSame(snapshot, mCache.getOrLoad());
+        assertSame(snapshot, mCache.getCached());
+        assertEquals(1, mLoadCount);
+    }
+
+    @Test
+    public void get_loaded_calledSynchronously() {
+        final DeviceInfoSnapshot snapshot = mCache.getOrLoad();
+        final List<DeviceInfoSnapshot> bound = new ArrayList<>();
+
+        mCache.get(bound::add);
+
+        assertEquals(1, bound.size());
+        assertSame(snapshot, bound.get(0));
+        assertEquals(1, mLoadCount);
+    }
+
+    @Test
+    public void get_concurrentRequestsBeforeLoad_shareOneLoad() throws Exception {
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch finishLoad = new CountDownLatch(1);
+        mCache = new DeviceInfoSnapshot.Cache(() -> {
+            mLoadCount++;
+            loadStarted.countDown();
+            try {
+                finishLoad.await();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+            return createSnapshot();
+        });
+        final List<Thread> threads = new ArrayList<>();
+        mCache.mBackgroundExecutor = task -> threads.add(new Thread(task));
+        final List<DeviceInfoSnapshot> bound = new ArrayList<>();
+
+        // As if the about screen was created several times while the first load is running.
+        for (int i = 0; i < 3; i++) {
+            mCache.get(bound::add);
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        // The other requests wait for the load in progress rather than starting their own.
+        loadStarted.await();
+        finishLoad.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(bound.isEmpty());
+        ShadowLooper.idleMainLooper();
+
+        assertEquals(3, bound.size());
+        for (DeviceInfoSnapshot boundSnapshot : bound) {
+            assertSame(mCache.getCached(), boundSnapshot);
+        }
+        assertEquals(1, mLoadCount);
+    }
+
+    private static DeviceInfoSnapshot createSnapshot() {
+        return new DeviceInfoSnapshot("2026-10-01", "", "Model", "", "", "", "6.1.0",
+                false, true, true, false, true);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.accessories;
+
+import static org.junit.Assert.assertEquals;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothDevice;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class BluetoothDeviceStateStoreTest {
+
+    private BluetoothDevice mDevice;
+    private BluetoothDeviceStateStore mStore;
+
+    @Before
+    public void setUp() {
+        mDevice = BluetoothAdapter.getDefaultAdapter().getRemoteDevice("00:11:22:33:44:55");
+        mStore = new BluetoothDeviceStateStore();
+    }
+
+    @Test
+    public void update_newDevice_reportsAllFields() {
+        assertEquals(BluetoothDeviceStateStore.FIELD_ALL, mStore.update(mDevice));
+    }
+
+    @Test
+    public void update_unchangedDevice_reportsNothing() {
+        mStore.update(mDevice);
+
+        assertEquals(0, mStore.update(mDevice));
+    }
+
+    @Test
+    public void update_profileConnectionWithAclUp_reportsProfile() {
+        // The ACL link comes up before the profile connects, so nothing recorded changes.
+        mStore.update(mDevice);
+
+        assertEquals(BluetoothDeviceStateStore.FIELD_PROFILE,
+                mStore.update(mDevice, BluetoothDeviceStateStore.FIELD_PROFILE));
+    }
+
+    @Test
+    public void update_afterClear_reportsAllFields() {
+        mStore.update(mDevice);
+        mStore.clear();
+
+        assertEquals(BluetoothDeviceStateStore.FIELD_ALL, mStore.update(mDevice));
+    }
+}
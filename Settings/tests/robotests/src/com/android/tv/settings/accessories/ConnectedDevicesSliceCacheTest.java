@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.accessories;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.slice.Slice;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class ConnectedDevicesSliceCacheTest {
+
+    private static final long COALESCE_MS = 100;
+    private static final Uri GENERAL_URI = ConnectedDevicesSliceUtils.GENERAL_SLICE_URI;
+    private static final Uri REMOTE_URI =
+            ConnectedDevicesSliceUtils.getDeviceUri("00:11:22:33:44:55", "Remote");
+    private static final Uri HEADPHONES_URI =
+            ConnectedDevicesSliceUtils.getDeviceUri("66:77:88:99:AA:BB", "Headphones");
+
+    private final List<Uri> mNotifiedUris = new ArrayList<>();
+    private int mExternalGeneration;
+    private int mBuildCount;
+    private ConnectedDevicesSliceCache mCache;
+
+    @Before
+    public void setUp() {
+        mCache = new ConnectedDevicesSliceCache(new Handler(Looper.getMainLooper()),
+                mNotifiedUris::add, () -> mExternalGeneration, COALESCE_MS);
+    }
+
+    @Test
+    public void scheduleNotifyChange_burst_notifiesEachUriOnce() {
+        // A remote reconnecting reports its connection, name and battery in quick succession.
+        for (int i = 0; i < 3; i++) {
+            mCache.scheduleNotifyChange(GENERAL_URI);
+            mCache.scheduleNotifyChange(REMOTE_URI);
+        }
+        mCache.scheduleNotifyChange(REMOTE_URI);
+
+        ShadowLooper.idleMainLooper(COALESCE_MS - 1, TimeUnit.MILLISECONDS);
+        assertEquals(0, mNotifiedUris.size());
+
+        ShadowLooper.idleMainLooper(1, TimeUnit.MILLISECONDS);
+        assertEquals(2, mNotifiedUris.size());
+        assertEquals(1, count(GENERAL_URI));
+        assertEquals(1, count(REMOTE_URI));
+        assertEquals(0, count(HEADPHONES_URI));
+    }
+
+    @Test
+    public void scheduleNotifyChange_afterWindow_notifiesAgain() {
+        mCache.scheduleNotifyChange(REMOTE_URI);
+        ShadowLooper.idleMainLooper(COALESCE_MS, TimeUnit.MILLISECONDS);
+
+        mCache.scheduleNotifyChange(REMOTE_URI);
+        ShadowLooper.idleMainLooper(COALESCE_MS, TimeUnit.MILLISECONDS);
+
+        assertEquals(Arrays.asList(REMOTE_URI, REMOTE_URI), mNotifiedUris);
+    }
+
+    @Test
+    public void get_unchanged_buildsOnce() {
+        final Slice slice = mCache.get(REMOTE_URI, this::build);
+
+        assertSame(slice, mCache.get(REMOTE_URI, this::build));
+        assertEquals(1, mBuildCount);
+    }
+
+    @Test
+    public void get_afterScheduleNotifyChange_rebuildsOnlyChangedUri() {
+        final Slice remoteSlice = mCache.get(REMOTE_URI, this::build);
+        final Slice headphonesSlice = mCache.get(HEADPHONES_URI, this::build);
+
+        mCache.scheduleNotifyChange(REMOTE_URI);
+
+        assertNotSame(remoteSlice, mCache.get(REMOTE_URI, this::build));
+        assertSame(headphonesSlice, mCache.get(HEADPHONES_URI, this::build));
+        assertEquals(3, mBuildCount);
+    }
+
+    @Test
+    public void get_afterExternalChange_rebuilds() {
+        final Slice slice = mCache.get(GENERAL_URI, this::build);
+
+        mExternalGeneration++;
+
+        assertNotSame(slice, mCache.get(GENERAL_URI, this::build));
+        assertEquals(2, mBuildCount);
+    }
+
+    @Test
+    public void get_invalidatedWhileBuilding_notCached() {
+        mCache.get(REMOTE_URI, () -> {
+            mCache.invalidate(REMOTE_URI);
+            return build();
+        });
+
+        mCache.get(REMOTE_URI, this::build);
+
+        assertEquals(2, mBuildCount);
+    }
+
+    private Slice build() {
+        mBuildCount++;
+        return new Slice.Builder(REMOTE_URI).build();
+    }
+
+    private int count(Uri uri) {
+        int count = 0;
+        for (Uri notifiedUri : mNotifiedUris) {
+            if (notifiedUri.equals(uri)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
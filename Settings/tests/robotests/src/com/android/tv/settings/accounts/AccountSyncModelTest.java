@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.accounts;
+
+import static android.content.ContentResolver.SYNC_OBSERVER_TYPE_ACTIVE;
+import static android.content.ContentResolver.SYNC_OBSERVER_TYPE_SETTINGS;
+import static android.content.ContentResolver.SYNC_OBSERVER_TYPE_STATUS;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.accounts.Account;
+import android.content.SyncAdapterType;
+import android.content.SyncInfo;
+import android.content.SyncStatusInfo;
+import android.util.ArrayMap;
+
+import com.android.tv.settings.accounts.AccountSyncModel.AuthorityState;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+public class AccountSyncModelTest {
+
+    private static final String ACCOUNT_TYPE = "com.example";
+    private static final String CONTACTS = "com.example.contacts";
+    private static final String CALENDAR = "com.example.calendar";
+    private static final String HIDDEN = "com.example.hidden";
+    private static final String OTHER = "com.other.notes";
+
+    private final Account mAccount = new Account("user@example.com", ACCOUNT_TYPE);
+    private FakeSyncSource mSource;
+
+    @Before
+    public void setUp() {
+        mSource = new FakeSyncSource();
+        mSource.mAdapters.add(new SyncAdapterType(CONTACTS, ACCOUNT_TYPE, true, true));
+        mSource.mAdapters.add(new SyncAdapterType(CALENDAR, ACCOUNT_TYPE, true, true));
+        mSource.mAdapters.add(new SyncAdapterType(HIDDEN, ACCOUNT_TYPE, false, true));
+        mSource.mAdapters.add(new SyncAdapterType(OTHER, "com.other", true, true));
+        mSource.mLabels.put(CONTACTS, "Contacts");
+        mSource.mLabels.put(CALENDAR, "Calendar");
+        mSource.mSyncable.put(CONTACTS, 1);
+        mSource.mSyncable.put(CALENDAR, 1);
+    }
+
+    @Test
+    public void load_first_keepsAdaptersOfAccount() {
+        mSource.mSyncable.put(CALENDAR, 0);
+
+        final AccountSyncModel model = load(null, 0);
+
+        assertEquals(Arrays.asList(CONTACTS), authorities(model.getShownAuthorities()));
+        assertEquals(Arrays.asList(HIDDEN), model.getInvisibleAuthorities());
+    }
+
+    @Test
+    public void load_first_dropsAuthorityWithoutLabel() {
+        mSource.mLabels.remove(CALENDAR);
+
+        final AccountSyncModel model = load(null, 0);
+
+        assertEquals(Arrays.asList(CONTACTS), authorities(model.getShownAuthorities()));
+    }
+
+    @Test
+    public void load_activeChange_onlyQueriesCurrentSyncs() {
+        final AccountSyncModel previous = load(null, 0);
+        mSource.resetCounts();
+        mSource.mCurrentSyncs.add(new SyncInfo(0, mAccount, CONTACTS, 0));
+
+        final AccountSyncModel model = load(previous, SYNC_OBSERVER_TYPE_ACTIVE);
+
+        assertEquals(1, mSource.mCurrentSyncsQueries);
+        assertEquals(0, mSource.mStatusQueries);
+        assertEquals(0, mSource.mSettingsQueries);
+        assertEquals(0, mSource.mAdapterQueries);
+        assertTrue(find(model, CONTACTS).isActive());
+    }
+
+    @Test
+    public void load_statusChange_onlyQueriesStatus() {
+        final AccountSyncModel previous = load(null, 0);
+        mSource.resetCounts();
+        final SyncStatusInfo status = new SyncStatusInfo(0);
+        status.lastSuccessTime = 1000;
+        mSource.mStatus.put(CALENDAR, status);
+
+        final AccountSyncModel model = load(previous, SYNC_OBSERVER_TYPE_STATUS);
+
+        assertEquals(2, mSource.mStatusQueries);
+        assertEquals(0, mSource.mCurrentSyncsQueries);
+        assertEquals(0, mSource.mSettingsQueries);
+        assertEquals(1000, find(model, CALENDAR).lastSuccessTime);
+    }
+
+    @Test
+    public void load_withoutAdapterChange_keepsAdapters() {
+        final AccountSyncModel previous = load(null, 0);
+        mSource.mAdapters.clear();
+        mSource.resetCounts();
+
+        final AccountSyncModel model = load(previous, SYNC_OBSERVER_TYPE_SETTINGS);
+
+        assertEquals(0, mSource.mAdapterQueries);
+        assertEquals(2, model.getShownAuthorities().size());
+
+        final AccountSyncModel reloaded = load(model, AccountSyncModel.CHANGE_ADAPTERS);
+        assertTrue(reloaded.getShownAuthorities().isEmpty());
+    }
+
+    @Test
+    public void getChangedAuthorities_returnsOnlyChanged() {
+        final AccountSyncModel previous = load(null, 0);
+        mSource.mCurrentSyncs.add(new SyncInfo(0, mAccount, CALENDAR, 0));
+
+        final AccountSyncModel model = load(previous, SYNC_OBSERVER_TYPE_ACTIVE);
+
+        assertTrue(model.hasSameShownAuthorities(previous));
+        assertEquals(Arrays.asList(CALENDAR),
+                authorities(model.getChangedAuthorities(previous)));
+    }
+
+    @Test
+    public void getChangedAuthorities_nothingChanged_empty() {
+        final AccountSyncModel previous = load(null, 0);
+
+        final AccountSyncModel model = load(previous, AccountSyncModel.CHANGE_ALL);
+
+        assertTrue(model.hasSameShownAuthorities(previous));
+        assertTrue(model.getChangedAuthorities(previous).isEmpty());
+    }
+
+    @Test
+    public void getChangedAuthorities_masterSyncChanged_returnsAll() {
+        final AccountSyncModel previous = load(null, 0);
+        mSource.mMasterSyncAutomatically = false;
+
+        final AccountSyncModel model = load(previous, SYNC_OBSERVER_TYPE_SETTINGS);
+
+        assertEquals(2, model.getChangedAuthorities(previous).size());
+    }
+
+    @Test
+    public void hasSameShownAuthorities_syncableChanged_false() {
+        final AccountSyncModel previous = load(null, 0);
+        mSource.mSyncable.put(CONTACTS, 0);
+
+        final AccountSyncModel model = load(previous, SYNC_OBSERVER_TYPE_SETTINGS);
+
+        assertFalse(model.hasSameShownAuthorities(previous));
+        assertFalse(model.hasSameShownAuthorities(null));
+    }
+
+    @Test
+    public void isFailed_onlyWhenSyncEnabled() {
+        final SyncStatusInfo status = new SyncStatusInfo(0);
+        status.lastFailureTime = 1000;
+        mSource.mStatus.put(CONTACTS, status);
+        mSource.mSyncAutomatically.put(CONTACTS, true);
+        assertTrue(find(load(null, 0), CONTACTS).isFailed());
+
+        mSource.mSyncAutomatically.put(CONTACTS, false);
+        assertFalse(find(load(null, 0), CONTACTS).isFailed());
+    }
+
+    private AccountSyncModel load(AccountSyncModel previous, int which) {
+        return AccountSyncModel.load(mSource, mAccount, previous, which);
+    }
+
+    private static AuthorityState find(AccountSyncModel model, String authority) {
+        for (AuthorityState state : model.getShownAuthorities()) {
+            if (state.authority.equals(authority)) {
+                return state;
+            }
+        }
+        throw new AssertionError(authority + " not shown");
+    }
+
+    private static List<String> authorities(List<AuthorityState> states) {
+        final List<String> authorities = new ArrayList<>(states.size());
+        for (AuthorityState state : states) {
+            authorities.add(state.authority);
+        }
+        return authorities;
+    }
+
+    private static class FakeSyncSource implements AccountSyncModel.SyncSource {
+        final List<SyncAdapterType> mAdapters = new ArrayList<>();
+        final Map<String, CharSequence> mLabels = new ArrayMap<>();
+        final Map<String, Integer> mSyncable = new ArrayMap<>();
+        final Map<String, Boolean> mSyncAutomatically = new ArrayMap<>();
+        final Map<String, SyncStatusInfo> mStatus = new ArrayMap<>();
+        final List<SyncInfo> mCurrentSyncs = new ArrayList<>();
+        boolean mMasterSyncAutomatically = true;
+
+        int mAdapterQueries;
+        int mCurrentSyncsQueries;
+        int mStatusQueries;
+        int mSettingsQueries;
+
+        void resetCounts() {
+            mAdapterQueries = 0;
+            mCurrentSyncsQueries = 0;
+            mStatusQueries = 0;
+            mSettingsQueries = 0;
+        }
+
+        @Override
+        public SyncAdapterType[] getSyncAdapterTypes() {
+            mAdapterQueries++;
+            return mAdapters.toArray(new SyncAdapterType[0]);
+        }
+
+        @Override
+        public CharSequence getProviderLabel(String authority) {
+            return mLabels.get(authority);
+        }
+
+        @Override
+        public List<SyncInfo> getCurrentSyncs() {
+            mCurrentSyncsQueries++;
+            return new ArrayList<>(mCurrentSyncs);
+        }
+
+        @Override
+        public SyncStatusInfo getSyncStatus(Account account, String authority) {
+            mStatusQueries++;
+            return mStatus.get(authority);
+        }
+
+        @Override
+        public boolean getSyncAutomatically(Account account, String authority) {
+            mSettingsQueries++;
+            return mSyncAutomatically.getOrDefault(authority, true);
+        }
+
+        @Override
+        public int getIsSyncable(Account account, String authority) {
+            mSettingsQueries++;
+            return mSyncable.getOrDefault(authority, 0);
+        }
+
+        @Override
+        public boolean getMasterSyncAutomatically() {
+            return mMasterSyncAutomatically;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.accounts;
+
+import static android.content.ContentResolver.SYNC_OBSERVER_TYPE_ACTIVE;
+import static android.content.ContentResolver.SYNC_OBSERVER_TYPE_SETTINGS;
+import static android.content.ContentResolver.SYNC_OBSERVER_TYPE_STATUS;
+
+import static com.android.tv.settings.accounts.SyncStatusUpdateScheduler.UPDATE_WINDOW_MS;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class SyncStatusUpdateSchedulerTest {
+
+    private final List<Integer> mRefreshes = new ArrayList<>();
+    private SyncStatusUpdateScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mScheduler = new SyncStatusUpdateScheduler(new Handler(Looper.getMainLooper()),
+                mRefreshes::add);
+    }
+
+    @Test
+    public void onStatusChanged_burst_refreshesOnceWithUnionOfChanges() {
+        mScheduler.onStatusChanged(SYNC_OBSERVER_TYPE_ACTIVE);
+        mScheduler.onStatusChanged(SYNC_OBSERVER_TYPE_STATUS);
+        mScheduler.onStatusChanged(SYNC_OBSERVER_TYPE_ACTIVE);
+
+        idleMainLooper(UPDATE_WINDOW_MS);
+
+        assertEquals(1, mRefreshes.size());
+        assertEquals(SYNC_OBSERVER_TYPE_ACTIVE | SYNC_OBSERVER_TYPE_STATUS,
+                (int) mRefreshes.get(0));
+    }
+
+    @Test
+    public void onStatusChanged_whileRefreshing_mergedIntoNextRefresh() {
+        mScheduler.onStatusChanged(SYNC_OBSERVER_TYPE_ACTIVE);
+        idleMainLooper(0);
+        assertEquals(1, mRefreshes.size());
+
+        mScheduler.onStatusChanged(SYNC_OBSERVER_TYPE_STATUS);
+        mScheduler.onStatusChanged(SYNC_OBSERVER_TYPE_SETTINGS);
+        idleMainLooper(10 * UPDATE_WINDOW_MS);
+        // The first refresh has not finished yet.
+        assertEquals(1, mRefreshes.size());
+
+        mScheduler.onRefreshFinished();
+        idleMainLooper(0);
+
+        assertEquals(2, mRefreshes.size());
+        assertEquals(SYNC_OBSERVER_TYPE_STATUS | SYNC_OBSERVER_TYPE_SETTINGS,
+                (int) mRefreshes.get(1));
+    }
+
+    @Test
+    public void onStatusChanged_rateLimitedToOnePerWindow() {
+        mScheduler.onStatusChanged(SYNC_OBSERVER_TYPE_ACTIVE);
+        idleMainLooper(0);
+        mScheduler.onRefreshFinished();
+
+        mScheduler.onStatusChanged(SYNC_OBSERVER_TYPE_ACTIVE);
+        idleMainLooper(UPDATE_WINDOW_MS / 2);
+        assertEquals(1, mRefreshes.size());
+
+        idleMainLooper(UPDATE_WINDOW_MS);
+        assertEquals(2, mRefreshes.size());
+    }
+
+    @Test
+    public void onRefreshFinished_noPendingChanges_doesNotRefresh() {
+        mScheduler.onStatusChanged(SYNC_OBSERVER_TYPE_ACTIVE);
+        idleMainLooper(0);
+        mScheduler.onRefreshFinished();
+
+        idleMainLooper(10 * UPDATE_WINDOW_MS);
+
+        assertEquals(1, mRefreshes.size());
+    }
+
+    @Test
+    public void cancel_dropsPendingChanges() {
+        mScheduler.onStatusChanged(SYNC_OBSERVER_TYPE_ACTIVE);
+        mScheduler.cancel();
+
+        idleMainLooper(10 * UPDATE_WINDOW_MS);
+        assertTrue(mRefreshes.isEmpty());
+
+        // Still usable afterwards.
+        mScheduler.onStatusChanged(SYNC_OBSERVER_TYPE_STATUS);
+        idleMainLooper(UPDATE_WINDOW_MS);
+        assertEquals(1, mRefreshes.size());
+    }
+
+    private static void idleMainLooper(long millis) {
+        ShadowLooper.idleMainLooper(millis, TimeUnit.MILLISECONDS);
+    }
+}
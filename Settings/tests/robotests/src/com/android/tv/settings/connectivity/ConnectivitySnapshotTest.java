@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.connectivity;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.net.ConnectivityManager;
+import android.net.InetAddresses;
+import android.net.LinkAddress;
+import android.net.LinkProperties;
+import android.net.Network;
+import android.net.NetworkInfo;
+import android.net.wifi.WifiInfo;
+import android.net.wifi.WifiManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Collections;
+
+@RunWith(RobolectricTestRunner.class)
+public class ConnectivitySnapshotTest {
+
+    private ConnectivityManager mConnectivityManager;
+    private WifiManager mWifiManager;
+    private WifiInfo mWifiInfo;
+
+    @Before
+    public void setUp() {
+        mConnectivityManager = mock(ConnectivityManager.class);
+        mWifiManager = mock(WifiManager.class);
+        mWifiInfo = mock(WifiInfo.class);
+        doReturn(mWifiInfo).when(mWifiManager).getConnectionInfo();
+        doReturn(WifiManager.WIFI_STATE_ENABLED).when(mWifiManager).getWifiState();
+        doReturn(-1).when(mWifiInfo).getNetworkId();
+        doReturn(new Network[0]).when(mConnectivityManager).getAllNetworks();
+    }
+
+    @Test
+    public void load_wifi_readsConnectionInfoOnce() {
+        connectWifi("\"home\"", -60);
+
+        final ConnectivitySnapshot snapshot = load(null);
+
+        verify(mWifiManager, times(1)).getConnectionInfo();
+        assertEquals(ConnectivityManager.TYPE_WIFI, snapshot.networkType);
+        assertTrue(snapshot.wifiConnected);
+        assertEquals("home", snapshot.wifiSsid);
+        assertEquals(WifiManager.calculateSignalLevel(-60, ConnectivitySnapshot.SIGNAL_LEVELS),
+                snapshot.wifiSignalLevel);
+    }
+
+    @Test
+    public void load_wifiConnectedWhileOtherNetworkActive_readsConnectionInfo() {
+        connectWifi("\"home\"", -60);
+        setActiveNetworkType(ConnectivityManager.TYPE_ETHERNET);
+
+        final ConnectivitySnapshot snapshot = load(null);
+
+        assertTrue(snapshot.wifiConnected);
+        assertEquals("home", snapshot.wifiSsid);
+        assertEquals(-60, snapshot.wifiRssi);
+    }
+
+    @Test
+    public void load_noNetwork() {
+        final ConnectivitySnapshot snapshot = load(null);
+
+        assertEquals(ConnectivityManager.TYPE_NONE, snapshot.networkType);
+        assertFalse(snapshot.wifiConnected);
+        assertNull(snapshot.wifiSsid);
+        assertTrue(snapshot.wifiEnabledOrEnabling);
+    }
+
+    @Test
+    public void load_noWifiManager() {
+        setActiveNetworkType(ConnectivityManager.TYPE_ETHERNET);
+
+        final ConnectivitySnapshot snapshot = ConnectivitySnapshot.load(mConnectivityManager,
+                null /* wifiManager */, 0, null, "eth0", null);
+
+        assertEquals(ConnectivityManager.TYPE_ETHERNET, snapshot.networkType);
+        assertFalse(snapshot.wifiEnabledOrEnabling);
+        assertEquals("eth0", snapshot.ethernetInterface);
+    }
+
+    @Test
+    public void equals_sameState() {
+        connectWifi("\"home\"", -60);
+
+        assertEquals(load(null), load(null));
+        assertEquals(load(null).hashCode(), load(null).hashCode());
+    }
+
+    @Test
+    public void equals_rssiWithinSameLevels_equal() {
+        connectWifi("\"home\"", -60);
+        final ConnectivitySnapshot before = load(null);
+
+        doReturn(-61).when(mWifiInfo).getRssi();
+
+        assertEquals(before, load(null));
+    }
+
+    @Test
+    public void equals_differentState_notEqual() {
+        connectWifi("\"home\"", -60);
+        final ConnectivitySnapshot before = load(null);
+
+        doReturn(-95).when(mWifiInfo).getRssi();
+        assertNotEquals(before, load(null));
+
+        doReturn(-60).when(mWifiInfo).getRssi();
+        doReturn("\"work\"").when(mWifiInfo).getSSID();
+        assertNotEquals(before, load(null));
+
+        doReturn("\"home\"").when(mWifiInfo).getSSID();
+        final LinkProperties linkProperties = mock(LinkProperties.class);
+        doReturn(true).when(linkProperties).hasIpv4Address();
+        assertNotEquals(before, load(linkProperties));
+    }
+
+    @Test
+    public void equals_wifiAddressChangedWithinSameFamily_notEqual() {
+        connectWifi("\"home\"", -60);
+        final Network network = mock(Network.class);
+        doReturn(network).when(mWifiManager).getCurrentNetwork();
+        setLinkAddress(network, "192.168.1.2");
+        final ConnectivitySnapshot before = load(null);
+        assertEquals("192.168.1.2", before.wifiIpAddress);
+
+        setLinkAddress(network, "192.168.1.3");
+
+        assertNotEquals(before, load(null));
+    }
+
+    @Test
+    public void load_ethernetInterfaceUp_readsAddress() {
+        setActiveNetworkType(ConnectivityManager.TYPE_ETHERNET);
+        final Network network = mock(Network.class);
+        final NetworkInfo networkInfo = mConnectivityManager.getActiveNetworkInfo();
+        doReturn(new Network[] {network}).when(mConnectivityManager).getAllNetworks();
+        doReturn(networkInfo).when(mConnectivityManager).getNetworkInfo(network);
+        setLinkAddress(network, "10.0.0.2");
+
+        final ConnectivitySnapshot snapshot = ConnectivitySnapshot.load(mConnectivityManager,
+                mWifiManager, 0, null, "eth0", null);
+
+        assertEquals("10.0.0.2", snapshot.ethernetIpAddress);
+    }
+
+    @Test
+    public void equals_cellSignalIgnoredUnlessOnCell() {
+        assertEquals(loadWithCellSignal(1), loadWithCellSignal(3));
+
+        setActiveNetworkType(ConnectivityManager.TYPE_MOBILE);
+        assertNotEquals(loadWithCellSignal(1), loadWithCellSignal(3));
+    }
+
+    @Test
+    public void publish_sameSnapshot_notifiesOnce() {
+        final ConnectivitySnapshotPublisher publisher = new ConnectivitySnapshotPublisher();
+        final ConnectivityListener.Listener listener = mock(ConnectivityListener.Listener.class);
+        publisher.addListener(listener);
+        connectWifi("\"home\"", -60);
+
+        assertTrue(publisher.publish(load(null)));
+        assertFalse(publisher.publish(load(null)));
+
+        verify(listener, times(1)).onConnectivityChange();
+    }
+
+    @Test
+    public void addListener_deduplicated() {
+        final ConnectivitySnapshotPublisher publisher = new ConnectivitySnapshotPublisher();
+        final ConnectivityListener.Listener first = mock(ConnectivityListener.Listener.class);
+        final ConnectivityListener.Listener second = mock(ConnectivityListener.Listener.class);
+
+        assertTrue(publisher.addListener(first));
+        assertFalse(publisher.addListener(first));
+        assertFalse(publisher.addListener(null));
+        assertTrue(publisher.addListener(second));
+        assertEquals(2, publisher.getListenerCount());
+
+        publisher.publish(load(null));
+        verify(first, times(1)).onConnectivityChange();
+        verify(second, times(1)).onConnectivityChange();
+
+        publisher.removeListener(first);
+        connectWifi("\"home\"", -60);
+        publisher.publish(load(null));
+        verify(first, times(1)).onConnectivityChange();
+        verify(second, times(2)).onConnectivityChange();
+    }
+
+    private void connectWifi(String ssid, int rssi) {
+        setActiveNetworkType(ConnectivityManager.TYPE_WIFI);
+        doReturn(1).when(mWifiInfo).getNetworkId();
+        doReturn(ssid).when(mWifiInfo).getSSID();
+        doReturn(rssi).when(mWifiInfo).getRssi();
+    }
+
+    private void setLinkAddress(Network network, String address) {
+        final LinkProperties linkProperties = new LinkProperties();
+        linkProperties.setLinkAddresses(Collections.singletonList(
+                new LinkAddress(InetAddresses.parseNumericAddress(address), 24)));
+        doReturn(linkProperties).when(mConnectivityManager).getLinkProperties(network);
+    }
+
+    private void setActiveNetworkType(int type) {
+        final NetworkInfo networkInfo = mock(NetworkInfo.class);
+        doReturn(type).when(networkInfo).getType();
+        doReturn(networkInfo).when(mConnectivityManager).getActiveNetworkInfo();
+    }
+
+    private ConnectivitySnapshot load(LinkProperties linkProperties) {
+        return ConnectivitySnapshot.load(mConnectivityManager, mWifiManager, 0, linkProperties,
+                null, null);
+    }
+
+    private ConnectivitySnapshot loadWithCellSignal(int level) {
+        return ConnectivitySnapshot.load(mConnectivityManager, mWifiManager, level, null, null,
+                null);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.connectivity;
+
+import static com.android.tv.settings.connectivity.NetworkRequestDialogFragment.MAX_NUMBER_LIST_ITEM;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.net.wifi.ScanResult;
+
+import com.android.tv.settings.library.network.AccessPoint;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class MatchedAccessPointListTest {
+
+    private static final int SCAN_RESULT_COUNT = 5000;
+
+    private final List<ScanResult> mScanResults = new ArrayList<>();
+    private final List<AccessPoint> mAccessPoints = new ArrayList<>();
+    private MatchedAccessPointList mList;
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < SCAN_RESULT_COUNT; i++) {
+            final ScanResult scanResult = new ScanResult();
+            scanResult.SSID = "ssid" + i;
+            scanResult.BSSID = String.format("02:00:00:00:%02x:%02x", i / 256, i % 256);
+            scanResult.capabilities = "[WPA2-PSK-CCMP][ESS]";
+            mScanResults.add(scanResult);
+        }
+        final List<String> keys = getKeys(mScanResults);
+        for (String key : keys) {
+            final AccessPoint accessPoint = mock(AccessPoint.class);
+            when(accessPoint.getKey()).thenReturn(key);
+            mAccessPoints.add(accessPoint);
+        }
+        mList = new MatchedAccessPointList();
+    }
+
+    @Test
+    public void getKeys_duplicates_keepsFirstScanOrder() {
+        final List<ScanResult> scanResults = new ArrayList<>(mScanResults);
+        scanResults.addAll(mScanResults.subList(0, SCAN_RESULT_COUNT / 2));
+        Collections.reverse(scanResults);
+
+        final List<String> keys = getKeys(scanResults);
+
+        assertEquals(SCAN_RESULT_COUNT, keys.size());
+        assertEquals(mAccessPoints.get(SCAN_RESULT_COUNT / 2 - 1).getKey(), keys.get(0));
+        assertEquals(mAccessPoints.get(SCAN_RESULT_COUNT / 2).getKey(),
+                keys.get(SCAN_RESULT_COUNT - 1));
+    }
+
+    @Test
+    public void update_keepsAccessPointOrder() {
+        // Match every third network, in the reverse of the access point order.
+        final List<String> keys = new ArrayList<>();
+        for (int i = SCAN_RESULT_COUNT - 1; i >= 0; i -= 3) {
+            keys.add(mAccessPoints.get(i).getKey());
+        }
+        mList.addKeys(keys);
+
+        assertTrue(mList.update(mAccessPoints, MatchedAccessPointList.NO_LIMIT));
+
+        final List<AccessPoint> matched = mList.getMatched();
+        assertEquals(keys.size(), matched.size());
+        int previousIndex = -1;
+        for (AccessPoint accessPoint : matched) {
+            final int index = mAccessPoints.indexOf(accessPoint);
+            assertTrue(index > previousIndex);
+            assertEquals(0, (SCAN_RESULT_COUNT - 1 - index) % 3);
+            previousIndex = index;
+        }
+    }
+
+    @Test
+    public void update_limited_keepsFirstMatches() {
+        mList.addKeys(getKeys(mScanResults));
+
+        mList.update(mAccessPoints, MAX_NUMBER_LIST_ITEM);
+
+        assertEquals(mAccessPoints.subList(0, MAX_NUMBER_LIST_ITEM), mList.getMatched());
+
+        // Showing all of them afterwards.
+        assertTrue(mList.update(mAccessPoints, MatchedAccessPointList.NO_LIMIT));
+        assertEquals(mAccessPoints, mList.getMatched());
+    }
+
+    @Test
+    public void update_nothingChanged_returnsFalse() {
+        mList.addKeys(getKeys(mScanResults.subList(0, 100)));
+        assertTrue(mList.update(mAccessPoints, MatchedAccessPointList.NO_LIMIT));
+
+        assertFalse(mList.addKeys(getKeys(mScanResults.subList(0, 100))));
+        assertFalse(mList.update(mAccessPoints, MatchedAccessPointList.NO_LIMIT));
+        assertEquals(100, mList.getMatched().size());
+    }
+
+    @Test
+    public void update_newlyMatchedKey_added() {
+        mList.addKeys(getKeys(mScanResults.subList(0, 100)));
+        mList.update(mAccessPoints, MatchedAccessPointList.NO_LIMIT);
+
+        assertTrue(mList.addKeys(getKeys(mScanResults.subList(4000, 4001))));
+        assertTrue(mList.update(mAccessPoints, MatchedAccessPointList.NO_LIMIT));
+
+        assertEquals(101, mList.getMatched().size());
+        assertSame(mAccessPoints.get(4000), mList.getMatched().get(100));
+    }
+
+    @Test
+    public void update_accessPointDisappeared_removed() {
+        mList.addKeys(getKeys(mScanResults.subList(0, 100)));
+        mList.update(mAccessPoints, MatchedAccessPointList.NO_LIMIT);
+
+        final List<AccessPoint> accessPoints = new ArrayList<>(mAccessPoints);
+        final AccessPoint removed = accessPoints.remove(50);
+
+        assertTrue(mList.update(accessPoints, MatchedAccessPointList.NO_LIMIT));
+        assertEquals(99, mList.getMatched().size());
+        assertFalse(mList.getMatched().contains(removed));
+        // The key stays matched, should the network come back.
+        assertEquals(100, mList.getMatchedKeyCount());
+    }
+
+    private static List<String> getKeys(List<ScanResult> scanResults) {
+        return MatchedAccessPointList.getKeys(RuntimeEnvironment.application, scanResults);
+    }
+}
@@ -24,11 +24,15 @@ import static com.android.tv.settings.device.displaysound.AdvancedVolumeFragment
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import android.content.Context;
+import android.content.Intent;
 import android.media.AudioFormat;
 import android.media.AudioManager;
 import android.provider.Settings;
@@ -48,6 +52,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
 import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
 import org.robolectric.shadows.androidx.fragment.FragmentController;
 
 import java.util.ArrayList;
@@ -344,6 +349,39 @@ public class AdvancedVolumeFragmentTest {
                 fragment.getContext().getString(R.string.surround_sound_format_dolby_mat));
     }
 
+    @Test
+    public void testHdmiAudioPlug_whenFormatReported_movesExistingPreferenceToSupportedGroup() {
+        Map<Integer, Boolean> formats = ImmutableMap.of(
+                AudioFormat.ENCODING_DTS, true,
+                AudioFormat.ENCODING_DOLBY_MAT, true);
+        List<Integer> reportedFormats = Arrays.asList(AudioFormat.ENCODING_DTS);
+        AdvancedVolumeFragment fragment =
+                createAdvancedVolumeFragmentWithAudioManagerReturning(formats, reportedFormats);
+
+        Preference preference = fragment.findPreference(KEY_SURROUND_SOUND_MANUAL);
+        fragment.onPreferenceTreeClick(preference);
+        Preference dolbyMatPreference = fragment.findPreference(
+                KEY_SURROUND_SOUND_FORMAT_PREFIX + AudioFormat.ENCODING_DOLBY_MAT);
+
+        doReturn(new ArrayList<>(Arrays.asList(
+                AudioFormat.ENCODING_DTS, AudioFormat.ENCODING_DOLBY_MAT)))
+                .when(mAudioManager).getReportedSurroundFormats();
+        fragment.getContext().sendBroadcast(new Intent(AudioManager.ACTION_HDMI_AUDIO_PLUG));
+        ShadowLooper.idleMainLooper();
+
+        Preference supportedFormatPreference =
+                fragment.getPreferenceScreen().getPreference(1);
+        assertThat(getChildrenTitles(supportedFormatPreference)).containsExactly(
+                fragment.getContext().getString(R.string.surround_sound_format_dolby_mat),
+                fragment.getContext().getString(R.string.surround_sound_format_dts)).inOrder();
+        Preference unsupportedFormatPreference =
+                fragment.getPreferenceScreen().getPreference(2);
+        assertThat(getChildrenTitles(unsupportedFormatPreference)).isEmpty();
+        assertThat(fragment.findPreference(
+                KEY_SURROUND_SOUND_FORMAT_PREFIX + AudioFormat.ENCODING_DOLBY_MAT))
+                .isSameInstanceAs(dolbyMatPreference);
+    }
+
     private List<String> getChildrenTitles(Preference preference) {
         PreferenceCategory category = (PreferenceCategory) preference;
 
@@ -364,6 +402,10 @@ public class AdvancedVolumeFragmentTest {
 
         AdvancedVolumeFragment fragment = spy(AdvancedVolumeFragment.class);
         doReturn(mAudioManager).when(fragment).getAudioManager();
+        // Refreshes the formats on the calling thread.
+        doAnswer(invocation -> new SurroundFormatModel(invocation.<Context>getArgument(0),
+                new SurroundFormatModel.SystemAudioSource(mAudioManager), Runnable::run))
+                .when(fragment).createSurroundFormatModel(any());
 
         return FragmentController.of(fragment)
                 .create()
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.device.displaysound;
+
+import static android.view.Display.HdrCapabilities.HDR_TYPE_DOLBY_VISION;
+import static android.view.Display.HdrCapabilities.HDR_TYPE_HDR10;
+import static android.view.Display.HdrCapabilities.HDR_TYPE_HDR10_PLUS;
+import static android.view.Display.HdrCapabilities.HDR_TYPE_HLG;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.hardware.display.DisplayManager;
+import android.view.Display;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.Set;
+
+@RunWith(RobolectricTestRunner.class)
+public class DisplayCapabilitiesRepositoryTest {
+
+    @Mock
+    private DisplayManager mDisplayManager;
+    private Display mDisplay;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mDisplay = spy(Display.class);
+        doReturn(mDisplay).when(mDisplayManager).getDisplay(Display.DEFAULT_DISPLAY);
+    }
+
+    @Test
+    public void sortModes_standardResolutionsFirst_thenByResolutionAndRefreshRate() {
+        final Display.Mode mode600x800at60 = new Display.Mode(0, 600, 800, 59.944f);
+        final Display.Mode mode800x1200at60 = new Display.Mode(1, 800, 1200, 60);
+        final Display.Mode mode576at60 = new Display.Mode(2, 576, 576, 60);
+        final Display.Mode mode800x1200at120 = new Display.Mode(3, 800, 1200, 120);
+        final Display.Mode mode600x800at120 = new Display.Mode(4, 600, 800, 120);
+        final Display.Mode mode2160at60 = new Display.Mode(5, 2160, 2160, 60);
+
+        final List<Display.Mode> sortedModes = DisplayCapabilitiesRepository.sortModes(
+                new Display.Mode[] {mode600x800at60, mode800x1200at60, mode576at60,
+                        mode800x1200at120, mode600x800at120, mode2160at60});
+
+        assertThat(sortedModes).containsExactly(mode2160at60, mode576at60, mode800x1200at120,
+                mode800x1200at60, mode600x800at120, mode600x800at60).inOrder();
+    }
+
+    @Test
+    public void sortModes_sameResolutionAndIntegerRefreshRate_keepsDisplayOrder() {
+        final Display.Mode mode60 = new Display.Mode(0, 3840, 2160, 60);
+        final Display.Mode mode59 = new Display.Mode(1, 3840, 2160, 60.4f);
+
+        assertThat(DisplayCapabilitiesRepository.sortModes(new Display.Mode[] {mode60, mode59}))
+                .containsExactly(mode60, mode59).inOrder();
+    }
+
+    @Test
+    public void sortModes_removesEqualModes() {
+        final Display.Mode mode = new Display.Mode(0, 1920, 1080, 60);
+        final Display.Mode sameMode = new Display.Mode(0, 1920, 1080, 60);
+        final Display.Mode otherRefreshRate = new Display.Mode(0, 1920, 1080, 50);
+
+        assertThat(DisplayCapabilitiesRepository.sortModes(
+                new Display.Mode[] {mode, sameMode, otherRefreshRate}))
+                .containsExactly(mode, otherRefreshRate).inOrder();
+    }
+
+    @Test
+    public void getHdrTypes_unionOfAllModes() {
+        final Set<Integer> hdrTypes = DisplayCapabilitiesRepository.getHdrTypes(
+                new Display.Mode[] {
+                        new Display.Mode(0, 3840, 2160, 60, new float[0],
+                                new int[] {HDR_TYPE_HDR10, HDR_TYPE_HLG}),
+                        new Display.Mode(1, 1920, 1080, 60, new float[0],
+                                new int[] {HDR_TYPE_DOLBY_VISION, HDR_TYPE_HDR10}),
+                        new Display.Mode(2, 1280, 720, 60, new float[0], new int[0])});
+
+        assertThat(hdrTypes).containsExactly(HDR_TYPE_DOLBY_VISION, HDR_TYPE_HDR10, HDR_TYPE_HLG);
+    }
+
+    @Test
+    public void intersect_keepsDeviceTypesSupportedByDisplay_sortedAndDistinct() {
+        final int[] supported = DisplayCapabilitiesRepository.intersect(
+                new int[] {HDR_TYPE_HLG, HDR_TYPE_HDR10_PLUS, HDR_TYPE_DOLBY_VISION, HDR_TYPE_HLG},
+                Set.of(HDR_TYPE_DOLBY_VISION, HDR_TYPE_HLG, HDR_TYPE_HDR10));
+
+        assertThat(supported).asList()
+                .containsExactly(HDR_TYPE_DOLBY_VISION, HDR_TYPE_HLG).inOrder();
+    }
+
+    @Test
+    public void getInstance_sameDisplayManager_sharesCapabilities() {
+        doReturn(new Display.Mode[] {new Display.Mode(0, 1920, 1080, 60)})
+                .when(mDisplay).getSupportedModes();
+        doReturn(new int[] {HDR_TYPE_HDR10}).when(mDisplayManager).getSupportedHdrOutputTypes();
+
+        final DisplayCapabilitiesRepository repository =
+                DisplayCapabilitiesRepository.getInstance(mDisplayManager);
+        repository.getSortedModes();
+        repository.hasDeviceHdrOutputTypes();
+        assertThat(DisplayCapabilitiesRepository.getInstance(mDisplayManager))
+                .isSameInstanceAs(repository);
+        repository.getSortedModes();
+        repository.getSupportedHdrTypes();
+
+        verify(mDisplay, times(1)).getSupportedModes();
+        verify(mDisplayManager, times(1)).getSupportedHdrOutputTypes();
+    }
+
+    @Test
+    public void invalidate_queriesAgain() {
+        doReturn(new Display.Mode[] {new Display.Mode(0, 1920, 1080, 60)})
+                .when(mDisplay).getSupportedModes();
+        final DisplayCapabilitiesRepository repository =
+                DisplayCapabilitiesRepository.getInstance(mDisplayManager);
+        assertThat(repository.getSortedModes()).hasSize(1);
+
+        doReturn(new Display.Mode[] {new Display.Mode(0, 1920, 1080, 60),
+                new Display.Mode(1, 3840, 2160, 60)}).when(mDisplay).getSupportedModes();
+        repository.invalidate();
+
+        assertThat(repository.getSortedModes()).hasSize(2);
+    }
+
+    @Test
+    public void getInstance_otherDisplayManager_replacesRepository() {
+        final DisplayCapabilitiesRepository repository =
+                DisplayCapabilitiesRepository.getInstance(mDisplayManager);
+        final DisplayManager otherDisplayManager = mock(DisplayManager.class);
+
+        assertThat(DisplayCapabilitiesRepository.getInstance(otherDisplayManager))
+                .isNotSameInstanceAs(repository);
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.device.displaysound;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.Intent;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+
+import com.google.common.collect.ImmutableMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RunWith(RobolectricTestRunner.class)
+public class SurroundFormatModelTest {
+
+    private Context mContext;
+    private FakeAudioSource mSource;
+    private SurroundFormatModel mModel;
+    private List<Set<Integer>> mChanges;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mSource = new FakeAudioSource();
+        mSource.mFormats = ImmutableMap.of(
+                AudioFormat.ENCODING_AC3, true,
+                AudioFormat.ENCODING_DTS, false);
+        mSource.mReportedFormats = Arrays.asList(AudioFormat.ENCODING_AC3);
+        // Runs the background query on the calling thread; the result is still posted to the
+        // main looper.
+        mModel = new SurroundFormatModel(mContext, mSource, Runnable::run);
+        mChanges = new ArrayList<>();
+    }
+
+    @Test
+    public void diff_sameState_isEmpty() {
+        final SurroundFormatModel.Snapshot snapshot = snapshot(
+                ImmutableMap.of(AudioFormat.ENCODING_AC3, true), AudioFormat.ENCODING_AC3);
+
+        assertThat(SurroundFormatModel.diff(snapshot, snapshot(
+                ImmutableMap.of(AudioFormat.ENCODING_AC3, true), AudioFormat.ENCODING_AC3)))
+                .isEmpty();
+    }
+
+    @Test
+    public void diff_enabledStateChanged_returnsFormat() {
+        final SurroundFormatModel.Snapshot oldSnapshot = snapshot(ImmutableMap.of(
+                AudioFormat.ENCODING_AC3, true, AudioFormat.ENCODING_DTS, true));
+        final SurroundFormatModel.Snapshot newSnapshot = snapshot(ImmutableMap.of(
+                AudioFormat.ENCODING_AC3, true, AudioFormat.ENCODING_DTS, false));
+
+        assertThat(SurroundFormatModel.diff(oldSnapshot, newSnapshot))
+                .containsExactly(AudioFormat.ENCODING_DTS);
+    }
+
+    @Test
+    public void diff_reportedStateChanged_returnsFormat() {
+        final Map<Integer, Boolean> formats = ImmutableMap.of(
+                AudioFormat.ENCODING_AC3, true, AudioFormat.ENCODING_DTS, true);
+
+        assertThat(SurroundFormatModel.diff(
+                snapshot(formats, AudioFormat.ENCODING_AC3),
+                snapshot(formats, AudioFormat.ENCODING_DTS)))
+                .containsExactly(AudioFormat.ENCODING_AC3, AudioFormat.ENCODING_DTS);
+    }
+
+    @Test
+    public void diff_formatAddedOrRemoved_returnsFormat() {
+        assertThat(SurroundFormatModel.diff(
+                snapshot(ImmutableMap.of(AudioFormat.ENCODING_AC3, true)),
+                snapshot(ImmutableMap.of(AudioFormat.ENCODING_DTS, true))))
+                .containsExactly(AudioFormat.ENCODING_AC3, AudioFormat.ENCODING_DTS);
+    }
+
+    @Test
+    public void load_queriesOnce() {
+        final SurroundFormatModel.Snapshot snapshot = mModel.load();
+
+        assertThat(mModel.getSnapshot()).isSameInstanceAs(snapshot);
+        assertThat(snapshot.isReported(AudioFormat.ENCODING_AC3)).isTrue();
+        assertThat(snapshot.isReported(AudioFormat.ENCODING_DTS)).isFalse();
+        assertThat(mSource.mQueryCount).isEqualTo(1);
+    }
+
+    @Test
+    public void hdmiAudioPlug_refreshesAndNotifiesChangedFormats() {
+        mModel.load();
+        mModel.start(mChanges::add);
+
+        mSource.mReportedFormats = Arrays.asList(
+                AudioFormat.ENCODING_AC3, AudioFormat.ENCODING_DTS);
+        mContext.sendBroadcast(new Intent(AudioManager.ACTION_HDMI_AUDIO_PLUG));
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mSource.mQueryCount).isEqualTo(2);
+        assertThat(mChanges).containsExactly(Collections.singleton(AudioFormat.ENCODING_DTS));
+        assertThat(mModel.getSnapshot().isReported(AudioFormat.ENCODING_DTS)).isTrue();
+    }
+
+    @Test
+    public void hdmiAudioPlug_unchangedFormats_notNotified() {
+        mModel.load();
+        mModel.start(mChanges::add);
+
+        mContext.sendBroadcast(new Intent(AudioManager.ACTION_HDMI_AUDIO_PLUG));
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mSource.mQueryCount).isEqualTo(2);
+        assertThat(mChanges).isEmpty();
+    }
+
+    @Test
+    public void hdmiAudioPlug_afterStop_notRefreshed() {
+        mModel.load();
+        mModel.start(mChanges::add);
+        mModel.stop();
+
+        mContext.sendBroadcast(new Intent(AudioManager.ACTION_HDMI_AUDIO_PLUG));
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mSource.mQueryCount).isEqualTo(1);
+    }
+
+    @Test
+    public void start_firstStart_doesNotQueryAgain() {
+        mModel.load();
+        mModel.start(mChanges::add);
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mSource.mQueryCount).isEqualTo(1);
+    }
+
+    @Test
+    public void start_afterStop_refreshesChangesMissedWhileStopped() {
+        mModel.load();
+        mModel.start(mChanges::add);
+        mModel.stop();
+
+        // The sink is plugged while the screen is stopped.
+        mSource.mReportedFormats = Arrays.asList(
+                AudioFormat.ENCODING_AC3, AudioFormat.ENCODING_DTS);
+        mModel.start(mChanges::add);
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mSource.mQueryCount).isEqualTo(2);
+        assertThat(mChanges).containsExactly(Collections.singleton(AudioFormat.ENCODING_DTS));
+        assertThat(mModel.getSnapshot().isReported(AudioFormat.ENCODING_DTS)).isTrue();
+    }
+
+    @Test
+    public void refresh_stoppedBeforeResult_notApplied() {
+        final SurroundFormatModel.Snapshot snapshot = mModel.load();
+        mModel.start(mChanges::add);
+
+        mSource.mReportedFormats = Collections.emptyList();
+        mModel.refresh();
+        mModel.stop();
+        ShadowLooper.idleMainLooper();
+
+        assertThat(mChanges).isEmpty();
+        assertThat(mModel.getSnapshot()).isSameInstanceAs(snapshot);
+    }
+
+    private static SurroundFormatModel.Snapshot snapshot(Map<Integer, Boolean> formats,
+            Integer... reportedFormats) {
+        return new SurroundFormatModel.Snapshot(formats, Arrays.asList(reportedFormats));
+    }
+
+    private static class FakeAudioSource implements SurroundFormatModel.AudioSource {
+        Map<Integer, Boolean> mFormats;
+        List<Integer> mReportedFormats;
+        int mQueryCount;
+
+        @Override
+        public Map<Integer, Boolean> getSurroundFormats() {
+            mQueryCount++;
+            return mFormats;
+        }
+
+        @Override
+        public List<Integer> getReportedSurroundFormats() {
+            return mReportedFormats;
+        }
+    }
+}
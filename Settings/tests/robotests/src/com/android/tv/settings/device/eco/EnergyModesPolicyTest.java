@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.device.eco;
+
+import static com.android.tv.settings.device.eco.EnergyModesHelper.ENERGY_MODES;
+import static com.android.tv.settings.device.eco.EnergyModesHelper.MODE_HIGH_ENERGY;
+import static com.android.tv.settings.device.eco.EnergyModesHelper.MODE_LOW_ENERGY;
+import static com.android.tv.settings.device.eco.EnergyModesHelper.MODE_MODERATE_ENERGY;
+import static com.android.tv.settings.device.eco.EnergyModesHelper.MODE_UNRESTRICTED;
+import static com.android.tv.settings.device.eco.EnergyModesHelper.NAMESPACE_LOW_POWER_STANDBY;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.res.Resources;
+import android.os.PowerManager.LowPowerStandbyPolicy;
+import android.provider.DeviceConfig;
+import android.util.ArraySet;
+
+import com.android.tv.settings.R;
+import com.android.tv.settings.device.eco.EnergyModesHelper.EnergyMode;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Set;
+
+@RunWith(RobolectricTestRunner.class)
+public class EnergyModesPolicyTest {
+
+    private final Set<String> mProperties = new ArraySet<>();
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        final Resources resources = spy(RuntimeEnvironment.application.getResources());
+        doReturn(true).when(resources).getBoolean(R.bool.enable_energy_modes);
+        mContext = new ContextWrapper(RuntimeEnvironment.application) {
+            @Override
+            public Resources getResources() {
+                return resources;
+            }
+        };
+        // Compiled policies are shared by the process; start every test from a fresh one.
+        EnergyModesHelper.invalidateCompiledPolicy();
+    }
+
+    @After
+    public void tearDown() {
+        for (String key : mProperties) {
+            DeviceConfig.deleteProperty(NAMESPACE_LOW_POWER_STANDBY, key);
+        }
+        EnergyModesHelper.invalidateCompiledPolicy();
+    }
+
+    @Test
+    public void compile_inheritsFromBaseModes() {
+        setProperty("policy_low_energy_use_allowed_features", "low");
+        setProperty("policy_moderate_energy_use_allowed_features", "moderate");
+        setProperty("policy_high_energy_use_allowed_features", "high");
+        setProperty("policy_low_energy_use_exempt_packages", "com.low");
+        setProperty("policy_high_energy_use_exempt_packages", "com.high");
+        setProperty("policy_low_energy_use_allowed_reasons", "1");
+        setProperty("policy_moderate_energy_use_allowed_reasons", "2");
+        setProperty("policy_high_energy_use_allowed_reasons", "4");
+
+        final EnergyModesPolicy policy = EnergyModesPolicy.compile(mContext, ENERGY_MODES, true);
+
+        assertEquals(set("low"), policy.getAllowedFeatures(MODE_LOW_ENERGY));
+        assertEquals(set("low", "moderate"), policy.getAllowedFeatures(MODE_MODERATE_ENERGY));
+        assertEquals(set("low", "moderate", "high"), policy.getAllowedFeatures(MODE_HIGH_ENERGY));
+
+        final LowPowerStandbyPolicy high = policy.getLowPowerStandbyPolicy(MODE_HIGH_ENERGY);
+        assertEquals("high_energy_use", high.getIdentifier());
+        assertEquals(set("com.low", "com.high"), high.getExemptPackages());
+        assertEquals(7, high.getAllowedReasons());
+        assertEquals(set("low", "moderate", "high"), high.getAllowedFeatures());
+    }
+
+    @Test
+    public void compile_unrestrictedMode_hasEmptyPolicy() {
+        final LowPowerStandbyPolicy policy = EnergyModesPolicy.compile(mContext, ENERGY_MODES,
+                true).getLowPowerStandbyPolicy(MODE_UNRESTRICTED);
+
+        assertEquals("unrestricted", policy.getIdentifier());
+        assertTrue(policy.getExemptPackages().isEmpty());
+        assertEquals(0, policy.getAllowedReasons());
+        assertTrue(policy.getAllowedFeatures().isEmpty());
+    }
+
+    @Test
+    public void compile_ordersEnabledModes() {
+        final EnergyModesPolicy policy = EnergyModesPolicy.compile(mContext, ENERGY_MODES, true);
+
+        assertEquals(Arrays.asList(MODE_LOW_ENERGY, MODE_MODERATE_ENERGY, MODE_HIGH_ENERGY),
+                policy.enabledModes);
+        assertSame(MODE_MODERATE_ENERGY, policy.getEnergyMode("moderate_energy_use"));
+    }
+
+    @Test
+    public void compile_unrestrictedOverridesHighEnergy() {
+        setProperty("policy_unrestricted_enabled", "true");
+
+        final EnergyModesPolicy policy = EnergyModesPolicy.compile(mContext, ENERGY_MODES, true);
+
+        assertEquals(Arrays.asList(MODE_LOW_ENERGY, MODE_MODERATE_ENERGY, MODE_UNRESTRICTED),
+                policy.enabledModes);
+        assertFalse(policy.isEnabled(MODE_HIGH_ENERGY));
+    }
+
+    @Test
+    public void compile_lowPowerStandbyUnsupported_hasNoModes() {
+        final EnergyModesPolicy policy = EnergyModesPolicy.compile(mContext, ENERGY_MODES, false);
+
+        assertFalse(policy.energyModesEnabled);
+        assertTrue(policy.enabledModes.isEmpty());
+        assertEquals(null, policy.defaultMode);
+    }
+
+    @Test
+    public void compile_baseModeCycle_terminates() throws Exception {
+        setProperty("policy_low_energy_use_allowed_features", "a");
+        setProperty("policy_moderate_energy_use_allowed_features", "b");
+        final EnergyMode a = createMode(R.string.energy_mode_low_identifier, null);
+        final EnergyMode b = createMode(R.string.energy_mode_moderate_identifier, a);
+        final Field baseMode = EnergyMode.class.getField("baseMode");
+        baseMode.setAccessible(true);
+        baseMode.set(a, b);
+
+        final EnergyModesPolicy policy =
+                EnergyModesPolicy.compile(mContext, new EnergyMode[] {a, b}, true);
+
+        assertEquals(set("a", "b"), policy.getAllowedFeatures(a));
+        assertTrue(policy.getAllowedFeatures(b).contains("b"));
+    }
+
+    @Test
+    public void getCompiledPolicy_cachedUntilDeviceConfigChanged() {
+        final EnergyModesPolicy first = EnergyModesHelper.getCompiledPolicy(mContext);
+        assertSame(first, EnergyModesHelper.getCompiledPolicy(mContext));
+
+        setProperty("policy_low_energy_use_allowed_features", "new_feature");
+        // Delivered by DeviceConfig to the listener registered by the first compilation.
+        EnergyModesHelper.sPropertiesChangedListener.onPropertiesChanged(
+                new DeviceConfig.Properties.Builder(NAMESPACE_LOW_POWER_STANDBY)
+                        .setString("policy_low_energy_use_allowed_features", "new_feature")
+                        .build());
+
+        final EnergyModesPolicy second = EnergyModesHelper.getCompiledPolicy(mContext);
+        assertNotSame(first, second);
+        assertEquals(set("new_feature"), second.getAllowedFeatures(MODE_LOW_ENERGY));
+    }
+
+    private void setProperty(String key, String value) {
+        mProperties.add(key);
+        DeviceConfig.setProperty(NAMESPACE_LOW_POWER_STANDBY, key, value, false);
+    }
+
+    private static Set<String> set(String... values) {
+        return new ArraySet<>(Arrays.asList(values));
+    }
+
+    private static EnergyMode createMode(int identifierRes, EnergyMode baseMode) {
+        return new EnergyMode(identifierRes, false, true, R.bool.energy_mode_low_enabled,
+                R.string.energy_mode_low_title, R.string.energy_mode_low_subtitle,
+                R.color.energy_mode_low_color, R.drawable.energy_mode_low_icon,
+                R.string.energy_mode_low_info, R.array.energy_mode_low_features,
+                R.string.energy_mode_low_eco_hint, 0,
+                R.array.energy_mode_low_baseExemptPackages,
+                R.array.energy_mode_low_vendorExemptPackages,
+                R.integer.energy_mode_low_baseAllowedReasons,
+                R.integer.energy_mode_low_vendorAllowedReasons,
+                R.array.energy_mode_low_baseAllowedFeatures,
+                R.array.energy_mode_low_vendorAllowedFeatures,
+                baseMode, 0);
+    }
+}
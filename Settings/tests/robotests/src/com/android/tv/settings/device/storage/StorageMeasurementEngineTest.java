@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.device.storage;
+
+import static com.android.tv.settings.device.storage.StorageMeasurementEngine.MEASURED_ALL;
+import static com.android.tv.settings.device.storage.StorageMeasurementEngine.MEASURED_APPS;
+import static com.android.tv.settings.device.storage.StorageMeasurementEngine.MEASURED_TOTAL;
+import static com.android.tv.settings.device.storage.StorageMeasurementEngine.STALE_AFTER_MS;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.app.usage.StorageStats;
+import android.app.usage.StorageStatsManager;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.UserInfo;
+import android.net.Uri;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.os.storage.StorageManager;
+import android.os.storage.VolumeInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class StorageMeasurementEngineTest {
+
+    private static final long TOTAL_BYTES = 1000;
+    private static final long FREE_BYTES = 400;
+
+    private final List<Runnable> mPendingTasks = new ArrayList<>();
+    private final List<Integer> mPublished = new ArrayList<>();
+    private final StorageMeasurementEngine.Receiver mReceiver =
+            (details, measured) -> mPublished.add(measured);
+
+    private Context mContext;
+    private StorageManager mStorageManager;
+    private StorageStatsManager mStats;
+    private VolumeInfo mVolume;
+    private StorageMeasurementEngine mEngine;
+
+    @Before
+    public void setUp() throws Exception {
+        mContext = RuntimeEnvironment.getApplication();
+        final UserManager userManager = mock(UserManager.class);
+        mStorageManager = mock(StorageManager.class);
+        mStats = mock(StorageStatsManager.class);
+
+        mVolume = new VolumeInfo("private", VolumeInfo.TYPE_PRIVATE, null, null);
+        mVolume.state = VolumeInfo.STATE_MOUNTED;
+        doReturn(mVolume).when(mStorageManager).findVolumeById("private");
+
+        doReturn(Arrays.asList(new UserInfo(UserHandle.myUserId(), "owner", 0)))
+                .when(userManager).getUsers();
+        doReturn(TOTAL_BYTES).when(mStats).getTotalBytes(isNull());
+        doReturn(FREE_BYTES).when(mStats).getFreeBytes(isNull());
+        doReturn(new StorageStats()).when(mStats).queryStatsForUser(isNull(), any());
+
+        mEngine = new StorageMeasurementEngine(mContext, userManager, mStorageManager, mStats,
+                mPendingTasks::add);
+    }
+
+    @Test
+    public void measure_publishesTotalThenAppsThenMedia() {
+        mEngine.measure(mVolume, null, mReceiver);
+        runPendingTasks();
+
+        assertEquals(Arrays.asList(MEASURED_TOTAL, MEASURED_TOTAL | MEASURED_APPS, MEASURED_ALL),
+                mPublished);
+    }
+
+    @Test
+    public void measure_withinStaleWindow_deliversCacheWithoutMeasuring() throws Exception {
+        mEngine.measure(mVolume, null, mReceiver);
+        runPendingTasks();
+        mEngine.release(mReceiver);
+        mPublished.clear();
+
+        ShadowLooper.idleMainLooper(STALE_AFTER_MS - 1, TimeUnit.MILLISECONDS);
+        mEngine.measure(mVolume, null, mReceiver);
+
+        assertTrue(mPendingTasks.isEmpty());
+        assertEquals(Arrays.asList(MEASURED_ALL), mPublished);
+        verify(mStats, times(1)).getTotalBytes(isNull());
+    }
+
+    @Test
+    public void measure_afterStaleWindow_measuresAgain() throws Exception {
+        mEngine.measure(mVolume, null, mReceiver);
+        runPendingTasks();
+        mEngine.release(mReceiver);
+
+        ShadowLooper.idleMainLooper(STALE_AFTER_MS + 1, TimeUnit.MILLISECONDS);
+        mEngine.measure(mVolume, null, mReceiver);
+        runPendingTasks();
+
+        verify(mStats, times(2)).getTotalBytes(isNull());
+    }
+
+    @Test
+    public void invalidate_observedVolume_measuresAgain() throws Exception {
+        mEngine.measure(mVolume, null, mReceiver);
+        runPendingTasks();
+
+        mEngine.invalidate(null);
+        runPendingTasks();
+
+        verify(mStats, times(2)).getTotalBytes(isNull());
+    }
+
+    @Test
+    public void invalidateAll_nextMeasureMeasuresAgain() throws Exception {
+        mEngine.measure(mVolume, null, mReceiver);
+        runPendingTasks();
+        mEngine.release(mReceiver);
+
+        mEngine.invalidateAll();
+        mEngine.measure(mVolume, null, mReceiver);
+        runPendingTasks();
+
+        verify(mStats, times(2)).getTotalBytes(isNull());
+    }
+
+    @Test
+    public void invalidateAll_dropsResultsOfOutdatedMeasurement() {
+        mEngine.measure(mVolume, null, mReceiver);
+        mEngine.invalidateAll();
+        runPendingTasks();
+
+        assertTrue(mPublished.isEmpty());
+    }
+
+    @Test
+    public void packageAdded_invalidatesCache() throws Exception {
+        mEngine.measure(mVolume, null, mReceiver);
+        runPendingTasks();
+        mEngine.release(mReceiver);
+
+        mContext.sendBroadcast(new Intent(Intent.ACTION_PACKAGE_ADDED,
+                Uri.fromParts("package", "com.example.app", null)));
+        ShadowLooper.idleMainLooper();
+        mEngine.measure(mVolume, null, mReceiver);
+        runPendingTasks();
+
+        verify(mStats, times(2)).getTotalBytes(isNull());
+    }
+
+    /** Runs the background tasks, including those they queue, then delivers their results. */
+    private void runPendingTasks() {
+        while (!mPendingTasks.isEmpty()) {
+            mPendingTasks.remove(0).run();
+        }
+        ShadowLooper.idleMainLooper();
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.deviceadmin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import android.content.ComponentName;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.ResolveInfo;
+import android.os.UserHandle;
+import android.util.ArrayMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+public class DeviceAdminCatalogueTest {
+
+    private static final int USER_ID = 0;
+    private static final int WORK_USER_ID = 10;
+
+    private static final ComponentName ALPHA = new ComponentName("com.alpha", "com.alpha.Admin");
+    private static final ComponentName BETA = new ComponentName("com.beta", "com.beta.Admin");
+    private static final ComponentName GAMMA = new ComponentName("com.gamma", "com.gamma.Admin");
+
+    private FakeAdminSource mSource;
+    private DeviceAdminCatalogue mCatalogue;
+
+    @Before
+    public void setUp() {
+        mSource = new FakeAdminSource();
+        mSource.mProfiles.add(UserHandle.of(USER_ID));
+        mSource.addReceiver(GAMMA, USER_ID, "Gamma", 1);
+        mSource.addReceiver(ALPHA, USER_ID, "Alpha", 1);
+        mSource.addReceiver(BETA, USER_ID, "Beta", 1);
+        mCatalogue = new DeviceAdminCatalogue(mSource);
+    }
+
+    @Test
+    public void load_sortedByName() {
+        assertEquals(Arrays.asList("Alpha", "Beta", "Gamma"), names(mCatalogue.load()));
+    }
+
+    @Test
+    public void load_sameName_keepsActiveAdminsFirst() {
+        mSource.mNames.put(DeviceAdminListItem.getKey(BETA, USER_ID), "Gamma");
+        mSource.activate(GAMMA, USER_ID);
+
+        final List<DeviceAdminListItem> admins = mCatalogue.load();
+
+        assertEquals(Arrays.asList("Alpha", "Gamma", "Gamma"), names(admins));
+        assertEquals(DeviceAdminListItem.getKey(GAMMA, USER_ID), admins.get(1).getKey());
+        assertEquals(DeviceAdminListItem.getKey(BETA, USER_ID), admins.get(2).getKey());
+    }
+
+    @Test
+    public void load_hidesInvisibleReceiversUnlessActive() {
+        mSource.mInvisible.add(DeviceAdminListItem.getKey(BETA, USER_ID));
+        assertEquals(Arrays.asList("Alpha", "Gamma"), names(mCatalogue.load()));
+
+        mSource.activate(BETA, USER_ID);
+        assertEquals(Arrays.asList("Alpha", "Beta", "Gamma"), names(mCatalogue.load()));
+    }
+
+    @Test
+    public void load_again_doesNotReparse() {
+        final List<DeviceAdminListItem> first = mCatalogue.load();
+        mSource.mParsed.clear();
+
+        final List<DeviceAdminListItem> second = mCatalogue.load();
+
+        assertEquals(Collections.emptyList(), mSource.mParsed);
+        assertEquals(first, second);
+        for (int i = 0; i < first.size(); i++) {
+            assertSame(first.get(i), second.get(i));
+        }
+    }
+
+    @Test
+    public void load_invalidatedPackage_onlyReparsesThatPackage() {
+        mCatalogue.load();
+        mSource.mParsed.clear();
+
+        mCatalogue.invalidatePackage(BETA.getPackageName(), USER_ID);
+        mCatalogue.load();
+
+        assertEquals(Arrays.asList(DeviceAdminListItem.getKey(BETA, USER_ID)), mSource.mParsed);
+
+        // Only parsed again once.
+        mSource.mParsed.clear();
+        mCatalogue.load();
+        assertEquals(Collections.emptyList(), mSource.mParsed);
+    }
+
+    @Test
+    public void load_packageInvalidatedForAllUsers_reparsedInEachProfile() {
+        mSource.mProfiles.add(UserHandle.of(WORK_USER_ID));
+        mSource.addReceiver(BETA, WORK_USER_ID, "Beta", 1);
+        mCatalogue.load();
+        mSource.mParsed.clear();
+
+        mCatalogue.invalidatePackage(BETA.getPackageName(), UserHandle.USER_ALL);
+        mCatalogue.load();
+
+        assertEquals(Arrays.asList(DeviceAdminListItem.getKey(BETA, USER_ID),
+                DeviceAdminListItem.getKey(BETA, WORK_USER_ID)), mSource.mParsed);
+    }
+
+    @Test
+    public void load_versionChanged_reparsed() {
+        mCatalogue.load();
+        mSource.mParsed.clear();
+
+        mSource.addReceiver(ALPHA, USER_ID, "Alpha 2", 2);
+
+        assertEquals(Arrays.asList("Alpha 2", "Beta", "Gamma"), names(mCatalogue.load()));
+        assertEquals(Arrays.asList(DeviceAdminListItem.getKey(ALPHA, USER_ID)), mSource.mParsed);
+    }
+
+    @Test
+    public void load_activeAdminNotReceiver_receiverInfoOnlyQueriedToParse() {
+        final ComponentName delta = new ComponentName("com.delta", "com.delta.Admin");
+        mSource.mNames.put(DeviceAdminListItem.getKey(delta, USER_ID), "Delta");
+        mSource.mReceiverInfos.put(delta, activityInfo(delta, 1));
+        mSource.activate(delta, USER_ID);
+
+        assertEquals(Arrays.asList("Alpha", "Beta", "Delta", "Gamma"), names(mCatalogue.load()));
+        assertEquals(1, mSource.mReceiverInfoQueries);
+
+        mCatalogue.load();
+        assertEquals(1, mSource.mReceiverInfoQueries);
+
+        mCatalogue.invalidatePackage(delta.getPackageName(), USER_ID);
+        mCatalogue.load();
+        assertEquals(2, mSource.mReceiverInfoQueries);
+    }
+
+    @Test
+    public void load_removedReceiver_dropped() {
+        mCatalogue.load();
+        mSource.removeReceiver(BETA, USER_ID);
+
+        assertEquals(Arrays.asList("Alpha", "Gamma"), names(mCatalogue.load()));
+    }
+
+    @Test
+    public void load_returnsImmutableList() {
+        try {
+            mCatalogue.load().clear();
+            fail();
+        } catch (UnsupportedOperationException expected) {
+            // Expected.
+        }
+    }
+
+    private static List<String> names(List<DeviceAdminListItem> admins) {
+        final List<String> names = new ArrayList<>(admins.size());
+        for (DeviceAdminListItem admin : admins) {
+            names.add(admin.getName().toString());
+        }
+        return names;
+    }
+
+    private static ActivityInfo activityInfo(ComponentName component, long versionCode) {
+        final ActivityInfo ai = new ActivityInfo();
+        ai.packageName = component.getPackageName();
+        ai.name = component.getClassName();
+        ai.applicationInfo = new ApplicationInfo();
+        ai.applicationInfo.packageName = component.getPackageName();
+        ai.applicationInfo.longVersionCode = versionCode;
+        return ai;
+    }
+
+    private static class FakeAdminSource implements DeviceAdminCatalogue.AdminSource {
+        final List<UserHandle> mProfiles = new ArrayList<>();
+        final Map<Integer, List<ResolveInfo>> mReceivers = new ArrayMap<>();
+        final Map<Integer, List<ComponentName>> mActiveAdmins = new ArrayMap<>();
+        final Map<ComponentName, ActivityInfo> mReceiverInfos = new ArrayMap<>();
+        final Map<String, String> mNames = new ArrayMap<>();
+        final List<String> mInvisible = new ArrayList<>();
+        final List<String> mParsed = new ArrayList<>();
+        int mReceiverInfoQueries;
+
+        // Parsing needs the user of the receiver, which the fake tracks by ActivityInfo.
+        private final Map<ActivityInfo, Integer> mUsers = new ArrayMap<>();
+
+        void addReceiver(ComponentName component, int userId, String name, long versionCode) {
+            removeReceiver(component, userId);
+            final ResolveInfo resolveInfo = new ResolveInfo();
+            resolveInfo.activityInfo = activityInfo(component, versionCode);
+            mUsers.put(resolveInfo.activityInfo, userId);
+            mReceivers.computeIfAbsent(userId, id -> new ArrayList<>()).add(resolveInfo);
+            mNames.put(DeviceAdminListItem.getKey(component, userId), name);
+        }
+
+        void removeReceiver(ComponentName component, int userId) {
+            final List<ResolveInfo> receivers = mReceivers.get(userId);
+            if (receivers != null) {
+                receivers.removeIf(ri -> ri.activityInfo.name.equals(component.getClassName()));
+            }
+        }
+
+        void activate(ComponentName component, int userId) {
+            mActiveAdmins.computeIfAbsent(userId, id -> new ArrayList<>()).add(component);
+        }
+
+        @Override
+        public List<UserHandle> getUserProfiles() {
+            return mProfiles;
+        }
+
+        @Override
+        public List<ComponentName> getActiveAdmins(int userId) {
+            return mActiveAdmins.get(userId);
+        }
+
+        @Override
+        public ActivityInfo getReceiverInfo(ComponentName component, int userId) {
+            mReceiverInfoQueries++;
+            final ActivityInfo ai = mReceiverInfos.get(component);
+            if (ai != null) {
+                mUsers.put(ai, userId);
+            }
+            return ai;
+        }
+
+        @Override
+        public List<ResolveInfo> queryAdminReceivers(int userId) {
+            final List<ResolveInfo> receivers = mReceivers.get(userId);
+            return receivers != null ? new ArrayList<>(receivers) : null;
+        }
+
+        @Override
+        public DeviceAdminListItem parse(ActivityInfo ai) {
+            final ComponentName component = new ComponentName(ai.packageName, ai.name);
+            final int userId = mUsers.get(ai);
+            final String key = DeviceAdminListItem.getKey(component, userId);
+            mParsed.add(key);
+            return new DeviceAdminListItem(null /* dpm */, component, UserHandle.of(userId),
+                    mNames.get(key), !mInvisible.contains(key));
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.enterprise.apps;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.Manifest;
+import android.app.admin.DevicePolicyManager;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.IPackageManager;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.content.pm.UserInfo;
+import android.os.Build;
+import android.os.Process;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.util.ArrayMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for {@link InstalledPackagesIndex}, checking its results against the per-task scans of
+ * {@link AppCounter} and {@link AppLister}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class InstalledPackagesIndexTest {
+
+    private static final int MAIN_USER_ID = 0;
+    private static final int MANAGED_PROFILE_ID = 10;
+
+    private static final String[] CAMERA = {Manifest.permission.CAMERA};
+    private static final String[] LOCATION = {Manifest.permission.ACCESS_COARSE_LOCATION,
+            Manifest.permission.ACCESS_FINE_LOCATION};
+    private static final String[] MICROPHONE = {Manifest.permission.RECORD_AUDIO};
+
+    @Mock
+    private PackageManager mPm;
+    @Mock
+    private IPackageManager mPms;
+    @Mock
+    private DevicePolicyManager mDpm;
+    @Mock
+    private UserManager mUm;
+
+    private final Map<Integer, List<PackageInfo>> mPackages = new ArrayMap<>();
+    private final Map<String, Integer> mInstallReasons = new ArrayMap<>();
+    private final List<String> mLaunchablePackages = new ArrayList<>();
+    private Context mContext;
+    private InstalledPackagesIndex mIndex;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        mContext = new ContextWrapper(RuntimeEnvironment.application) {
+            @Override
+            public Object getSystemService(String name) {
+                return Context.USER_SERVICE.equals(name) ? mUm : super.getSystemService(name);
+            }
+        };
+
+        final UserInfo mainUser = new UserInfo(MAIN_USER_ID, "main",
+                UserInfo.FLAG_ADMIN | UserInfo.FLAG_PRIMARY);
+        final UserInfo managedProfile = new UserInfo(MANAGED_PROFILE_ID, "work",
+                UserInfo.FLAG_MANAGED_PROFILE);
+        when(mUm.getProfiles(UserHandle.myUserId()))
+                .thenReturn(Arrays.asList(mainUser, managedProfile));
+        mPackages.put(MAIN_USER_ID, new ArrayList<>());
+        mPackages.put(MANAGED_PROFILE_ID, new ArrayList<>());
+        mockPackageManager();
+
+        addApp(MAIN_USER_ID, "com.policy.camera", 0, Build.VERSION_CODES.R,
+                PackageManager.INSTALL_REASON_POLICY, Manifest.permission.CAMERA);
+        grantByPolicy("com.policy.camera", Manifest.permission.CAMERA);
+        addApp(MAIN_USER_ID, "com.policy.system.launchable", ApplicationInfo.FLAG_SYSTEM,
+                Build.VERSION_CODES.R, PackageManager.INSTALL_REASON_POLICY);
+        mLaunchablePackages.add("com.policy.system.launchable");
+        addApp(MAIN_USER_ID, "com.policy.system.hidden", ApplicationInfo.FLAG_SYSTEM,
+                Build.VERSION_CODES.R, PackageManager.INSTALL_REASON_POLICY);
+        addApp(MAIN_USER_ID, "com.user.camera", 0, Build.VERSION_CODES.R,
+                PackageManager.INSTALL_REASON_USER, Manifest.permission.CAMERA);
+        final PackageInfo legacy = addApp(MAIN_USER_ID, "com.policy.legacy", 0,
+                Build.VERSION_CODES.LOLLIPOP_MR1, PackageManager.INSTALL_REASON_POLICY);
+        // Granted through a shared uid, without requesting the permission itself.
+        when(mPms.checkUidPermission(Manifest.permission.CAMERA, legacy.applicationInfo.uid))
+                .thenReturn(PackageManager.PERMISSION_GRANTED);
+        addApp(MAIN_USER_ID, "com.user.location", 0, Build.VERSION_CODES.R,
+                PackageManager.INSTALL_REASON_USER, Manifest.permission.ACCESS_FINE_LOCATION);
+        grantByPolicy("com.user.location", Manifest.permission.ACCESS_FINE_LOCATION);
+        addApp(MANAGED_PROFILE_ID, "com.work.microphone", 0, Build.VERSION_CODES.R,
+                PackageManager.INSTALL_REASON_POLICY, Manifest.permission.RECORD_AUDIO);
+        grantByPolicy("com.work.microphone", Manifest.permission.RECORD_AUDIO);
+
+        mIndex = new InstalledPackagesIndex(mContext, mPm, mPms, mDpm, mUm);
+    }
+
+    @Test
+    public void countPolicyInstalledApps_matchesInstalledAppCounter() {
+        assertThat(mIndex.countPolicyInstalledApps()).isEqualTo(countPolicyInstalledApps());
+        assertThat(mIndex.countPolicyInstalledApps()).isEqualTo(4);
+    }
+
+    @Test
+    public void listPolicyInstalledApps_matchesInstalledAppLister() {
+        final List<UserAppInfo> expected = new InstalledAppLister(mPm, mUm) {
+            @Override
+            protected void onAppListBuilt(List<UserAppInfo> list) {
+            }
+        }.doInBackground();
+
+        assertThat(mIndex.listPolicyInstalledApps()).containsExactlyElementsIn(expected)
+                .inOrder();
+    }
+
+    @Test
+    public void countAppsWithAdminGrantedPermissions_matchesPermissionCounter() {
+        for (String[] permissions : new String[][] {CAMERA, LOCATION, MICROPHONE}) {
+            assertThat(mIndex.countAppsWithAdminGrantedPermissions(permissions))
+                    .isEqualTo(countAppsWithAdminGrantedPermissions(permissions));
+        }
+        assertThat(mIndex.countAppsWithAdminGrantedPermissions(CAMERA)).isEqualTo(2);
+    }
+
+    @Test
+    public void listAppsWithAdminGrantedPermissions_matchesPermissionLister() {
+        for (String[] permissions : new String[][] {CAMERA, LOCATION, MICROPHONE}) {
+            final List<UserAppInfo> expected = new AppWithAdminGrantedPermissionsLister(
+                    permissions, mPm, mPms, mDpm, mUm) {
+                @Override
+                protected void onAppListBuilt(List<UserAppInfo> list) {
+                }
+            }.doInBackground();
+
+            assertThat(mIndex.listAppsWithAdminGrantedPermissions(permissions))
+                    .containsExactlyElementsIn(expected).inOrder();
+        }
+    }
+
+    @Test
+    public void lookups_shareOneScanPerProfile() {
+        mIndex.countPolicyInstalledApps();
+        mIndex.countAppsWithAdminGrantedPermissions(CAMERA);
+        mIndex.countAppsWithAdminGrantedPermissions(LOCATION);
+        mIndex.listAppsWithAdminGrantedPermissions(MICROPHONE);
+
+        verify(mPm, times(1)).getInstalledPackagesAsUser(anyInt(), eq(MAIN_USER_ID));
+        verify(mPm, times(1)).getInstalledPackagesAsUser(anyInt(), eq(MANAGED_PROFILE_ID));
+    }
+
+    @Test
+    public void onPackageChanged_updatesOnlyThatPackage() {
+        assertThat(mIndex.countPolicyInstalledApps()).isEqualTo(4);
+
+        addApp(MANAGED_PROFILE_ID, "com.work.camera", 0, Build.VERSION_CODES.R,
+                PackageManager.INSTALL_REASON_POLICY, Manifest.permission.CAMERA);
+        grantByPolicy("com.work.camera", Manifest.permission.CAMERA);
+        mIndex.onPackageChanged("com.work.camera");
+        removeApp(MAIN_USER_ID, "com.policy.camera");
+        mIndex.onPackageChanged("com.policy.camera");
+
+        assertThat(mIndex.countPolicyInstalledApps()).isEqualTo(countPolicyInstalledApps());
+        assertThat(mIndex.countAppsWithAdminGrantedPermissions(CAMERA))
+                .isEqualTo(countAppsWithAdminGrantedPermissions(CAMERA));
+        verify(mPm, times(1)).getInstalledPackagesAsUser(anyInt(), eq(MAIN_USER_ID));
+        verify(mPm, times(1)).getInstalledPackagesAsUser(anyInt(), eq(MANAGED_PROFILE_ID));
+    }
+
+    @Test
+    public void onPackageChanged_existingPackage_keepsItsPosition() {
+        final List<UserAppInfo> before = mIndex.listPolicyInstalledApps();
+
+        mIndex.onPackageChanged("com.policy.camera");
+
+        assertThat(mIndex.listPolicyInstalledApps()).containsExactlyElementsIn(before).inOrder();
+    }
+
+    private int countPolicyInstalledApps() {
+        final int[] count = {-1};
+        new InstalledAppCounter(mContext, PackageManager.INSTALL_REASON_POLICY, mPm) {
+            @Override
+            protected void onCountComplete(int num) {
+                count[0] = num;
+            }
+        }.executeInForeground();
+        return count[0];
+    }
+
+    private int countAppsWithAdminGrantedPermissions(String[] permissions) {
+        final int[] count = {-1};
+        new AppWithAdminGrantedPermissionsCounter(mContext, permissions, mPm, mPms, mDpm) {
+            @Override
+            protected void onCountComplete(int num) {
+                count[0] = num;
+            }
+        }.executeInForeground();
+        return count[0];
+    }
+
+    private void mockPackageManager() throws Exception {
+        when(mPm.getInstalledPackagesAsUser(anyInt(), anyInt())).thenAnswer(invocation ->
+                new ArrayList<>(mPackages.get(invocation.<Integer>getArgument(1))));
+        when(mPm.getInstalledApplicationsAsUser(anyInt(), anyInt())).thenAnswer(invocation -> {
+            final List<ApplicationInfo> infos = new ArrayList<>();
+            for (PackageInfo packageInfo : mPackages.get(invocation.<Integer>getArgument(1))) {
+                infos.add(packageInfo.applicationInfo);
+            }
+            return infos;
+        });
+        when(mPm.getPackageInfoAsUser(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            for (PackageInfo packageInfo : mPackages.get(invocation.<Integer>getArgument(2))) {
+                if (packageInfo.packageName.equals(invocation.getArgument(0))) {
+                    return packageInfo;
+                }
+            }
+            throw new PackageManager.NameNotFoundException();
+        });
+        when(mPm.getInstallReason(anyString(), any(UserHandle.class))).thenAnswer(invocation ->
+                mInstallReasons.get((String) invocation.getArgument(0)));
+        when(mPm.queryIntentActivitiesAsUser(any(Intent.class), anyInt(), anyInt()))
+                .thenAnswer(invocation -> {
+                    final Intent intent = invocation.getArgument(0);
+                    return mLaunchablePackages.contains(intent.getPackage())
+                            ? Collections.singletonList(new ResolveInfo())
+                            : Collections.emptyList();
+                });
+        when(mDpm.getPermissionGrantState(isNull(), anyString(), anyString()))
+                .thenReturn(DevicePolicyManager.PERMISSION_GRANT_STATE_DEFAULT);
+        when(mPms.checkUidPermission(anyString(), anyInt()))
+                .thenReturn(PackageManager.PERMISSION_DENIED);
+    }
+
+    private PackageInfo addApp(int userId, String packageName, int flags, int targetSdkVersion,
+            int installReason, String... requestedPermissions) {
+        final ApplicationInfo info = new ApplicationInfo();
+        info.packageName = packageName;
+        info.flags = flags;
+        info.targetSdkVersion = targetSdkVersion;
+        info.uid = UserHandle.getUid(userId,
+                Process.FIRST_APPLICATION_UID + mInstallReasons.size());
+        final PackageInfo packageInfo = new PackageInfo();
+        packageInfo.packageName = packageName;
+        packageInfo.applicationInfo = info;
+        packageInfo.requestedPermissions =
+                requestedPermissions.length > 0 ? requestedPermissions : null;
+        mPackages.get(userId).add(packageInfo);
+        mInstallReasons.put(packageName, installReason);
+        return packageInfo;
+    }
+
+    private void removeApp(int userId, String packageName) {
+        mPackages.get(userId).removeIf(packageInfo -> packageInfo.packageName.equals(packageName));
+    }
+
+    private void grantByPolicy(String packageName, String permission) {
+        when(mDpm.getPermissionGrantState(null, packageName, permission))
+                .thenReturn(DevicePolicyManager.PERMISSION_GRANT_STATE_GRANTED);
+    }
+}
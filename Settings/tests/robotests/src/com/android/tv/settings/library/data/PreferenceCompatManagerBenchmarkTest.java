@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.library.data;
+
+import static org.junit.Assert.assertNotNull;
+
+import com.android.tv.settings.testutils.MicroBenchmark;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+/** Benchmarks compound key handling of {@link PreferenceCompatManager}. */
+@RunWith(RobolectricTestRunner.class)
+public class PreferenceCompatManagerBenchmarkTest {
+
+    private static final int KEY_DEPTH = 12;
+    private static final int KEY_COUNT = 500;
+    private static final int WARM_UP = 20_000;
+    private static final int ITERATIONS = 200_000;
+    // Generous, so that only a change in complexity fails, not noise from the host machine.
+    private static final double MAX_RATIO = 10;
+
+    @Test
+    public void getKey_deepCompoundKey() {
+        final String[] key = createKey(0);
+
+        final MicroBenchmark.Result baseline = MicroBenchmark.run("join_depth" + KEY_DEPTH,
+                WARM_UP, ITERATIONS, () -> join(key));
+        final MicroBenchmark.Result result = MicroBenchmark.run("getKey_depth" + KEY_DEPTH,
+                WARM_UP, ITERATIONS, () -> PreferenceCompatManager.getKey(key));
+
+        MicroBenchmark.assertNotSlowerThan(result, baseline, MAX_RATIO);
+        MicroBenchmark.assertAllocationsWithinBudget(result, 4_096L);
+    }
+
+    @Test
+    public void getPrefCompat_deepCompoundKeys() {
+        final PreferenceCompatManager manager = new PreferenceCompatManager();
+        final String[][] keys = new String[KEY_COUNT][];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = createKey(i);
+            manager.getOrCreatePrefCompat(keys[i]);
+        }
+        final int[] next = new int[1];
+        // The lookup itself is a map access, so building the compound key should dominate.
+        final MicroBenchmark.Result baseline = MicroBenchmark.run("getKey_depth" + KEY_DEPTH,
+                WARM_UP, ITERATIONS, () -> {
+                    PreferenceCompatManager.getKey(keys[next[0]]);
+                    next[0] = (next[0] + 1) % KEY_COUNT;
+                });
+
+        final MicroBenchmark.Result result = MicroBenchmark.run("getPrefCompat_depth" + KEY_DEPTH,
+                WARM_UP, ITERATIONS, () -> {
+                    assertNotNull(manager.getPrefCompat(keys[next[0]]));
+                    next[0] = (next[0] + 1) % KEY_COUNT;
+                });
+
+        MicroBenchmark.assertNotSlowerThan(result, baseline, MAX_RATIO);
+        MicroBenchmark.assertAllocationsWithinBudget(result, 4_096L);
+    }
+
+    /** Plain join of the key parts, the least work any compound key has to do. */
+    private static String join(String[] key) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < key.length; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append(key[i]);
+        }
+        return builder.toString();
+    }
+
+    private static String[] createKey(int index) {
+        final String[] key = new String[KEY_DEPTH];
+        for (int i = 0; i < KEY_DEPTH; i++) {
+            key[i] = "level" + i + "_preference_key_" + index;
+        }
+        return key;
+    }
+}
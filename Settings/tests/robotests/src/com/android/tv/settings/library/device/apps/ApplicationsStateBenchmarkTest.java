@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.library.device.apps;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import android.app.Application;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.IPackageManager;
+
+import com.android.tv.settings.testutils.MicroBenchmark;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/** Benchmarks {@link ApplicationsState.Session} rebuilding a list of 2,000 apps. */
+@RunWith(RobolectricTestRunner.class)
+public class ApplicationsStateBenchmarkTest {
+
+    private static final int APP_COUNT = 2000;
+    private static final int WARM_UP = 5;
+    private static final int ITERATIONS = 20;
+    // Generous, so that only a change in complexity fails, not noise from the host machine.
+    private static final double MAX_RATIO = 10;
+
+    private ApplicationsState mState;
+    private ApplicationsState.Session mSession;
+
+    @Before
+    public void setUp() {
+        final Application app = RuntimeEnvironment.application;
+        mState = ApplicationsState.getInstance(app, mock(IPackageManager.class));
+        synchronized (mState.mEntriesMap) {
+            for (int i = 0; i < APP_COUNT; i++) {
+                final ApplicationInfo info = new ApplicationInfo();
+                // Labels in an order unrelated to the package names, as in real app lists.
+                info.packageName = "com.example.app" + (i * 7919 % APP_COUNT);
+                info.uid = 10000 + i;
+                info.sourceDir = "/data/app/" + info.packageName + "/base.apk";
+                info.flags = i % 4 == 0 ? ApplicationInfo.FLAG_SYSTEM : 0;
+                mState.mAppEntries.add(new ApplicationsState.AppEntry(app, info, i));
+            }
+        }
+        mSession = mState.newSession(null);
+        mSession.mResumed = true;
+    }
+
+    @After
+    public void tearDown() {
+        ApplicationsState.sInstance = null;
+    }
+
+    @Test
+    public void rebuild_everything_alphabetical() {
+        final MicroBenchmark.Result result = MicroBenchmark.run("rebuild_everything_alpha",
+                WARM_UP, ITERATIONS, () -> rebuild(ApplicationsState.FILTER_EVERYTHING,
+                        ApplicationsState.ALPHA_COMPARATOR));
+
+        assertEquals(APP_COUNT, mSession.mLastAppList.size());
+        MicroBenchmark.assertNotSlowerThan(result, sortBaseline(), MAX_RATIO);
+        MicroBenchmark.assertAllocationsWithinBudget(result, 16_000_000L);
+    }
+
+    @Test
+    public void rebuild_thirdParty_alphabetical() {
+        final MicroBenchmark.Result result = MicroBenchmark.run("rebuild_third_party_alpha",
+                WARM_UP, ITERATIONS, () -> rebuild(ApplicationsState.FILTER_THIRD_PARTY,
+                        ApplicationsState.ALPHA_COMPARATOR));
+
+        assertEquals(APP_COUNT * 3 / 4, mSession.mLastAppList.size());
+        MicroBenchmark.assertNotSlowerThan(result, sortBaseline(), MAX_RATIO);
+        MicroBenchmark.assertAllocationsWithinBudget(result, 16_000_000L);
+    }
+
+    /**
+     * Sorts all entries alphabetically, which any rebuild has to do. Runs after a rebuild, so the
+     * labels are already loaded.
+     */
+    private MicroBenchmark.Result sortBaseline() {
+        return MicroBenchmark.run("sort_alpha", WARM_UP, ITERATIONS, () -> {
+            final List<ApplicationsState.AppEntry> entries = new ArrayList<>(mState.mAppEntries);
+            Collections.sort(entries, ApplicationsState.ALPHA_COMPARATOR);
+        });
+    }
+
+    private void rebuild(ApplicationsState.AppFilter filter,
+            Comparator<ApplicationsState.AppEntry> comparator) {
+        // What rebuild() asks the background thread to do, run on this thread.
+        synchronized (mSession.mRebuildSync) {
+            mSession.mRebuildRequested = true;
+            mSession.mRebuildAsync = false;
+            mSession.mRebuildFilter = filter;
+            mSession.mRebuildComparator = comparator;
+        }
+        mSession.handleRebuildList();
+        if (mSession.mRebuildResult == null) {
+            throw new IllegalStateException("Rebuild did not complete");
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.system;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.LocaleList;
+
+import com.android.internal.app.LocalePicker;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+@RunWith(RobolectricTestRunner.class)
+public class CaptionLocaleCatalogueTest {
+
+    private LocaleList mDefaultLocales;
+    private Context mContext;
+    private FakeLocaleSource mSource;
+    private CaptionLocaleCatalogue mCatalogue;
+
+    @Before
+    public void setUp() {
+        mDefaultLocales = LocaleList.getDefault();
+        LocaleList.setDefault(LocaleList.forLanguageTags("en-US"));
+        mContext = RuntimeEnvironment.application;
+        mSource = new FakeLocaleSource();
+        mCatalogue = new CaptionLocaleCatalogue(mContext, mSource);
+    }
+
+    @After
+    public void tearDown() {
+        LocaleList.setDefault(mDefaultLocales);
+    }
+
+    @Test
+    public void build_keepsAssetLocaleOrderAfterDefaultEntry() {
+        final CaptionLocaleCatalogue.Entries entries = mCatalogue.build();
+
+        assertArrayEquals(new CharSequence[] {"Default", "Français", "English (US)", "日本語"},
+                entries.names);
+        assertArrayEquals(new CharSequence[] {"", "fr_FR", "en_US", "ja_JP"}, entries.values);
+    }
+
+    @Test
+    public void getCachedEntries_builtOnce() {
+        assertNull(mCatalogue.getCachedEntries());
+
+        final CaptionLocaleCatalogue.Entries entries = mCatalogue.build();
+
+        assertSame(entries, mCatalogue.getCachedEntries());
+        assertSame(entries, mCatalogue.getCachedEntries());
+        assertEquals(1, mSource.mLoadCount);
+    }
+
+    @Test
+    public void getEntries_cached_calledSynchronously() {
+        final CaptionLocaleCatalogue.Entries entries = mCatalogue.build();
+        final CaptionLocaleCatalogue.Entries[] result = new CaptionLocaleCatalogue.Entries[1];
+
+        mCatalogue.getEntries(e -> result[0] = e);
+
+        assertSame(entries, result[0]);
+        assertEquals(1, mSource.mLoadCount);
+    }
+
+    @Test
+    public void getEntries_whileBuilding_sharesTheBuild() {
+        final List<Runnable> tasks = new ArrayList<>();
+        mCatalogue.mBackgroundExecutor = tasks::add;
+        final List<CaptionLocaleCatalogue.Entries> results = new ArrayList<>();
+
+        mCatalogue.getEntries(results::add);
+        mCatalogue.getEntries(results::add);
+        assertEquals(1, tasks.size());
+
+        tasks.get(0).run();
+        ShadowLooper.idleMainLooper();
+
+        assertEquals(2, results.size());
+        assertSame(results.get(0), results.get(1));
+        assertEquals(1, mSource.mLoadCount);
+    }
+
+    @Test
+    public void getCachedEntries_systemLocaleChanged_notReturned() {
+        mCatalogue.build();
+
+        LocaleList.setDefault(LocaleList.forLanguageTags("fr-FR"));
+
+        assertNull(mCatalogue.getCachedEntries());
+    }
+
+    @Test
+    public void localeChangedBroadcast_invalidates() {
+        mCatalogue.build();
+
+        mContext.sendBroadcast(new Intent(Intent.ACTION_LOCALE_CHANGED));
+        ShadowLooper.idleMainLooper();
+
+        assertNull(mCatalogue.getCachedEntries());
+        mSource.mDefaultName = "Par défaut";
+        final CaptionLocaleCatalogue.Entries entries = mCatalogue.build();
+        assertEquals("Par défaut", entries.names[0]);
+        assertEquals(2, mSource.mLoadCount);
+    }
+
+    @Test
+    public void invalidate_duringBuild_notCached() {
+        mSource.mOnLoad = mCatalogue::invalidate;
+
+        assertNotNull(mCatalogue.build());
+
+        assertNull(mCatalogue.getCachedEntries());
+    }
+
+    private static class FakeLocaleSource implements CaptionLocaleCatalogue.LocaleSource {
+        CharSequence mDefaultName = "Default";
+        Runnable mOnLoad;
+        int mLoadCount;
+
+        @Override
+        public List<LocalePicker.LocaleInfo> getAllAssetLocales() {
+            mLoadCount++;
+            if (mOnLoad != null) {
+                mOnLoad.run();
+            }
+            return Arrays.asList(
+                    new LocalePicker.LocaleInfo("Français", Locale.FRANCE),
+                    new LocalePicker.LocaleInfo("English (US)", Locale.US),
+                    new LocalePicker.LocaleInfo("日本語", Locale.JAPAN));
+        }
+
+        @Override
+        public CharSequence getDefaultName() {
+            return mDefaultName;
+        }
+    }
+}
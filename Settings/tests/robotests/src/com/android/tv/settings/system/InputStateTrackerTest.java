@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.system;
+
+import static android.media.tv.TvInputManager.INPUT_STATE_CONNECTED;
+import static android.media.tv.TvInputManager.INPUT_STATE_CONNECTED_STANDBY;
+import static android.media.tv.TvInputManager.INPUT_STATE_DISCONNECTED;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.util.ArrayMap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(RobolectricTestRunner.class)
+public class InputStateTrackerTest {
+
+    private static final String HDMI1 = "hdmi1";
+    private static final String HDMI2 = "hdmi2";
+    private static final String TUNER = "tuner";
+
+    private FakeInputSource mSource;
+    private InputStateTracker mTracker;
+
+    @Before
+    public void setUp() {
+        mSource = new FakeInputSource();
+        mSource.add(HDMI1, INPUT_STATE_CONNECTED, "HDMI 1");
+        mSource.add(HDMI2, INPUT_STATE_DISCONNECTED, "HDMI 2");
+        mSource.addUnlisted(TUNER);
+        mTracker = new InputStateTracker(mSource);
+    }
+
+    @Test
+    public void load_listsInputsInOrder() {
+        assertEquals(Arrays.asList(HDMI1, HDMI2), mTracker.load());
+        assertEquals(INPUT_STATE_CONNECTED, mTracker.getState(HDMI1));
+        assertEquals(INPUT_STATE_DISCONNECTED, mTracker.getState(HDMI2));
+        assertEquals(InputStateTracker.STATE_NONE, mTracker.getState(TUNER));
+    }
+
+    @Test
+    public void load_inputGoneWhileIterating_skipped() {
+        mSource.mGoneIds.add(HDMI2);
+
+        assertEquals(Arrays.asList(HDMI1), mTracker.load());
+        assertEquals(InputStateTracker.STATE_NONE, mTracker.getState(HDMI2));
+    }
+
+    @Test
+    public void onInputStateChanged_movesInput() {
+        mTracker.load();
+
+        assertTrue(mTracker.onInputStateChanged(HDMI1, INPUT_STATE_CONNECTED_STANDBY));
+        assertEquals(INPUT_STATE_CONNECTED_STANDBY, mTracker.getState(HDMI1));
+        assertTrue(mTracker.onInputStateChanged(HDMI2, INPUT_STATE_CONNECTED));
+        assertEquals(INPUT_STATE_CONNECTED, mTracker.getState(HDMI2));
+    }
+
+    @Test
+    public void onInputStateChanged_sameStateOrUnlisted_ignored() {
+        mTracker.load();
+
+        assertFalse(mTracker.onInputStateChanged(HDMI1, INPUT_STATE_CONNECTED));
+        assertFalse(mTracker.onInputStateChanged(TUNER, INPUT_STATE_CONNECTED));
+        assertEquals(InputStateTracker.STATE_NONE, mTracker.getState(TUNER));
+    }
+
+    @Test
+    public void onInputAdded_listedInput_added() {
+        mTracker.load();
+        mSource.add("hdmi3", INPUT_STATE_CONNECTED_STANDBY, "HDMI 3");
+
+        assertTrue(mTracker.onInputAdded("hdmi3"));
+        assertEquals(INPUT_STATE_CONNECTED_STANDBY, mTracker.getState("hdmi3"));
+        assertFalse(mTracker.onInputAdded("hdmi3"));
+    }
+
+    @Test
+    public void onInputAdded_unlistedInput_ignored() {
+        mTracker.load();
+
+        assertFalse(mTracker.onInputAdded(TUNER));
+        assertEquals(InputStateTracker.STATE_NONE, mTracker.getState(TUNER));
+    }
+
+    @Test
+    public void onInputRemoved() {
+        mTracker.load();
+
+        assertTrue(mTracker.onInputRemoved(HDMI1));
+        assertEquals(InputStateTracker.STATE_NONE, mTracker.getState(HDMI1));
+        assertFalse(mTracker.onInputRemoved(HDMI1));
+        assertFalse(mTracker.onInputRemoved(TUNER));
+    }
+
+    @Test
+    public void getLabel_loadedOnceUntilUpdated() {
+        mTracker.load();
+
+        assertEquals("HDMI 1", mTracker.getLabel(HDMI1));
+        mSource.mLabels.put(HDMI1, "Console");
+        assertEquals("HDMI 1", mTracker.getLabel(HDMI1));
+        assertEquals(1, mSource.mLabelLoadCount);
+
+        assertTrue(mTracker.onInputUpdated(HDMI1));
+        assertEquals("Console", mTracker.getLabel(HDMI1));
+        assertEquals(2, mSource.mLabelLoadCount);
+    }
+
+    @Test
+    public void getLabel_unlistedInput_notLoaded() {
+        mTracker.load();
+
+        assertEquals(null, mTracker.getLabel(TUNER));
+        assertEquals(0, mSource.mLabelLoadCount);
+    }
+
+    @Test
+    public void onInputUpdated_noLongerListed_removed() {
+        mTracker.load();
+        mSource.mUnlistedIds.add(HDMI2);
+
+        assertTrue(mTracker.onInputUpdated(HDMI2));
+        assertEquals(InputStateTracker.STATE_NONE, mTracker.getState(HDMI2));
+    }
+
+    @Test
+    public void onInputUpdated_newlyListed_added() {
+        mTracker.load();
+        mSource.mUnlistedIds.remove(TUNER);
+        mSource.mStates.put(TUNER, INPUT_STATE_CONNECTED);
+
+        assertTrue(mTracker.onInputUpdated(TUNER));
+        assertEquals(INPUT_STATE_CONNECTED, mTracker.getState(TUNER));
+    }
+
+    private static class FakeInputSource implements InputStateTracker.InputSource {
+        final List<String> mIds = new ArrayList<>();
+        final List<String> mUnlistedIds = new ArrayList<>();
+        final List<String> mGoneIds = new ArrayList<>();
+        final Map<String, Integer> mStates = new ArrayMap<>();
+        final Map<String, CharSequence> mLabels = new ArrayMap<>();
+        int mLabelLoadCount;
+
+        void add(String inputId, int state, CharSequence label) {
+            mIds.add(inputId);
+            mStates.put(inputId, state);
+            mLabels.put(inputId, label);
+        }
+
+        void addUnlisted(String inputId) {
+            mIds.add(inputId);
+            mUnlistedIds.add(inputId);
+        }
+
+        @Override
+        public List<String> getInputIds() {
+            final List<String> inputIds = new ArrayList<>(mIds);
+            inputIds.removeAll(mUnlistedIds);
+            return inputIds;
+        }
+
+        @Override
+        public boolean isListed(String inputId) {
+            return mIds.contains(inputId) && !mUnlistedIds.contains(inputId)
+                    && !mGoneIds.contains(inputId);
+        }
+
+        @Override
+        public int getInputState(String inputId) {
+            if (mGoneIds.contains(inputId) || !mStates.containsKey(inputId)) {
+                throw new IllegalArgumentException("Unknown input " + inputId);
+            }
+            return mStates.get(inputId);
+        }
+
+        @Override
+        public CharSequence loadLabel(String inputId) {
+            mLabelLoadCount++;
+            return mLabels.get(inputId);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.system.development;
+
+import static org.junit.Assert.assertEquals;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(RobolectricTestRunner.class)
+public class DeferredPropPokerTest {
+
+    private final AtomicInteger mPokes = new AtomicInteger();
+    private DeferredPropPoker mPoker;
+
+    @Before
+    public void setUp() {
+        mPoker = new DeferredPropPoker(new Handler(Looper.getMainLooper()),
+                mPokes::incrementAndGet);
+    }
+
+    @Test
+    public void schedulePoke_severalWrites_pokesOnce() {
+        for (int i = 0; i < 5; i++) {
+            mPoker.schedulePoke();
+        }
+        assertEquals(0, mPokes.get());
+
+        idleMainLooper(DeferredPropPoker.POKE_DELAY_MS);
+
+        assertEquals(1, mPokes.get());
+    }
+
+    @Test
+    public void schedulePoke_writesFurtherApart_pokesForEach() {
+        mPoker.schedulePoke();
+        idleMainLooper(DeferredPropPoker.POKE_DELAY_MS);
+        mPoker.schedulePoke();
+        idleMainLooper(DeferredPropPoker.POKE_DELAY_MS);
+
+        assertEquals(2, mPokes.get());
+    }
+
+    @Test
+    public void flush_pokesPendingPokeOnce() {
+        mPoker.schedulePoke();
+        mPoker.schedulePoke();
+
+        mPoker.flush();
+        mPoker.flush();
+        idleMainLooper(DeferredPropPoker.POKE_DELAY_MS);
+
+        assertEquals(1, mPokes.get());
+    }
+
+    @Test
+    public void flush_nothingPending_doesNotPoke() {
+        mPoker.flush();
+
+        assertEquals(0, mPokes.get());
+    }
+
+    @Test
+    public void pokeNow_replacesScheduledPoke() {
+        mPoker.schedulePoke();
+
+        mPoker.pokeNow();
+        idleMainLooper(DeferredPropPoker.POKE_DELAY_MS);
+
+        assertEquals(1, mPokes.get());
+    }
+
+    private static void idleMainLooper(long delayMs) {
+        ShadowLooper.idleMainLooper(delayMs, TimeUnit.MILLISECONDS);
+    }
+}
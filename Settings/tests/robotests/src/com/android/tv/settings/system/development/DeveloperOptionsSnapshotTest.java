@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.system.development;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import android.app.backup.IBackupManager;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.os.RemoteException;
+import android.os.SystemProperties;
+import android.provider.Settings;
+import android.view.IWindowManager;
+import android.view.ThreadedRenderer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class DeveloperOptionsSnapshotTest {
+
+    private Context mContext;
+    private IWindowManager mWindowManager;
+    private IBackupManager mBackupManager;
+
+    @Before
+    public void setUp() throws RemoteException {
+        mContext = RuntimeEnvironment.application;
+        mWindowManager = mock(IWindowManager.class);
+        mBackupManager = mock(IBackupManager.class);
+        doReturn(1f).when(mWindowManager).getAnimationScale(anyInt());
+    }
+
+    @Test
+    public void load_readsCurrentOptions() throws RemoteException {
+        final ContentResolver cr = mContext.getContentResolver();
+        Settings.Global.putInt(cr, Settings.Global.ADB_ENABLED, 1);
+        Settings.Global.putInt(cr, Settings.Global.DISABLE_WINDOW_BLURS, 1);
+        Settings.Global.putString(cr, Settings.Global.OVERLAY_DISPLAY_DEVICES, "720x480/142");
+        Settings.System.putInt(cr, Settings.System.SHOW_TOUCHES, 1);
+        Settings.Secure.putInt(cr, Settings.Secure.ACCESSIBILITY_DISPLAY_DALTONIZER_ENABLED, 1);
+        Settings.Secure.putInt(cr, Settings.Secure.ACCESSIBILITY_DISPLAY_DALTONIZER, 11);
+        SystemProperties.set(DevelopmentFragment.HDCP_CHECKING_PROPERTY, "always");
+        SystemProperties.set(ThreadedRenderer.PROFILE_PROPERTY, "visual_bars");
+        doReturn(0.5f).when(mWindowManager).getAnimationScale(1);
+        doReturn(true).when(mBackupManager).hasBackupPassword();
+
+        final DeveloperOptionsSnapshot options = load();
+
+        assertTrue(options.adbEnabled);
+        assertFalse(options.keepScreenOn);
+        assertFalse(options.windowBlursEnabled);
+        assertEquals("720x480/142", options.overlayDisplayDevices);
+        assertTrue(options.showTouches);
+        assertFalse(options.pointerLocation);
+        assertTrue(options.daltonizerEnabled);
+        assertEquals(11, options.daltonizerMode);
+        assertEquals("always", options.hdcpChecking);
+        assertEquals("visual_bars", options.trackFrameTime);
+        assertEquals(1f, options.windowAnimationScale, 0f);
+        assertEquals(0.5f, options.transitionAnimationScale, 0f);
+        assertEquals(Boolean.TRUE, options.hasBackupPassword);
+        assertFalse(options.adbRootEnabled);
+        assertFalse(options.terminalEnabled);
+    }
+
+    @Test
+    public void load_unsetOptions_useDefaults() {
+        final DeveloperOptionsSnapshot options = load();
+
+        assertEquals("", options.overlayDisplayDevices);
+        assertEquals("", options.trackFrameTime);
+        assertEquals("hide", options.showNonRectClip);
+        assertTrue(options.verifyAppsOverUsb);
+        assertFalse(options.verifierSettingEnabled);
+        assertEquals(-1, options.adbPort);
+        assertNull(options.adbHostAddress);
+        assertNull(options.debugAppLabel);
+        assertNull(options.mockLocationAppLabel);
+    }
+
+    @Test
+    public void load_unreachableServices_leaveOptionsUnset() throws RemoteException {
+        doThrow(new RemoteException()).when(mWindowManager).getAnimationScale(anyInt());
+        doThrow(new RemoteException()).when(mBackupManager).hasBackupPassword();
+
+        final DeveloperOptionsSnapshot options = load();
+
+        assertTrue(Float.isNaN(options.windowAnimationScale));
+        assertNull(options.hasBackupPassword);
+    }
+
+    @Test
+    public void load_mockLocationAppNotAllowed_keepsPrevious() {
+        final DeveloperOptionsSnapshot options = DeveloperOptionsSnapshot.load(mContext,
+                mWindowManager, mBackupManager, null, false, "com.example.mock");
+
+        assertEquals("com.example.mock", options.mockLocationApp);
+        assertEquals("com.example.mock", options.mockLocationAppLabel);
+    }
+
+    private DeveloperOptionsSnapshot load() {
+        return DeveloperOptionsSnapshot.load(mContext, mWindowManager, mBackupManager, null,
+                false, null);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License
+ */
+
+package com.android.tv.settings.system.development;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+
+import android.app.backup.IBackupManager;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.os.RemoteException;
+import android.os.SystemProperties;
+import android.provider.Settings;
+import android.view.IWindowManager;
+import android.view.ThreadedRenderer;
+
+import androidx.preference.ListPreference;
+import androidx.preference.TwoStatePreference;
+
+import com.android.tv.settings.R;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.shadows.androidx.fragment.FragmentController;
+
+import java.util.function.Supplier;
+
+@RunWith(RobolectricTestRunner.class)
+public class DevelopmentFragmentTest {
+
+    private Context mContext;
+    private IWindowManager mWindowManager;
+    private IBackupManager mBackupManager;
+
+    @Before
+    public void setUp() throws RemoteException {
+        mContext = RuntimeEnvironment.application;
+        mWindowManager = mock(IWindowManager.class);
+        mBackupManager = mock(IBackupManager.class);
+        doReturn(1f).when(mWindowManager).getAnimationScale(anyInt());
+
+        final ContentResolver cr = mContext.getContentResolver();
+        Settings.Global.putInt(cr, Settings.Global.DEVELOPMENT_SETTINGS_ENABLED, 1);
+        Settings.Global.putInt(cr, Settings.Global.STAY_ON_WHILE_PLUGGED_IN, 3);
+        Settings.Global.putString(cr, Settings.Global.DEBUG_APP, "com.example.debug");
+        Settings.Global.putInt(cr, Settings.Global.WAIT_FOR_DEBUGGER, 1);
+        Settings.System.putInt(cr, Settings.System.SHOW_TOUCHES, 1);
+        Settings.Secure.putInt(cr, Settings.Secure.USB_AUDIO_AUTOMATIC_ROUTING_DISABLED, 1);
+        SystemProperties.set(ThreadedRenderer.DEBUG_OVERDRAW_PROPERTY, "show");
+    }
+
+    @Test
+    public void onResume_bindsOptionsLoadedInBackground() {
+        final DevelopmentFragment fragment = startFragment().get();
+
+        assertTrue(isChecked(fragment, "keep_screen_on"));
+        assertTrue(isChecked(fragment, "wait_for_debugger"));
+        assertTrue(isChecked(fragment, "show_touches"));
+        assertTrue(isChecked(fragment, "usb_audio"));
+        assertEquals("show",
+                ((ListPreference) fragment.findPreference("debug_hw_overdraw")).getValue());
+        assertEquals(mContext.getString(R.string.debug_app_set, "com.example.debug"),
+                fragment.findPreference("debug_app").getSummary().toString());
+    }
+
+    @Test
+    public void onResume_afterSettingsChange_bindsNewValues() {
+        final FragmentController<DevelopmentFragment> controller = startFragment();
+
+        clearOptions();
+        controller.pause().resume();
+        ShadowLooper.idleMainLooper();
+
+        assertOptionsCleared(controller.get());
+    }
+
+    @Test
+    public void updateAllOptions_afterSettingsChange_bindsNewValues() {
+        final DevelopmentFragment fragment = startFragment().get();
+
+        clearOptions();
+        fragment.updateAllOptions();
+
+        assertOptionsCleared(fragment);
+    }
+
+    private FragmentController<DevelopmentFragment> startFragment() {
+        final DevelopmentFragment fragment = spy(DevelopmentFragment.class);
+        // Loads on the calling thread; the result is still posted to the main looper.
+        fragment.mBackgroundExecutor = Runnable::run;
+        doAnswer(invocation -> (Supplier<DeveloperOptionsSnapshot>) () ->
+                DeveloperOptionsSnapshot.load(mContext, mWindowManager, mBackupManager, null,
+                        false, null))
+                .when(fragment).createOptionsLoader();
+
+        final FragmentController<DevelopmentFragment> controller =
+                FragmentController.of(fragment).create().start().resume();
+        ShadowLooper.idleMainLooper();
+        return controller;
+    }
+
+    /** Reverts the options written in {@link #setUp()}. */
+    private void clearOptions() {
+        final ContentResolver cr = mContext.getContentResolver();
+        Settings.Global.putInt(cr, Settings.Global.STAY_ON_WHILE_PLUGGED_IN, 0);
+        Settings.Global.putString(cr, Settings.Global.DEBUG_APP, null);
+        Settings.Global.putInt(cr, Settings.Global.WAIT_FOR_DEBUGGER, 0);
+        Settings.System.putInt(cr, Settings.System.SHOW_TOUCHES, 0);
+        Settings.Secure.putInt(cr, Settings.Secure.USB_AUDIO_AUTOMATIC_ROUTING_DISABLED, 0);
+        SystemProperties.set(ThreadedRenderer.DEBUG_OVERDRAW_PROPERTY, "");
+    }
+
+    private void assertOptionsCleared(DevelopmentFragment fragment) {
+        assertFalse(isChecked(fragment, "keep_screen_on"));
+        assertFalse(isChecked(fragment, "wait_for_debugger"));
+        assertFalse(isChecked(fragment, "show_touches"));
+        assertFalse(isChecked(fragment, "usb_audio"));
+        final ListPreference overdraw = fragment.findPreference("debug_hw_overdraw");
+        assertEquals(overdraw.getEntryValues()[0], overdraw.getValue());
+        assertEquals(mContext.getString(R.string.debug_app_not_set),
+                fragment.findPreference("debug_app").getSummary().toString());
+    }
+
+    private static boolean isChecked(DevelopmentFragment fragment, String key) {
+        return ((TwoStatePreference) fragment.findPreference(key)).isChecked();
+    }
+}
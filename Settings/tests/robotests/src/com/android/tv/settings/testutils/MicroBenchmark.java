@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.testutils;
+
+import static org.junit.Assert.assertTrue;
+
+import android.util.Log;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Minimal timing harness for host side micro benchmarks run as Robolectric tests.
+ *
+ * <p>Runs an operation a number of times after a warm up and logs its throughput and allocated
+ * bytes per operation. Time is only checked relative to a baseline operation measured in the same
+ * run, since absolute times depend on the host machine. Allocations do not, so they are checked
+ * against an absolute budget.
+ */
+public final class MicroBenchmark {
+    private static final String TAG = "MicroBenchmark";
+
+    /** Result of one benchmark. */
+    public static final class Result {
+        public final String name;
+        public final int iterations;
+        public final long nanosPerOp;
+        /** Bytes allocated per operation, or -1 if the JVM cannot tell. */
+        public final long bytesPerOp;
+
+        Result(String name, int iterations, long nanosPerOp, long bytesPerOp) {
+            this.name = name;
+            this.iterations = iterations;
+            this.nanosPerOp = nanosPerOp;
+            this.bytesPerOp = bytesPerOp;
+        }
+
+        public double opsPerSecond() {
+            return nanosPerOp == 0 ? Double.POSITIVE_INFINITY : 1e9 / nanosPerOp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d ns/op, %.1f ops/s, %s B/op (%d iterations)", name,
+                    nanosPerOp, opsPerSecond(), bytesPerOp < 0 ? "?" : bytesPerOp, iterations);
+        }
+    }
+
+    /** Times {@code op}, running it {@code warmUp} times first, and logs the result. */
+    public static Result run(String name, int warmUp, int iterations, Runnable op) {
+        for (int i = 0; i < warmUp; i++) {
+            op.run();
+        }
+        final long startBytes = getAllocatedBytes();
+        final long startNanos = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            op.run();
+        }
+        final long elapsedNanos = System.nanoTime() - startNanos;
+        final long endBytes = getAllocatedBytes();
+        final Result result = new Result(name, iterations, elapsedNanos / iterations,
+                startBytes < 0 || endBytes < 0 ? -1 : (endBytes - startBytes) / iterations);
+        Log.i(TAG, result.toString());
+        return result;
+    }
+
+    /**
+     * Fails if the result takes more than {@code maxRatio} times as long per operation as the
+     * baseline, which must have been measured in the same run.
+     */
+    public static void assertNotSlowerThan(Result result, Result baseline, double maxRatio) {
+        assertTrue(result + " is more than " + maxRatio + " times slower than " + baseline,
+                result.nanosPerOp <= Math.max(1, baseline.nanosPerOp) * maxRatio);
+    }
+
+    /**
+     * Fails if the result allocates more than its budget. Allocations are not checked when the
+     * JVM cannot measure them.
+     */
+    public static void assertAllocationsWithinBudget(Result result, long maxBytesPerOp) {
+        assertTrue(result + " exceeds " + maxBytesPerOp + " B/op",
+                result.bytesPerOp <= maxBytesPerOp);
+    }
+
+    private static long getAllocatedBytes() {
+        final ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported()
+                    && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private MicroBenchmark() {
+    }
+}
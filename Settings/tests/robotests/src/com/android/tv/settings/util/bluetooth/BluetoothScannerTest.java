@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.settings.util.bluetooth;
+
+import static org.junit.Assert.assertEquals;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.bluetooth.BluetoothAdapter;
+import android.bluetooth.BluetoothClass;
+import android.bluetooth.BluetoothDevice;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Parcel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class BluetoothScannerTest {
+
+    private static final int BURST_SIZE = 10;
+
+    private final List<String> mChangedNames = new ArrayList<>();
+    private final BluetoothScanner.Listener mListener = new BluetoothScanner.Listener() {
+        @Override
+        public void onDeviceChanged(BluetoothScanner.Device device) {
+            mChangedNames.add(device.btName);
+        }
+    };
+    private Context mContext;
+    private BluetoothDevice mDevice;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mDevice = BluetoothAdapter.getDefaultAdapter().getRemoteDevice("00:11:22:33:44:55");
+        shadowOf(mDevice).setBluetoothClass(createBluetoothClass(
+                BluetoothClass.Device.PERIPHERAL_KEYBOARD_POINTING));
+        BluetoothScanner.startListening(mContext, mListener,
+                Collections.singletonList(new BluetoothDeviceCriteria()));
+        found("Remote 0");
+    }
+
+    @After
+    public void tearDown() {
+        BluetoothScanner.stopListening(mListener);
+        BluetoothScanner.reset();
+    }
+
+    @Test
+    public void burstOfScanResults_coalescesDeviceChanges() {
+        for (int i = 1; i <= BURST_SIZE; i++) {
+            found("Remote " + i);
+        }
+        ShadowLooper.idleMainLooper(BluetoothScanner.DEVICE_CHANGE_INTERVAL,
+                TimeUnit.MILLISECONDS);
+
+        // The first change is delivered at once, the rest of the burst once the interval
+        // elapses, with the latest name.
+        assertEquals(2, mChangedNames.size());
+        assertEquals("Remote 1", mChangedNames.get(0));
+        assertEquals("Remote " + BURST_SIZE, mChangedNames.get(1));
+        assertEquals(2, BluetoothScanner.getScanStats().updatesDelivered);
+        assertEquals(BURST_SIZE - 2, BluetoothScanner.getScanStats().updatesDropped);
+    }
+
+    @Test
+    public void unchangedScanResults_notDelivered() {
+        for (int i = 0; i < BURST_SIZE; i++) {
+            found("Remote 0");
+        }
+        ShadowLooper.idleMainLooper(BluetoothScanner.DEVICE_CHANGE_INTERVAL,
+                TimeUnit.MILLISECONDS);
+
+        assertEquals(0, mChangedNames.size());
+    }
+
+    @Test
+    public void changesAfterInterval_deliveredSeparately() {
+        found("Remote 1");
+        ShadowLooper.idleMainLooper(BluetoothScanner.DEVICE_CHANGE_INTERVAL,
+                TimeUnit.MILLISECONDS);
+        found("Remote 2");
+
+        assertEquals(2, mChangedNames.size());
+    }
+
+    private void found(String name) {
+        shadowOf(mDevice).setName(name);
+        mContext.sendBroadcast(new Intent(BluetoothDevice.ACTION_FOUND)
+                .putExtra(BluetoothDevice.EXTRA_DEVICE, mDevice));
+        ShadowLooper.idleMainLooper();
+    }
+
+    private static BluetoothClass createBluetoothClass(int deviceClass) {
+        final Parcel parcel = Parcel.obtain();
+        parcel.writeInt(deviceClass);
+        parcel.setDataPosition(0);
+        final BluetoothClass bluetoothClass = BluetoothClass.CREATOR.createFromParcel(parcel);
+        parcel.recycle();
+        return bluetoothClass;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+
+import androidx.fragment.app.Fragment;
+import androidx.preference.Preference;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreviewFragmentPrefetcherTest {
+
+    private static final int PREFERENCE_COUNT = 20;
+
+    private final List<Preference> mPreferences = new ArrayList<>();
+    private final Fragment mCaller = new Fragment();
+    private int mCreatedPreviews;
+    private PreviewFragmentPrefetcher mPrefetcher;
+
+    @Before
+    public void setUp() {
+        final Context context = RuntimeEnvironment.application;
+        for (int i = 0; i < PREFERENCE_COUNT; i++) {
+            final Preference preference = new Preference(context);
+            preference.setKey("preference_" + i);
+            preference.setFragment(Fragment.class.getName());
+            mPreferences.add(preference);
+        }
+        mPrefetcher = new PreviewFragmentPrefetcher((caller, preference) -> {
+            mCreatedPreviews++;
+            return new Fragment();
+        });
+    }
+
+    @Test
+    public void prefetch_createsPreviewsWhenIdle() {
+        mPrefetcher.prefetch(mCaller, neighbours(5));
+        assertEquals(0, mCreatedPreviews);
+
+        runUntilIdle();
+
+        assertEquals(4, mCreatedPreviews);
+        for (Preference preference : neighbours(5)) {
+            assertTrue(mPrefetcher.isCached(preference));
+        }
+    }
+
+    @Test
+    public void scrollingDown_focusedPreviewsAreCacheHits() {
+        int hits = 0;
+        for (int position = 0; position < PREFERENCE_COUNT; position++) {
+            final Preference focused = mPreferences.get(position);
+            if (mPrefetcher.take(mCaller, focused) != null) {
+                hits++;
+            }
+            mPrefetcher.prefetch(mCaller, neighbours(position));
+            runUntilIdle();
+        }
+
+        // Every row after the first was prefetched before it got the focus.
+        assertEquals(PREFERENCE_COUNT - 1, hits);
+    }
+
+    @Test
+    public void take_handsOutPreviewOnce() {
+        final Preference next = mPreferences.get(1);
+        mPrefetcher.prefetch(mCaller, neighbours(0));
+        runUntilIdle();
+
+        final Fragment preview = mPrefetcher.take(mCaller, next);
+
+        assertNotNull(preview);
+        assertNull(mPrefetcher.take(mCaller, next));
+    }
+
+    @Test
+    public void cache_evictsLeastRecentlyUsed() {
+        mPrefetcher = new PreviewFragmentPrefetcher((caller, preference) -> new Fragment(), 2);
+
+        mPrefetcher.prefetch(mCaller, Arrays.asList(mPreferences.get(0), mPreferences.get(1)));
+        runUntilIdle();
+        // Touches preference 0, leaving preference 1 the eldest.
+        mPrefetcher.prefetch(mCaller, Arrays.asList(mPreferences.get(0), mPreferences.get(2)));
+        runUntilIdle();
+
+        assertEquals(2, mPrefetcher.getCachedCount());
+        assertTrue(mPrefetcher.isCached(mPreferences.get(0)));
+        assertFalse(mPrefetcher.isCached(mPreferences.get(1)));
+        assertTrue(mPrefetcher.isCached(mPreferences.get(2)));
+    }
+
+    @Test
+    public void cache_boundedWhileScrolling() {
+        for (int position = 0; position < PREFERENCE_COUNT; position++) {
+            mPrefetcher.take(mCaller, mPreferences.get(position));
+            mPrefetcher.prefetch(mCaller, neighbours(position));
+            runUntilIdle();
+            assertTrue(mPrefetcher.getCachedCount()
+                    <= PreviewFragmentPrefetcher.MAX_CACHED_PREVIEWS);
+        }
+    }
+
+    @Test
+    public void prefetch_otherCaller_dropsCachedPreviews() {
+        mPrefetcher.prefetch(mCaller, neighbours(5));
+        runUntilIdle();
+
+        final Fragment otherCaller = new Fragment();
+        mPrefetcher.prefetch(otherCaller, neighbours(10));
+
+        assertFalse(mPrefetcher.isCached(mPreferences.get(6)));
+        assertNull(mPrefetcher.take(mCaller, mPreferences.get(11)));
+    }
+
+    @Test
+    public void take_preferenceChanged_misses() {
+        final Preference next = mPreferences.get(1);
+        mPrefetcher.prefetch(mCaller, neighbours(0));
+        runUntilIdle();
+
+        next.setFragment("com.example.OtherFragment");
+
+        assertNull(mPrefetcher.take(mCaller, next));
+    }
+
+    @Test
+    public void take_extrasChanged_misses() {
+        final Preference next = mPreferences.get(1);
+        mPrefetcher.prefetch(mCaller, neighbours(0));
+        runUntilIdle();
+
+        next.getExtras().putString("extra", "changed");
+
+        assertFalse(mPrefetcher.hasPreview(mCaller, next));
+        assertNull(mPrefetcher.take(mCaller, next));
+    }
+
+    @Test
+    public void clear_stopsPendingPrefetches() {
+        mPrefetcher.prefetch(mCaller, neighbours(5));
+        mPrefetcher.clear();
+
+        runUntilIdle();
+
+        assertEquals(0, mCreatedPreviews);
+        assertEquals(0, mPrefetcher.getCachedCount());
+    }
+
+    @Test
+    public void factoryReturnsNull_nothingCached() {
+        mPrefetcher = new PreviewFragmentPrefetcher((caller, preference) -> null);
+
+        mPrefetcher.prefetch(mCaller, neighbours(5));
+        runUntilIdle();
+
+        assertEquals(0, mPrefetcher.getCachedCount());
+    }
+
+    @Test
+    public void take_returnsCachedInstance() {
+        final List<Fragment> created = new ArrayList<>();
+        mPrefetcher = new PreviewFragmentPrefetcher((caller, preference) -> {
+            final Fragment fragment = new Fragment();
+            created.add(fragment);
+            return fragment;
+        });
+        mPrefetcher.prefetch(mCaller, Arrays.asList(mPreferences.get(3)));
+        runUntilIdle();
+
+        assertSame(created.get(0), mPrefetcher.take(mCaller, mPreferences.get(3)));
+    }
+
+    /** Same order as TwoPanelSettingsFragment: nearest first, the next row before the previous. */
+    private List<Preference> neighbours(int position) {
+        final List<Preference> neighbours = new ArrayList<>();
+        for (int distance = 1; distance <= PreviewFragmentPrefetcher.PREFETCH_DISTANCE;
+                distance++) {
+            if (position + distance < mPreferences.size()) {
+                neighbours.add(mPreferences.get(position + distance));
+            }
+            if (position - distance >= 0) {
+                neighbours.add(mPreferences.get(position - distance));
+            }
+        }
+        return neighbours;
+    }
+
+    private static void runUntilIdle() {
+        // Each idle pass prefetches one preview.
+        for (int i = 0; i < 2 * PreviewFragmentPrefetcher.MAX_CACHED_PREVIEWS; i++) {
+            ShadowLooper.idleMainLooper();
+        }
+    }
+}
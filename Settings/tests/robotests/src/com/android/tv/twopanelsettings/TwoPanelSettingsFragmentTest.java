@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.util.ArrayMap;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.fragment.app.Fragment;
+import androidx.leanback.preference.LeanbackPreferenceFragmentCompat;
+import androidx.preference.Preference;
+import androidx.preference.PreferenceFragmentCompat;
+import androidx.preference.PreferenceGroupAdapter;
+import androidx.preference.PreferenceScreen;
+
+import com.android.tv.twopanelsettings.slices.InfoFragment;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.shadows.androidx.fragment.FragmentController;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@RunWith(RobolectricTestRunner.class)
+public class TwoPanelSettingsFragmentTest {
+
+    private static final int PREFERENCE_COUNT = 10;
+    private static final long PREVIEW_DELAY_MS = 1000;
+    private static final String KEY_PREFIX = "preference_";
+
+    private TestTwoPanelSettingsFragment mFragment;
+    private PreferenceGroupAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        final Context context = RuntimeEnvironment.application;
+        mFragment = new TestTwoPanelSettingsFragment();
+        FragmentController.of(mFragment).create().start().resume();
+        ShadowLooper.idleMainLooper();
+        // Defers creating previews as on low RAM devices, through the OEM tuning broadcast.
+        context.sendBroadcast(new Intent("com.android.tv.settings.PREVIEW_DELAY")
+                .putExtra("delay_ms", PREVIEW_DELAY_MS));
+        ShadowLooper.idleMainLooper();
+        mAdapter = new PreferenceGroupAdapter(mFragment.mMainFragment.getPreferenceScreen());
+        mFragment.mCreatedPreviews.clear();
+    }
+
+    @Test
+    public void focusPrefetchedPreference_showsPreviewWithoutDelay() {
+        select(0);
+        settle();
+        final Fragment prefetched = mFragment.mCreatedPreviews.get(KEY_PREFIX + 1);
+        assertNotNull(prefetched);
+
+        select(1);
+
+        assertSame(prefetched, getPreview());
+    }
+
+    @Test
+    public void focusPrefetchedPreference_extrasChanged_createsNewPreview() {
+        select(0);
+        settle();
+        final Fragment prefetched = mFragment.mCreatedPreviews.get(KEY_PREFIX + 1);
+        getPreference(1).getExtras().putString("extra", "changed");
+
+        select(1);
+        settle();
+
+        assertNotSame(prefetched, getPreview());
+        assertSame(mFragment.mCreatedPreviews.get(KEY_PREFIX + 1), getPreview());
+    }
+
+    @Test
+    public void fastFocusChanges_prefetchOnlyOnceFocusSettles() {
+        for (int position = 0; position < PREFERENCE_COUNT; position++) {
+            select(position);
+            ShadowLooper.idleMainLooper(TwoPanelSettingsFragment.CHECK_IDLE_STATE_MS / 2,
+                    TimeUnit.MILLISECONDS);
+        }
+        assertTrue(mFragment.mCreatedPreviews.isEmpty());
+
+        settle();
+
+        // The focused row and the rows around it, except the one the focus came from.
+        assertEquals(keys(PREFERENCE_COUNT - 1, PREFERENCE_COUNT - 3),
+                mFragment.mCreatedPreviews.keySet());
+    }
+
+    private void select(int position) {
+        mFragment.onMainPanelPreferenceSelected(mAdapter, position, 0);
+    }
+
+    private static void settle() {
+        ShadowLooper.idleMainLooper(PREVIEW_DELAY_MS, TimeUnit.MILLISECONDS);
+        // Each idle pass prefetches one preview.
+        for (int i = 0; i < 2 * PreviewFragmentPrefetcher.MAX_CACHED_PREVIEWS; i++) {
+            ShadowLooper.idleMainLooper();
+        }
+    }
+
+    private Preference getPreference(int position) {
+        return mFragment.mMainFragment.findPreference(KEY_PREFIX + position);
+    }
+
+    private Fragment getPreview() {
+        return mFragment.getChildFragmentManager().findFragmentById(R.id.frame2);
+    }
+
+    private static Set<String> keys(int... positions) {
+        return IntStream.of(positions).mapToObj(position -> KEY_PREFIX + position)
+                .collect(Collectors.toSet());
+    }
+
+    public static class TestTwoPanelSettingsFragment extends TwoPanelSettingsFragment {
+        final Map<String, Fragment> mCreatedPreviews = new ArrayMap<>();
+        MainFragment mMainFragment;
+
+        @Override
+        public void onPreferenceStartInitialScreen() {
+            mMainFragment = new MainFragment();
+            startPreferenceFragment(mMainFragment);
+        }
+
+        @Override
+        public boolean onPreferenceStartScreen(PreferenceFragmentCompat caller,
+                PreferenceScreen pref) {
+            return false;
+        }
+
+        @Override
+        public Fragment onCreatePreviewFragment(Fragment caller, Preference preference) {
+            final Fragment preview = super.onCreatePreviewFragment(caller, preference);
+            if (preview != null) {
+                mCreatedPreviews.put(preference.getKey(), preview);
+            }
+            return preview;
+        }
+    }
+
+    public static class MainFragment extends LeanbackPreferenceFragmentCompat {
+        @Override
+        public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
+            final PreferenceScreen screen =
+                    getPreferenceManager().createPreferenceScreen(getContext());
+            for (int i = 0; i < PREFERENCE_COUNT; i++) {
+                final Preference preference = new Preference(getContext());
+                preference.setKey(KEY_PREFIX + i);
+                preference.setFragment(PreviewFragment.class.getName());
+                // Distinct arguments, so that each row shows a preview of its own.
+                preference.getExtras().putString("key", preference.getKey());
+                screen.addPreference(preference);
+            }
+            setPreferenceScreen(screen);
+        }
+    }
+
+    public static class PreviewFragment extends InfoFragment {
+        @Override
+        public View onCreateView(
+                LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
+            return new View(getContext());
+        }
+    }
+}
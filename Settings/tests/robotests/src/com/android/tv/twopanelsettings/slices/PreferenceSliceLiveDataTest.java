@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import static android.app.slice.Slice.HINT_TITLE;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import android.net.Uri;
+import android.text.SpannableString;
+
+import androidx.lifecycle.Observer;
+import androidx.slice.Slice;
+import androidx.slice.SliceViewManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreferenceSliceLiveDataTest {
+
+    private static final Uri URI = Uri.parse("content://com.android.tv.settings.test/general");
+
+    private final List<Runnable> mPendingBinds = new ArrayList<>();
+    private final List<Slice> mValues = new ArrayList<>();
+    private final Observer<Slice> mObserver = mValues::add;
+    private SliceViewManager mSliceViewManager;
+    private PreferenceSliceLiveData.SliceLiveDataImpl mLiveData;
+
+    @Before
+    public void setUp() {
+        // Stands in for the slice provider.
+        mSliceViewManager = mock(SliceViewManager.class);
+        mLiveData = new PreferenceSliceLiveData.SliceLiveDataImpl(
+                mSliceViewManager, URI, mPendingBinds::add);
+    }
+
+    @Test
+    public void reactivation_emitsCachedSliceSynchronously() {
+        final Slice slice = createSlice("Bluetooth");
+        activateAndBind(slice);
+        mLiveData.removeObserver(mObserver);
+        mValues.clear();
+
+        mLiveData.observeForever(mObserver);
+
+        // Delivered before the slice is bound again.
+        assertEquals(1, mPendingBinds.size());
+        assertEquals(1, mValues.size());
+        assertSame(slice, mValues.get(0));
+    }
+
+    @Test
+    public void reactivation_sameSliceBound_notPosted() {
+        activateAndBind(createSlice("Bluetooth"));
+        mLiveData.removeObserver(mObserver);
+        mLiveData.observeForever(mObserver);
+        mValues.clear();
+
+        bind(createSlice("Bluetooth"));
+
+        assertEquals(0, mValues.size());
+    }
+
+    @Test
+    public void reactivation_changedSliceBound_posted() {
+        activateAndBind(createSlice("Bluetooth"));
+        mLiveData.removeObserver(mObserver);
+        mLiveData.observeForever(mObserver);
+        mValues.clear();
+
+        final Slice changed = createSlice("Bluetooth off");
+        bind(changed);
+
+        assertEquals(1, mValues.size());
+        assertSame(changed, mValues.get(0));
+    }
+
+    @Test
+    public void sliceUpdated_sameContent_posted() {
+        activateAndBind(createSlice("Bluetooth"));
+        mValues.clear();
+
+        // The provider rejects a change the screen made locally, and notifies the unchanged
+        // slice, which must still reset the screen.
+        final Slice unchanged = createSlice("Bluetooth");
+        getSliceCallback().onSliceUpdated(unchanged);
+        ShadowLooper.idleMainLooper();
+
+        assertEquals(1, mValues.size());
+        assertSame(unchanged, mValues.get(0));
+    }
+
+    @Test
+    public void reactivation_afterMaxStale_dropsCachedSlice() {
+        mLiveData.setMaxStaleMs(1000);
+        activateAndBind(createSlice("Bluetooth"));
+        mLiveData.removeObserver(mObserver);
+        mValues.clear();
+
+        ShadowLooper.idleMainLooper(2, TimeUnit.SECONDS);
+        mLiveData.observeForever(mObserver);
+
+        assertEquals(1, mValues.size());
+        assertNull(mValues.get(0));
+    }
+
+    @Test
+    public void isSameContent_sameItems_true() {
+        assertTrue(PreferenceSliceLiveData.isSameContent(
+                createSlice("Bluetooth"), createSlice("Bluetooth")));
+    }
+
+    @Test
+    public void isSameContent_differentText_false() {
+        assertFalse(PreferenceSliceLiveData.isSameContent(
+                createSlice("Bluetooth"), createSlice("Remotes")));
+    }
+
+    @Test
+    public void isSameContent_styledText_false() {
+        assertFalse(PreferenceSliceLiveData.isSameContent(
+                createSlice(new SpannableString("Bluetooth")),
+                createSlice(new SpannableString("Bluetooth"))));
+    }
+
+    private SliceViewManager.SliceCallback getSliceCallback() {
+        final ArgumentCaptor<SliceViewManager.SliceCallback> callback =
+                ArgumentCaptor.forClass(SliceViewManager.SliceCallback.class);
+        verify(mSliceViewManager).registerSliceCallback(eq(URI), callback.capture());
+        return callback.getValue();
+    }
+
+    private void activateAndBind(Slice slice) {
+        mLiveData.observeForever(mObserver);
+        bind(slice);
+    }
+
+    private void bind(Slice slice) {
+        doReturn(slice).when(mSliceViewManager).bindSlice(URI);
+        for (Runnable bind : mPendingBinds) {
+            bind.run();
+        }
+        mPendingBinds.clear();
+        ShadowLooper.idleMainLooper();
+    }
+
+    private static Slice createSlice(CharSequence title) {
+        return new Slice.Builder(URI)
+                .addSubSlice(new Slice.Builder(URI.buildUpon().appendPath("row").build())
+                        .addText(title, null, HINT_TITLE)
+                        .addText("bluetooth", SlicesConstants.TAG_KEY)
+                        .build(), SlicesConstants.TYPE_PREFERENCE)
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import static android.app.slice.Slice.HINT_SUMMARY;
+import static android.app.slice.Slice.HINT_TITLE;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import android.net.Uri;
+import android.view.ContextThemeWrapper;
+
+import androidx.preference.Preference;
+import androidx.slice.Slice;
+import androidx.slice.SliceItem;
+
+import com.android.tv.settings.testutils.MicroBenchmark;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.List;
+
+/**
+ * Benchmarks turning the rows of a 300 row slice into preferences. There is no cheaper operation
+ * that would make a meaningful time baseline, so only allocations are checked.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class SlicePreferencesUtilBenchmarkTest {
+
+    private static final int ROW_COUNT = 300;
+    private static final Uri URI = Uri.parse("content://com.android.tv.settings.benchmark/list");
+
+    private List<SliceItem> mRows;
+    private ContextThemeWrapper mContext;
+
+    @Before
+    public void setUp() {
+        mContext = new ContextThemeWrapper(RuntimeEnvironment.application, 0);
+        final Slice.Builder list = new Slice.Builder(URI);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            final Slice.Builder row = new Slice.Builder(URI.buildUpon()
+                    .appendPath("row" + i).build())
+                    .addText("Preference " + i, null, HINT_TITLE)
+                    .addText("Subtitle of preference " + i, null)
+                    .addText("Summary of preference " + i, null, HINT_SUMMARY)
+                    .addText("key_" + i, SlicesConstants.TAG_KEY);
+            if (i % 3 == 0) {
+                row.addText(URI.buildUpon().appendPath("sub" + i).toString(),
+                        SlicesConstants.TAG_TARGET_URI);
+            }
+            list.addSubSlice(row.build(), SlicesConstants.TYPE_PREFERENCE);
+        }
+        mRows = list.build().getItems();
+        assertEquals(ROW_COUNT, mRows.size());
+    }
+
+    @Test
+    public void extract_300Rows() {
+        final MicroBenchmark.Result result = MicroBenchmark.run("extract_" + ROW_COUNT + "_rows",
+                20, 200, () -> {
+                    for (int i = 0; i < mRows.size(); i++) {
+                        SlicePreferencesUtil.extract(mRows.get(i));
+                    }
+                });
+
+        MicroBenchmark.assertAllocationsWithinBudget(result, 8_000_000L);
+    }
+
+    @Test
+    public void getPreference_300Rows() {
+        final String className = SliceFragment.class.getCanonicalName();
+
+        final MicroBenchmark.Result result = MicroBenchmark.run(
+                "getPreference_" + ROW_COUNT + "_rows", 3, 20, () -> {
+                    for (int i = 0; i < mRows.size(); i++) {
+                        final Preference preference = SlicePreferencesUtil.getPreference(
+                                mRows.get(i), mContext, className, true);
+                        assertNotNull(preference);
+                    }
+                });
+
+        MicroBenchmark.assertAllocationsWithinBudget(result, 64_000_000L);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import static com.android.tv.twopanelsettings.slices.TransitionStats.TRANSITION_PANEL_MOVE;
+import static com.android.tv.twopanelsettings.slices.TransitionStats.TRANSITION_PREVIEW_SWAP;
+import static com.android.tv.twopanelsettings.slices.TransitionStats.TRANSITION_SLICE_REBUILD;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.util.Log;
+
+import com.android.tv.twopanelsettings.slices.TransitionStats.Histogram;
+import com.android.tv.twopanelsettings.slices.TransitionStats.Transition;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLog;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class TransitionStatsTest {
+
+    private static final long FRAME_NANOS = 16_000_000;
+
+    private long mNowMs = 1000;
+    private TransitionStats mStats;
+
+    @Before
+    public void setUp() {
+        mStats = new TransitionStats(() -> mNowMs);
+    }
+
+    @Test
+    public void end_bucketsDurations() {
+        record("screen", TRANSITION_PANEL_MOVE, 10);
+        record("screen", TRANSITION_PANEL_MOVE, 16);
+        record("screen", TRANSITION_PANEL_MOVE, 17);
+        record("screen", TRANSITION_PANEL_MOVE, 5000);
+
+        final Histogram histogram = single(mStats.drain());
+
+        assertEquals(4, histogram.count);
+        assertArrayEquals(new int[] {2, 1, 0, 0, 0, 0, 0, 1}, histogram.bucketCounts);
+        assertEquals(5000, histogram.maxDurationMs);
+        assertEquals(5043, histogram.totalDurationMs);
+    }
+
+    @Test
+    public void end_separatesScreensAndTypes() {
+        record("a", TRANSITION_PANEL_MOVE, 10);
+        record("a", TRANSITION_PREVIEW_SWAP, 10);
+        record("b", TRANSITION_PANEL_MOVE, 10);
+        record("b", TRANSITION_PANEL_MOVE, 10);
+
+        final List<Histogram> histograms = mStats.drain();
+
+        assertEquals(3, histograms.size());
+        for (Histogram histogram : histograms) {
+            final int expected = histogram.screen.equals("b") ? 2 : 1;
+            assertEquals(expected, histogram.count);
+        }
+    }
+
+    @Test
+    public void onFrame_countsSlowFramesOfActiveTransitions() {
+        final Transition first = mStats.begin("screen", TRANSITION_PANEL_MOVE);
+        mStats.onFrame(16);
+        mStats.onFrame(TransitionStats.SLOW_FRAME_MS + 1);
+        final Transition second = mStats.begin("other", TRANSITION_PANEL_MOVE);
+        mStats.onFrame(100);
+        mStats.end(first);
+        mStats.onFrame(100);
+        mStats.end(second);
+
+        for (Histogram histogram : mStats.drain()) {
+            assertEquals(2, histogram.totalSlowFrames);
+        }
+    }
+
+    @Test
+    public void addRebinds_summedPerScreen() {
+        for (int i = 0; i < 3; i++) {
+            final Transition transition = mStats.begin("screen", TRANSITION_SLICE_REBUILD);
+            transition.addRebinds(10);
+            transition.addRebinds(2);
+            mStats.end(transition);
+        }
+
+        assertEquals(36, single(mStats.drain()).totalRebinds);
+    }
+
+    @Test
+    public void end_twice_recordedOnce() {
+        final Transition transition = mStats.begin("screen", TRANSITION_PANEL_MOVE);
+        mStats.end(transition);
+        mStats.end(transition);
+
+        assertEquals(1, single(mStats.drain()).count);
+        assertFalse(mStats.hasActiveTransitions());
+    }
+
+    @Test
+    public void drain_startsOver() {
+        record("screen", TRANSITION_PANEL_MOVE, 10);
+        mStats.drain();
+
+        assertTrue(mStats.drain().isEmpty());
+    }
+
+    @Test
+    public void tracker_disabled_doesNotRecord() {
+        ShadowLog.setLoggable("TvSettingsJank", Log.INFO);
+        final TransitionJankTracker tracker = new TransitionJankTracker(mStats);
+
+        assertNull(tracker.begin("screen", TRANSITION_PANEL_MOVE));
+        tracker.end(null);
+        tracker.endAfterNextFrame(null);
+        assertTrue(mStats.drain().isEmpty());
+    }
+
+    @Test
+    public void tracker_endAfterNextFrame_waitsForFrameToBeDrawn() {
+        ShadowLog.setLoggable("TvSettingsJank", Log.DEBUG);
+        final TransitionJankTracker tracker = new TransitionJankTracker(mStats);
+        final Transition transition = tracker.begin("screen", TRANSITION_PREVIEW_SWAP);
+        assertNotNull(transition);
+
+        mNowMs += 5;
+        tracker.endAfterNextFrame(transition);
+        tracker.onFrame(FRAME_NANOS);
+        assertTrue(mStats.hasActiveTransitions());
+
+        mNowMs += 40;
+        tracker.onFrame(FRAME_NANOS + 40_000_000);
+
+        assertFalse(mStats.hasActiveTransitions());
+        final Histogram histogram = single(mStats.drain());
+        assertEquals(45, histogram.maxDurationMs);
+        assertEquals(1, histogram.totalSlowFrames);
+    }
+
+    private void record(String screen, int type, long durationMs) {
+        final Transition transition = mStats.begin(screen, type);
+        mNowMs += durationMs;
+        mStats.end(transition);
+    }
+
+    private static Histogram single(List<Histogram> histograms) {
+        assertEquals(1, histograms.size());
+        return histograms.get(0);
+    }
+}
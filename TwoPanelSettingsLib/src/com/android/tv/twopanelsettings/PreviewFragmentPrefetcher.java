@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.fragment.app.Fragment;
+import androidx.preference.Preference;
+
+import com.android.tv.twopanelsettings.slices.HasSliceUri;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the preview fragments of the preferences next to the focused one while the main thread
+ * is idle, so that moving the focus to one of them can show its preview without instantiating
+ * it first.
+ *
+ * <p>Prefetched fragments are kept in a small LRU cache and handed out at most once, since a
+ * fragment cannot be added again once it has been shown. One fragment is created per idle
+ * callback to keep each of them short.
+ */
+final class PreviewFragmentPrefetcher {
+    private static final String TAG = "PreviewFragmentPrefetcher";
+
+    /** Number of preferences prefetched on each side of the focused one. */
+    static final int PREFETCH_DISTANCE = 2;
+    @VisibleForTesting
+    static final int MAX_CACHED_PREVIEWS = 4;
+
+    /** Creates the preview fragment of a preference, as the two panel fragment would. */
+    interface PreviewFactory {
+        @Nullable
+        Fragment createPreview(Fragment caller, Preference preference);
+    }
+
+    private final PreviewFactory mFactory;
+    private final int mMaxCached;
+    // Access ordered, eldest first.
+    private final LinkedHashMap<Preference, CachedPreview> mCache =
+            new LinkedHashMap<Preference, CachedPreview>(8, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Preference, CachedPreview> eldest) {
+                    return size() > mMaxCached;
+                }
+            };
+    private final ArrayDeque<Preference> mPending = new ArrayDeque<>();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private Fragment mCaller;
+    private boolean mPrefetchScheduled;
+
+    private final MessageQueue.IdleHandler mIdleHandler = () -> {
+        prefetchNext();
+        if (mPending.isEmpty()) {
+            mPrefetchScheduled = false;
+        } else {
+            // Idle handlers only run again once another message was handled, so wait for the
+            // next idle state through a message of our own.
+            mHandler.post(this::addIdleHandler);
+        }
+        return false;
+    };
+
+    PreviewFragmentPrefetcher(PreviewFactory factory) {
+        this(factory, MAX_CACHED_PREVIEWS);
+    }
+
+    @VisibleForTesting
+    PreviewFragmentPrefetcher(PreviewFactory factory, int maxCached) {
+        mFactory = factory;
+        mMaxCached = maxCached;
+    }
+
+    /**
+     * Replaces the preferences waiting to be prefetched with the given ones, nearest first.
+     * Previews prefetched for another main panel fragment are dropped.
+     */
+    void prefetch(Fragment caller, List<Preference> preferences) {
+        if (caller != mCaller) {
+            clear();
+            mCaller = caller;
+        }
+        mPending.clear();
+        // Walk from the farthest preference so that the nearest cached previews end up the most
+        // recently used, and are the last to be evicted.
+        for (int i = preferences.size() - 1; i >= 0; i--) {
+            final Preference preference = preferences.get(i);
+            if (preference == null) {
+                continue;
+            }
+            if (mCache.get(preference) == null) {
+                mPending.addFirst(preference);
+            }
+        }
+        if (!mPending.isEmpty() && !mPrefetchScheduled) {
+            addIdleHandler();
+            mPrefetchScheduled = true;
+        }
+    }
+
+    /** Returns whether a prefetched preview matching the preference is ready to be taken. */
+    boolean hasPreview(Fragment caller, Preference preference) {
+        if (caller != mCaller) {
+            return false;
+        }
+        final CachedPreview cached = mCache.get(preference);
+        return cached != null && cached.matches(preference);
+    }
+
+    /**
+     * Returns the prefetched preview of the preference and removes it from the cache, or null if
+     * there is none or it no longer matches the preference.
+     */
+    @Nullable
+    Fragment take(Fragment caller, Preference preference) {
+        mPending.remove(preference);
+        if (caller != mCaller) {
+            return null;
+        }
+        final CachedPreview cached = mCache.remove(preference);
+        if (cached == null || !cached.matches(preference)) {
+            return null;
+        }
+        return cached.fragment;
+    }
+
+    /** Drops all prefetched previews and stops prefetching. */
+    void clear() {
+        mPending.clear();
+        mCache.clear();
+        mCaller = null;
+        if (mPrefetchScheduled) {
+            mHandler.removeCallbacksAndMessages(null);
+            Looper.getMainLooper().getQueue().removeIdleHandler(mIdleHandler);
+            mPrefetchScheduled = false;
+        }
+    }
+
+    @VisibleForTesting
+    int getCachedCount() {
+        return mCache.size();
+    }
+
+    @VisibleForTesting
+    boolean isCached(Preference preference) {
+        return mCache.containsKey(preference);
+    }
+
+    private void addIdleHandler() {
+        Looper.getMainLooper().getQueue().addIdleHandler(mIdleHandler);
+    }
+
+    private void prefetchNext() {
+        final Preference preference = mPending.poll();
+        if (preference == null || mCaller == null) {
+            return;
+        }
+        Fragment fragment = null;
+        try {
+            fragment = mFactory.createPreview(mCaller, preference);
+        } catch (Exception e) {
+            Log.w(TAG, "Cannot prefetch the preview of preference: " + preference, e);
+        }
+        if (fragment != null) {
+            mCache.put(preference, new CachedPreview(preference, fragment));
+        }
+    }
+
+    @Nullable
+    private static String getSliceUri(Preference preference) {
+        return preference instanceof HasSliceUri ? ((HasSliceUri) preference).getUri() : null;
+    }
+
+    private static final class CachedPreview {
+        final Fragment fragment;
+        final String key;
+        final String fragmentClass;
+        final String sliceUri;
+        // Copied after the preview was created, since creating it may add to the extras and the
+        // preference keeps the same bundle when they are updated later.
+        final Bundle extras;
+
+        CachedPreview(Preference preference, Fragment fragment) {
+            this.fragment = fragment;
+            this.key = preference.getKey();
+            this.fragmentClass = preference.getFragment();
+            this.sliceUri = getSliceUri(preference);
+            this.extras = new Bundle(preference.getExtras());
+        }
+
+        boolean matches(Preference preference) {
+            return TextUtils.equals(key, preference.getKey())
+                    && TextUtils.equals(fragmentClass, preference.getFragment())
+                    && TextUtils.equals(sliceUri, getSliceUri(preference))
+                    && TwoPanelSettingsFragment.equalArguments(extras, preference.getExtras());
+        }
+    }
+}
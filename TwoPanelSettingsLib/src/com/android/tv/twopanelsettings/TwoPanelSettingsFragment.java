@@ -53,6 +53,7 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentTransaction;
 import androidx.leanback.app.GuidedStepSupportFragment;
@@ -77,7 +78,11 @@ import com.android.tv.twopanelsettings.slices.SlicePreference;
 import com.android.tv.twopanelsettings.slices.SliceSeekbarPreference;
 import com.android.tv.twopanelsettings.slices.SliceSwitchPreference;
 import com.android.tv.twopanelsettings.slices.SlicesConstants;
+import com.android.tv.twopanelsettings.slices.TransitionJankTracker;
+import com.android.tv.twopanelsettings.slices.TransitionStats;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -111,7 +116,8 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
             ActivityManager.isLowRamDeviceStatic() ? 100 : 0;
     private static final boolean DEFAULT_CHECK_SCROLL_STATE =
             ActivityManager.isLowRamDeviceStatic();
-    private static final long CHECK_IDLE_STATE_MS = 100;
+    @VisibleForTesting
+    static final long CHECK_IDLE_STATE_MS = 100;
     private long mPreviewPanelCreationDelay = 0;
     private static final float PREVIEW_PANEL_ALPHA = 0.6f;
 
@@ -127,6 +133,13 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
     private AudioManager mAudioManager;
     private final Map<VerticalGridView, OnChildViewHolderSelectedListenerTwoPanel>
             mHasOnChildViewHolderSelectedListener = new ArrayMap<>();
+    @VisibleForTesting
+    final PreviewFragmentPrefetcher mPreviewPrefetcher = new PreviewFragmentPrefetcher(
+            (caller, preference) -> isAdded() ? onCreatePreviewFragment(caller, preference) : null);
+    private final Runnable mPrefetchNeighbourPreviewsRunnable = this::prefetchNeighbourPreviews;
+    private Preference mPreviousFocusedPreference;
+    private PreferenceGroupAdapter mSelectedAdapter;
+    private int mSelectedPosition = RecyclerView.NO_POSITION;
 
     private static final String DELAY_MS = "delay_ms";
     private static final String CHECK_SCROLL_STATE = "check_scroll_state";
@@ -175,8 +188,8 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
             PreferenceGroupAdapter preferenceGroupAdapter =
                     (PreferenceGroupAdapter) parent.getAdapter();
             if (preferenceGroupAdapter != null) {
-                Preference preference = preferenceGroupAdapter.getItem(adapterPosition);
-                onPreferenceFocused(preference, mPaneLIndex);
+                onMainPanelPreferenceSelected(preferenceGroupAdapter, adapterPosition,
+                        mPaneLIndex);
             }
         }
 
@@ -467,7 +480,7 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         return false;
     }
 
-    private boolean equalArguments(Bundle a, Bundle b) {
+    static boolean equalArguments(Bundle a, Bundle b) {
         if (a == null && b == null) {
             return true;
         }
@@ -525,8 +538,15 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         if (prefFragment instanceof SliceFragmentCallback) {
             ((SliceFragmentCallback) prefFragment).onPreferenceFocused(pref);
         }
+        if (pref != mFocusedPreference) {
+            mPreviousFocusedPreference = mFocusedPreference;
+        }
         mFocusedPreference = pref;
-        if (mCheckVerticalGridViewScrollState || mPreviewPanelCreationDelay > 0) {
+        if (!forceRefresh && mPreviewPrefetcher.hasPreview(prefFragment, pref)) {
+            // The preview is already created, so there is no creation cost to defer.
+            mIsWaitingForUpdatingPreview = false;
+            handleFragmentTransactionWhenFocused(pref, false, panelIndex);
+        } else if (mCheckVerticalGridViewScrollState || mPreviewPanelCreationDelay > 0) {
             mIsWaitingForUpdatingPreview = true;
             VerticalGridView listView = (VerticalGridView)
                     ((LeanbackPreferenceFragmentCompat) prefFragment).getListView();
@@ -537,6 +557,62 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         }
     }
 
+    @VisibleForTesting
+    void onMainPanelPreferenceSelected(PreferenceGroupAdapter adapter, int position,
+            int panelIndex) {
+        onPreferenceFocused(adapter.getItem(position), panelIndex);
+        if (panelIndex != mPrefPanelIdx || position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        // Prefetch only once the focus settles, so that moving the focus quickly over many
+        // rows does not create previews that are never shown.
+        mSelectedAdapter = adapter;
+        mSelectedPosition = position;
+        mHandler.removeCallbacks(mPrefetchNeighbourPreviewsRunnable);
+        mHandler.postDelayed(mPrefetchNeighbourPreviewsRunnable, CHECK_IDLE_STATE_MS);
+    }
+
+    /**
+     * Prefetches the previews of the preferences around the selected one, nearest first, so that
+     * they are ready if the focus moves there. The row the focus came from is skipped, since its
+     * preview was just shown.
+     */
+    private void prefetchNeighbourPreviews() {
+        final PreferenceGroupAdapter adapter = mSelectedAdapter;
+        final int position = mSelectedPosition;
+        if (!isAdded() || adapter == null) {
+            return;
+        }
+        final Fragment prefFragment =
+                getChildFragmentManager().findFragmentById(frameResIds[mPrefPanelIdx]);
+        if (prefFragment instanceof LeanbackPreferenceFragmentCompat) {
+            final RecyclerView listView =
+                    ((LeanbackPreferenceFragmentCompat) prefFragment).getListView();
+            if (listView != null && listView.getScrollState() != RecyclerView.SCROLL_STATE_IDLE) {
+                mHandler.postDelayed(mPrefetchNeighbourPreviewsRunnable, CHECK_IDLE_STATE_MS);
+                return;
+            }
+        }
+        final List<Preference> neighbours =
+                new ArrayList<>(2 * PreviewFragmentPrefetcher.PREFETCH_DISTANCE);
+        for (int distance = 1; distance <= PreviewFragmentPrefetcher.PREFETCH_DISTANCE;
+                distance++) {
+            if (position + distance < adapter.getItemCount()) {
+                addPrefetchNeighbour(neighbours, adapter.getItem(position + distance));
+            }
+            if (position - distance >= 0) {
+                addPrefetchNeighbour(neighbours, adapter.getItem(position - distance));
+            }
+        }
+        mPreviewPrefetcher.prefetch(prefFragment, neighbours);
+    }
+
+    private void addPrefetchNeighbour(List<Preference> neighbours, Preference preference) {
+        if (preference != mPreviousFocusedPreference) {
+            neighbours.add(preference);
+        }
+    }
+
     private final class PostShowPreviewRunnable implements Runnable {
         private final VerticalGridView mListView;
         private final Preference mPref;
@@ -573,8 +649,10 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         Fragment previewFragment = null;
         final Fragment prefFragment =
                 getChildFragmentManager().findFragmentById(frameResIds[mPrefPanelIdx]);
+        final Fragment prefetchedFragment = mPreviewPrefetcher.take(prefFragment, pref);
         try {
-            previewFragment = onCreatePreviewFragment(prefFragment, pref);
+            previewFragment = prefetchedFragment != null && !forceRefresh
+                    ? prefetchedFragment : onCreatePreviewFragment(prefFragment, pref);
         } catch (Exception e) {
             Log.w(TAG, "Cannot instantiate the fragment from preference: " + pref, e);
         }
@@ -608,12 +686,17 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         }
         previewFragment.setEnterTransition(new Fade());
         previewFragment.setExitTransition(null);
+        final TransitionJankTracker jankTracker = TransitionJankTracker.getInstance();
+        final TransitionStats.Transition previewSwap = jankTracker.begin(
+                TransitionJankTracker.getScreenName(previewFragment),
+                TransitionStats.TRANSITION_PREVIEW_SWAP);
         final FragmentTransaction transaction =
                 getChildFragmentManager().beginTransaction();
         transaction.setCustomAnimations(R.animator.fade_in_preview_panel,
                 R.animator.fade_out_preview_panel);
         transaction.replace(frameResIds[mPrefPanelIdx + 1], previewFragment);
         transaction.commitNowAllowingStateLoss();
+        jankTracker.endAfterNextFrame(previewSwap);
 
         // Some fragments may steal focus on creation. Reclaim focus on main fragment.
         if (getView() != null && getView().getViewTreeObserver() != null) {
@@ -659,6 +742,10 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
         }
         super.onPause();
         getContext().unregisterReceiver(mPreviewPanelDelayReceiver);
+        mPreviewPrefetcher.clear();
+        mHandler.removeCallbacks(mPrefetchNeighbourPreviewsRunnable);
+        mSelectedAdapter = null;
+        TransitionJankTracker.getInstance().flush();
         final TwoPanelSettingsRootView rootView = (TwoPanelSettingsRootView) getView();
         if (rootView != null) {
             rootView.setOnBackKeyListener(null);
@@ -992,6 +1079,10 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
             if (smoothScroll) {
                 int animationEnd = isRTL() ? mMaxScrollX - panelWidth * index : panelWidth * index;
                 distanceToScrollToRight = animationEnd - mScrollView.getScrollX();
+                final TransitionJankTracker jankTracker = TransitionJankTracker.getInstance();
+                final TransitionStats.Transition panelMove = jankTracker.begin(
+                        TransitionJankTracker.getScreenName(fragmentToBecomeMainPanel),
+                        TransitionStats.TRANSITION_PANEL_MOVE);
                 // Slide animation
                 ObjectAnimator slideAnim = ObjectAnimator.ofInt(mScrollView, "scrollX",
                         mScrollView.getScrollX(), animationEnd);
@@ -1001,6 +1092,7 @@ public abstract class TwoPanelSettingsFragment extends Fragment implements
                     @Override
                     public void onAnimationEnd(Animator animation) {
                         super.onAnimationEnd(animation);
+                        jankTracker.end(panelMove);
                         if (isA11yOn() && fragmentToBecomeMainPanel != null
                                 && fragmentToBecomeMainPanel.getView() != null) {
                             fragmentToBecomeMainPanel.getView().requestFocus();
@@ -89,6 +89,33 @@ final class InstrumentationUtils {
         }
     }
 
+    /**
+     * Log the transition timings of one screen recorded by {@link TransitionJankTracker}.
+     * There is no statsd atom for them, so they are written to the log.
+     *
+     * @param histogram the aggregated transitions of one type on one screen
+     */
+    static void logTransitionStats(TransitionStats.Histogram histogram) {
+        StringBuilder buckets = new StringBuilder();
+        for (int i = 0; i < histogram.bucketCounts.length; i++) {
+            if (i > 0) {
+                buckets.append(',');
+            }
+            buckets.append(i < TransitionStats.DURATION_BUCKET_BOUNDS_MS.length
+                    ? "<=" + TransitionStats.DURATION_BUCKET_BOUNDS_MS[i] : ">"
+                    + TransitionStats.DURATION_BUCKET_BOUNDS_MS[i - 1]).append("ms:")
+                    .append(histogram.bucketCounts[i]);
+        }
+        Log.i(TAG, "TRANSITION_STATS screen=" + histogram.screen
+                + " type=" + histogram.type
+                + " count=" + histogram.count
+                + " avgMs=" + histogram.totalDurationMs / histogram.count
+                + " maxMs=" + histogram.maxDurationMs
+                + " rebinds=" + histogram.totalRebinds
+                + " slowFrames=" + histogram.totalSlowFrames
+                + " buckets=[" + buckets + "]");
+    }
+
     /** Prevent this class from being accidentally instantiated. */
     private InstrumentationUtils() {
     }
@@ -17,20 +17,39 @@
 
 package com.android.tv.twopanelsettings.slices;
 
+import static android.app.slice.SliceItem.FORMAT_ACTION;
+import static android.app.slice.SliceItem.FORMAT_IMAGE;
+import static android.app.slice.SliceItem.FORMAT_INT;
+import static android.app.slice.SliceItem.FORMAT_LONG;
+import static android.app.slice.SliceItem.FORMAT_SLICE;
+import static android.app.slice.SliceItem.FORMAT_TEXT;
+
 import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.AsyncTask;
+import android.os.SystemClock;
+import android.text.Spanned;
+import android.text.TextUtils;
 import android.util.Log;
+import android.util.LruCache;
 
 import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.RequiresApi;
+import androidx.annotation.VisibleForTesting;
+import androidx.core.graphics.drawable.IconCompat;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.slice.Slice;
+import androidx.slice.SliceItem;
 import androidx.slice.SliceViewManager;
 
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -50,6 +69,25 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public final class PreferenceSliceLiveData {
     private static final String TAG = "SliceLiveData";
 
+    /** How long a slice may be shown again while it is bound anew, by default. */
+    static final long DEFAULT_MAX_STALE_MS = TimeUnit.MINUTES.toMillis(5);
+    /** Number of slices kept for screens which are not shown. */
+    private static final int MAX_INACTIVE_SLICES = 8;
+
+    // Accessed only on the main thread. The slices of the screens which were hidden last; the
+    // least recently hidden ones are dropped, so that the slices of every visited screen are
+    // not kept for the lifetime of the process.
+    private static final LruCache<Uri, SliceLiveDataImpl> sInactiveSlices =
+            new LruCache<Uri, SliceLiveDataImpl>(MAX_INACTIVE_SLICES) {
+                @Override
+                protected void entryRemoved(boolean evicted, Uri uri, SliceLiveDataImpl oldValue,
+                        SliceLiveDataImpl newValue) {
+                    if (evicted && !oldValue.hasActiveObservers()) {
+                        oldValue.dropCachedSlice();
+                    }
+                }
+            };
+
     /**
      * Produces a {@link LiveData} that tracks a Slice for a given Uri. To use
      * this method your app must have the permission to the slice Uri.
@@ -60,23 +98,57 @@ public final class PreferenceSliceLiveData {
 
     /**
      * LiveData for slice used by TvSettings.
+     *
+     * <p>The last bound slice is kept while the screen is hidden, and shown again at once when
+     * the screen is shown, while the slice is bound anew in the background. That new slice is
+     * only posted if its content differs. Updates notified by the provider are always posted,
+     * since the screen may have changed the shown state locally, expecting the provider to
+     * confirm or revert it.
      */
     static class SliceLiveDataImpl extends MutableLiveData<Slice> {
         final Intent mIntent;
         final SliceViewManager mSliceViewManager;
+        final Executor mBindExecutor;
         Uri mUri;
         final AtomicBoolean mUpdatePending = new AtomicBoolean(false);
+        private long mMaxStaleMs = DEFAULT_MAX_STALE_MS;
+        // Guarded by this. The slice last bound from the provider, and when it was last known to
+        // be current.
+        private Slice mBoundSlice;
+        private long mBoundTimeMs;
+
         SliceLiveDataImpl(Context context, Uri uri) {
+            this(SliceViewManager.getInstance(context), uri, AsyncTask::execute);
+        }
+
+        @VisibleForTesting
+        SliceLiveDataImpl(SliceViewManager sliceViewManager, Uri uri, Executor bindExecutor) {
             super();
-            mSliceViewManager = SliceViewManager.getInstance(context);
+            mSliceViewManager = sliceViewManager;
+            mBindExecutor = bindExecutor;
             mUri = uri;
             mIntent = null;
             // TODO: Check if uri points at a Slice?
         }
 
+        /**
+         * Sets how long after it was last known to be current the slice may still be shown when
+         * the screen is shown again. An older slice is dropped until it is bound again.
+         */
+        @MainThread
+        void setMaxStaleMs(long maxStaleMs) {
+            mMaxStaleMs = maxStaleMs;
+        }
+
         @Override
         protected void onActive() {
-            AsyncTask.execute(mUpdateSlice);
+            if (mUri != null) {
+                sInactiveSlices.remove(mUri);
+            }
+            if (isCachedSliceExpired()) {
+                dropCachedSlice();
+            }
+            mBindExecutor.execute(mUpdateSlice);
             if (mUri != null) {
                 mSliceViewManager.registerSliceCallback(mUri, mSliceCallback);
             }
@@ -87,6 +159,15 @@ public final class PreferenceSliceLiveData {
             if (mUri != null) {
                 mSliceViewManager.unregisterSliceCallback(mUri, mSliceCallback);
             }
+            synchronized (this) {
+                // The slice callback kept the slice current until now.
+                if (mBoundSlice != null) {
+                    mBoundTimeMs = SystemClock.elapsedRealtime();
+                }
+            }
+            if (mUri != null) {
+                sInactiveSlices.put(mUri, this);
+            }
         }
 
         @Override
@@ -96,6 +177,37 @@ public final class PreferenceSliceLiveData {
             super.setValue(slice);
         }
 
+        private synchronized boolean isCachedSliceExpired() {
+            return mBoundSlice != null
+                    && SystemClock.elapsedRealtime() - mBoundTimeMs > mMaxStaleMs;
+        }
+
+        @MainThread
+        private void dropCachedSlice() {
+            synchronized (this) {
+                mBoundSlice = null;
+            }
+            if (getValue() != null) {
+                setValue(null);
+            }
+        }
+
+        /**
+         * Posts a slice from the provider.
+         *
+         * @param skipIfSame whether to skip the slice if it is the same as the last one
+         */
+        private synchronized void onSliceBound(@Nullable Slice slice, boolean skipIfSame) {
+            mBoundTimeMs = SystemClock.elapsedRealtime();
+            if (skipIfSame && slice != null && mBoundSlice != null
+                    && isSameContent(mBoundSlice, slice)) {
+                return;
+            }
+            mBoundSlice = slice;
+            // Posted under the lock, so that slices bound concurrently are posted in order.
+            postValue(slice);
+        }
+
         private final Runnable mUpdateSlice = new Runnable() {
             @Override
             public void run() {
@@ -106,10 +218,11 @@ public final class PreferenceSliceLiveData {
                         mUri = s.getUri();
                         mSliceViewManager.registerSliceCallback(mUri, mSliceCallback);
                     }
-                    postValue(s);
+                    // Only run when the screen becomes active, to refresh the cached slice.
+                    onSliceBound(s, true /* skipIfSame */);
                 } catch (Exception e) {
                     Log.e(TAG, "Error binding slice", e);
-                    postValue(null);
+                    onSliceBound(null, false /* skipIfSame */);
                 }
             }
         };
@@ -118,11 +231,82 @@ public final class PreferenceSliceLiveData {
                 new SliceViewManager.SliceCallback() {
                     @Override
                     public void onSliceUpdated(@NonNull Slice s) {
-                        postValue(s);
+                        onSliceBound(s, false /* skipIfSame */);
                     }
                 };
     }
 
+    /**
+     * Returns whether the slices show the same content. Items which cannot be compared, such as
+     * bitmap icons or remote inputs, are considered different.
+     */
+    @VisibleForTesting
+    static boolean isSameContent(Slice slice1, Slice slice2) {
+        if (slice1 == slice2) {
+            return true;
+        }
+        if (!Objects.equals(slice1.getUri(), slice2.getUri())
+                || !Objects.equals(slice1.getHints(), slice2.getHints())) {
+            return false;
+        }
+        final List<SliceItem> items1 = slice1.getItems();
+        final List<SliceItem> items2 = slice2.getItems();
+        if (items1.size() != items2.size()) {
+            return false;
+        }
+        for (int i = 0; i < items1.size(); i++) {
+            if (!isSameItem(items1.get(i), items2.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameItem(SliceItem item1, SliceItem item2) {
+        if (!Objects.equals(item1.getFormat(), item2.getFormat())
+                || !Objects.equals(item1.getSubType(), item2.getSubType())
+                || !Objects.equals(item1.getHints(), item2.getHints())) {
+            return false;
+        }
+        switch (item1.getFormat()) {
+            case FORMAT_TEXT:
+                return isSameText(item1.getText(), item2.getText());
+            case FORMAT_INT:
+                return item1.getInt() == item2.getInt();
+            case FORMAT_LONG:
+                return item1.getLong() == item2.getLong();
+            case FORMAT_SLICE:
+                return isSameContent(item1.getSlice(), item2.getSlice());
+            case FORMAT_ACTION:
+                return item1.getAction() != null
+                        && item1.getAction().equals(item2.getAction())
+                        && isSameContent(item1.getSlice(), item2.getSlice());
+            case FORMAT_IMAGE:
+                return isSameIcon(item1.getIcon(), item2.getIcon());
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isSameText(CharSequence text1, CharSequence text2) {
+        // Styled text is not compared, as the spans may differ.
+        if (text1 instanceof Spanned || text2 instanceof Spanned) {
+            return false;
+        }
+        return TextUtils.equals(text1, text2);
+    }
+
+    private static boolean isSameIcon(IconCompat icon1, IconCompat icon2) {
+        if (icon1 == null || icon2 == null) {
+            return icon1 == icon2;
+        }
+        // Only resource icons are compared, other icons would need their content to be compared.
+        return icon1.getType() == IconCompat.TYPE_RESOURCE
+                && icon2.getType() == IconCompat.TYPE_RESOURCE
+                && icon1.getResId() == icon2.getResId()
+                && TextUtils.equals(icon1.getResPackage(), icon2.getResPackage());
+    }
+
     private PreferenceSliceLiveData() {
     }
 }
@@ -254,6 +254,14 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
             return;
         }
 
+        final TransitionJankTracker jankTracker = TransitionJankTracker.getInstance();
+        final TransitionStats.Transition rebuild = jankTracker.begin(
+                TransitionJankTracker.getScreenName(this),
+                TransitionStats.TRANSITION_SLICE_REBUILD);
+        if (getListView() != null) {
+            jankTracker.countRebinds(rebuild, getListView().getAdapter());
+        }
+
         SliceItem redirectSliceItem = SlicePreferencesUtil.getRedirectSlice(items);
         String redirectSlice = null;
         if (redirectSliceItem != null) {
@@ -330,6 +338,7 @@ public class SliceFragment extends SettingsPreferenceFragment implements Observe
             ((TwoPanelSettingsFragment) getParentFragment()).refocusPreference(this);
         }
         mIsMainPanelReady = true;
+        jankTracker.endAfterNextFrame(rebuild);
     }
 
     private void back() {
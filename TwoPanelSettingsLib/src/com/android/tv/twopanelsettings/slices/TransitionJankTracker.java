@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.text.TextUtils;
+import android.util.ArrayMap;
+import android.util.Log;
+import android.view.Choreographer;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.android.tv.twopanelsettings.slices.TransitionStats.Transition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures panel moves, preview swaps and slice rebuilds, counting the slow frames drawn while
+ * they run, and logs the per screen results through {@link InstrumentationUtils} on
+ * {@link #flush()}.
+ *
+ * <p>Off unless enabled with {@code adb shell setprop log.tag.TvSettingsJank DEBUG}; when off,
+ * {@link #begin} returns null and every other method accepts null transitions.
+ * Must be used from the main thread.
+ */
+public final class TransitionJankTracker {
+    private static final String TAG = "TvSettingsJank";
+
+    private static TransitionJankTracker sInstance;
+
+    private final TransitionStats mStats;
+    private final Map<Transition, RebindCounter> mRebindCounters = new ArrayMap<>();
+    // Transitions ending once the next frame is drawn, and those ending on the frame after that,
+    // once the frame the transition was waiting for has been drawn.
+    private final List<Transition> mEndAfterNextFrame = new ArrayList<>();
+    private final List<Transition> mEndOnNextFrame = new ArrayList<>();
+    private long mLastFrameTimeNanos;
+    private boolean mFrameCallbackPosted;
+
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFrameCallbackPosted = false;
+            onFrame(frameTimeNanos);
+        }
+    };
+
+    /** Returns the tracker shared by all fragments. */
+    public static TransitionJankTracker getInstance() {
+        if (sInstance == null) {
+            sInstance = new TransitionJankTracker(new TransitionStats(SystemClock::uptimeMillis));
+        }
+        return sInstance;
+    }
+
+    @VisibleForTesting
+    TransitionJankTracker(TransitionStats stats) {
+        mStats = stats;
+    }
+
+    /** Returns whether transitions are being measured. */
+    public static boolean isEnabled() {
+        return Log.isLoggable(TAG, Log.DEBUG);
+    }
+
+    /** Returns the name transitions of the fragment are aggregated under. */
+    public static String getScreenName(@Nullable Fragment fragment) {
+        if (fragment == null) {
+            return "null";
+        }
+        final Bundle args = fragment.getArguments();
+        final String uri = args != null ? args.getString(SlicesConstants.TAG_TARGET_URI) : null;
+        return TextUtils.isEmpty(uri) ? fragment.getClass().getSimpleName() : uri;
+    }
+
+    /** Starts measuring a transition, or returns null if measuring is off. */
+    @Nullable
+    public Transition begin(String screen, @TransitionStats.TransitionType int type) {
+        if (!isEnabled()) {
+            return null;
+        }
+        final Transition transition = mStats.begin(screen, type);
+        postFrameCallback();
+        return transition;
+    }
+
+    /**
+     * Counts the items the adapter changes or inserts until the transition ends, each of them
+     * being bound again.
+     */
+    public void countRebinds(@Nullable Transition transition,
+            @Nullable RecyclerView.Adapter<?> adapter) {
+        if (transition == null || adapter == null || mRebindCounters.containsKey(transition)) {
+            return;
+        }
+        final RebindCounter counter = new RebindCounter(transition, adapter);
+        adapter.registerAdapterDataObserver(counter);
+        mRebindCounters.put(transition, counter);
+    }
+
+    /** Ends the transition now. */
+    public void end(@Nullable Transition transition) {
+        if (transition == null) {
+            return;
+        }
+        final RebindCounter counter = mRebindCounters.remove(transition);
+        if (counter != null) {
+            counter.mAdapter.unregisterAdapterDataObserver(counter);
+        }
+        mStats.end(transition);
+    }
+
+    /** Ends the transition once the next frame, showing its result, has been drawn. */
+    public void endAfterNextFrame(@Nullable Transition transition) {
+        if (transition == null) {
+            return;
+        }
+        mEndAfterNextFrame.add(transition);
+        postFrameCallback();
+    }
+
+    /** Logs the results recorded so far and starts over. */
+    public void flush() {
+        for (TransitionStats.Histogram histogram : mStats.drain()) {
+            InstrumentationUtils.logTransitionStats(histogram);
+        }
+    }
+
+    @VisibleForTesting
+    void onFrame(long frameTimeNanos) {
+        if (mLastFrameTimeNanos != 0) {
+            mStats.onFrame((frameTimeNanos - mLastFrameTimeNanos) / 1_000_000);
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+
+        // This callback runs as the frame starts, so the previous frame has been drawn.
+        for (Transition transition : mEndOnNextFrame) {
+            end(transition);
+        }
+        mEndOnNextFrame.clear();
+        mEndOnNextFrame.addAll(mEndAfterNextFrame);
+        mEndAfterNextFrame.clear();
+
+        if (mStats.hasActiveTransitions()) {
+            postFrameCallback();
+        } else {
+            mLastFrameTimeNanos = 0;
+        }
+    }
+
+    private void postFrameCallback() {
+        if (!mFrameCallbackPosted) {
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+            mFrameCallbackPosted = true;
+        }
+    }
+
+    private static final class RebindCounter extends RecyclerView.AdapterDataObserver {
+        private final Transition mTransition;
+        private final RecyclerView.Adapter<?> mAdapter;
+
+        RebindCounter(Transition transition, RecyclerView.Adapter<?> adapter) {
+            mTransition = transition;
+            mAdapter = adapter;
+        }
+
+        @Override
+        public void onChanged() {
+            mTransition.addRebinds(mAdapter.getItemCount());
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            mTransition.addRebinds(itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mTransition.addRebinds(itemCount);
+        }
+    }
+}
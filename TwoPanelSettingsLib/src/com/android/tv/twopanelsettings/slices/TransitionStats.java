@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.tv.twopanelsettings.slices;
+
+import android.util.ArrayMap;
+
+import androidx.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregates the duration, preference rebinds and slow frames of UI transitions into per screen
+ * histograms. Time comes from the given {@link Clock}; frames are reported by the caller.
+ *
+ * <p>Not thread safe, meant to be used from the main thread.
+ */
+public final class TransitionStats {
+
+    public static final int TRANSITION_PANEL_MOVE = 0;
+    public static final int TRANSITION_PREVIEW_SWAP = 1;
+    public static final int TRANSITION_SLICE_REBUILD = 2;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({TRANSITION_PANEL_MOVE, TRANSITION_PREVIEW_SWAP, TRANSITION_SLICE_REBUILD})
+    public @interface TransitionType {
+    }
+
+    /** Upper bounds of the duration buckets, in ms; the last bucket has no upper bound. */
+    static final long[] DURATION_BUCKET_BOUNDS_MS = {16, 33, 66, 133, 266, 533, 1066};
+
+    /** A frame taking longer than one and a half 60Hz frames is counted as slow. */
+    static final long SLOW_FRAME_MS = 25;
+
+    /** Source of time, {@link android.os.SystemClock#uptimeMillis} outside of tests. */
+    interface Clock {
+        long uptimeMillis();
+    }
+
+    private final Clock mClock;
+    private final List<Transition> mActive = new ArrayList<>();
+    // Keyed by screen, then by transition type.
+    private final Map<String, Map<Integer, Histogram>> mHistograms = new ArrayMap<>();
+
+    TransitionStats(Clock clock) {
+        mClock = clock;
+    }
+
+    /** Starts timing a transition of the given screen. */
+    Transition begin(String screen, @TransitionType int type) {
+        final Transition transition = new Transition(screen, type, mClock.uptimeMillis());
+        mActive.add(transition);
+        return transition;
+    }
+
+    /** Stops timing the transition and adds it to the histogram of its screen. */
+    void end(Transition transition) {
+        if (!mActive.remove(transition)) {
+            return;
+        }
+        Map<Integer, Histogram> byType = mHistograms.get(transition.mScreen);
+        if (byType == null) {
+            byType = new ArrayMap<>();
+            mHistograms.put(transition.mScreen, byType);
+        }
+        Histogram histogram = byType.get(transition.mType);
+        if (histogram == null) {
+            histogram = new Histogram(transition.mScreen, transition.mType);
+            byType.put(transition.mType, histogram);
+        }
+        histogram.add(mClock.uptimeMillis() - transition.mStartMs, transition.mRebinds,
+                transition.mSlowFrames);
+    }
+
+    /** Records a frame drawn while transitions are running. */
+    void onFrame(long frameDurationMs) {
+        if (frameDurationMs <= SLOW_FRAME_MS) {
+            return;
+        }
+        for (int i = 0; i < mActive.size(); i++) {
+            mActive.get(i).mSlowFrames++;
+        }
+    }
+
+    boolean hasActiveTransitions() {
+        return !mActive.isEmpty();
+    }
+
+    /** Returns the histograms recorded so far and starts new ones. */
+    List<Histogram> drain() {
+        final List<Histogram> histograms = new ArrayList<>();
+        for (Map<Integer, Histogram> byType : mHistograms.values()) {
+            histograms.addAll(byType.values());
+        }
+        mHistograms.clear();
+        return histograms;
+    }
+
+    /** A transition being timed. */
+    public static final class Transition {
+        private final String mScreen;
+        private final int mType;
+        private final long mStartMs;
+        private int mRebinds;
+        private int mSlowFrames;
+
+        private Transition(String screen, int type, long startMs) {
+            mScreen = screen;
+            mType = type;
+            mStartMs = startMs;
+        }
+
+        /** Records preferences rebound as part of this transition. */
+        void addRebinds(int count) {
+            mRebinds += count;
+        }
+    }
+
+    /** Durations of the transitions of one type on one screen. */
+    static final class Histogram {
+        final String screen;
+        final int type;
+        final int[] bucketCounts = new int[DURATION_BUCKET_BOUNDS_MS.length + 1];
+        int count;
+        long maxDurationMs;
+        long totalDurationMs;
+        int totalRebinds;
+        int totalSlowFrames;
+
+        private Histogram(String screen, int type) {
+            this.screen = screen;
+            this.type = type;
+        }
+
+        private void add(long durationMs, int rebinds, int slowFrames) {
+            int bucket = 0;
+            while (bucket < DURATION_BUCKET_BOUNDS_MS.length
+                    && durationMs > DURATION_BUCKET_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            bucketCounts[bucket]++;
+            count++;
+            maxDurationMs = Math.max(maxDurationMs, durationMs);
+            totalDurationMs += durationMs;
+            totalRebinds += rebinds;
+            totalSlowFrames += slowFrames;
+        }
+    }
+}